@@ -0,0 +1,149 @@
+import groovy.json.JsonSlurper
+import org.gradle.api.DefaultTask
+import org.gradle.api.file.ConfigurableFileCollection
+import org.gradle.api.file.DirectoryProperty
+import org.gradle.api.tasks.InputFiles
+import org.gradle.api.tasks.OutputDirectory
+import org.gradle.api.tasks.PathSensitive
+import org.gradle.api.tasks.PathSensitivity
+import org.gradle.api.tasks.TaskAction
+import java.io.DataOutputStream
+
+/**
+ * Precompiles the bundled JSON registries into the binary images read by
+ * `com.sk89q.worldedit.world.registry.RegistryImages`. The layout written
+ * here must match that class.
+ */
+abstract class CompileRegistryImages : DefaultTask() {
+
+    @get:[
+    PathSensitive(PathSensitivity.NAME_ONLY)
+    InputFiles
+    ]
+    abstract val sourceFiles: ConfigurableFileCollection
+
+    @get:OutputDirectory
+    abstract val outputDirectory: DirectoryProperty
+
+    @TaskAction
+    fun compile() {
+        val outputDir = outputDirectory.get().asFile
+        outputDir.deleteRecursively()
+        outputDir.mkdirs()
+        for (file in sourceFiles.files) {
+            val json = JsonSlurper().parse(file)
+            val output = outputDir.resolve(file.nameWithoutExtension + ".bin")
+            DataOutputStream(output.outputStream().buffered()).use { out ->
+                when {
+                    file.name.startsWith("blocks") -> writeBlocks(out, json.asListOfMaps())
+                    file.name.startsWith("items") -> writeItems(out, json.asListOfMaps())
+                    file.name == "legacy.json" -> writeLegacy(out, json.asMap())
+                    else -> error("Unknown registry file ${file.name}")
+                }
+            }
+        }
+    }
+
+    private fun writeHeader(out: DataOutputStream, kind: Int) {
+        out.writeInt(MAGIC)
+        out.writeShort(FORMAT_VERSION)
+        out.writeByte(kind)
+    }
+
+    private fun writeBlocks(out: DataOutputStream, entries: List<Map<String, Any?>>) {
+        writeHeader(out, KIND_BLOCKS)
+        out.writeInt(entries.size)
+        for (entry in entries) {
+            out.writeUTF(entry["id"] as String)
+            writeNullableUTF(out, entry["localizedName"] as String?)
+            val material = entry["material"].asMap()
+            var flags = 0
+            MATERIAL_FLAGS.forEachIndexed { bit, name ->
+                if (material[name] == true) {
+                    flags = flags or (1 shl bit)
+                }
+            }
+            out.writeInt(flags)
+            // Go through double like Gson does, so the values round the same way
+            out.writeFloat((material["hardness"] as Number?)?.toDouble()?.toFloat() ?: 0f)
+            out.writeFloat((material["resistance"] as Number?)?.toDouble()?.toFloat() ?: 0f)
+            out.writeFloat((material["slipperiness"] as Number?)?.toDouble()?.toFloat() ?: 0f)
+            out.writeInt((material["lightValue"] as Number?)?.toInt() ?: 0)
+        }
+    }
+
+    private fun writeItems(out: DataOutputStream, entries: List<Map<String, Any?>>) {
+        writeHeader(out, KIND_ITEMS)
+        out.writeInt(entries.size)
+        for (entry in entries) {
+            out.writeUTF(entry["id"] as String)
+            writeNullableUTF(out, entry["unlocalizedName"] as String?)
+            writeNullableUTF(out, entry["localizedName"] as String?)
+            out.writeInt((entry["maxDamage"] as Number?)?.toInt() ?: 0)
+            out.writeInt((entry["maxStackSize"] as Number?)?.toInt() ?: 0)
+        }
+    }
+
+    private fun writeLegacy(out: DataOutputStream, data: Map<String, Any?>) {
+        writeHeader(out, KIND_LEGACY)
+        val blocks = data["blocks"].asMap()
+        out.writeInt(blocks.size)
+        for ((key, value) in blocks) {
+            value as String
+            out.writeUTF(key)
+            out.writeUTF(value)
+            // Pre-split "id[name=value,...]" so it can be resolved without the block parser
+            val match = BLOCK_STATE.matchEntire(value)
+            val properties = match?.groupValues?.get(2)
+                ?.takeIf { it.isNotEmpty() }
+                ?.split(',')
+                ?.map { it.substringBefore('=') to it.substringAfter('=') }
+                .orEmpty()
+            check(properties.size <= 0xFF) { "Too many properties in $value" }
+            out.writeUTF(match?.groupValues?.get(1) ?: value)
+            out.writeByte(properties.size)
+            for ((name, propertyValue) in properties) {
+                out.writeUTF(name)
+                out.writeUTF(propertyValue)
+            }
+        }
+        val items = data["items"].asMap()
+        out.writeInt(items.size)
+        for ((key, value) in items) {
+            out.writeUTF(key)
+            out.writeUTF(value as String)
+        }
+    }
+
+    private fun writeNullableUTF(out: DataOutputStream, value: String?) {
+        out.writeBoolean(value != null)
+        if (value != null) {
+            out.writeUTF(value)
+        }
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun Any?.asMap() = this as Map<String, Any?>
+
+    @Suppress("UNCHECKED_CAST")
+    private fun Any?.asListOfMaps() = this as List<Map<String, Any?>>
+
+    private companion object {
+        const val MAGIC = 0x57455249
+        const val FORMAT_VERSION = 1
+        const val KIND_BLOCKS = 0
+        const val KIND_ITEMS = 1
+        const val KIND_LEGACY = 2
+
+        // Bit order of the material flags, from the lowest bit up
+        val MATERIAL_FLAGS = listOf(
+            "fullCube", "opaque", "powerSource", "liquid", "solid",
+            "fragileWhenPushed", "unpushable", "ticksRandomly", "movementBlocker",
+            "burnable", "toolRequired", "replacedDuringPlacement", "isTranslucent",
+            "hasContainer"
+        )
+
+        val BLOCK_STATE = Regex("""([^\[\]]+)(?:\[([^\[\]]*)])?""")
+    }
+
+}
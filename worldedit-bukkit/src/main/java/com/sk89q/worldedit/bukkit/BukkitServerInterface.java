@@ -35,6 +35,7 @@
 import com.sk89q.worldedit.util.SideEffect;
 import com.sk89q.worldedit.util.concurrency.LazyReference;
 import com.sk89q.worldedit.world.DataFixer;
+import com.sk89q.worldedit.world.MemoizingDataFixer;
 import com.sk89q.worldedit.world.registry.Registries;
 import org.bukkit.Bukkit;
 import org.bukkit.Server;
@@ -61,6 +62,7 @@ public class BukkitServerInterface extends AbstractPlatform implements MultiUser
     private final CommandRegistration dynamicCommands;
     private final LazyReference<Watchdog> watchdog;
     private boolean hookingEvents;
+    private DataFixer dataFixer;
 
     public BukkitServerInterface(WorldEditPlugin plugin, Server server) {
         this.plugin = plugin;
@@ -101,7 +103,10 @@ public int getDataVersion() {
     @Override
     public DataFixer getDataFixer() {
         if (plugin.getBukkitImplAdapter() != null) {
-            return plugin.getBukkitImplAdapter().getDataFixer();
+            if (dataFixer == null) {
+                dataFixer = MemoizingDataFixer.wrap(plugin.getBukkitImplAdapter().getDataFixer());
+            }
+            return dataFixer;
         }
         return null;
     }
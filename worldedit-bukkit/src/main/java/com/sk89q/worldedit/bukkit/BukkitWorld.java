@@ -45,6 +45,7 @@
 import com.sk89q.worldedit.world.weather.WeatherType;
 import com.sk89q.worldedit.world.weather.WeatherTypes;
 import org.bukkit.Effect;
+import org.bukkit.Location;
 import org.bukkit.TreeType;
 import org.bukkit.World;
 import org.bukkit.block.Block;
@@ -425,10 +426,15 @@ public void simulateBlockMine(BlockVector3 pt) {
 
     @Override
     public com.sk89q.worldedit.world.block.BlockState getBlock(BlockVector3 position) {
+        return getBlock(position.getBlockX(), position.getBlockY(), position.getBlockZ());
+    }
+
+    @Override
+    public com.sk89q.worldedit.world.block.BlockState getBlock(int x, int y, int z) {
         BukkitImplAdapter adapter = WorldEditPlugin.getInstance().getBukkitImplAdapter();
         if (adapter != null) {
             try {
-                return adapter.getBlock(BukkitAdapter.adapt(getWorld(), position)).toImmutableState();
+                return adapter.getBlock(new Location(getWorld(), x, y, z)).toImmutableState();
             } catch (Exception e) {
                 if (!hasWarnedImplError) {
                     hasWarnedImplError = true;
@@ -436,7 +442,7 @@ public com.sk89q.worldedit.world.block.BlockState getBlock(BlockVector3 position
                 }
             }
         }
-        Block bukkitBlock = getWorld().getBlockAt(position.getBlockX(), position.getBlockY(), position.getBlockZ());
+        Block bukkitBlock = getWorld().getBlockAt(x, y, z);
         return BukkitAdapter.adapt(bukkitBlock.getBlockData());
     }
 
@@ -462,11 +468,16 @@ public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 position, B
 
     @Override
     public BaseBlock getFullBlock(BlockVector3 position) {
+        return getFullBlock(position.getBlockX(), position.getBlockY(), position.getBlockZ());
+    }
+
+    @Override
+    public BaseBlock getFullBlock(int x, int y, int z) {
         BukkitImplAdapter adapter = WorldEditPlugin.getInstance().getBukkitImplAdapter();
         if (adapter != null) {
-            return adapter.getBlock(BukkitAdapter.adapt(getWorld(), position));
+            return adapter.getBlock(new Location(getWorld(), x, y, z));
         } else {
-            return getBlock(position).toBaseBlock();
+            return getBlock(x, y, z).toBaseBlock();
         }
     }
 
@@ -503,10 +514,16 @@ public boolean fullySupports3DBiomes() {
     @SuppressWarnings("deprecation")
     @Override
     public BiomeType getBiome(BlockVector3 position) {
+        return getBiome(position.getBlockX(), position.getBlockY(), position.getBlockZ());
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public BiomeType getBiome(int x, int y, int z) {
         if (HAS_3D_BIOMES) {
-            return BukkitAdapter.adapt(getWorld().getBiome(position.getBlockX(), position.getBlockY(), position.getBlockZ()));
+            return BukkitAdapter.adapt(getWorld().getBiome(x, y, z));
         } else {
-            return BukkitAdapter.adapt(getWorld().getBiome(position.getBlockX(), position.getBlockZ()));
+            return BukkitAdapter.adapt(getWorld().getBiome(x, z));
         }
     }
 
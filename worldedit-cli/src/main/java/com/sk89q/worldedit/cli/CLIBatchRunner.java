@@ -0,0 +1,268 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.cli;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sk89q.worldedit.LocalSession;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.cli.anvil.AnvilWorld;
+import com.sk89q.worldedit.cli.schematic.ClipboardWorld;
+import com.sk89q.worldedit.event.platform.CommandEvent;
+import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormat;
+import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormats;
+import com.sk89q.worldedit.extent.clipboard.io.ClipboardReader;
+import com.sk89q.worldedit.world.World;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.annotation.Nullable;
+
+/**
+ * Runs a script of commands against many schematics or worlds.
+ *
+ * <p>Each input gets its own command sender, and so its own session, and
+ * inputs are processed in parallel. The commands of one input run in
+ * order. Progress is logged per command as it happens, with how long each
+ * step took, and a summary of the time spent in each step is logged at the
+ * end.</p>
+ */
+class CLIBatchRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CLIBatchRunner.class);
+
+    /**
+     * Get the data version of an input.
+     *
+     * @param input a schematic, or the level.dat of a world
+     * @return the data version
+     * @throws IOException if the input can't be read
+     * @throws IllegalArgumentException if the input is a world of an unsupported version
+     */
+    static int readDataVersion(File input) throws IOException {
+        if (isWorld(input)) {
+            int dataVersion = AnvilWorld.readDataVersion(input.toPath());
+            AnvilWorld.checkDataVersion(dataVersion);
+            return dataVersion;
+        }
+        ClipboardFormat format = ClipboardFormats.findByFile(input);
+        if (format == null) {
+            throw new IOException("Unknown file provided: " + input);
+        }
+        try (ClipboardReader reader = format.getReader(Files.newInputStream(input.toPath(), StandardOpenOption.READ))) {
+            return reader.getDataVersion()
+                .orElseThrow(() -> new IOException("Failed to obtain data version from " + input));
+        }
+    }
+
+    private final CLIWorldEdit app;
+    private final CLIPlatform platform;
+    private final List<String> commands;
+    private final int threads;
+    @Nullable
+    private final Path outputDir;
+    private final AtomicLongArray stageNanos;
+
+    /**
+     * Create a runner.
+     *
+     * @param app the CLI
+     * @param platform the CLI platform
+     * @param commands the commands to run on each input, in order
+     * @param threads the number of inputs to process at once
+     * @param outputDir the folder to write changed schematics to, or null to overwrite them.
+     *     Worlds are always edited in place, so they can't be combined with it
+     */
+    CLIBatchRunner(CLIWorldEdit app, CLIPlatform platform, List<String> commands, int threads, @Nullable Path outputDir) {
+        this.app = app;
+        this.platform = platform;
+        this.commands = ImmutableList.copyOf(commands);
+        this.threads = threads;
+        this.outputDir = outputDir;
+        // one slot per command, plus loading and saving
+        this.stageNanos = new AtomicLongArray(commands.size() + 2);
+    }
+
+    /**
+     * Process all inputs.
+     *
+     * @param inputs the schematics and level.dat files to process
+     * @return true if every input was processed without errors
+     */
+    boolean run(List<File> inputs) {
+        checkInputs(inputs);
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, inputs.size())),
+            new ThreadFactoryBuilder().setNameFormat("WorldEdit Batch #%d").build());
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (File input : inputs) {
+            results.add(executor.submit(() -> process(input)));
+        }
+        executor.shutdown();
+
+        int failed = 0;
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                if (!results.get(i).get()) {
+                    failed++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                executor.shutdownNow();
+                return false;
+            } catch (ExecutionException e) {
+                LOGGER.error("[" + inputs.get(i).getName() + "] failed", e.getCause());
+                failed++;
+            }
+        }
+
+        LOGGER.info("Processed " + (inputs.size() - failed) + " of " + inputs.size() + " inputs in "
+            + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        logStage("load", stageNanos.get(0));
+        for (int i = 0; i < commands.size(); i++) {
+            logStage(commands.get(i), stageNanos.get(i + 1));
+        }
+        logStage("save", stageNanos.get(commands.size() + 1));
+        return failed == 0;
+    }
+
+    /**
+     * Check that no two inputs are written to the same place, and that
+     * worlds are only given when they are edited in place.
+     *
+     * @param inputs the schematics and level.dat files to process
+     * @throws IllegalArgumentException if the inputs can't be processed together
+     */
+    void checkInputs(List<File> inputs) {
+        Map<Path, File> targets = new HashMap<>();
+        for (File input : inputs) {
+            if (isWorld(input) && outputDir != null) {
+                throw new IllegalArgumentException("Worlds are edited in place, so they can't be combined with "
+                    + "an output folder: " + input);
+            }
+            Path target = (isWorld(input) ? input.toPath().toAbsolutePath().getParent() : target(input).toPath())
+                .toAbsolutePath().normalize();
+            File previous = targets.putIfAbsent(target, input);
+            if (previous != null) {
+                throw new IllegalArgumentException("Both " + previous + " and " + input + " would be written to "
+                    + target);
+            }
+        }
+    }
+
+    private static boolean isWorld(File input) {
+        return input.getName().endsWith("level.dat");
+    }
+
+    private File target(File input) {
+        return outputDir != null ? outputDir.resolve(input.getName()).toFile() : input;
+    }
+
+    private void logStage(String stage, long nanos) {
+        LOGGER.info("  " + stage + ": " + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms total");
+    }
+
+    private boolean process(File input) throws IOException {
+        String name = isWorld(input)
+            ? input.getAbsoluteFile().getParentFile().getName()
+            : input.getName();
+        Logger output = LoggerFactory.getLogger("WorldEdit-" + name);
+        CLICommandSender actor = new CLICommandSender(app, output, UUID.randomUUID(), name);
+
+        long stageStart = System.nanoTime();
+        World world = open(input, name);
+        long elapsed = record(0, stageStart);
+        output.info("loaded in " + TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms");
+
+        try {
+            platform.addWorld(world);
+            LocalSession session = WorldEdit.getInstance().getSessionManager().get(actor);
+            session.setWorldOverride(world);
+            boolean succeeded = true;
+            for (int i = 0; i < commands.size(); i++) {
+                String command = commands.get(i);
+                stageStart = System.nanoTime();
+                CommandEvent event = new CommandEvent(actor, command);
+                WorldEdit.getInstance().getEventBus().post(event);
+                elapsed = record(i + 1, stageStart);
+                if (!event.isCancelled()) {
+                    output.error("unknown command: " + command);
+                    succeeded = false;
+                    break;
+                }
+                output.info(command + " took " + TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms");
+            }
+
+            stageStart = System.nanoTime();
+            ((CLIWorld) world).save(outputDir != null);
+            elapsed = record(commands.size() + 1, stageStart);
+            output.info("saved in " + TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms");
+            return succeeded;
+        } finally {
+            platform.removeWorld(world);
+            WorldEdit.getInstance().getSessionManager().remove(actor);
+            ((CLIWorld) world).close();
+        }
+    }
+
+    private long record(int stage, long start) {
+        long elapsed = System.nanoTime() - start;
+        stageNanos.addAndGet(stage, elapsed);
+        return elapsed;
+    }
+
+    /**
+     * Open an input as a world.
+     *
+     * @param input a schematic, or the level.dat of a world
+     * @param name the name of the world
+     * @return the world, which is also a {@link CLIWorld}
+     * @throws IOException if the input can't be read
+     */
+    World open(File input, String name) throws IOException {
+        if (isWorld(input)) {
+            return new AnvilWorld(input.toPath().toAbsolutePath().getParent());
+        }
+        ClipboardFormat format = ClipboardFormats.findByFile(input);
+        if (format == null) {
+            throw new IOException("Unknown file provided: " + input);
+        }
+        try (ClipboardReader reader = format.getReader(Files.newInputStream(input.toPath(), StandardOpenOption.READ))) {
+            return new ClipboardWorld(target(input), reader.read(), name);
+        }
+    }
+
+}
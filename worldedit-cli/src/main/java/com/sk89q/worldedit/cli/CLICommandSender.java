@@ -45,23 +45,41 @@ public class CLICommandSender implements Actor {
 
     private final CLIWorldEdit app;
     private final Logger sender;
+    private final UUID id;
+    private final String name;
 
     public CLICommandSender(CLIWorldEdit app, Logger sender) {
+        this(app, sender, DEFAULT_ID, "Console");
+    }
+
+    /**
+     * Create a sender with its own identity, and so its own session.
+     *
+     * @param app the CLI
+     * @param sender the logger to print messages to
+     * @param id the unique ID of the sender
+     * @param name the name of the sender
+     */
+    public CLICommandSender(CLIWorldEdit app, Logger sender, UUID id, String name) {
         checkNotNull(app);
         checkNotNull(sender);
+        checkNotNull(id);
+        checkNotNull(name);
 
         this.app = app;
         this.sender = sender;
+        this.id = id;
+        this.name = name;
     }
 
     @Override
     public UUID getUniqueId() {
-        return DEFAULT_ID;
+        return id;
     }
 
     @Override
     public String getName() {
-        return "Console";
+        return name;
     }
 
     @Override
@@ -154,7 +172,7 @@ public SessionKey getSessionKey() {
         return new SessionKey() {
             @Override
             public String getName() {
-                return "Console";
+                return name;
             }
 
             @Override
@@ -169,7 +187,7 @@ public boolean isPersistent() {
 
             @Override
             public UUID getUniqueId() {
-                return DEFAULT_ID;
+                return id;
             }
         };
     }
@@ -31,13 +31,13 @@
 import com.sk89q.worldedit.world.registry.Registries;
 import org.enginehub.piston.CommandManager;
 
-import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.CopyOnWriteArrayList;
 import javax.annotation.Nullable;
 
 class CLIPlatform extends AbstractPlatform {
@@ -45,7 +45,7 @@ class CLIPlatform extends AbstractPlatform {
     private final CLIWorldEdit app;
     private int dataVersion = -1;
 
-    private final List<World> worlds = new ArrayList<>();
+    private final List<World> worlds = new CopyOnWriteArrayList<>();
     private final Timer timer = new Timer();
     private int lastTimerId = 0;
 
@@ -163,4 +163,8 @@ public Set<SideEffect> getSupportedSideEffects() {
     public void addWorld(World world) {
         worlds.add(world);
     }
+
+    public void removeWorld(World world) {
+        worlds.remove(world);
+    }
 }
@@ -41,4 +41,10 @@ public interface CLIWorld {
      * @param dirty if dirty
      */
     void setDirty(boolean dirty);
+
+    /**
+     * Release the resources held by this world. Changes that weren't saved
+     * are lost.
+     */
+    void close();
 }
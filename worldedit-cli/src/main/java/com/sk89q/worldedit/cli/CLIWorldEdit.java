@@ -20,6 +20,7 @@
 package com.sk89q.worldedit.cli;
 
 import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.cli.anvil.AnvilWorld;
 import com.sk89q.worldedit.cli.data.FileRegistries;
 import com.sk89q.worldedit.cli.schematic.ClipboardWorld;
 import com.sk89q.worldedit.event.platform.CommandEvent;
@@ -59,8 +60,10 @@
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.stream.Collectors;
 
 /**
  * The CLI implementation of WorldEdit.
@@ -179,6 +182,9 @@ public void onStarted() {
     }
 
     public void onStopped() {
+        platform.getWorlds().stream()
+                .filter(world -> world instanceof CLIWorld)
+                .forEach(world -> ((CLIWorld) world).close());
         WorldEdit worldEdit = WorldEdit.getInstance();
         worldEdit.getSessionManager().unload();
         worldEdit.getPlatformManager().unregister(platform);
@@ -254,10 +260,48 @@ public void run(InputStream inputStream) {
         }
     }
 
+    /**
+     * Run the batch script given on the command line on every input given
+     * after the options.
+     *
+     * @param cmd the command line
+     * @return true if every input was processed without errors
+     * @throws IOException if the script or the first input can't be read
+     */
+    private boolean runBatch(CommandLine cmd) throws IOException {
+        List<String> commands = Files.readAllLines(Paths.get(cmd.getOptionValue('b')), StandardCharsets.UTF_8).stream()
+            .map(String::trim)
+            .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+            .collect(Collectors.toList());
+        List<File> inputs = cmd.getArgList().stream()
+            .map(File::new)
+            .collect(Collectors.toList());
+        if (inputs.isEmpty()) {
+            throw new IllegalArgumentException("No inputs were given for the batch script.");
+        }
+
+        // the registries are global, so every input is read with those of the first one
+        platform.setDataVersion(CLIBatchRunner.readDataVersion(inputs.get(0)));
+        onStarted();
+
+        Path outputDir = null;
+        if (cmd.hasOption('o')) {
+            outputDir = Paths.get(cmd.getOptionValue('o'));
+            Files.createDirectories(outputDir);
+        }
+        int threads = cmd.hasOption('t')
+            ? Integer.parseInt(cmd.getOptionValue('t'))
+            : Runtime.getRuntime().availableProcessors();
+        return new CLIBatchRunner(this, platform, commands, threads, outputDir).run(inputs);
+    }
+
     public static void main(String[] args) {
         Options options = new Options();
         options.addOption("f", "file", true, "The file to load in. Either a schematic, or a level.dat in a world folder.");
         options.addOption("s", "script", true, "A file containing a list of commands to run. Newline separated.");
+        options.addOption("b", "batch", true, "A file containing a list of commands to run on each input given after the options. Inputs are processed in parallel.");
+        options.addOption("o", "output", true, "The folder to write processed schematics to in batch mode. By default, they are overwritten. Worlds are always edited in place, so this can't be used with them.");
+        options.addOption("t", "threads", true, "The number of inputs to process at once in batch mode. Defaults to the number of processors.");
         int exitCode = 0;
 
         CLIWorldEdit app = new CLIWorldEdit();
@@ -268,57 +312,69 @@ public static void main(String[] args) {
         try {
             CommandLine cmd = new DefaultParser().parse(options, args);
 
-            String fileArg = cmd.getOptionValue('f');
-            File file;
-            if (fileArg == null) {
-                String[] formats = Arrays.copyOf(ClipboardFormats.getFileExtensionArray(), ClipboardFormats.getFileExtensionArray().length + 1);
-                formats[formats.length - 1] = "dat";
-                file = app.commandSender.openFileOpenDialog(formats);
-            } else {
-                file = new File(fileArg);
-            }
-            if (file == null) {
-                throw new IllegalArgumentException("A file must be provided!");
-            }
-            if (file.getName().endsWith("level.dat")) {
-                throw new IllegalArgumentException("level.dat file support is unfinished.");
+            if (cmd.hasOption('b')) {
+                if (!app.runBatch(cmd)) {
+                    exitCode = 1;
+                }
             } else {
-                ClipboardFormat format = ClipboardFormats.findByFile(file);
-                if (format != null) {
-                    ClipboardReader dataVersionReader = format
-                            .getReader(Files.newInputStream(file.toPath(), StandardOpenOption.READ));
-                    int dataVersion = dataVersionReader.getDataVersion()
-                            .orElseThrow(() -> new IllegalArgumentException("Failed to obtain data version from schematic."));
-                    dataVersionReader.close();
+                String fileArg = cmd.getOptionValue('f');
+                File file;
+                if (fileArg == null) {
+                    String[] formats = Arrays.copyOf(ClipboardFormats.getFileExtensionArray(), ClipboardFormats.getFileExtensionArray().length + 1);
+                    formats[formats.length - 1] = "dat";
+                    file = app.commandSender.openFileOpenDialog(formats);
+                } else {
+                    file = new File(fileArg);
+                }
+                if (file == null) {
+                    throw new IllegalArgumentException("A file must be provided!");
+                }
+                if (file.getName().endsWith("level.dat")) {
+                    int dataVersion = AnvilWorld.readDataVersion(file.toPath());
+                    AnvilWorld.checkDataVersion(dataVersion);
                     app.platform.setDataVersion(dataVersion);
                     app.onStarted();
-                    try (ClipboardReader clipboardReader = format.getReader(Files.newInputStream(file.toPath(), StandardOpenOption.READ))) {
-                        ClipboardWorld world = new ClipboardWorld(
-                                file,
-                                clipboardReader.read(),
-                                file.getName()
-                        );
-                        app.platform.addWorld(world);
-                        WorldEdit.getInstance().getSessionManager().get(app.commandSender).setWorldOverride(world);
-                    }
+                    AnvilWorld world = new AnvilWorld(file.toPath().toAbsolutePath().getParent());
+                    app.platform.addWorld(world);
+                    WorldEdit.getInstance().getSessionManager().get(app.commandSender).setWorldOverride(world);
                 } else {
-                    throw new IllegalArgumentException("Unknown file provided!");
+                    ClipboardFormat format = ClipboardFormats.findByFile(file);
+                    if (format != null) {
+                        ClipboardReader dataVersionReader = format
+                                .getReader(Files.newInputStream(file.toPath(), StandardOpenOption.READ));
+                        int dataVersion = dataVersionReader.getDataVersion()
+                                .orElseThrow(() -> new IllegalArgumentException("Failed to obtain data version from schematic."));
+                        dataVersionReader.close();
+                        app.platform.setDataVersion(dataVersion);
+                        app.onStarted();
+                        try (ClipboardReader clipboardReader = format.getReader(Files.newInputStream(file.toPath(), StandardOpenOption.READ))) {
+                            ClipboardWorld world = new ClipboardWorld(
+                                    file,
+                                    clipboardReader.read(),
+                                    file.getName()
+                            );
+                            app.platform.addWorld(world);
+                            WorldEdit.getInstance().getSessionManager().get(app.commandSender).setWorldOverride(world);
+                        }
+                    } else {
+                        throw new IllegalArgumentException("Unknown file provided!");
+                    }
                 }
-            }
 
-            String scriptFile = cmd.getOptionValue('s');
-            if (scriptFile != null) {
-                File scriptFileHandle = new File(scriptFile);
-                if (!scriptFileHandle.exists()) {
-                    throw new IllegalArgumentException("Could not find given script file.");
+                String scriptFile = cmd.getOptionValue('s');
+                if (scriptFile != null) {
+                    File scriptFileHandle = new File(scriptFile);
+                    if (!scriptFileHandle.exists()) {
+                        throw new IllegalArgumentException("Could not find given script file.");
+                    }
+                    InputStream scriptStream = Files.newInputStream(scriptFileHandle.toPath(), StandardOpenOption.READ);
+                    InputStream newLineStream = new ByteArrayInputStream("\n".getBytes(StandardCharsets.UTF_8));
+                    // Cleaner to do this than make an Enumeration :(
+                    inputStream = new SequenceInputStream(new SequenceInputStream(scriptStream, newLineStream), inputStream);
                 }
-                InputStream scriptStream = Files.newInputStream(scriptFileHandle.toPath(), StandardOpenOption.READ);
-                InputStream newLineStream = new ByteArrayInputStream("\n".getBytes(StandardCharsets.UTF_8));
-                // Cleaner to do this than make an Enumeration :(
-                inputStream = new SequenceInputStream(new SequenceInputStream(scriptStream, newLineStream), inputStream);
-            }
 
-            app.run(inputStream);
+                app.run(inputStream);
+            }
         } catch (Exception e) {
             e.printStackTrace();
             exitCode = 1;
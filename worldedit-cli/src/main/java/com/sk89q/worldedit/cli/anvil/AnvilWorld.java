@@ -0,0 +1,581 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.cli.anvil;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.NBTInputStream;
+import com.sk89q.jnbt.Tag;
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.MaxChangedBlocksException;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.blocks.BaseItemStack;
+import com.sk89q.worldedit.cli.CLIWorld;
+import com.sk89q.worldedit.entity.BaseEntity;
+import com.sk89q.worldedit.entity.Entity;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.internal.Constants;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.math.Vector3;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.util.Location;
+import com.sk89q.worldedit.util.SideEffect;
+import com.sk89q.worldedit.util.SideEffectSet;
+import com.sk89q.worldedit.util.TreeGenerator;
+import com.sk89q.worldedit.world.AbstractWorld;
+import com.sk89q.worldedit.world.DataException;
+import com.sk89q.worldedit.world.RegenOptions;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.biome.BiomeTypes;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPInputStream;
+import javax.annotation.Nullable;
+
+/**
+ * A world backed by the region files of a 1.13+ Anvil world folder,
+ * edited without a running game.
+ *
+ * <p>Chunks are loaded from their region file when first used, and a
+ * bounded number of them are kept in memory. When there are too many, the
+ * least recently used ones are written back (if changed) and dropped.
+ * Writes are grouped by region and the regions are written in parallel,
+ * including encoding and compressing their chunks. The edits themselves
+ * run on the threads that make them, so a single command still edits from
+ * one thread. The cache can be used from several threads at once, so a
+ * caller can split its edits by region to run them in parallel too.</p>
+ *
+ * <p>A world holds a pool of writer threads and open region files until it
+ * is {@linkplain #close() closed}.</p>
+ *
+ * <p>Only blocks and block entities are edited. Chunks that haven't been
+ * generated can't be edited, and edited chunks are flagged for the game to
+ * recompute lighting and heightmaps when it next loads them. Biomes and
+ * entities are not supported.</p>
+ */
+public class AnvilWorld extends AbstractWorld implements CLIWorld {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AnvilWorld.class);
+
+    private static final int DEFAULT_MAX_CHUNKS = 1024;
+    private static final int MAX_OPEN_REGIONS = 64;
+
+    /**
+     * The data version of Minecraft 1.17.1, the last version before chunks
+     * lost their {@code Level} tag and the world grew below y=0 in 1.18.
+     */
+    public static final int LAST_SUPPORTED_DATA_VERSION = 2730;
+
+    /**
+     * Check that a world of the given data version can be edited.
+     *
+     * @param dataVersion the data version of the world
+     * @throws IllegalArgumentException if the world is too old or too new
+     */
+    public static void checkDataVersion(int dataVersion) {
+        if (dataVersion < Constants.DATA_VERSION_MC_1_13) {
+            throw new IllegalArgumentException("Only worlds from Minecraft 1.13 and newer are supported.");
+        }
+        if (dataVersion > LAST_SUPPORTED_DATA_VERSION) {
+            throw new IllegalArgumentException("Only worlds from Minecraft 1.17 and older are supported, "
+                + "but this world has data version " + dataVersion + ".");
+        }
+    }
+
+    /**
+     * Read the data version of a world.
+     *
+     * @param levelDat the world's {@code level.dat}
+     * @return the data version, or {@code -1} if the world doesn't have one
+     * @throws IOException if the file can't be read
+     */
+    public static int readDataVersion(Path levelDat) throws IOException {
+        CompoundTag data = readLevelData(levelDat);
+        return data.containsKey("DataVersion") ? data.getInt("DataVersion") : -1;
+    }
+
+    private static CompoundTag readLevelData(Path levelDat) throws IOException {
+        try (NBTInputStream in = new NBTInputStream(new GZIPInputStream(Files.newInputStream(levelDat)))) {
+            Tag root = in.readNamedTag().getTag();
+            Tag data = root instanceof CompoundTag ? ((CompoundTag) root).getValue().get("Data") : null;
+            if (!(data instanceof CompoundTag)) {
+                throw new IOException(levelDat + " has no Data tag");
+            }
+            return (CompoundTag) data;
+        }
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    private final Path regionFolder;
+    private final String name;
+    private final BlockVector3 spawn;
+    private final int maxChunks;
+    private final Map<Long, EditableChunk> chunks = new ConcurrentHashMap<>();
+    private final Queue<Long> clock = new ConcurrentLinkedQueue<>();
+    private final Set<Long> recentlyUsed = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final Map<Long, Optional<RegionFile>> regions = new ConcurrentHashMap<>();
+    private final Cache<RegionFile, Boolean> openRegions;
+    private final ExecutorService writers;
+    private volatile boolean dirty;
+
+    /**
+     * Open a world.
+     *
+     * @param folder the world folder, containing {@code level.dat}
+     * @throws IOException if the world can't be read
+     */
+    public AnvilWorld(Path folder) throws IOException {
+        this(folder, DEFAULT_MAX_CHUNKS);
+    }
+
+    /**
+     * Open a world.
+     *
+     * @param folder the world folder, containing {@code level.dat}
+     * @param maxChunks the number of chunks to keep in memory
+     * @throws IOException if the world can't be read
+     * @throws IllegalArgumentException if the world's version isn't supported
+     */
+    public AnvilWorld(Path folder, int maxChunks) throws IOException {
+        CompoundTag levelData = readLevelData(folder.resolve("level.dat"));
+        checkDataVersion(levelData.containsKey("DataVersion") ? levelData.getInt("DataVersion") : -1);
+        this.regionFolder = folder.resolve("region");
+        this.name = levelData.containsKey("LevelName")
+            ? levelData.getString("LevelName")
+            : folder.getFileName().toString();
+        this.spawn = BlockVector3.at(levelData.getInt("SpawnX"), levelData.getInt("SpawnY"), levelData.getInt("SpawnZ"));
+        this.maxChunks = maxChunks;
+        this.openRegions = CacheBuilder.newBuilder()
+            .maximumSize(MAX_OPEN_REGIONS)
+            .removalListener(this::closeRegion)
+            .build();
+        this.writers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+            new ThreadFactoryBuilder().setNameFormat("WorldEdit Region Writer #%d").setDaemon(true).build());
+    }
+
+    private void closeRegion(RemovalNotification<RegionFile, Boolean> notification) {
+        try {
+            notification.getKey().close();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to close region file", e);
+        }
+    }
+
+    /**
+     * Get the region file containing a chunk. There is only ever one
+     * instance per file, but its file handle may be closed and re-opened.
+     *
+     * @return the region file, or null if it doesn't exist
+     */
+    @Nullable
+    private RegionFile getRegion(int chunkX, int chunkZ) throws IOException {
+        int regionX = chunkX >> 5;
+        int regionZ = chunkZ >> 5;
+        Optional<RegionFile> region;
+        try {
+            region = regions.computeIfAbsent(chunkKey(regionX, regionZ), key -> {
+                Path file = regionFolder.resolve("r." + regionX + "." + regionZ + ".mca");
+                try {
+                    return Files.isRegularFile(file) ? Optional.of(new RegionFile(file)) : Optional.empty();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (!region.isPresent()) {
+            return null;
+        }
+        openRegions.put(region.get(), Boolean.TRUE);
+        return region.get();
+    }
+
+    /**
+     * Get a chunk, loading it if needed.
+     *
+     * @return the chunk, or null if it hasn't been generated
+     */
+    @Nullable
+    private EditableChunk getChunk(int chunkX, int chunkZ) {
+        long key = chunkKey(chunkX, chunkZ);
+        EditableChunk chunk = chunks.get(key);
+        if (chunk == null) {
+            try {
+                RegionFile region = getRegion(chunkX, chunkZ);
+                if (region == null) {
+                    return null;
+                }
+                boolean loaded = false;
+                // reading and evicting are done under the region's lock, so
+                // a chunk can't be read while it's being written
+                synchronized (region) {
+                    chunk = chunks.get(key);
+                    if (chunk == null) {
+                        CompoundTag tag = region.read(RegionFile.indexChunk(chunkX, chunkZ));
+                        if (tag == null) {
+                            return null;
+                        }
+                        chunk = new EditableChunk(tag);
+                        chunks.put(key, chunk);
+                        clock.add(key);
+                        loaded = true;
+                    }
+                }
+                if (loaded && chunks.size() > maxChunks) {
+                    evict();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read chunk " + chunkX + "," + chunkZ, e);
+            } catch (DataException e) {
+                throw new IllegalStateException("Failed to read chunk " + chunkX + "," + chunkZ, e);
+            }
+        }
+        recentlyUsed.add(key);
+        return chunk;
+    }
+
+    /**
+     * Write back and drop chunks until the cache is below its limit again,
+     * skipping chunks that were used since the last pass over them.
+     */
+    private void evict() {
+        if (!evictionLock.tryLock()) {
+            // someone else is already making room
+            return;
+        }
+        try {
+            int excess = chunks.size() - maxChunks;
+            // make room for a good number of chunks at once, so writes are batched
+            int target = Math.max(excess, maxChunks / 8);
+            List<EditableChunk> victims = new ArrayList<>();
+            int budget = clock.size() * 2;
+            while (victims.size() < target && budget-- > 0) {
+                Long key = clock.poll();
+                if (key == null) {
+                    break;
+                }
+                EditableChunk chunk = chunks.get(key);
+                if (chunk == null) {
+                    continue;
+                }
+                if (recentlyUsed.remove(key)) {
+                    clock.add(key);
+                } else {
+                    victims.add(chunk);
+                }
+            }
+            writeChunks(victims);
+            for (EditableChunk chunk : victims) {
+                long key = chunkKey(chunk.getX(), chunk.getZ());
+                RegionFile region;
+                try {
+                    region = getRegion(chunk.getX(), chunk.getZ());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                synchronized (region) {
+                    if (chunk.evictIfClean()) {
+                        chunks.remove(key, chunk);
+                        continue;
+                    }
+                }
+                // changed while it was being written
+                clock.add(key);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Write the dirty chunks among the given ones, one task per region.
+     */
+    private void writeChunks(Iterable<EditableChunk> toWrite) {
+        Map<Long, List<EditableChunk>> byRegion = new HashMap<>();
+        for (EditableChunk chunk : toWrite) {
+            if (chunk.isDirty()) {
+                byRegion.computeIfAbsent(chunkKey(chunk.getX() >> 5, chunk.getZ() >> 5), k -> new ArrayList<>())
+                    .add(chunk);
+            }
+        }
+        if (byRegion.isEmpty()) {
+            return;
+        }
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (List<EditableChunk> regionChunks : byRegion.values()) {
+            tasks.add(() -> {
+                writeRegion(regionChunks);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : writers.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing chunks", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw new UncheckedIOException((IOException) e.getCause());
+            }
+            throw new IllegalStateException("Failed to write chunks", e.getCause());
+        }
+    }
+
+    private void writeRegion(List<EditableChunk> regionChunks) throws IOException {
+        EditableChunk first = regionChunks.get(0);
+        RegionFile region = getRegion(first.getX(), first.getZ());
+        if (region == null) {
+            throw new IOException("Region file for chunk " + first.getX() + "," + first.getZ() + " is missing");
+        }
+        Map<Integer, CompoundTag> tags = new HashMap<>();
+        List<EditableChunk.Snapshot> snapshots = new ArrayList<>();
+        for (EditableChunk chunk : regionChunks) {
+            EditableChunk.Snapshot snapshot = chunk.encode();
+            tags.put(RegionFile.indexChunk(chunk.getX(), chunk.getZ()), snapshot.tag);
+            snapshots.add(snapshot);
+        }
+        region.write(tags);
+        for (int i = 0; i < regionChunks.size(); i++) {
+            regionChunks.get(i).markSaved(snapshots.get(i));
+        }
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public String getId() {
+        return getName().replace(" ", "_").toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public int getMinY() {
+        return 0;
+    }
+
+    @Override
+    public int getMaxY() {
+        return 255;
+    }
+
+    @Override
+    public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 position, B block, SideEffectSet sideEffects) throws WorldEditException {
+        int y = position.getBlockY();
+        if (y < getMinY() || y > getMaxY()) {
+            return false;
+        }
+        int x = position.getBlockX();
+        int z = position.getBlockZ();
+        BaseBlock baseBlock = block.toBaseBlock();
+        try {
+            while (true) {
+                EditableChunk chunk = getChunk(x >> 4, z >> 4);
+                if (chunk == null) {
+                    return false;
+                }
+                if (chunk.setBlock(x, y, z, baseBlock)) {
+                    dirty = true;
+                    return true;
+                }
+                // evicted between getting and changing it
+                chunks.remove(chunkKey(x >> 4, z >> 4), chunk);
+            }
+        } catch (DataException e) {
+            throw new IllegalStateException("Failed to read chunk at " + position, e);
+        }
+    }
+
+    @Override
+    public BlockState getBlock(BlockVector3 position) {
+        return getBlock(position.getBlockX(), position.getBlockY(), position.getBlockZ());
+    }
+
+    @Override
+    public BlockState getBlock(int x, int y, int z) {
+        if (y < getMinY() || y > getMaxY()) {
+            return BlockTypes.AIR.getDefaultState();
+        }
+        EditableChunk chunk = getChunk(x >> 4, z >> 4);
+        if (chunk == null) {
+            return BlockTypes.AIR.getDefaultState();
+        }
+        try {
+            return chunk.getBlock(x, y, z);
+        } catch (DataException e) {
+            throw new IllegalStateException("Failed to read chunk at " + x + "," + z, e);
+        }
+    }
+
+    @Override
+    public BaseBlock getFullBlock(BlockVector3 position) {
+        return getFullBlock(position.getBlockX(), position.getBlockY(), position.getBlockZ());
+    }
+
+    @Override
+    public BaseBlock getFullBlock(int x, int y, int z) {
+        if (y < getMinY() || y > getMaxY()) {
+            return BlockTypes.AIR.getDefaultState().toBaseBlock();
+        }
+        EditableChunk chunk = getChunk(x >> 4, z >> 4);
+        if (chunk == null) {
+            return BlockTypes.AIR.getDefaultState().toBaseBlock();
+        }
+        try {
+            return chunk.getFullBlock(x, y, z);
+        } catch (DataException e) {
+            throw new IllegalStateException("Failed to read chunk at " + x + "," + z, e);
+        }
+    }
+
+    @Override
+    public Set<SideEffect> applySideEffects(BlockVector3 position, BlockState previousType, SideEffectSet sideEffectSet) throws WorldEditException {
+        return ImmutableSet.of();
+    }
+
+    @Override
+    public int getBlockLightLevel(BlockVector3 position) {
+        return 0;
+    }
+
+    @Override
+    public boolean clearContainerBlockContents(BlockVector3 position) {
+        return false;
+    }
+
+    @Override
+    public void dropItem(Vector3 position, BaseItemStack item) {
+    }
+
+    @Override
+    public void simulateBlockMine(BlockVector3 position) {
+    }
+
+    @Override
+    public boolean regenerate(Region region, Extent extent, RegenOptions options) {
+        return false;
+    }
+
+    @Override
+    public boolean generateTree(TreeGenerator.TreeType type, EditSession editSession, BlockVector3 position)
+            throws MaxChangedBlocksException {
+        return false;
+    }
+
+    @Override
+    public BlockVector3 getSpawnPosition() {
+        return spawn;
+    }
+
+    @Override
+    public List<? extends Entity> getEntities(Region region) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public List<? extends Entity> getEntities() {
+        return Collections.emptyList();
+    }
+
+    @Nullable
+    @Override
+    public Entity createEntity(Location location, BaseEntity entity) {
+        return null;
+    }
+
+    @Override
+    public BiomeType getBiome(BlockVector3 position) {
+        return BiomeTypes.THE_VOID;
+    }
+
+    @Override
+    public boolean setBiome(BlockVector3 position, BiomeType biome) {
+        return false;
+    }
+
+    @Override
+    public void save(boolean force) {
+        if (dirty || force) {
+            // the chunks stay loaded, only their changes are written
+            writeChunks(new ArrayList<>(chunks.values()));
+            dirty = false;
+        }
+    }
+
+    @Override
+    public boolean isDirty() {
+        return this.dirty;
+    }
+
+    @Override
+    public void setDirty(boolean dirty) {
+        this.dirty = dirty;
+    }
+
+    @Override
+    public void close() {
+        writers.shutdown();
+        // closes every open region file through the removal listener
+        openRegions.invalidateAll();
+        openRegions.cleanUp();
+        regions.clear();
+        chunks.clear();
+        clock.clear();
+        recentlyUsed.clear();
+    }
+}
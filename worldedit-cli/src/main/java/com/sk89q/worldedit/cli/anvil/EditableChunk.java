@@ -0,0 +1,460 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.cli.anvil;
+
+import com.sk89q.jnbt.ByteTag;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.ListTag;
+import com.sk89q.jnbt.LongArrayTag;
+import com.sk89q.jnbt.StringTag;
+import com.sk89q.jnbt.Tag;
+import com.sk89q.worldedit.internal.Constants;
+import com.sk89q.worldedit.registry.state.Property;
+import com.sk89q.worldedit.world.DataException;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockType;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import com.sk89q.worldedit.world.storage.InvalidFormatException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+
+/**
+ * A chunk of a 1.13+ Anvil world that can be edited in memory and written
+ * back to its region file.
+ *
+ * <p>Sections are only decoded when they are first accessed, and only
+ * sections that were changed are encoded again. All methods are
+ * synchronized, so a chunk can be shared between threads.</p>
+ */
+final class EditableChunk {
+
+    private static final int SECTION_VOLUME = 16 * 16 * 16;
+    private static final int SECTIONS = 16;
+    private static final Map<BlockState, CompoundTag> PALETTE_TAGS = new ConcurrentHashMap<>();
+
+    private static int packLocal(int x, int y, int z) {
+        return (y << 8) | ((z & 0x0F) << 4) | (x & 0x0F);
+    }
+
+    private final int chunkX;
+    private final int chunkZ;
+    private final int dataVersion;
+    private final Map<String, Tag> root;
+    private final Map<String, Tag> level;
+    private final Section[] sections = new Section[SECTIONS];
+    @Nullable
+    private Map<Integer, CompoundTag> tileEntities;
+    private boolean tileEntitiesChanged;
+    private long modifications;
+    private long savedModifications;
+    private boolean evicted;
+
+    /**
+     * Read a chunk.
+     *
+     * @param rootTag the root tag of the chunk
+     * @throws DataException if the chunk is not in a supported format
+     */
+    EditableChunk(CompoundTag rootTag) throws DataException {
+        this.root = new HashMap<>(rootTag.getValue());
+        this.dataVersion = rootTag.getInt("DataVersion");
+        if (dataVersion < Constants.DATA_VERSION_MC_1_13) {
+            throw new InvalidFormatException("Only chunks from Minecraft 1.13 and newer can be edited");
+        }
+        if (dataVersion > AnvilWorld.LAST_SUPPORTED_DATA_VERSION) {
+            throw new InvalidFormatException("Only chunks from Minecraft 1.17 and older can be edited");
+        }
+        Tag levelTag = root.get("Level");
+        if (!(levelTag instanceof CompoundTag)) {
+            throw new InvalidFormatException("Chunk is missing its Level tag");
+        }
+        this.level = new HashMap<>(((CompoundTag) levelTag).getValue());
+        this.chunkX = ((CompoundTag) levelTag).getInt("xPos");
+        this.chunkZ = ((CompoundTag) levelTag).getInt("zPos");
+
+        Tag sectionsTag = level.get("Sections");
+        if (sectionsTag instanceof ListTag) {
+            for (Tag tag : ((ListTag) sectionsTag).getValue()) {
+                if (!(tag instanceof CompoundTag)) {
+                    continue;
+                }
+                CompoundTag sectionTag = (CompoundTag) tag;
+                Tag y = sectionTag.getValue().get("Y");
+                if (!(y instanceof ByteTag)) {
+                    continue;
+                }
+                int sectionY = ((ByteTag) y).getValue();
+                if (sectionY >= 0 && sectionY < SECTIONS) {
+                    sections[sectionY] = new Section(sectionTag);
+                }
+            }
+        }
+    }
+
+    int getX() {
+        return chunkX;
+    }
+
+    int getZ() {
+        return chunkZ;
+    }
+
+    private Map<Integer, CompoundTag> getTileEntities() {
+        if (tileEntities == null) {
+            tileEntities = new HashMap<>();
+            Tag tag = level.get("TileEntities");
+            if (tag instanceof ListTag) {
+                for (Tag entry : ((ListTag) tag).getValue()) {
+                    if (entry instanceof CompoundTag) {
+                        CompoundTag tileEntity = (CompoundTag) entry;
+                        tileEntities.put(packLocal(tileEntity.getInt("x"), tileEntity.getInt("y"),
+                            tileEntity.getInt("z")), tileEntity);
+                    }
+                }
+            }
+        }
+        return tileEntities;
+    }
+
+    synchronized BlockState getBlock(int x, int y, int z) throws DataException {
+        Section section = sections[y >> 4];
+        if (section == null) {
+            return BlockTypes.AIR.getDefaultState();
+        }
+        return section.get(packLocal(x, y & 0x0F, z));
+    }
+
+    synchronized BaseBlock getFullBlock(int x, int y, int z) throws DataException {
+        BlockState state = getBlock(x, y, z);
+        CompoundTag tileEntity = getTileEntities().get(packLocal(x, y, z));
+        return tileEntity != null ? state.toBaseBlock(tileEntity) : state.toBaseBlock();
+    }
+
+    /**
+     * Set a block, unless the chunk has been evicted from its cache.
+     *
+     * @return false if the chunk has been evicted and has to be loaded again
+     */
+    synchronized boolean setBlock(int x, int y, int z, BaseBlock block) throws DataException {
+        if (evicted) {
+            return false;
+        }
+        Section section = sections[y >> 4];
+        if (section == null) {
+            section = new Section((byte) (y >> 4));
+            sections[y >> 4] = section;
+        }
+        section.set(packLocal(x, y & 0x0F, z), block.toImmutableState());
+
+        int key = packLocal(x, y, z);
+        CompoundTag nbt = block.getNbtData();
+        Map<Integer, CompoundTag> tileEntities = getTileEntities();
+        CompoundTag previous = nbt != null
+            ? tileEntities.put(key, nbt.createBuilder()
+                .putInt("x", (chunkX << 4) | (x & 0x0F))
+                .putInt("y", y)
+                .putInt("z", (chunkZ << 4) | (z & 0x0F))
+                .build())
+            : tileEntities.remove(key);
+        if (previous != null || nbt != null) {
+            tileEntitiesChanged = true;
+        }
+        modifications++;
+        return true;
+    }
+
+    synchronized boolean isDirty() {
+        return modifications != savedModifications;
+    }
+
+    /**
+     * Mark the chunk as evicted from its cache, unless it has changes that
+     * haven't been written. An evicted chunk can't be changed anymore.
+     *
+     * @return true if the chunk was evicted
+     */
+    synchronized boolean evictIfClean() {
+        if (isDirty()) {
+            return false;
+        }
+        evicted = true;
+        return true;
+    }
+
+    /**
+     * Encode the chunk, including all changes made so far.
+     *
+     * @return the encoded chunk, and the changes it includes
+     */
+    synchronized Snapshot encode() {
+        List<Tag> sectionTags = new ArrayList<>();
+        for (Section section : sections) {
+            if (section != null) {
+                sectionTags.add(section.encode());
+            }
+        }
+        Map<String, Tag> level = new HashMap<>(this.level);
+        level.put("Sections", new ListTag(CompoundTag.class, sectionTags));
+        if (tileEntitiesChanged) {
+            level.put("TileEntities", new ListTag(CompoundTag.class, new ArrayList<>(tileEntities.values())));
+        }
+        if (isDirty()) {
+            // the game recomputes both when they are missing or flagged as outdated
+            level.remove("Heightmaps");
+            level.put("isLightOn", new ByteTag((byte) 0));
+        }
+        Map<String, Tag> root = new HashMap<>(this.root);
+        root.put("Level", new CompoundTag(level));
+        return new Snapshot(new CompoundTag(root), modifications);
+    }
+
+    /**
+     * Record that an encoded snapshot has been written.
+     *
+     * @param snapshot the snapshot that was written
+     */
+    synchronized void markSaved(Snapshot snapshot) {
+        savedModifications = Math.max(savedModifications, snapshot.modifications);
+    }
+
+    /**
+     * The encoded form of a chunk at some point in time.
+     */
+    static final class Snapshot {
+        final CompoundTag tag;
+        final long modifications;
+
+        private Snapshot(CompoundTag tag, long modifications) {
+            this.tag = tag;
+            this.modifications = modifications;
+        }
+    }
+
+    private boolean isPackedWithoutSpanning() {
+        return dataVersion >= Constants.DATA_VERSION_MC_1_16;
+    }
+
+    private static BlockState readPaletteEntry(CompoundTag entry) throws InvalidFormatException {
+        BlockType type = BlockTypes.get(entry.getString("Name"));
+        if (type == null) {
+            throw new InvalidFormatException("Invalid block type: " + entry.getString("Name"));
+        }
+        BlockState state = type.getDefaultState();
+        Tag properties = entry.getValue().get("Properties");
+        if (properties instanceof CompoundTag) {
+            for (Map.Entry<String, Tag> property : ((CompoundTag) properties).getValue().entrySet()) {
+                Property<Object> key = type.getProperty(property.getKey());
+                if (key == null || !(property.getValue() instanceof StringTag)) {
+                    continue;
+                }
+                String value = ((StringTag) property.getValue()).getValue();
+                try {
+                    state = state.with(key, key.getValueFor(value));
+                } catch (IllegalArgumentException e) {
+                    throw new InvalidFormatException("Invalid block state for " + type.getId()
+                        + ", " + key.getName() + ": " + value);
+                }
+            }
+        }
+        return state;
+    }
+
+    private static CompoundTag writePaletteEntry(BlockState state) {
+        return PALETTE_TAGS.computeIfAbsent(state, s -> {
+            Map<String, Tag> entry = new HashMap<>();
+            entry.put("Name", new StringTag(s.getBlockType().getId()));
+            if (!s.getStates().isEmpty()) {
+                Map<String, Tag> properties = new HashMap<>();
+                for (Map.Entry<Property<?>, Object> property : s.getStates().entrySet()) {
+                    properties.put(property.getKey().getName(),
+                        new StringTag(property.getValue().toString().toLowerCase(Locale.ROOT)));
+                }
+                entry.put("Properties", new CompoundTag(properties));
+            }
+            return new CompoundTag(entry);
+        });
+    }
+
+    /**
+     * A section, kept as its original tag until it is first read.
+     */
+    private final class Section {
+
+        private CompoundTag tag;
+        @Nullable
+        private List<BlockState> palette;
+        @Nullable
+        private Map<BlockState, Integer> paletteIndex;
+        @Nullable
+        private short[] indices;
+        private boolean changed;
+
+        private Section(CompoundTag tag) {
+            this.tag = tag;
+        }
+
+        private Section(byte y) {
+            Map<String, Tag> value = new HashMap<>();
+            value.put("Y", new ByteTag(y));
+            this.tag = new CompoundTag(value);
+            this.palette = new ArrayList<>();
+            this.paletteIndex = new IdentityHashMap<>();
+            this.indices = new short[SECTION_VOLUME];
+            indexOf(BlockTypes.AIR.getDefaultState());
+            this.changed = true;
+        }
+
+        private void decode() throws InvalidFormatException {
+            if (indices != null) {
+                return;
+            }
+            List<CompoundTag> entries = tag.getList("Palette", CompoundTag.class);
+            List<BlockState> palette = new ArrayList<>(entries.size());
+            Map<BlockState, Integer> paletteIndex = new IdentityHashMap<>();
+            for (CompoundTag entry : entries) {
+                BlockState state = readPaletteEntry(entry);
+                paletteIndex.putIfAbsent(state, palette.size());
+                palette.add(state);
+            }
+            short[] indices = new short[SECTION_VOLUME];
+            if (palette.isEmpty()) {
+                palette.add(BlockTypes.AIR.getDefaultState());
+                paletteIndex.put(palette.get(0), 0);
+            } else {
+                unpack(tag.getLongArray("BlockStates"), bitsFor(palette.size()), indices, palette.size());
+            }
+            this.palette = palette;
+            this.paletteIndex = paletteIndex;
+            this.indices = indices;
+        }
+
+        private int bitsFor(int paletteSize) {
+            return Math.max(4, 32 - Integer.numberOfLeadingZeros(paletteSize - 1));
+        }
+
+        private void unpack(long[] packed, int bits, short[] out, int paletteSize) throws InvalidFormatException {
+            long mask = (1L << bits) - 1;
+            if (isPackedWithoutSpanning()) {
+                int perLong = 64 / bits;
+                if (packed.length < (SECTION_VOLUME + perLong - 1) / perLong) {
+                    throw new InvalidFormatException("Too short block state table");
+                }
+                for (int i = 0; i < SECTION_VOLUME; i++) {
+                    out[i] = (short) ((packed[i / perLong] >>> ((i % perLong) * bits)) & mask);
+                }
+            } else {
+                if ((long) packed.length * 64 < (long) SECTION_VOLUME * bits) {
+                    throw new InvalidFormatException("Too short block state table");
+                }
+                for (int i = 0; i < SECTION_VOLUME; i++) {
+                    long bit = (long) i * bits;
+                    int longIndex = (int) (bit >> 6);
+                    int offset = (int) (bit & 63);
+                    long value = packed[longIndex] >>> offset;
+                    if (offset + bits > 64) {
+                        value |= packed[longIndex + 1] << (64 - offset);
+                    }
+                    out[i] = (short) (value & mask);
+                }
+            }
+            for (short index : out) {
+                if (index >= paletteSize) {
+                    throw new InvalidFormatException("Invalid block state table entry: " + index);
+                }
+            }
+        }
+
+        private BlockState get(int index) throws InvalidFormatException {
+            decode();
+            return palette.get(indices[index]);
+        }
+
+        private int indexOf(BlockState state) {
+            Integer index = paletteIndex.get(state);
+            if (index == null) {
+                index = palette.size();
+                palette.add(state);
+                paletteIndex.put(state, index);
+            }
+            return index;
+        }
+
+        private void set(int index, BlockState state) throws InvalidFormatException {
+            decode();
+            indices[index] = (short) indexOf(state);
+            changed = true;
+        }
+
+        private CompoundTag encode() {
+            if (!changed) {
+                return tag;
+            }
+            // only keep the entries that are still in use, in order of first use
+            int[] remap = new int[palette.size()];
+            List<Tag> entries = new ArrayList<>();
+            short[] compacted = new short[SECTION_VOLUME];
+            for (int i = 0; i < SECTION_VOLUME; i++) {
+                int old = indices[i];
+                if (remap[old] == 0) {
+                    entries.add(writePaletteEntry(palette.get(old)));
+                    remap[old] = entries.size();
+                }
+                compacted[i] = (short) (remap[old] - 1);
+            }
+            int bits = bitsFor(entries.size());
+            long mask = (1L << bits) - 1;
+            long[] packed;
+            if (isPackedWithoutSpanning()) {
+                int perLong = 64 / bits;
+                packed = new long[(SECTION_VOLUME + perLong - 1) / perLong];
+                for (int i = 0; i < SECTION_VOLUME; i++) {
+                    packed[i / perLong] |= (compacted[i] & mask) << ((i % perLong) * bits);
+                }
+            } else {
+                packed = new long[SECTION_VOLUME * bits / 64];
+                for (int i = 0; i < SECTION_VOLUME; i++) {
+                    long bit = (long) i * bits;
+                    int longIndex = (int) (bit >> 6);
+                    int offset = (int) (bit & 63);
+                    long value = compacted[i] & mask;
+                    packed[longIndex] |= value << offset;
+                    if (offset + bits > 64) {
+                        packed[longIndex + 1] |= value >>> (64 - offset);
+                    }
+                }
+            }
+            Map<String, Tag> value = new HashMap<>(tag.getValue());
+            value.put("Palette", new ListTag(CompoundTag.class, entries));
+            value.put("BlockStates", new LongArrayTag(packed));
+            tag = new CompoundTag(value);
+            changed = false;
+            return tag;
+        }
+    }
+
+}
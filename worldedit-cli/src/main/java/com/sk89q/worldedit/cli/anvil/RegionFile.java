@@ -0,0 +1,238 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.cli.anvil;
+
+import com.google.common.io.ByteStreams;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.LazyNBTReader;
+import com.sk89q.jnbt.NBTOutputStream;
+import com.sk89q.jnbt.Tag;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import javax.annotation.Nullable;
+
+/**
+ * Reads and writes the chunks of a single region file.
+ *
+ * <p>Chunks are never overwritten in place. New chunk data goes to free
+ * sectors and is synced to disk before the header is changed to point at
+ * it, so an interrupted write leaves the previous copy of each chunk
+ * intact.</p>
+ *
+ * <p>The file is closed when the region is evicted from its cache, and
+ * opened again if it is used after that.</p>
+ */
+final class RegionFile implements Closeable {
+
+    private static final int SECTOR_BYTES = 4096;
+    private static final int HEADER_SECTORS = 2;
+    private static final int MAX_CHUNK_SECTORS = 255;
+    private static final int VERSION_GZIP = 1;
+    private static final int VERSION_DEFLATE = 2;
+
+    static int indexChunk(int chunkX, int chunkZ) {
+        return (chunkX & 31) + (chunkZ & 31) * 32;
+    }
+
+    private final Path file;
+    private final ByteBuffer header = ByteBuffer.allocate(HEADER_SECTORS * SECTOR_BYTES);
+    private final IntBuffer offsets;
+    private final IntBuffer timestamps;
+    private final BitSet usedSectors = new BitSet();
+    @Nullable
+    private FileChannel channel;
+
+    RegionFile(Path file) throws IOException {
+        this.file = file;
+        this.offsets = ((ByteBuffer) header.duplicate().limit(SECTOR_BYTES)).slice().asIntBuffer();
+        this.timestamps = ((ByteBuffer) header.duplicate().position(SECTOR_BYTES)).slice().asIntBuffer();
+        readHeader(open());
+    }
+
+    private FileChannel open() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        return channel;
+    }
+
+    private void readHeader(FileChannel channel) throws IOException {
+        header.clear();
+        if (channel.size() >= header.capacity()) {
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new IOException("Unexpected end of region file " + file);
+                }
+            }
+        }
+        header.clear();
+        usedSectors.set(0, HEADER_SECTORS);
+        long fileSectors = (channel.size() + SECTOR_BYTES - 1) / SECTOR_BYTES;
+        for (int i = 0; i < offsets.capacity(); i++) {
+            int offset = offsets.get(i);
+            int start = offset >>> 8;
+            int count = offset & 0xFF;
+            if (offset != 0 && start >= HEADER_SECTORS && start + count <= fileSectors) {
+                usedSectors.set(start, start + count);
+            }
+        }
+    }
+
+    /**
+     * Read a chunk.
+     *
+     * @param index the index of the chunk in the region
+     * @return the chunk, or null if it isn't in the region
+     * @throws IOException if the chunk can't be read
+     */
+    @Nullable
+    synchronized CompoundTag read(int index) throws IOException {
+        int offset = offsets.get(index);
+        if (offset == 0) {
+            return null;
+        }
+        FileChannel channel = open();
+        long start = (long) (offset >>> 8) * SECTOR_BYTES;
+        int maxLength = (offset & 0xFF) * SECTOR_BYTES;
+        ByteBuffer chunkHeader = ByteBuffer.allocate(5);
+        readFully(channel, chunkHeader, start);
+        int length = chunkHeader.getInt(0);
+        if (length < 1 || length + 4 > maxLength) {
+            throw new IOException("Chunk " + index + " of " + file + " has an invalid length of " + length);
+        }
+        byte version = chunkHeader.get(4);
+        ByteBuffer data = ByteBuffer.allocate(length - 1);
+        readFully(channel, data, start + 5);
+        InputStream in = new ByteArrayInputStream(data.array());
+        if (version == VERSION_GZIP) {
+            in = new GZIPInputStream(in);
+        } else if (version == VERSION_DEFLATE) {
+            in = new InflaterInputStream(in);
+        } else {
+            throw new IOException("Chunk " + index + " of " + file + " has an unsupported version of " + version);
+        }
+        Tag tag = LazyNBTReader.readNamedTag(ByteStreams.toByteArray(in)).getTag();
+        if (!(tag instanceof CompoundTag)) {
+            throw new IOException("Chunk " + index + " of " + file + " is not a compound tag");
+        }
+        return (CompoundTag) tag;
+    }
+
+    private void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of region file " + file);
+            }
+        }
+    }
+
+    /**
+     * Write a batch of chunks.
+     *
+     * @param chunks the chunks to write, by their index in the region
+     * @throws IOException if the chunks can't be written
+     */
+    synchronized void write(Map<Integer, CompoundTag> chunks) throws IOException {
+        FileChannel channel = open();
+        int[] newOffsets = new int[chunks.size()];
+        int[] indices = new int[chunks.size()];
+        int n = 0;
+        for (Map.Entry<Integer, CompoundTag> entry : chunks.entrySet()) {
+            byte[] data = encode(entry.getValue());
+            int sectors = (data.length + SECTOR_BYTES - 1) / SECTOR_BYTES;
+            if (sectors > MAX_CHUNK_SECTORS) {
+                throw new IOException("Chunk " + entry.getKey() + " of " + file + " is too large to store");
+            }
+            int start = allocate(sectors);
+            ByteBuffer buffer = ByteBuffer.allocate(sectors * SECTOR_BYTES);
+            buffer.put(data).clear();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, (long) start * SECTOR_BYTES + buffer.position());
+            }
+            indices[n] = entry.getKey();
+            newOffsets[n] = (start << 8) | sectors;
+            n++;
+        }
+        channel.force(false);
+
+        int now = (int) (System.currentTimeMillis() / 1000);
+        for (int i = 0; i < n; i++) {
+            int previous = offsets.get(indices[i]);
+            offsets.put(indices[i], newOffsets[i]);
+            timestamps.put(indices[i], now);
+            if (previous != 0 && (previous >>> 8) >= HEADER_SECTORS) {
+                usedSectors.clear(previous >>> 8, (previous >>> 8) + (previous & 0xFF));
+            }
+        }
+        header.clear();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        header.clear();
+        channel.force(false);
+    }
+
+    private int allocate(int sectors) {
+        int start = usedSectors.nextClearBit(HEADER_SECTORS);
+        while (true) {
+            int end = usedSectors.nextSetBit(start);
+            if (end < 0 || end - start >= sectors) {
+                usedSectors.set(start, start + sectors);
+                return start;
+            }
+            start = usedSectors.nextClearBit(end);
+        }
+    }
+
+    private static byte[] encode(CompoundTag tag) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(SECTOR_BYTES);
+        // length and version, filled in below
+        bytes.write(new byte[5]);
+        try (NBTOutputStream out = new NBTOutputStream(new DeflaterOutputStream(bytes))) {
+            out.writeNamedTag("", tag);
+        }
+        byte[] data = bytes.toByteArray();
+        ByteBuffer.wrap(data).putInt(data.length - 4).put((byte) VERSION_DEFLATE);
+        return data;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+}
@@ -144,16 +144,31 @@ public BlockState getBlock(BlockVector3 position) {
         return clipboard.getBlock(position);
     }
 
+    @Override
+    public BlockState getBlock(int x, int y, int z) {
+        return clipboard.getBlock(x, y, z);
+    }
+
     @Override
     public BaseBlock getFullBlock(BlockVector3 position) {
         return clipboard.getFullBlock(position);
     }
 
+    @Override
+    public BaseBlock getFullBlock(int x, int y, int z) {
+        return clipboard.getFullBlock(x, y, z);
+    }
+
     @Override
     public BiomeType getBiome(BlockVector3 position) {
         return clipboard.getBiome(position);
     }
 
+    @Override
+    public BiomeType getBiome(int x, int y, int z) {
+        return clipboard.getBiome(x, y, z);
+    }
+
     @Override
     public boolean setBiome(BlockVector3 position, BiomeType biome) {
         dirty = true;
@@ -217,4 +232,9 @@ public boolean isDirty() {
     public void setDirty(boolean dirty) {
         this.dirty = dirty;
     }
+
+    @Override
+    public void close() {
+        // the clipboard only holds memory
+    }
 }
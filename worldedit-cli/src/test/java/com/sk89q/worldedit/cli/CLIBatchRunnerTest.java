@@ -0,0 +1,139 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.cli;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.sk89q.worldedit.LocalConfiguration;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.extension.platform.Capability;
+import com.sk89q.worldedit.extension.platform.Platform;
+import com.sk89q.worldedit.extension.platform.Preference;
+import com.sk89q.worldedit.world.World;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import javax.annotation.Nullable;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+@DisplayName("A batch runner")
+class CLIBatchRunnerTest {
+
+    private final Platform mockedPlatform = mock(Platform.class);
+    private final CLIWorldEdit app = mock(CLIWorldEdit.class);
+    private final CLIPlatform platform = mock(CLIPlatform.class);
+
+    @BeforeEach
+    void setupFakePlatform() {
+        when(mockedPlatform.getCapabilities()).thenReturn(ImmutableMap.of(
+            Capability.CONFIGURATION, Preference.PREFERRED
+        ));
+        when(mockedPlatform.getConfiguration()).thenReturn(new LocalConfiguration() {
+            @Override
+            public void load() {
+            }
+        });
+        WorldEdit.getInstance().getPlatformManager().register(mockedPlatform);
+    }
+
+    @AfterEach
+    void tearDownFakePlatform() {
+        WorldEdit.getInstance().getPlatformManager().unregister(mockedPlatform);
+    }
+
+    private CLIBatchRunner runner(@Nullable Path outputDir) {
+        return new CLIBatchRunner(app, platform, ImmutableList.of(), 1, outputDir);
+    }
+
+    private static List<File> files(String... paths) {
+        ImmutableList.Builder<File> files = ImmutableList.builder();
+        for (String path : paths) {
+            files.add(new File(path));
+        }
+        return files.build();
+    }
+
+    @Test
+    @DisplayName("rejects schematics with the same name when they go to one output folder")
+    void rejectsSameNameInOutputFolder() {
+        CLIBatchRunner runner = runner(Paths.get("out"));
+        assertThrows(IllegalArgumentException.class,
+            () -> runner.checkInputs(files("a/house.schem", "b/house.schem")));
+        runner.checkInputs(files("a/house.schem", "b/tower.schem"));
+    }
+
+    @Test
+    @DisplayName("allows schematics with the same name when they are overwritten")
+    void allowsSameNameInPlace() {
+        runner(null).checkInputs(files("a/house.schem", "b/house.schem"));
+    }
+
+    @Test
+    @DisplayName("rejects an input that is given twice")
+    void rejectsRepeatedInput() {
+        assertThrows(IllegalArgumentException.class,
+            () -> runner(null).checkInputs(files("a/house.schem", "a/../a/house.schem")));
+        assertThrows(IllegalArgumentException.class,
+            () -> runner(null).checkInputs(files("world/level.dat", "world/./level.dat")));
+    }
+
+    @Test
+    @DisplayName("rejects worlds when there is an output folder")
+    void rejectsWorldsWithOutputFolder() {
+        runner(null).checkInputs(files("world/level.dat"));
+        assertThrows(IllegalArgumentException.class,
+            () -> runner(Paths.get("out")).checkInputs(files("world/level.dat")));
+    }
+
+    @Test
+    @DisplayName("closes each world after processing it, even when that fails")
+    void closesWorlds() {
+        World saved = mock(World.class, withSettings().extraInterfaces(CLIWorld.class));
+        World failed = mock(World.class, withSettings().extraInterfaces(CLIWorld.class));
+        doThrow(new IllegalStateException("save failed")).when((CLIWorld) failed).save(false);
+        CLIBatchRunner runner = new CLIBatchRunner(app, platform, ImmutableList.of(), 1, null) {
+            @Override
+            World open(File input, String name) {
+                return input.getName().startsWith("saved") ? saved : failed;
+            }
+        };
+
+        assertTrue(runner.run(files("saved.schem")));
+        verify((CLIWorld) saved).close();
+        assertFalse(runner.run(files("failed.schem")));
+        verify((CLIWorld) failed).close();
+        verify(platform).removeWorld(failed);
+    }
+
+}
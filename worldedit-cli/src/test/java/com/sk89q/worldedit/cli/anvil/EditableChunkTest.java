@@ -0,0 +1,252 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.cli.anvil;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.CompoundTagBuilder;
+import com.sk89q.jnbt.ListTag;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.extension.platform.Capability;
+import com.sk89q.worldedit.extension.platform.Platform;
+import com.sk89q.worldedit.extension.platform.PlatformManager;
+import com.sk89q.worldedit.extension.platform.Preference;
+import com.sk89q.worldedit.internal.Constants;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.registry.Registry;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockType;
+import com.sk89q.worldedit.world.chunk.AnvilChunk13;
+import com.sk89q.worldedit.world.chunk.AnvilChunk16;
+import com.sk89q.worldedit.world.registry.BundledRegistries;
+import com.sk89q.worldedit.world.storage.InvalidFormatException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("An editable chunk")
+class EditableChunkTest {
+
+    private static final Platform MOCKED_PLATFORM = mock(Platform.class);
+    private static final int TYPE_COUNT = 20;
+    private static final int CHUNK_X = 2;
+    private static final int CHUNK_Z = -3;
+
+    @BeforeAll
+    static void setupFakePlatform() {
+        when(MOCKED_PLATFORM.getRegistries()).thenReturn(new BundledRegistries() {
+        });
+        when(MOCKED_PLATFORM.getCapabilities()).thenReturn(ImmutableMap.of(
+            Capability.WORLD_EDITING, Preference.PREFERRED,
+            Capability.GAME_HOOKS, Preference.PREFERRED
+        ));
+        PlatformManager platformManager = WorldEdit.getInstance().getPlatformManager();
+        platformManager.register(MOCKED_PLATFORM);
+
+        // chunks use BlockTypes.AIR, which has to be registered before BlockTypes is initialized
+        registerBlock("minecraft:air");
+        registerBlock("minecraft:oak_wood");
+        for (int i = 0; i < TYPE_COUNT; i++) {
+            registerBlock(typeId(i));
+        }
+    }
+
+    @AfterAll
+    static void tearDownFakePlatform() throws Exception {
+        WorldEdit.getInstance().getPlatformManager().unregister(MOCKED_PLATFORM);
+        Field map = Registry.class.getDeclaredField("map");
+        map.setAccessible(true);
+        ((Map<?, ?>) map.get(BlockType.REGISTRY)).clear();
+    }
+
+    private static void registerBlock(String id) {
+        BlockType.REGISTRY.register(id, new BlockType(id));
+    }
+
+    private static String typeId(int i) {
+        return "worldedit:test_" + i;
+    }
+
+    private static BaseBlock block(int i) {
+        return BlockType.REGISTRY.get(typeId(i)).getDefaultState().toBaseBlock();
+    }
+
+    private static CompoundTag paletteEntry(String id) {
+        return CompoundTagBuilder.create().putString("Name", id).build();
+    }
+
+    /**
+     * Create a chunk with one section at Y 0, which has air everywhere
+     * but at its first block. The palette has an entry that isn't used.
+     */
+    private static CompoundTag createChunkTag(int dataVersion) {
+        long[] blockStates = new long[256];
+        blockStates[0] = 2;
+        CompoundTag section = CompoundTagBuilder.create()
+            .putByte("Y", (byte) 0)
+            .put("Palette", new ListTag(CompoundTag.class, ImmutableList.of(
+                paletteEntry("minecraft:air"), paletteEntry(typeId(0)), paletteEntry(typeId(1)))))
+            .putLongArray("BlockStates", blockStates)
+            .build();
+        CompoundTag level = CompoundTagBuilder.create()
+            .putInt("xPos", CHUNK_X)
+            .putInt("zPos", CHUNK_Z)
+            .putByte("isLightOn", (byte) 1)
+            .put("Heightmaps", CompoundTagBuilder.create().build())
+            .put("Sections", new ListTag(CompoundTag.class, ImmutableList.of(section)))
+            .build();
+        return CompoundTagBuilder.create()
+            .putInt("DataVersion", dataVersion)
+            .put("Level", level)
+            .build();
+    }
+
+    private static CompoundTag level(EditableChunk.Snapshot snapshot) {
+        return (CompoundTag) snapshot.tag.getValue().get("Level");
+    }
+
+    private static CompoundTag onlySection(EditableChunk.Snapshot snapshot, int y) {
+        for (CompoundTag section : level(snapshot).getList("Sections", CompoundTag.class)) {
+            if (section.getByte("Y") == y) {
+                return section;
+            }
+        }
+        throw new AssertionError("No section at " + y);
+    }
+
+    private static List<String> paletteNames(CompoundTag section) {
+        List<String> names = new ArrayList<>();
+        for (CompoundTag entry : section.getList("Palette", CompoundTag.class)) {
+            names.add(entry.getString("Name"));
+        }
+        return names;
+    }
+
+    @Test
+    @DisplayName("keeps the tags of sections that weren't changed")
+    void keepsUnchangedSections() throws Exception {
+        CompoundTag tag = createChunkTag(Constants.DATA_VERSION_MC_1_13);
+        EditableChunk chunk = new EditableChunk(tag);
+        assertEquals(typeId(1), chunk.getBlock(0, 0, 0).getBlockType().getId());
+        EditableChunk.Snapshot snapshot = chunk.encode();
+
+        CompoundTag original = ((CompoundTag) tag.getValue().get("Level")).getList("Sections", CompoundTag.class).get(0);
+        assertSame(original, onlySection(snapshot, 0));
+        assertTrue(level(snapshot).containsKey("Heightmaps"));
+        assertEquals(1, level(snapshot).getByte("isLightOn"));
+        assertFalse(chunk.isDirty());
+    }
+
+    @Test
+    @DisplayName("drops unused palette entries and keeps the others in order of first use")
+    void compactsPalette() throws Exception {
+        EditableChunk chunk = new EditableChunk(createChunkTag(Constants.DATA_VERSION_MC_1_13));
+        // replaces the only use of test_1, and adds test_2 after it
+        chunk.setBlock(0, 0, 0, block(3));
+        chunk.setBlock(5, 0, 0, block(2));
+        EditableChunk.Snapshot snapshot = chunk.encode();
+
+        CompoundTag section = onlySection(snapshot, 0);
+        assertEquals(ImmutableList.of(typeId(3), "minecraft:air", typeId(2)), paletteNames(section));
+        assertEquals(256, section.getLongArray("BlockStates").length);
+        // the heights and light of the changed chunk have to be computed again
+        assertFalse(level(snapshot).containsKey("Heightmaps"));
+        assertEquals(0, level(snapshot).getByte("isLightOn"));
+
+        EditableChunk reread = new EditableChunk(snapshot.tag);
+        assertEquals(typeId(3), reread.getBlock(0, 0, 0).getBlockType().getId());
+        assertEquals(typeId(2), reread.getBlock(5, 0, 0).getBlockType().getId());
+        assertEquals("minecraft:air", reread.getBlock(1, 0, 0).getBlockType().getId());
+    }
+
+    @ParameterizedTest(name = "data version {0}")
+    @ValueSource(ints = { Constants.DATA_VERSION_MC_1_13, Constants.DATA_VERSION_MC_1_16 })
+    @DisplayName("packs new sections in the format of its data version")
+    void encodesNewSections(int dataVersion) throws Exception {
+        EditableChunk chunk = new EditableChunk(createChunkTag(dataVersion));
+        // sixteen types, which fit in four bits
+        for (int i = 0; i < 4096; i++) {
+            chunk.setBlock(i & 15, 16 + (i >> 8), (i >> 4) & 15, block(i % 16));
+        }
+        CompoundTag chest = CompoundTagBuilder.create().putString("id", "minecraft:chest").build();
+        // the same type that is already there
+        chunk.setBlock(3, 20, 9, block(3).getBlockType().getDefaultState().toBaseBlock(chest));
+        EditableChunk.Snapshot snapshot = chunk.encode();
+
+        CompoundTag section = onlySection(snapshot, 1);
+        assertEquals(16, paletteNames(section).size());
+        boolean aligned = dataVersion >= Constants.DATA_VERSION_MC_1_16;
+        // 4096 entries of four bits either way
+        assertEquals(256, section.getLongArray("BlockStates").length);
+
+        chunk.setBlock(0, 16, 0, block(16));
+        section = onlySection(chunk.encode(), 1);
+        assertEquals(17, paletteNames(section).size());
+        // twelve entries per long when they can't span two longs
+        assertEquals(aligned ? 342 : 320, section.getLongArray("BlockStates").length);
+
+        snapshot = chunk.encode();
+        List<CompoundTag> tileEntities = level(snapshot).getList("TileEntities", CompoundTag.class);
+        assertEquals(1, tileEntities.size());
+        assertEquals(CHUNK_X * 16 + 3, tileEntities.get(0).getInt("x"));
+        assertEquals(CHUNK_Z * 16 + 9, tileEntities.get(0).getInt("z"));
+
+        EditableChunk reread = new EditableChunk(snapshot.tag);
+        CompoundTag levelTag = level(snapshot);
+        AnvilChunk13 anvilChunk = aligned ? new AnvilChunk16(levelTag) : new AnvilChunk13(levelTag);
+        for (int i = 0; i < 4096; i++) {
+            int x = i & 15;
+            int y = 16 + (i >> 8);
+            int z = (i >> 4) & 15;
+            String expected = typeId(i == 0 ? 16 : i % 16);
+            assertEquals(expected, reread.getBlock(x, y, z).getBlockType().getId());
+            BaseBlock block = anvilChunk.getBlock(BlockVector3.at(CHUNK_X * 16 + x, y, CHUNK_Z * 16 + z));
+            assertEquals(expected, block.getBlockType().getId());
+        }
+        assertEquals("minecraft:chest", reread.getFullBlock(3, 20, 9).getNbtData().getString("id"));
+        assertNull(reread.getFullBlock(4, 20, 9).getNbtData());
+    }
+
+    @Test
+    @DisplayName("rejects chunks from 1.18 and newer")
+    void rejectsNewChunks() {
+        assertThrows(InvalidFormatException.class,
+            () -> new EditableChunk(createChunkTag(AnvilWorld.LAST_SUPPORTED_DATA_VERSION + 1)));
+    }
+
+}
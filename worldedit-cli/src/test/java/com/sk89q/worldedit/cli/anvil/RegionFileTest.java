@@ -0,0 +1,163 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.cli.anvil;
+
+import com.google.common.collect.ImmutableMap;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.CompoundTagBuilder;
+import com.sk89q.worldedit.util.io.file.SafeFiles;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import javax.annotation.Nullable;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DisplayName("A region file")
+class RegionFileTest {
+
+    private static final int SECTOR = 4096;
+
+    private static final int FIRST = RegionFile.indexChunk(0, 0);
+    private static final int SECOND = RegionFile.indexChunk(5, 3);
+    private static final int THIRD = RegionFile.indexChunk(31, 31);
+
+    private Path tempDir;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("worldedit-cli-region");
+        file = Files.createFile(tempDir.resolve("r.0.0.mca"));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        SafeFiles.tryHardToDeleteDir(tempDir);
+    }
+
+    /**
+     * Create a chunk tag. Random bytes don't compress, so the tag takes
+     * about {@code size} bytes in the file.
+     */
+    private static CompoundTag chunk(String name, int size) {
+        byte[] data = new byte[size];
+        new Random(name.hashCode()).nextBytes(data);
+        return CompoundTagBuilder.create()
+            .putString("Name", name)
+            .putByteArray("Data", data)
+            .build();
+    }
+
+    private static void assertChunk(CompoundTag expected, @Nullable CompoundTag actual) {
+        assertNotNull(actual);
+        assertEquals(expected.getString("Name"), actual.getString("Name"));
+        assertArrayEquals(expected.getByteArray("Data"), actual.getByteArray("Data"));
+    }
+
+    private int headerEntry(int index) throws IOException {
+        return ByteBuffer.wrap(Files.readAllBytes(file)).getInt(index * 4);
+    }
+
+    @Test
+    @DisplayName("reads back the chunks it wrote, after being opened again")
+    void roundTrip() throws IOException {
+        CompoundTag first = chunk("first", 100);
+        CompoundTag second = chunk("second", 3 * SECTOR);
+        try (RegionFile region = new RegionFile(file)) {
+            region.write(ImmutableMap.of(FIRST, first, SECOND, second));
+            assertChunk(first, region.read(FIRST));
+        }
+        try (RegionFile region = new RegionFile(file)) {
+            assertChunk(first, region.read(FIRST));
+            assertChunk(second, region.read(SECOND));
+            assertNull(region.read(THIRD));
+        }
+        // one sector for the small chunk, four for the large one, after the header
+        assertEquals((2 + 1 + 4) * SECTOR, Files.size(file));
+    }
+
+    @Test
+    @DisplayName("reuses the sectors of chunks that were written again")
+    void reusesFreedSectors() throws IOException {
+        try (RegionFile region = new RegionFile(file)) {
+            region.write(ImmutableMap.of(FIRST, chunk("first", 100)));
+            assertEquals(2 << 8 | 1, headerEntry(FIRST));
+
+            // the new copy can't overwrite the old one, so it goes after it
+            CompoundTag rewritten = chunk("first again", 100);
+            region.write(ImmutableMap.of(FIRST, rewritten));
+            assertEquals(3 << 8 | 1, headerEntry(FIRST));
+
+            // the sector the first copy used is free again
+            CompoundTag second = chunk("second", 100);
+            region.write(ImmutableMap.of(SECOND, second));
+            assertEquals(2 << 8 | 1, headerEntry(SECOND));
+
+            // too large for the gap left at sector 4, if any, so it's appended
+            CompoundTag third = chunk("third", 2 * SECTOR);
+            region.write(ImmutableMap.of(THIRD, third));
+            assertEquals(4 << 8 | 3, headerEntry(THIRD));
+
+            assertChunk(rewritten, region.read(FIRST));
+            assertChunk(second, region.read(SECOND));
+            assertChunk(third, region.read(THIRD));
+        }
+        assertEquals((2 + 5) * SECTOR, Files.size(file));
+    }
+
+    @Test
+    @DisplayName("keeps chunks that are not part of a write")
+    void keepsUntouchedChunks() throws IOException {
+        CompoundTag second = chunk("second", 2 * SECTOR);
+        CompoundTag third = chunk("third", 100);
+        try (RegionFile region = new RegionFile(file)) {
+            region.write(ImmutableMap.of(FIRST, chunk("first", 100), SECOND, second, THIRD, third));
+        }
+        int secondOffset = headerEntry(SECOND);
+        int thirdOffset = headerEntry(THIRD);
+        int firstOffset = headerEntry(FIRST);
+
+        CompoundTag first = chunk("first, larger", 2 * SECTOR);
+        try (RegionFile region = new RegionFile(file)) {
+            region.write(ImmutableMap.of(FIRST, first));
+        }
+        assertNotEquals(firstOffset, headerEntry(FIRST));
+        assertEquals(secondOffset, headerEntry(SECOND));
+        assertEquals(thirdOffset, headerEntry(THIRD));
+        try (RegionFile region = new RegionFile(file)) {
+            assertChunk(first, region.read(FIRST));
+            assertChunk(second, region.read(SECOND));
+            assertChunk(third, region.read(THIRD));
+        }
+    }
+
+}
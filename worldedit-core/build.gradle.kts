@@ -96,6 +96,19 @@
 val i18nSource = file("src/main/resources/lang/strings.json")
 val processResources = tasks.named<Copy>("processResources")
 
+val compileRegistryImages by tasks.registering(CompileRegistryImages::class) {
+    sourceFiles.from(fileTree("src/main/resources/com/sk89q/worldedit/world/registry") {
+        include("blocks*.json", "items*.json", "legacy.json")
+    })
+    outputDirectory.set(buildDir.resolve("generated-resources/registry-images"))
+}
+
+processResources.configure {
+    from(compileRegistryImages) {
+        into("com/sk89q/worldedit/world/registry")
+    }
+}
+
 val crowdinApiKey = "crowdin_apikey"
 if (project.hasProperty(crowdinApiKey) && !gradle.startParameter.isOffline) {
     tasks.named<UploadSourceFileTask>("crowdinUpload") {
@@ -0,0 +1,474 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.jnbt;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * Reads <strong>NBT</strong> from a buffer that holds all of it, and only
+ * creates the tags that are actually accessed.
+ *
+ * <p>Opening a compound tag or a list of variable-sized tags records where
+ * each child starts, skipping over the child's payload without creating
+ * anything for it. A child is only read when it is first accessed. Consumers
+ * see regular {@link CompoundTag}s and {@link ListTag}s, so the result can be
+ * used anywhere a tag from {@link NBTInputStream} can.</p>
+ *
+ * <p>The buffer must not be modified while tags read from it are in use.</p>
+ */
+public final class LazyNBTReader {
+
+    private static final int INDEX_BY_HASH_THRESHOLD = 16;
+
+    /**
+     * Read the root tag of the given buffer.
+     *
+     * @param buffer the buffer, from its position to its limit
+     * @return the tag that was read
+     * @throws IOException if the data is not valid NBT
+     */
+    public static NamedTag readNamedTag(ByteBuffer buffer) throws IOException {
+        LazyNBTReader reader = new LazyNBTReader(buffer.slice().order(ByteOrder.BIG_ENDIAN));
+        try {
+            int type = reader.buffer.get(0) & 0xFF;
+            if (type == NBTConstants.TYPE_END) {
+                throw new IOException("TAG_End found without a TAG_Compound/TAG_List tag preceding it.");
+            }
+            int nameLength = reader.buffer.getShort(1) & 0xFFFF;
+            String name = reader.readString(3, nameLength);
+            return new NamedTag(name, reader.readPayload(type, 3 + nameLength));
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Unexpected end of NBT data", e);
+        }
+    }
+
+    /**
+     * Read the root tag of the given data.
+     *
+     * @param data the data
+     * @return the tag that was read
+     * @throws IOException if the data is not valid NBT
+     */
+    public static NamedTag readNamedTag(byte[] data) throws IOException {
+        return readNamedTag(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Find a byte array below the root compound tag of the given buffer, and
+     * return a view of it rather than a copy.
+     *
+     * <p>Each element of the path names a child of the compound before it,
+     * and only the compounds along the path are walked.</p>
+     *
+     * @param buffer the buffer, from its position to its limit
+     * @param path the names of the tags leading to the byte array
+     * @return a read-only view of the bytes, or {@code null} if there is no byte array at the path
+     * @throws IOException if the data is not valid NBT
+     */
+    @Nullable
+    public static ByteBuffer findByteArray(ByteBuffer buffer, String... path) throws IOException {
+        LazyNBTReader reader = new LazyNBTReader(buffer.slice().order(ByteOrder.BIG_ENDIAN));
+        try {
+            int type = reader.buffer.get(0) & 0xFF;
+            int position = 3 + (reader.buffer.getShort(1) & 0xFFFF);
+            for (String name : path) {
+                if (type != NBTConstants.TYPE_COMPOUND) {
+                    return null;
+                }
+                int child = reader.findChild(position, name);
+                if (child < 0) {
+                    return null;
+                }
+                type = reader.buffer.get(child) & 0xFF;
+                position = child + 3 + (reader.buffer.getShort(child + 1) & 0xFFFF);
+            }
+            if (type != NBTConstants.TYPE_BYTE_ARRAY) {
+                return null;
+            }
+            int length = reader.checkLength(reader.buffer.getInt(position), 1);
+            ByteBuffer view = reader.buffer.duplicate();
+            view.position(position + 4);
+            view.limit(position + 4 + length);
+            return view.slice().asReadOnlyBuffer();
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Unexpected end of NBT data", e);
+        }
+    }
+
+    private final ByteBuffer buffer;
+
+    private LazyNBTReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    private String readString(int position, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        view.get(bytes);
+        return new String(bytes, NBTConstants.CHARSET);
+    }
+
+    /**
+     * Get the size of a payload of a fixed-size type.
+     *
+     * @return the size, or {@code -1} if the size varies
+     */
+    private static int fixedSize(int type) {
+        switch (type) {
+            case NBTConstants.TYPE_BYTE:
+                return 1;
+            case NBTConstants.TYPE_SHORT:
+                return 2;
+            case NBTConstants.TYPE_INT:
+            case NBTConstants.TYPE_FLOAT:
+                return 4;
+            case NBTConstants.TYPE_LONG:
+            case NBTConstants.TYPE_DOUBLE:
+                return 8;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Find where the payload starting at the given position ends, without
+     * reading it.
+     */
+    private int skipPayload(int type, int position) throws IOException {
+        int fixedSize = fixedSize(type);
+        if (fixedSize >= 0) {
+            return position + fixedSize;
+        }
+        switch (type) {
+            case NBTConstants.TYPE_BYTE_ARRAY:
+                return position + 4 + checkLength(buffer.getInt(position), 1);
+            case NBTConstants.TYPE_STRING:
+                return position + 2 + (buffer.getShort(position) & 0xFFFF);
+            case NBTConstants.TYPE_INT_ARRAY:
+                return position + 4 + checkLength(buffer.getInt(position), 4) * 4;
+            case NBTConstants.TYPE_LONG_ARRAY:
+                return position + 4 + checkLength(buffer.getInt(position), 8) * 8;
+            case NBTConstants.TYPE_LIST: {
+                int childType = buffer.get(position);
+                int childSize = fixedSize(childType);
+                int length = checkLength(buffer.getInt(position + 1), Math.max(childSize, 1));
+                if (childSize >= 0) {
+                    return position + 5 + length * childSize;
+                }
+                int end = position + 5;
+                for (int i = 0; i < length; i++) {
+                    end = skipPayload(childType, end);
+                }
+                return end;
+            }
+            case NBTConstants.TYPE_COMPOUND: {
+                int end = position;
+                while (true) {
+                    int childType = buffer.get(end) & 0xFF;
+                    if (childType == NBTConstants.TYPE_END) {
+                        return end + 1;
+                    }
+                    end = skipPayload(childType, end + 3 + (buffer.getShort(end + 1) & 0xFFFF));
+                }
+            }
+            default:
+                throw new IOException("Invalid tag type: " + type + ".");
+        }
+    }
+
+    /**
+     * Find the child of the compound payload starting at the given position.
+     *
+     * @return the position of the child's type byte, or {@code -1} if there is no such child
+     */
+    private int findChild(int position, String name) throws IOException {
+        int found = -1;
+        int end = position;
+        while (true) {
+            int type = buffer.get(end) & 0xFF;
+            if (type == NBTConstants.TYPE_END) {
+                return found;
+            }
+            int nameLength = buffer.getShort(end + 1) & 0xFFFF;
+            if (readString(end + 3, nameLength).equals(name)) {
+                // a later duplicate replaces the earlier entry, as when reading the whole compound
+                found = end;
+            }
+            end = skipPayload(type, end + 3 + nameLength);
+        }
+    }
+
+    private int checkLength(int length, int elementSize) throws IOException {
+        if (length < 0 || length > buffer.limit() / elementSize) {
+            throw new IOException("Invalid NBT length: " + length);
+        }
+        return length;
+    }
+
+    private Tag readPayload(int type, int position) throws IOException {
+        switch (type) {
+            case NBTConstants.TYPE_BYTE:
+                return new ByteTag(buffer.get(position));
+            case NBTConstants.TYPE_SHORT:
+                return new ShortTag(buffer.getShort(position));
+            case NBTConstants.TYPE_INT:
+                return new IntTag(buffer.getInt(position));
+            case NBTConstants.TYPE_LONG:
+                return new LongTag(buffer.getLong(position));
+            case NBTConstants.TYPE_FLOAT:
+                return new FloatTag(buffer.getFloat(position));
+            case NBTConstants.TYPE_DOUBLE:
+                return new DoubleTag(buffer.getDouble(position));
+            case NBTConstants.TYPE_BYTE_ARRAY: {
+                byte[] bytes = new byte[checkLength(buffer.getInt(position), 1)];
+                ByteBuffer view = buffer.duplicate();
+                view.position(position + 4);
+                view.get(bytes);
+                return new ByteArrayTag(bytes);
+            }
+            case NBTConstants.TYPE_STRING:
+                return new StringTag(readString(position + 2, buffer.getShort(position) & 0xFFFF));
+            case NBTConstants.TYPE_LIST:
+                return readList(position);
+            case NBTConstants.TYPE_COMPOUND:
+                return new CompoundTag(new LazyCompoundMap(position));
+            case NBTConstants.TYPE_INT_ARRAY: {
+                int[] data = new int[checkLength(buffer.getInt(position), 4)];
+                ByteBuffer view = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+                view.position(position + 4);
+                view.asIntBuffer().get(data);
+                return new IntArrayTag(data);
+            }
+            case NBTConstants.TYPE_LONG_ARRAY: {
+                long[] data = new long[checkLength(buffer.getInt(position), 8)];
+                ByteBuffer view = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+                view.position(position + 4);
+                view.asLongBuffer().get(data);
+                return new LongArrayTag(data);
+            }
+            default:
+                throw new IOException("Invalid tag type: " + type + ".");
+        }
+    }
+
+    private ListTag readList(int position) throws IOException {
+        int childType = buffer.get(position);
+        int childSize = fixedSize(childType);
+        int length = checkLength(buffer.getInt(position + 1), Math.max(childSize, 1));
+        if (childType == NBTConstants.TYPE_END && length > 0) {
+            throw new IOException("TAG_End not permitted in a list.");
+        }
+        int start = position + 5;
+        int[] offsets = null;
+        if (childSize >= 0) {
+            if (start + length * childSize > buffer.limit()) {
+                throw new IOException("Unexpected end of NBT data");
+            }
+        } else {
+            offsets = new int[length];
+            int end = start;
+            for (int i = 0; i < length; i++) {
+                offsets[i] = end;
+                end = skipPayload(childType, end);
+            }
+        }
+        return new ListTag(NBTUtils.getTypeClass(childType),
+            new LazyTagList(childType, length, start, childSize, offsets));
+    }
+
+    private Tag readChecked(int type, int position) {
+        // the whole tree was walked when the root was opened, so this only
+        // fails if the buffer was modified afterwards
+        try {
+            return readPayload(type, position);
+        } catch (IOException | IndexOutOfBoundsException e) {
+            throw new IllegalStateException("NBT data changed after it was read", e);
+        }
+    }
+
+    private final class LazyTagList extends AbstractList<Tag> {
+        private final int childType;
+        private final int size;
+        private final int start;
+        private final int childSize;
+        private final int[] offsets;
+        private final Tag[] values;
+
+        private LazyTagList(int childType, int size, int start, int childSize, int[] offsets) {
+            this.childType = childType;
+            this.size = size;
+            this.start = start;
+            this.childSize = childSize;
+            this.offsets = offsets;
+            this.values = new Tag[size];
+        }
+
+        @Override
+        public Tag get(int index) {
+            Tag value = values[index];
+            if (value == null) {
+                int position = offsets == null ? start + index * childSize : offsets[index];
+                value = readChecked(childType, position);
+                values[index] = value;
+            }
+            return value;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private final class LazyCompoundMap extends AbstractMap<String, Tag> {
+        private String[] names;
+        private byte[] types;
+        private int[] offsets;
+        private Tag[] values;
+        private int size;
+        private Map<String, Integer> index;
+
+        private LazyCompoundMap(int position) throws IOException {
+            names = new String[8];
+            types = new byte[8];
+            offsets = new int[8];
+            int end = position;
+            while (true) {
+                int type = buffer.get(end) & 0xFF;
+                if (type == NBTConstants.TYPE_END) {
+                    break;
+                }
+                int nameLength = buffer.getShort(end + 1) & 0xFFFF;
+                String name = readString(end + 3, nameLength);
+                int payload = end + 3 + nameLength;
+                put(name, type, payload);
+                end = skipPayload(type, payload);
+            }
+            values = new Tag[size];
+        }
+
+        private void put(String name, int type, int payload) {
+            int slot = indexOf(name);
+            if (slot < 0) {
+                // a later duplicate replaces the earlier entry, like a HashMap would
+                if (size == names.length) {
+                    names = Arrays.copyOf(names, size * 2);
+                    types = Arrays.copyOf(types, size * 2);
+                    offsets = Arrays.copyOf(offsets, size * 2);
+                }
+                slot = size++;
+                names[slot] = name;
+                if (index != null) {
+                    index.put(name, slot);
+                } else if (size > INDEX_BY_HASH_THRESHOLD) {
+                    index = new HashMap<>();
+                    for (int i = 0; i < size; i++) {
+                        index.put(names[i], i);
+                    }
+                }
+            }
+            types[slot] = (byte) type;
+            offsets[slot] = payload;
+        }
+
+        private int indexOf(Object name) {
+            if (index != null) {
+                Integer slot = index.get(name);
+                return slot == null ? -1 : slot;
+            }
+            for (int i = 0; i < size; i++) {
+                if (names[i].equals(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private Tag valueAt(int slot) {
+            Tag value = values[slot];
+            if (value == null) {
+                value = readChecked(types[slot] & 0xFF, offsets[slot]);
+                values[slot] = value;
+            }
+            return value;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return indexOf(key) >= 0;
+        }
+
+        @Override
+        public Tag get(Object key) {
+            int slot = indexOf(key);
+            return slot < 0 ? null : valueAt(slot);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Set<Entry<String, Tag>> entrySet() {
+            return new AbstractSet<Entry<String, Tag>>() {
+                @Override
+                public Iterator<Entry<String, Tag>> iterator() {
+                    return new Iterator<Entry<String, Tag>>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < size;
+                        }
+
+                        @Override
+                        public Entry<String, Tag> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            int slot = next++;
+                            return new SimpleImmutableEntry<>(names[slot], valueAt(slot));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+    }
+
+}
@@ -84,6 +84,65 @@ public void writeNamedTag(String name, Tag tag) throws IOException {
         writeTagPayload(tag);
     }
 
+    /**
+     * Writes the type and name of a tag, leaving the payload to the caller.
+     *
+     * <p>This allows writing tags that are too large to build in memory:
+     * a compound can be written as its header, its entries as named tags,
+     * and {@link #writeEndTag()}; a byte array as its header,
+     * {@link #writePayloadInt(int)} for the length and the bytes through
+     * {@link #writePayloadBytes(byte[], int, int)}.</p>
+     *
+     * @param name the name of the tag
+     * @param type the type of the tag, one of the {@link NBTConstants} type codes
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeNamedTagHeader(String name, int type) throws IOException {
+        checkNotNull(name);
+        if (type == NBTConstants.TYPE_END) {
+            throw new IOException("Named TAG_End not permitted.");
+        }
+        byte[] nameBytes = name.getBytes(NBTConstants.CHARSET);
+
+        os.writeByte(type);
+        os.writeShort(nameBytes.length);
+        os.write(nameBytes);
+    }
+
+    /**
+     * Writes an int as part of a payload started by
+     * {@link #writeNamedTagHeader(String, int)}.
+     *
+     * @param value the value
+     * @throws IOException if an I/O error occurs
+     */
+    public void writePayloadInt(int value) throws IOException {
+        os.writeInt(value);
+    }
+
+    /**
+     * Writes bytes as part of a payload started by
+     * {@link #writeNamedTagHeader(String, int)}.
+     *
+     * @param bytes the bytes
+     * @param offset the offset of the first byte to write
+     * @param length the number of bytes to write
+     * @throws IOException if an I/O error occurs
+     */
+    public void writePayloadBytes(byte[] bytes, int offset, int length) throws IOException {
+        os.write(bytes, offset, length);
+    }
+
+    /**
+     * Writes the end of a compound started by
+     * {@link #writeNamedTagHeader(String, int)}.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeEndTag() throws IOException {
+        os.writeByte(NBTConstants.TYPE_END);
+    }
+
     /**
      * Writes tag payload.
      *
@@ -30,6 +30,7 @@
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.extent.MaskingExtent;
 import com.sk89q.worldedit.extent.NullExtent;
+import com.sk89q.worldedit.extent.TimingExtent;
 import com.sk89q.worldedit.extent.TracingExtent;
 import com.sk89q.worldedit.extent.buffer.ForgetfulExtentBuffer;
 import com.sk89q.worldedit.extent.cache.LastAccessExtentCache;
@@ -108,11 +109,14 @@
 import com.sk89q.worldedit.util.Direction;
 import com.sk89q.worldedit.util.SideEffectSet;
 import com.sk89q.worldedit.util.TreeGenerator;
+import com.sk89q.worldedit.util.collection.BlockBatch;
 import com.sk89q.worldedit.util.collection.BlockMap;
 import com.sk89q.worldedit.util.collection.DoubleArrayList;
 import com.sk89q.worldedit.util.eventbus.EventBus;
 import com.sk89q.worldedit.util.formatting.text.TextComponent;
 import com.sk89q.worldedit.util.formatting.text.TranslatableComponent;
+import com.sk89q.worldedit.util.metrics.EditMetrics;
+import com.sk89q.worldedit.util.metrics.PerformanceMetrics;
 import com.sk89q.worldedit.world.NullWorld;
 import com.sk89q.worldedit.world.World;
 import com.sk89q.worldedit.world.biome.BiomeType;
@@ -210,6 +214,7 @@ public String getDisplayName() {
     private final Extent bypassNone;
 
     private final @Nullable List<TracingExtent> tracingExtents;
+    private final @Nullable EditMetrics metrics;
 
     private ReorderMode reorderMode = ReorderMode.MULTI_STAGE;
 
@@ -240,6 +245,9 @@ public String getDisplayName() {
 
         this.world = world;
         this.actor = actor;
+        this.metrics = PerformanceMetrics.getInstance().startEdit(
+            actor == null ? "none" : actor.getName(),
+            world == null ? "none" : world.getName());
 
         if (world != null) {
             EditSessionEvent event = new EditSessionEvent(world, actor, maxBlocks, null);
@@ -247,7 +255,8 @@ public String getDisplayName() {
                 .queryCapability(Capability.GAME_HOOKS).getWatchdog();
             Extent extent;
 
-            // These extents are ALWAYS used
+            // These extents are ALWAYS used. Stages that are disabled by the
+            // session's settings are skipped by AbstractDelegateExtent.
             extent = traceIfNeeded(sideEffectExtent = new SideEffectExtent(world));
             if (watchdog != null) {
                 // Reset watchdog before world placement
@@ -256,7 +265,9 @@ public String getDisplayName() {
                 watchdogExtents.add(watchdogExtent);
             }
             extent = traceIfNeeded(survivalExtent = new SurvivalModeExtent(extent, world));
-            extent = traceIfNeeded(new BiomeQuirkExtent(extent));
+            if (!world.fullySupports3DBiomes()) {
+                extent = traceIfNeeded(new BiomeQuirkExtent(extent));
+            }
             extent = traceIfNeeded(new ChunkLoadingExtent(extent, world));
             extent = traceIfNeeded(new LastAccessExtentCache(extent));
             extent = traceIfNeeded(blockBagExtent = new BlockBagExtent(extent, blockBag));
@@ -298,9 +309,9 @@ public String getDisplayName() {
     }
 
     private Extent traceIfNeeded(Extent input) {
-        Extent output = input;
+        Extent output = timeIfNeeded(input, input.getClass().getSimpleName());
         if (tracingExtents != null) {
-            TracingExtent newExtent = new TracingExtent(input);
+            TracingExtent newExtent = new TracingExtent(output);
             output = newExtent;
             tracingExtents.add(newExtent);
         }
@@ -317,7 +328,17 @@ private Extent wrapExtent(Extent extent, EventBus eventBus, EditSessionEvent eve
         if (tracing) {
             tracingExtents.addAll(event.getTracingExtents());
         }
-        return event.getExtent();
+        if (event.getExtent() == extent) {
+            return extent;
+        }
+        return timeIfNeeded(event.getExtent(), stage.name() + " hooks");
+    }
+
+    private Extent timeIfNeeded(Extent input, String stageName) {
+        if (metrics == null) {
+            return input;
+        }
+        return new TimingExtent(input, metrics, stageName);
     }
 
     // pkg private for TracedEditSession only, may later become public API
@@ -669,21 +690,41 @@ public BiomeType getBiome(BlockVector3 position) {
         return bypassNone.getBiome(position);
     }
 
+    @Override
+    public BiomeType getBiome(int x, int y, int z) {
+        return bypassNone.getBiome(x, y, z);
+    }
+
     @Override
     public boolean setBiome(BlockVector3 position, BiomeType biome) {
         return bypassNone.setBiome(position, biome);
     }
 
+    @Override
+    public boolean setBiome(int x, int y, int z, BiomeType biome) {
+        return bypassNone.setBiome(x, y, z, biome);
+    }
+
     @Override
     public BlockState getBlock(BlockVector3 position) {
         return world.getBlock(position);
     }
 
+    @Override
+    public BlockState getBlock(int x, int y, int z) {
+        return world.getBlock(x, y, z);
+    }
+
     @Override
     public BaseBlock getFullBlock(BlockVector3 position) {
         return world.getFullBlock(position);
     }
 
+    @Override
+    public BaseBlock getFullBlock(int x, int y, int z) {
+        return world.getFullBlock(x, y, z);
+    }
+
     /**
      * Returns the highest solid 'terrain' block.
      *
@@ -709,10 +750,9 @@ public int getHighestTerrainBlock(int x, int z, int minY, int maxY) {
      */
     public int getHighestTerrainBlock(int x, int z, int minY, int maxY, Mask filter) {
         for (int y = maxY; y >= minY; --y) {
-            BlockVector3 pt = BlockVector3.at(x, y, z);
             if (filter == null
-                    ? getBlock(pt).getBlockType().getMaterial().isMovementBlocker()
-                    : filter.test(pt)) {
+                    ? getBlock(x, y, z).getBlockType().getMaterial().isMovementBlocker()
+                    : filter.test(BlockVector3.at(x, y, z))) {
                 return y;
             }
         }
@@ -783,6 +823,28 @@ public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 position, B
         }
     }
 
+    @Override
+    public <B extends BlockStateHolder<B>> boolean setBlock(int x, int y, int z, B block) throws MaxChangedBlocksException {
+        try {
+            return bypassNone.setBlock(x, y, z, block);
+        } catch (MaxChangedBlocksException e) {
+            throw e;
+        } catch (WorldEditException e) {
+            throw new RuntimeException("Unexpected exception", e);
+        }
+    }
+
+    @Override
+    public int setBlocks(BlockBatch batch) throws MaxChangedBlocksException {
+        try {
+            return bypassNone.setBlocks(batch);
+        } catch (MaxChangedBlocksException e) {
+            throw e;
+        } catch (WorldEditException e) {
+            throw new RuntimeException("Unexpected exception", e);
+        }
+    }
+
     /**
      * Sets the block at a position, subject to both history and block re-ordering.
      *
@@ -795,6 +857,18 @@ public boolean setBlock(BlockVector3 position, Pattern pattern) throws MaxChange
         return setBlock(position, pattern.applyBlock(position));
     }
 
+    /**
+     * Sets the block at a position, subject to both history and block re-ordering.
+     *
+     * <p>Single-block patterns are placed without allocating a vector.</p>
+     */
+    private boolean setBlock(int x, int y, int z, Pattern pattern) throws MaxChangedBlocksException {
+        if (pattern instanceof BlockStateHolder) {
+            return setBlock(x, y, z, ((BlockStateHolder<?>) pattern).toBaseBlock());
+        }
+        return setBlock(BlockVector3.at(x, y, z), pattern);
+    }
+
     /**
      * Set blocks that are in a set of positions and return the number of times
      * that the block set calls returned true.
@@ -879,6 +953,9 @@ public List<? extends Entity> getEntities() {
     public void close() {
         internalFlushSession();
         dumpTracingInformation();
+        if (metrics != null) {
+            PerformanceMetrics.getInstance().finishEdit(metrics, getBlockChangeCount());
+        }
     }
 
     private void dumpTracingInformation() {
@@ -933,7 +1010,19 @@ public void flushSession() {
     }
 
     private void internalFlushSession() {
-        Operations.completeBlindly(commit());
+        if (metrics == null) {
+            Operations.completeBlindly(commit());
+            return;
+        }
+        long start = System.nanoTime();
+        long token = metrics.enter();
+        try {
+            Operations.completeBlindly(commit());
+        } finally {
+            metrics.exit(metrics.getFlush(), start, token);
+            // sessions that are flushed but never closed are still reported
+            PerformanceMetrics.getInstance().flushEdit(metrics, getBlockChangeCount());
+        }
     }
 
     @Override
@@ -1657,6 +1746,10 @@ public int makeCylinder(BlockVector3 pos, Pattern block, double radiusX, double
         final int ceilRadiusX = (int) Math.ceil(radiusX);
         final int ceilRadiusZ = (int) Math.ceil(radiusZ);
 
+        final int px = pos.getBlockX();
+        final int py = pos.getBlockY();
+        final int pz = pos.getBlockZ();
+
         double nextXn = 0;
         forX: for (int x = 0; x <= ceilRadiusX; ++x) {
             final double xn = nextXn;
@@ -1680,17 +1773,17 @@ public int makeCylinder(BlockVector3 pos, Pattern block, double radiusX, double
                     }
                 }
 
-                for (int y = 0; y < height; ++y) {
-                    if (setBlock(pos.add(x, y, z), block)) {
+                for (int y = py; y < py + height; ++y) {
+                    if (setBlock(px + x, y, pz + z, block)) {
                         ++affected;
                     }
-                    if (setBlock(pos.add(-x, y, z), block)) {
+                    if (setBlock(px - x, y, pz + z, block)) {
                         ++affected;
                     }
-                    if (setBlock(pos.add(x, y, -z), block)) {
+                    if (setBlock(px + x, y, pz - z, block)) {
                         ++affected;
                     }
-                    if (setBlock(pos.add(-x, y, -z), block)) {
+                    if (setBlock(px - x, y, pz - z, block)) {
                         ++affected;
                     }
                 }
@@ -1741,6 +1834,10 @@ public int makeSphere(BlockVector3 pos, Pattern block, double radiusX, double ra
         final int ceilRadiusY = (int) Math.ceil(radiusY);
         final int ceilRadiusZ = (int) Math.ceil(radiusZ);
 
+        final int px = pos.getBlockX();
+        final int py = pos.getBlockY();
+        final int pz = pos.getBlockZ();
+
         double nextXn = 0;
         forX: for (int x = 0; x <= ceilRadiusX; ++x) {
             final double xn = nextXn;
@@ -1771,28 +1868,28 @@ public int makeSphere(BlockVector3 pos, Pattern block, double radiusX, double ra
                         }
                     }
 
-                    if (setBlock(pos.add(x, y, z), block)) {
+                    if (setBlock(px + x, py + y, pz + z, block)) {
                         ++affected;
                     }
-                    if (setBlock(pos.add(-x, y, z), block)) {
+                    if (setBlock(px - x, py + y, pz + z, block)) {
                         ++affected;
                     }
-                    if (setBlock(pos.add(x, -y, z), block)) {
+                    if (setBlock(px + x, py - y, pz + z, block)) {
                         ++affected;
                     }
-                    if (setBlock(pos.add(x, y, -z), block)) {
+                    if (setBlock(px + x, py + y, pz - z, block)) {
                         ++affected;
                     }
-                    if (setBlock(pos.add(-x, -y, z), block)) {
+                    if (setBlock(px - x, py - y, pz + z, block)) {
                         ++affected;
                     }
-                    if (setBlock(pos.add(x, -y, -z), block)) {
+                    if (setBlock(px + x, py - y, pz - z, block)) {
                         ++affected;
                     }
-                    if (setBlock(pos.add(-x, y, -z), block)) {
+                    if (setBlock(px - x, py + y, pz - z, block)) {
                         ++affected;
                     }
-                    if (setBlock(pos.add(-x, -y, -z), block)) {
+                    if (setBlock(px - x, py - y, pz - z, block)) {
                         ++affected;
                     }
                 }
@@ -1817,6 +1914,10 @@ public int makePyramid(BlockVector3 position, Pattern block, int size, boolean f
 
         int height = size;
 
+        final int px = position.getBlockX();
+        final int py = position.getBlockY();
+        final int pz = position.getBlockZ();
+
         for (int y = 0; y <= height; ++y) {
             size--;
             for (int x = 0; x <= size; ++x) {
@@ -1824,16 +1925,16 @@ public int makePyramid(BlockVector3 position, Pattern block, int size, boolean f
 
                     if ((filled && z <= size && x <= size) || z == size || x == size) {
 
-                        if (setBlock(position.add(x, y, z), block)) {
+                        if (setBlock(px + x, py + y, pz + z, block)) {
                             ++affected;
                         }
-                        if (setBlock(position.add(-x, y, z), block)) {
+                        if (setBlock(px - x, py + y, pz + z, block)) {
                             ++affected;
                         }
-                        if (setBlock(position.add(x, y, -z), block)) {
+                        if (setBlock(px + x, py + y, pz - z, block)) {
                             ++affected;
                         }
-                        if (setBlock(position.add(-x, y, -z), block)) {
+                        if (setBlock(px - x, py + y, pz - z, block)) {
                             ++affected;
                         }
                     }
@@ -1888,20 +1989,19 @@ public int thaw(BlockVector3 position, double radius, int height)
         int ceilRadius = (int) Math.ceil(radius);
         for (int x = ox - ceilRadius; x <= ox + ceilRadius; ++x) {
             for (int z = oz - ceilRadius; z <= oz + ceilRadius; ++z) {
-                if ((BlockVector3.at(x, oy, z)).distanceSq(position) > radiusSq) {
+                if ((x - ox) * (x - ox) + (z - oz) * (z - oz) > radiusSq) {
                     continue;
                 }
 
                 for (int y = maxY; y > minY; --y) {
-                    BlockVector3 pt = BlockVector3.at(x, y, z);
-                    BlockType id = getBlock(pt).getBlockType();
+                    BlockType id = getBlock(x, y, z).getBlockType();
 
                     if (id == BlockTypes.ICE) {
-                        if (setBlock(pt, water)) {
+                        if (setBlock(x, y, z, water)) {
                             ++affected;
                         }
                     } else if (id == BlockTypes.SNOW) {
-                        if (setBlock(pt, air)) {
+                        if (setBlock(x, y, z, air)) {
                             ++affected;
                         }
                     } else if (id.getMaterial().isAir()) {
@@ -2010,17 +2110,16 @@ public int green(BlockVector3 position, double radius, int height, boolean onlyN
         final int ceilRadius = (int) Math.ceil(radius);
         for (int x = ox - ceilRadius; x <= ox + ceilRadius; ++x) {
             for (int z = oz - ceilRadius; z <= oz + ceilRadius; ++z) {
-                if ((BlockVector3.at(x, oy, z)).distanceSq(position) > radiusSq) {
+                if ((x - ox) * (x - ox) + (z - oz) * (z - oz) > radiusSq) {
                     continue;
                 }
 
                 for (int y = maxY; y > minY; --y) {
-                    final BlockVector3 pt = BlockVector3.at(x, y, z);
-                    final BlockState block = getBlock(pt);
+                    final BlockState block = getBlock(x, y, z);
 
                     if (block.getBlockType() == BlockTypes.DIRT
                         || (!onlyNormalDirt && block.getBlockType() == BlockTypes.COARSE_DIRT)) {
-                        if (setBlock(pt, grass)) {
+                        if (setBlock(x, y, z, grass)) {
                             ++affected;
                         }
                         break;
@@ -28,10 +28,12 @@
 import com.sk89q.worldedit.world.registry.LegacyMapper;
 import com.sk89q.worldedit.world.snapshot.SnapshotRepository;
 import com.sk89q.worldedit.world.snapshot.experimental.SnapshotDatabase;
+import com.sk89q.worldedit.world.snapshot.experimental.dedup.DedupSnapshotDatabase;
 import com.sk89q.worldedit.world.snapshot.experimental.fs.FileSystemSnapshotDatabase;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
@@ -187,17 +189,43 @@ public Path getWorkingDirectoryPath() {
     }
 
     public void initializeSnapshotConfiguration(String directory, boolean experimental) {
+        initializeSnapshotConfiguration(directory, experimental, false);
+    }
+
+    /**
+     * Set up the snapshot repository or database.
+     *
+     * @param directory the snapshot directory, or an empty string to disable snapshots
+     * @param experimental whether to use the experimental snapshot database
+     * @param deduplicate whether to create a deduplicating database in the directory if it has none,
+     *     only used with the experimental snapshot database
+     */
+    public void initializeSnapshotConfiguration(String directory, boolean experimental, boolean deduplicate) {
         // Reset for reload
+        if (snapshotDatabase instanceof Closeable) {
+            try {
+                ((Closeable) snapshotDatabase).close();
+            } catch (IOException e) {
+                LOGGER.warn("Failed to close snapshotDatabase", e);
+            }
+        }
         snapshotRepo = null;
         snapshotDatabase = null;
         snapshotsConfigured = false;
         if (!directory.isEmpty()) {
             if (experimental) {
                 try {
-                    snapshotDatabase = FileSystemSnapshotDatabase.maybeCreate(
-                        Paths.get(directory),
-                        ArchiveNioSupports.combined()
-                    );
+                    Path root = Paths.get(directory);
+                    if (deduplicate) {
+                        snapshotDatabase = DedupSnapshotDatabase.maybeCreate(root);
+                    } else if (DedupSnapshotDatabase.isDatabase(root)) {
+                        snapshotDatabase = new DedupSnapshotDatabase(root);
+                    } else {
+                        snapshotDatabase = FileSystemSnapshotDatabase.maybeCreate(
+                            root,
+                            ArchiveNioSupports.combined()
+                        );
+                    }
                     snapshotsConfigured = true;
                 } catch (IOException e) {
                     LOGGER.warn("Failed to open snapshotDatabase", e);
@@ -47,6 +47,7 @@
 import com.sk89q.worldedit.regions.selector.CuboidRegionSelector;
 import com.sk89q.worldedit.regions.selector.RegionSelectorType;
 import com.sk89q.worldedit.session.ClipboardHolder;
+import com.sk89q.worldedit.session.SessionManager;
 import com.sk89q.worldedit.session.request.Request;
 import com.sk89q.worldedit.util.Countable;
 import com.sk89q.worldedit.util.SideEffectSet;
@@ -78,6 +79,12 @@
 public class LocalSession {
 
     public static transient int MAX_HISTORY_SIZE = 15;
+    /**
+     * The number of entries the undo history keeps at most while the history
+     * memory budget is in use. Memory decides which entries are discarded,
+     * this only bounds the bookkeeping for a great number of tiny edits.
+     */
+    public static transient int MAX_BUDGETED_HISTORY_SIZE = 1000;
 
     // Non-session related fields
     private transient LocalConfiguration config;
@@ -89,6 +96,8 @@ public class LocalSession {
     private transient boolean placeAtPos1 = false;
     private final transient LinkedList<EditSession> history = new LinkedList<>();
     private transient int historyPointer = 0;
+    @Nullable
+    private transient EditSession heldOpen;
     private transient ClipboardHolder clipboard;
     private transient boolean superPickaxe = false;
     private transient BlockTool pickaxeMode = new SinglePickaxe();
@@ -205,13 +214,20 @@ public void setTimezone(ZoneId timezone) {
      * Clear history.
      */
     public void clearHistory() {
-        history.clear();
-        historyPointer = 0;
+        closeHeldOpen();
+        synchronized (history) {
+            history.clear();
+            historyPointer = 0;
+        }
     }
 
     /**
-     * Remember an edit session for the undo history. If the history maximum
-     * size is reached, old edit sessions will be discarded.
+     * Remember an edit session for the undo history.
+     *
+     * <p>Old edit sessions are discarded, here or in other sessions, to keep
+     * all history within the memory budget of the {@link SessionManager}.
+     * Without a budget, old edit sessions are discarded once the history
+     * holds {@link #MAX_HISTORY_SIZE} entries.</p>
      *
      * @param editSession the edit session
      */
@@ -223,15 +239,130 @@ public void remember(EditSession editSession) {
             return;
         }
 
-        // Destroy any sessions after this undo point
-        while (historyPointer < history.size()) {
-            history.remove(historyPointer);
+        if (heldOpen != editSession) {
+            closeHeldOpen();
+        }
+        synchronized (history) {
+            // Destroy any sessions after this undo point
+            while (historyPointer < history.size()) {
+                history.remove(historyPointer);
+            }
+            history.add(editSession);
+            int maxSize = SessionManager.HISTORY_MEMORY_BUDGET < 0
+                ? MAX_HISTORY_SIZE
+                : Math.max(MAX_HISTORY_SIZE, MAX_BUDGETED_HISTORY_SIZE);
+            while (history.size() > maxSize) {
+                history.remove(0);
+            }
+            historyPointer = history.size();
+        }
+
+        WorldEdit.getInstance().getSessionManager().trimHistory();
+    }
+
+    /**
+     * Keep an edit session open so that it can still be added to, like the
+     * stroke of a brush. It is closed once the history changes: when
+     * something else is remembered, on undo or redo, or when the history is
+     * cleared. An edit session that was held open before is closed now.
+     *
+     * <p>This must be called from the thread that edits the world, as
+     * closing an edit session flushes it.</p>
+     *
+     * @param editSession the edit session
+     */
+    public void holdOpen(EditSession editSession) {
+        checkNotNull(editSession);
+        if (heldOpen != editSession) {
+            closeHeldOpen();
+            heldOpen = editSession;
         }
-        history.add(editSession);
-        while (history.size() > MAX_HISTORY_SIZE) {
-            history.remove(0);
+    }
+
+    /**
+     * Check whether the given edit session is held open by
+     * {@link #holdOpen(EditSession)}.
+     *
+     * @param editSession the edit session
+     * @return true if it is held open
+     */
+    public boolean isHeldOpen(EditSession editSession) {
+        return heldOpen == editSession;
+    }
+
+    /**
+     * Close the edit session held open by {@link #holdOpen(EditSession)}, if any.
+     */
+    public void closeHeldOpen() {
+        EditSession editSession = heldOpen;
+        heldOpen = null;
+        if (editSession != null) {
+            editSession.close();
+        }
+    }
+
+    /**
+     * Check whether the given edit session is the newest entry of the undo
+     * history and has not been undone.
+     *
+     * @param editSession the edit session
+     * @return true if the next undo would undo this edit session
+     */
+    public boolean isLatestHistory(EditSession editSession) {
+        checkNotNull(editSession);
+        synchronized (history) {
+            return historyPointer == history.size() && !history.isEmpty() && history.getLast() == editSession;
+        }
+    }
+
+    /**
+     * Get the estimated memory retained by the undo history of this session.
+     *
+     * @return the estimated size in bytes
+     */
+    public long getHistoryMemoryUsage() {
+        synchronized (history) {
+            long usage = 0;
+            for (EditSession editSession : history) {
+                usage += editSession.getChangeSet().getMemoryUsage();
+            }
+            return usage;
+        }
+    }
+
+    /**
+     * Get the number of entries in the undo history, including undone
+     * entries that can still be redone.
+     *
+     * @return the number of entries
+     */
+    public int getHistorySize() {
+        synchronized (history) {
+            return history.size();
+        }
+    }
+
+    /**
+     * Discard the history entry that is least likely to be needed: the
+     * furthest redo entry if there is one, otherwise the oldest undo entry.
+     * The entry that the next undo would use is always kept.
+     *
+     * @return the estimated memory freed in bytes, or -1 if nothing was discarded
+     */
+    public long trimHistory() {
+        synchronized (history) {
+            if (history.size() <= 1) {
+                return -1;
+            }
+            EditSession removed;
+            if (historyPointer < history.size()) {
+                removed = history.removeLast();
+            } else {
+                removed = history.removeFirst();
+                historyPointer--;
+            }
+            return removed.getChangeSet().getMemoryUsage();
         }
-        historyPointer = history.size();
     }
 
     /**
@@ -243,21 +374,22 @@ public void remember(EditSession editSession) {
      */
     public EditSession undo(@Nullable BlockBag newBlockBag, Actor actor) {
         checkNotNull(actor);
-        --historyPointer;
-        if (historyPointer >= 0) {
-            EditSession editSession = history.get(historyPointer);
-            try (EditSession newEditSession =
-                     WorldEdit.getInstance().newEditSessionBuilder()
-                         .world(editSession.getWorld()).blockBag(newBlockBag).actor(actor)
-                         .build()) {
-                prepareEditingExtents(newEditSession, actor);
-                editSession.undo(newEditSession);
+        closeHeldOpen();
+        // Only pick the entry under the lock, so that a long undo does not
+        // stall history trimming, which other threads run across all sessions
+        EditSession editSession;
+        synchronized (history) {
+            if (historyPointer <= 0) {
+                historyPointer = 0;
+                return null;
             }
-            return editSession;
-        } else {
-            historyPointer = 0;
-            return null;
+            editSession = history.get(--historyPointer);
+        }
+        try (EditSession newEditSession = createHistoryEditSession(editSession, newBlockBag, actor)) {
+            prepareEditingExtents(newEditSession, actor);
+            editSession.undo(newEditSession);
         }
+        return editSession;
     }
 
     /**
@@ -269,20 +401,34 @@ public EditSession undo(@Nullable BlockBag newBlockBag, Actor actor) {
      */
     public EditSession redo(@Nullable BlockBag newBlockBag, Actor actor) {
         checkNotNull(actor);
-        if (historyPointer < history.size()) {
-            EditSession editSession = history.get(historyPointer);
-            try (EditSession newEditSession =
-                     WorldEdit.getInstance().newEditSessionBuilder()
-                         .world(editSession.getWorld()).blockBag(newBlockBag).actor(actor)
-                         .build()) {
-                prepareEditingExtents(newEditSession, actor);
-                editSession.redo(newEditSession);
+        closeHeldOpen();
+        EditSession editSession;
+        synchronized (history) {
+            if (historyPointer >= history.size()) {
+                return null;
             }
-            ++historyPointer;
-            return editSession;
+            editSession = history.get(historyPointer++);
+        }
+        try (EditSession newEditSession = createHistoryEditSession(editSession, newBlockBag, actor)) {
+            prepareEditingExtents(newEditSession, actor);
+            editSession.redo(newEditSession);
         }
+        return editSession;
+    }
 
-        return null;
+    /**
+     * Create the edit session that an undo or redo of a history entry is
+     * made through.
+     *
+     * @param editSession the history entry
+     * @param blockBag the block bag to use, or null
+     * @param actor the actor
+     * @return the edit session
+     */
+    protected EditSession createHistoryEditSession(EditSession editSession, @Nullable BlockBag blockBag, Actor actor) {
+        return WorldEdit.getInstance().newEditSessionBuilder()
+            .world(editSession.getWorld()).blockBag(blockBag).actor(actor)
+            .build();
     }
 
     public boolean hasWorldOverride() {
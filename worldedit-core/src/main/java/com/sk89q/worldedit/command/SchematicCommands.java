@@ -36,8 +36,8 @@
 import com.sk89q.worldedit.extent.clipboard.io.BuiltInClipboardFormat;
 import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormat;
 import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormats;
-import com.sk89q.worldedit.extent.clipboard.io.ClipboardReader;
 import com.sk89q.worldedit.extent.clipboard.io.ClipboardWriter;
+import com.sk89q.worldedit.extent.clipboard.io.SharedClipboardCache;
 import com.sk89q.worldedit.function.operation.Operations;
 import com.sk89q.worldedit.math.transform.Transform;
 import com.sk89q.worldedit.session.ClipboardHolder;
@@ -64,18 +64,19 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.Callable;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -225,6 +226,7 @@ public void delete(Actor actor,
             return;
         }
 
+        SharedClipboardCache.invalidate(f);
         if (!f.delete()) {
             actor.printError(TranslatableComponent.of("worldedit.schematic.delete.failed", TextComponent.of(filename)));
             return;
@@ -314,15 +316,9 @@ private static class SchematicLoadTask implements Callable<ClipboardHolder> {
 
         @Override
         public ClipboardHolder call() throws Exception {
-            try (Closer closer = Closer.create()) {
-                FileInputStream fis = closer.register(new FileInputStream(file));
-                BufferedInputStream bis = closer.register(new BufferedInputStream(fis));
-                ClipboardReader reader = closer.register(format.getReader(bis));
-
-                Clipboard clipboard = reader.read();
-                log.info(actor.getName() + " loaded " + file.getCanonicalPath());
-                return new ClipboardHolder(clipboard);
-            }
+            Clipboard clipboard = SharedClipboardCache.load(format, file);
+            log.info(actor.getName() + " loaded " + file.getCanonicalPath());
+            return new ClipboardHolder(clipboard);
         }
     }
 
@@ -357,16 +353,30 @@ public Void call() throws Exception {
                 Operations.completeLegacy(result.copyTo(target));
             }
 
-            try (Closer closer = Closer.create()) {
-                FileOutputStream fos = closer.register(new FileOutputStream(file));
-                BufferedOutputStream bos = closer.register(new BufferedOutputStream(fos));
-                ClipboardWriter writer = closer.register(format.getWriter(bos));
-                writer.write(target);
+            // Write next to the target and move it into place once complete, so
+            // that a failed save never leaves a truncated schematic behind.
+            // createTempFile would make the file readable by its owner only.
+            Path path = file.toPath().toAbsolutePath();
+            Path temp = Files.createFile(path.resolveSibling(file.getName() + "." + UUID.randomUUID() + ".tmp"));
+            try {
+                try (Closer closer = Closer.create()) {
+                    FileOutputStream fos = closer.register(new FileOutputStream(temp.toFile()));
+                    BufferedOutputStream bos = closer.register(new BufferedOutputStream(fos));
+                    ClipboardWriter writer = closer.register(format.getWriter(bos));
+                    writer.write(target);
+                }
+                try {
+                    Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+                SharedClipboardCache.invalidate(file);
 
                 log.info(actor.getName() + " saved " + file.getCanonicalPath() + (overwrite ? " (overwriting previous file)" : ""));
             } catch (IOException e) {
-                file.delete();
                 throw new CommandException(TextComponent.of(e.getMessage()), e, ImmutableList.of());
+            } finally {
+                Files.deleteIfExists(temp);
             }
             return null;
         }
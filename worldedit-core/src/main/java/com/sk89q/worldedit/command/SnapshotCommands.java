@@ -25,6 +25,7 @@
 import com.sk89q.worldedit.LocalSession;
 import com.sk89q.worldedit.WorldEdit;
 import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.command.util.AsyncCommandBuilder;
 import com.sk89q.worldedit.command.util.CommandPermissions;
 import com.sk89q.worldedit.command.util.CommandPermissionsConditionGenerator;
 import com.sk89q.worldedit.extension.platform.Actor;
@@ -37,6 +38,8 @@
 import com.sk89q.worldedit.util.formatting.text.format.TextColor;
 import com.sk89q.worldedit.world.World;
 import com.sk89q.worldedit.world.snapshot.experimental.Snapshot;
+import com.sk89q.worldedit.world.snapshot.experimental.dedup.DedupSnapshotDatabase;
+import com.sk89q.worldedit.world.snapshot.experimental.dedup.DedupSnapshotWriter;
 import com.sk89q.worldedit.world.snapshot.experimental.fs.FileSystemSnapshotDatabase;
 import org.enginehub.piston.annotation.Command;
 import org.enginehub.piston.annotation.CommandContainer;
@@ -48,6 +51,7 @@
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -318,6 +322,43 @@ void after(Actor actor, World world, LocalSession session,
         }
     }
 
+    @Command(
+        name = "create",
+        desc = "Add a snapshot of the world to the deduplicating snapshot database",
+        descFooter = "The world should be saved first, as only the chunks on disk are stored."
+    )
+    @CommandPermissions("worldedit.snapshots.create")
+    void create(Actor actor, World world) {
+        LocalConfiguration config = we.getConfiguration();
+        checkSnapshotsConfigured(config);
+
+        if (!(config.snapshotDatabase instanceof DedupSnapshotDatabase)) {
+            actor.printError(TranslatableComponent.of("worldedit.snapshot.create.unsupported"));
+            return;
+        }
+        Path storage = world.getStoragePath();
+        Path regionFolder = storage == null ? null : storage.resolve("region");
+        if (regionFolder == null || !Files.isDirectory(regionFolder)) {
+            actor.printError(TranslatableComponent.of("worldedit.snapshot.create.no-region-folder"));
+            return;
+        }
+
+        DedupSnapshotWriter writer = new DedupSnapshotWriter((DedupSnapshotDatabase) config.snapshotDatabase);
+        String worldName = world.getName();
+        AsyncCommandBuilder.wrap(() -> writer.write(worldName, ZonedDateTime.now(ZoneOffset.UTC), regionFolder), actor)
+            .registerWithSupervisor(we.getSupervisor(), "Creating snapshot of " + worldName)
+            .setDelayMessage(TranslatableComponent.of("worldedit.snapshot.create.creating"))
+            .setWorkingMessage(TranslatableComponent.of("worldedit.snapshot.create.still-creating"))
+            .onSuccess((Component) null, info -> actor.printInfo(TranslatableComponent.of(
+                "worldedit.snapshot.create.created",
+                TextComponent.of(info.getDisplayName()),
+                TextComponent.of(writer.getWrittenChunks()),
+                TextComponent.of(writer.getSharedChunks())
+            )))
+            .onFailure("Failed to create snapshot", we.getPlatformManager().getPlatformCommandManager().getExceptionConverter())
+            .buildAndExec(we.getExecutorService());
+    }
+
     private static class SnapshotListBox extends PaginationBox {
         private final List<Snapshot> snapshots;
 
@@ -33,13 +33,18 @@
 import com.sk89q.worldedit.extension.platform.Capability;
 import com.sk89q.worldedit.extension.platform.Platform;
 import com.sk89q.worldedit.extension.platform.PlatformManager;
+import com.sk89q.worldedit.session.SessionManager;
 import com.sk89q.worldedit.util.formatting.component.MessageBox;
 import com.sk89q.worldedit.util.formatting.component.TextComponentProducer;
 import com.sk89q.worldedit.util.formatting.text.TextComponent;
 import com.sk89q.worldedit.util.formatting.text.TranslatableComponent;
 import com.sk89q.worldedit.util.formatting.text.format.TextColor;
+import com.sk89q.worldedit.util.metrics.PerformanceMetrics;
+import com.sk89q.worldedit.util.metrics.StageTimer;
 import com.sk89q.worldedit.util.paste.ActorCallbackPaste;
 import com.sk89q.worldedit.util.report.ConfigReport;
+import com.sk89q.worldedit.util.report.HistoryReport;
+import com.sk89q.worldedit.util.report.PerformanceReport;
 import com.sk89q.worldedit.util.report.ReportList;
 import com.sk89q.worldedit.util.report.SystemInfoReport;
 import org.enginehub.piston.annotation.Command;
@@ -57,6 +62,8 @@
 import java.time.format.TextStyle;
 import java.time.zone.ZoneRulesException;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @CommandContainer(superTypes = CommandPermissionsConditionGenerator.Registration.class)
 public class WorldEditCommands {
@@ -123,6 +130,8 @@ public void report(Actor actor,
         ReportList report = new ReportList("Report");
         report.add(new SystemInfoReport());
         report.add(new ConfigReport());
+        report.add(new HistoryReport(we.getSessionManager()));
+        report.add(new PerformanceReport(PerformanceMetrics.getInstance()));
         String result = report.toString();
 
         try {
@@ -139,6 +148,130 @@ public void report(Actor actor,
         }
     }
 
+    @Command(
+        name = "history",
+        desc = "Show the memory used by undo history"
+    )
+    @CommandPermissions("worldedit.history.status")
+    public void history(Actor actor) {
+        SessionManager sessionManager = we.getSessionManager();
+        Map<String, Long> usage = sessionManager.getHistoryMemoryUsage();
+        long total = usage.values().stream().mapToLong(Long::longValue).sum();
+        long budget = SessionManager.HISTORY_MEMORY_BUDGET;
+
+        actor.printInfo(TranslatableComponent.of("worldedit.history.status.usage",
+            TextComponent.of(toMegabytes(total)),
+            TextComponent.of(usage.size()),
+            budget < 0
+                ? TranslatableComponent.of("worldedit.history.status.unlimited")
+                : TextComponent.of(toMegabytes(budget) + " MB")
+        ));
+        actor.printInfo(TranslatableComponent.of("worldedit.history.status.discarded",
+            TextComponent.of(sessionManager.getHistoryEvictions()),
+            TextComponent.of(toMegabytes(sessionManager.getHistoryEvictedBytes()))
+        ));
+
+        List<Map.Entry<String, Long>> largest = usage.entrySet().stream()
+            .filter(entry -> entry.getValue() > 0)
+            .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+            .limit(10)
+            .collect(Collectors.toList());
+        if (!largest.isEmpty()) {
+            TextComponentProducer producer = new TextComponentProducer();
+            for (Map.Entry<String, Long> entry : largest) {
+                producer.append(
+                    TextComponent.of("* ", TextColor.GRAY)
+                        .append(TextComponent.of(entry.getKey()))
+                        .append(TextComponent.of(": " + toMegabytes(entry.getValue()) + " MB"))
+                ).newline();
+            }
+            actor.print(new MessageBox("History", producer, TextColor.GRAY).create());
+        }
+    }
+
+    private static String toMegabytes(long bytes) {
+        return String.format("%.1f", bytes / (1024.0 * 1024.0));
+    }
+
+    @Command(
+        name = "perf",
+        desc = "Show or toggle edit performance metrics"
+    )
+    @CommandPermissions("worldedit.perf")
+    public void perf(Actor actor,
+                     @Arg(desc = "Whether to collect performance metrics", def = "")
+                         HookMode hookMode,
+                     @Switch(name = 'r', desc = "Reset the collected metrics")
+                         boolean reset) {
+        PerformanceMetrics metrics = PerformanceMetrics.getInstance();
+        if (reset) {
+            metrics.reset();
+            actor.printInfo(TranslatableComponent.of("worldedit.perf.reset"));
+        }
+        if (hookMode != null) {
+            boolean enabled = hookMode == HookMode.ACTIVE;
+            metrics.setEnabled(enabled);
+            actor.printInfo(TranslatableComponent.of(enabled ? "worldedit.perf.active" : "worldedit.perf.inactive"));
+        }
+        if (reset || hookMode != null) {
+            return;
+        }
+
+        StageTimer edits = metrics.getEdits();
+        StageTimer flushes = metrics.getFlushes();
+        if (edits.getCalls() == 0 && flushes.getCalls() == 0) {
+            actor.printError(TranslatableComponent.of(metrics.isEnabled()
+                ? "worldedit.perf.no-edits" : "worldedit.perf.disabled"));
+            return;
+        }
+        actor.printInfo(TranslatableComponent.of("worldedit.perf.edits",
+            TextComponent.of(edits.getCalls()),
+            TextComponent.of(metrics.getChangedBlocks()),
+            TextComponent.of(toMillis(edits.getMeanSelfNanos())),
+            TextComponent.of(toMillis(edits.getP99SelfNanos())),
+            TextComponent.of(metrics.getSlowEditCount())
+        ));
+        actor.printInfo(TranslatableComponent.of("worldedit.perf.flushes",
+            TextComponent.of(toMillis(flushes.getInclusiveNanos())),
+            TextComponent.of(toMillis(flushes.getSelfNanos()))
+        ));
+        actor.printInfo(TranslatableComponent.of("worldedit.perf.unclosed"));
+
+        List<StageTimer> stages = metrics.getStages();
+        long pipeline = stages.stream().mapToLong(StageTimer::getSelfNanos).sum();
+        actor.print(new MessageBox("Stages", timerTable(stages, pipeline), TextColor.GRAY).create());
+        List<StageTimer> operations = metrics.getOperations();
+        if (!operations.isEmpty()) {
+            long total = operations.stream().mapToLong(StageTimer::getSelfNanos).sum();
+            actor.print(new MessageBox("Operations", timerTable(operations, total), TextColor.GRAY).create());
+        }
+    }
+
+    private static TextComponentProducer timerTable(List<StageTimer> timers, long total) {
+        TextComponentProducer producer = new TextComponentProducer();
+        for (StageTimer timer : timers.subList(0, Math.min(10, timers.size()))) {
+            long share = total == 0 ? 0 : timer.getSelfNanos() * 100 / total;
+            producer.append(
+                TextComponent.of("* ", TextColor.GRAY)
+                    .append(TextComponent.of(timer.getName()))
+                    .append(TextComponent.of(": " + toMillis(timer.getSelfNanos()) + " ms (" + share + "%)"))
+                    .append(TextComponent.of(" calls " + timer.getCalls()
+                        + ", p50 " + toMicros(timer.getP50SelfNanos())
+                        + ", p99 " + toMicros(timer.getP99SelfNanos())
+                        + ", max " + toMicros(timer.getMaxSelfNanos()) + " \u00b5s", TextColor.GRAY))
+            ).newline();
+        }
+        return producer;
+    }
+
+    private static String toMillis(long nanos) {
+        return String.format("%.1f", nanos / 1_000_000.0);
+    }
+
+    private static String toMicros(long nanos) {
+        return String.format("%.1f", nanos / 1_000.0);
+    }
+
     @Command(
         name = "trace",
         desc = "Toggles trace hook"
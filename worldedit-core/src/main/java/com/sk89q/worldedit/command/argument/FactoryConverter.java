@@ -23,6 +23,7 @@
 import com.sk89q.worldedit.LocalSession;
 import com.sk89q.worldedit.WorldEdit;
 import com.sk89q.worldedit.blocks.BaseItem;
+import com.sk89q.worldedit.command.util.SuggestionCache;
 import com.sk89q.worldedit.extension.input.InputParseException;
 import com.sk89q.worldedit.extension.input.ParserContext;
 import com.sk89q.worldedit.extension.platform.Actor;
@@ -85,6 +86,7 @@ public static void register(WorldEdit worldEdit, CommandManager commandManager)
     private final Function<WorldEdit, AbstractFactory<T>> factoryExtractor;
     private final String description;
     @Nullable private final Consumer<ParserContext> contextTweaker;
+    private final SuggestionCache suggestionCache = new SuggestionCache();
 
     private FactoryConverter(WorldEdit worldEdit,
                              Function<WorldEdit, AbstractFactory<T>> factoryExtractor,
@@ -132,7 +134,10 @@ public ConversionResult<T> convert(String argument, InjectedValueAccess context)
 
     @Override
     public List<String> getSuggestions(String input, InjectedValueAccess context) {
-        return factoryExtractor.apply(worldEdit).getSuggestions(input);
+        AbstractFactory<T> factory = factoryExtractor.apply(worldEdit);
+        return context.injectedValue(Key.of(Actor.class))
+            .map(actor -> suggestionCache.getSuggestions(actor.getUniqueId(), input, factory::getSuggestions))
+            .orElseGet(() -> factory.getSuggestions(input));
     }
 
     @Override
@@ -23,6 +23,7 @@
 import com.sk89q.worldedit.LocalConfiguration;
 import com.sk89q.worldedit.LocalSession;
 import com.sk89q.worldedit.MaxChangedBlocksException;
+import com.sk89q.worldedit.WorldEdit;
 import com.sk89q.worldedit.command.tool.brush.Brush;
 import com.sk89q.worldedit.command.tool.brush.SphereBrush;
 import com.sk89q.worldedit.entity.Player;
@@ -31,20 +32,32 @@
 import com.sk89q.worldedit.extent.inventory.BlockBag;
 import com.sk89q.worldedit.function.mask.Mask;
 import com.sk89q.worldedit.function.mask.MaskIntersection;
+import com.sk89q.worldedit.function.operation.Operations;
 import com.sk89q.worldedit.function.pattern.Pattern;
 import com.sk89q.worldedit.util.Location;
 import com.sk89q.worldedit.util.formatting.text.TranslatableComponent;
 
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Builds a shape at the place being looked at.
+ *
+ * <p>Clicks that follow each other closely form a stroke: they are built into
+ * the same {@link EditSession}, so holding the button down produces a single
+ * undo history entry. A click that comes after a short pause starts a new
+ * stroke. The edit session of a stroke is held open by the
+ * {@link LocalSession}, which closes it once the history changes or when
+ * the next stroke starts, both on the thread that edits the world. Until
+ * then an idle stroke stays open, which is cheap because each click is
+ * built and flushed to the world right away.</p>
  */
 public class BrushTool implements TraceTool {
 
     protected static int MAX_RANGE = 500;
+    private static final long STROKE_WINDOW_MILLIS = 500;
     protected int range = -1;
     private Mask mask = null;
     private Mask traceMask = null;
@@ -53,6 +66,16 @@ public class BrushTool implements TraceTool {
     private Pattern material;
     private double size = 1;
     private String permission;
+    private final long strokeWindowNanos;
+
+    // the edit session of the stroke in progress, if any
+    @Nullable
+    private EditSession stroke;
+    @Nullable
+    private Mask strokeMask;
+    private int strokeLimit;
+    private int strokeClicks;
+    private long strokeLastUsed;
 
     /**
      * Construct the tool.
@@ -60,8 +83,19 @@ public class BrushTool implements TraceTool {
      * @param permission the permission to check before use is allowed
      */
     public BrushTool(String permission) {
+        this(permission, STROKE_WINDOW_MILLIS);
+    }
+
+    /**
+     * Construct the tool.
+     *
+     * @param permission the permission to check before use is allowed
+     * @param strokeWindowMillis how long a stroke waits for the next click
+     */
+    BrushTool(String permission, long strokeWindowMillis) {
         checkNotNull(permission);
         this.permission = permission;
+        this.strokeWindowNanos = TimeUnit.MILLISECONDS.toNanos(strokeWindowMillis);
     }
 
     @Override
@@ -190,35 +224,85 @@ public boolean actPrimary(Platform server, LocalConfiguration config, Player pla
 
         BlockBag bag = session.getBlockBag(player);
 
-        try (EditSession editSession = session.createEditSession(player)) {
-            if (mask != null) {
-                Mask existingMask = editSession.getMask();
-
-                if (existingMask == null) {
-                    editSession.setMask(mask);
-                } else if (existingMask instanceof MaskIntersection) {
-                    ((MaskIntersection) existingMask).add(mask);
-                } else {
-                    MaskIntersection newMask = new MaskIntersection(existingMask);
-                    newMask.add(mask);
-                    editSession.setMask(newMask);
-                }
-            }
-
+        EditSession editSession = continueStroke(session, player, System.nanoTime());
+        try {
             try {
                 brush.build(editSession, target.toVector().toBlockPoint(), material, size);
             } catch (MaxChangedBlocksException e) {
                 player.printError(TranslatableComponent.of("worldedit.tool.max-block-changes"));
             } finally {
-                session.remember(editSession);
+                Operations.completeBlindly(editSession.commit());
+                if (!session.isLatestHistory(editSession)) {
+                    session.remember(editSession);
+                } else {
+                    // the remembered stroke grew, which may put history over its memory budget
+                    WorldEdit.getInstance().getSessionManager().trimHistory();
+                }
+                session.holdOpen(editSession);
             }
         } finally {
             if (bag != null) {
                 bag.flushChanges();
             }
+            strokeLastUsed = System.nanoTime();
         }
 
         return true;
     }
 
+    /**
+     * Get the edit session for a click, continuing the current stroke if the
+     * click follows it closely enough and nothing else was remembered since.
+     */
+    private EditSession continueStroke(LocalSession session, Player player, long now) {
+        if (stroke != null) {
+            boolean continues = now - strokeLastUsed <= strokeWindowNanos
+                && strokeMask == mask
+                && stroke.getWorld().equals(player.getWorld())
+                && session.isHeldOpen(stroke)
+                && (stroke.size() == 0 || session.isLatestHistory(stroke));
+            if (continues) {
+                strokeClicks++;
+                if (strokeLimit >= 0) {
+                    // every click of a stroke gets the allowance of a single click
+                    stroke.setBlockChangeLimit((int) Math.min(Integer.MAX_VALUE, (long) strokeLimit * strokeClicks));
+                }
+                return stroke;
+            }
+            endStroke(session);
+        }
+
+        EditSession editSession = session.createEditSession(player);
+        if (mask != null) {
+            Mask existingMask = editSession.getMask();
+
+            if (existingMask == null) {
+                editSession.setMask(mask);
+            } else if (existingMask instanceof MaskIntersection) {
+                ((MaskIntersection) existingMask).add(mask);
+            } else {
+                MaskIntersection newMask = new MaskIntersection(existingMask);
+                newMask.add(mask);
+                editSession.setMask(newMask);
+            }
+        }
+        stroke = editSession;
+        strokeMask = mask;
+        strokeLimit = editSession.getBlockChangeLimit();
+        strokeClicks = 1;
+        return editSession;
+    }
+
+    /**
+     * Close the edit session of the current stroke, unless the session
+     * already did. Every click already flushed its changes, so this doesn't
+     * write to the world again.
+     */
+    private void endStroke(LocalSession session) {
+        if (session.isHeldOpen(stroke)) {
+            session.closeHeldOpen();
+        }
+        stroke = null;
+    }
+
 }
@@ -0,0 +1,125 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.command.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Internal class that remembers the last suggestions made to each actor.
+ *
+ * <p>Clients ask for suggestions on every key press, so the input usually
+ * extends the previous one by a character. If every previous suggestion
+ * started with the previous input, the suggestions for the longer input are
+ * the previous ones narrowed down, and don't have to be generated again.</p>
+ */
+public final class SuggestionCache {
+
+    private static final class Entry {
+        private final String input;
+        private final List<String> suggestions;
+
+        private Entry(String input, List<String> suggestions) {
+            this.input = input;
+            this.suggestions = suggestions;
+        }
+    }
+
+    private final Cache<UUID, Entry> entries = CacheBuilder.newBuilder()
+        .expireAfterAccess(30, TimeUnit.SECONDS)
+        .maximumSize(1000)
+        .build();
+
+    /**
+     * Get the suggestions for the given input, reusing the previous
+     * suggestions of the actor where possible.
+     *
+     * @param actor the unique ID of the actor
+     * @param input the input
+     * @param generator generates suggestions for an input
+     * @return the suggestions
+     */
+    public List<String> getSuggestions(UUID actor, String input, Function<String, List<String>> generator) {
+        Entry previous = entries.getIfPresent(actor);
+        if (previous != null) {
+            List<String> narrowed = narrow(previous, input);
+            if (narrowed != null) {
+                entries.put(actor, new Entry(input, narrowed));
+                return narrowed;
+            }
+        }
+        List<String> suggestions = generator.apply(input);
+        if (isClosedUnderPrefix(input, suggestions)) {
+            entries.put(actor, new Entry(input, ImmutableList.copyOf(suggestions)));
+        } else {
+            entries.invalidate(actor);
+        }
+        return suggestions;
+    }
+
+    private static List<String> narrow(Entry previous, String input) {
+        // an empty input may be answered with a different kind of suggestion, e.g. namespaces
+        if (previous.input.isEmpty()
+            || input.length() <= previous.input.length()
+            || !input.startsWith(previous.input)) {
+            return null;
+        }
+        // a delimiter changes what is being completed, e.g. from a block to its properties
+        for (int i = previous.input.length(); i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_') {
+                return null;
+            }
+        }
+        ImmutableList.Builder<String> narrowed = ImmutableList.builder();
+        boolean any = false;
+        for (String suggestion : previous.suggestions) {
+            if (suggestion.equals(input)) {
+                // a complete token may be suggested differently, e.g. with a closing bracket
+                return null;
+            }
+            if (suggestion.startsWith(input)) {
+                narrowed.add(suggestion);
+                any = true;
+            }
+        }
+        // with no matches parsers may fall back to listing everything
+        return any ? narrowed.build() : null;
+    }
+
+    private static boolean isClosedUnderPrefix(String input, List<String> suggestions) {
+        if (suggestions.isEmpty()) {
+            return false;
+        }
+        for (String suggestion : suggestions) {
+            if (!suggestion.startsWith(input)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -19,10 +19,14 @@
 
 package com.sk89q.worldedit.command.util;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.sk89q.worldedit.registry.Keyed;
 import com.sk89q.worldedit.registry.NamespacedRegistry;
 import com.sk89q.worldedit.registry.Registry;
 import com.sk89q.worldedit.registry.state.Property;
+import com.sk89q.worldedit.util.collection.PrefixIndex;
 import com.sk89q.worldedit.world.block.BlockCategory;
 import com.sk89q.worldedit.world.block.BlockType;
 import com.sk89q.worldedit.world.block.BlockTypes;
@@ -33,13 +37,9 @@
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
-import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import static org.enginehub.piston.converter.SuggestionHelper.byPrefix;
-import static org.enginehub.piston.converter.SuggestionHelper.limitByPrefix;
-
 /**
  * Internal class for generating common command suggestions.
  */
@@ -47,6 +47,12 @@ public final class SuggestionHelper {
     private SuggestionHelper() {
     }
 
+    private static final LoadingCache<Property<?>, PrefixIndex<String>> PROPERTY_VALUES = CacheBuilder.newBuilder()
+        .weakKeys()
+        .build(CacheLoader.from(property -> PrefixIndex.ofKeys(property.getValues().stream()
+            .map(value -> value.toString().toLowerCase(Locale.ROOT))
+            .collect(Collectors.toList()))));
+
     public static Stream<String> getBlockCategorySuggestions(String tag, boolean allowRandom) {
         if (tag.isEmpty() || tag.equals("#")) {
             return allowRandom ? Stream.of("##", "##*") : Stream.of("##");
@@ -91,9 +97,8 @@ public static Stream<String> getBlockPropertySuggestions(String blockType, Strin
                             return propertyMap.keySet().stream().filter(p -> !matchedProperties.contains(p)).map(prop ->
                                     lastValidInput + prop + "=");
                         case 1:
-                            return matchingProps.get(0).getValues().stream().map(val ->
-                                    lastValidInput +  matchingProps.get(0).getName() + "="
-                                            + val.toString().toLowerCase(Locale.ROOT));
+                            return PROPERTY_VALUES.getUnchecked(matchingProps.get(0)).values().map(val ->
+                                    lastValidInput +  matchingProps.get(0).getName() + "=" + val);
                         default:
                             return matchingProps.stream().map(p -> lastValidInput + p.getName() + "=");
                     }
@@ -102,11 +107,11 @@ public static Stream<String> getBlockPropertySuggestions(String blockType, Strin
                     if (prop == null) {
                         return propertyMap.keySet().stream().map(p -> lastValidInput + p);
                     }
-                    final List<String> values = prop.getValues().stream().map(v -> v.toString().toLowerCase(Locale.ROOT)).collect(Collectors.toList());
+                    final PrefixIndex<String> values = PROPERTY_VALUES.getUnchecked(prop);
                     String matchVal = propVal[1].toLowerCase(Locale.ROOT);
-                    List<String> matchingVals = values.stream().filter(val -> val.startsWith(matchVal)).collect(Collectors.toList());
+                    List<String> matchingVals = values.listWithPrefix(matchVal);
                     if (matchingVals.isEmpty()) {
-                        return values.stream().map(val -> lastValidInput + prop.getName() + "=" + val);
+                        return values.values().map(val -> lastValidInput + prop.getName() + "=" + val);
                     } else {
                         if (matchingVals.size() == 1 && matchingVals.get(0).equals(matchVal)) {
                             String currProp = lastValidInput + prop.getName() + "=" + matchVal;
@@ -142,7 +147,7 @@ public static <V extends Keyed> Stream<String> getRegistrySuggestions(Registry<V
         if (registry instanceof NamespacedRegistry) {
             return getNamespacedRegistrySuggestions(((NamespacedRegistry<V>) registry), input);
         }
-        return limitByPrefix(registry.keySet().stream(), input).stream();
+        return registry.getKeyIndex().withPrefix(input.toLowerCase(Locale.ROOT));
     }
 
     public static <V extends Keyed> Stream<String> getNamespacedRegistrySuggestions(NamespacedRegistry<V> registry, String input) {
@@ -150,15 +155,14 @@ public static <V extends Keyed> Stream<String> getNamespacedRegistrySuggestions(
             final Set<String> namespaces = registry.getKnownNamespaces();
             if (namespaces.size() == 1) {
                 int def = namespaces.iterator().next().length() + 1; // default namespace length + ':'
-                return registry.keySet().stream().map(s -> s.substring(def));
+                return registry.getKeyIndex().values().map(s -> s.substring(def));
             } else {
                 return namespaces.stream().map(s -> s + ":");
             }
         }
         if (input.startsWith(":")) { // special case - search across namespaces
             final String term = input.substring(1).toLowerCase(Locale.ROOT);
-            Predicate<String> search = byPrefix(term);
-            return registry.keySet().stream().filter(s -> search.test(s.substring(s.indexOf(':') + 1)));
+            return registry.getPathIndex().withPrefix(term);
         }
         // otherwise, we actually have some text to search
         if (input.indexOf(':') < 0) {
@@ -166,11 +170,10 @@ public static <V extends Keyed> Stream<String> getNamespacedRegistrySuggestions(
             final String lowerSearch = input.toLowerCase(Locale.ROOT);
             String defKey = registry.getDefaultNamespace() + ":" + lowerSearch;
             int defLength = registry.getDefaultNamespace().length() + 1;
-            return Stream.concat(registry.keySet().stream().filter(s -> s.startsWith(defKey)).map(s -> s.substring(defLength)),
+            return Stream.concat(registry.getKeyIndex().withPrefix(defKey).map(s -> s.substring(defLength)),
                     registry.getKnownNamespaces().stream().filter(n -> n.startsWith(lowerSearch)).map(n -> n + ":"));
         }
         // have a namespace - search that
-        Predicate<String> search = byPrefix(input.toLowerCase(Locale.ROOT));
-        return registry.keySet().stream().filter(search);
+        return registry.getKeyIndex().withPrefix(input.toLowerCase(Locale.ROOT));
     }
 }
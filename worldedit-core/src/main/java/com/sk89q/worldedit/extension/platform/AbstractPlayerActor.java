@@ -367,7 +367,7 @@ public Location getBlockTraceFace(int range, boolean useLastBlock) {
 
     @Override
     public Location getBlockTrace(int range, boolean useLastBlock, @Nullable Mask stopMask) {
-        TargetBlock tb = new TargetBlock(this, range, 0.2);
+        TargetBlock tb = new TargetBlock(this, range);
         if (stopMask != null) {
             tb.setStopMask(stopMask);
         }
@@ -376,7 +376,7 @@ public Location getBlockTrace(int range, boolean useLastBlock, @Nullable Mask st
 
     @Override
     public Location getBlockTraceFace(int range, boolean useLastBlock, @Nullable Mask stopMask) {
-        TargetBlock tb = new TargetBlock(this, range, 0.2);
+        TargetBlock tb = new TargetBlock(this, range);
         if (stopMask != null) {
             tb.setStopMask(stopMask);
         }
@@ -390,7 +390,7 @@ public Location getBlockTrace(int range) {
 
     @Override
     public Location getSolidBlockTrace(int range) {
-        TargetBlock tb = new TargetBlock(this, range, 0.2);
+        TargetBlock tb = new TargetBlock(this, range);
         return tb.getSolidTargetBlock();
     }
 
@@ -471,7 +471,7 @@ private boolean advanceToFree(TargetBlock hitBlox) {
 
     @Override
     public boolean passThroughForwardWall(int range) {
-        TargetBlock hitBlox = new TargetBlock(this, range, 0.2);
+        TargetBlock hitBlox = new TargetBlock(this, range);
 
         if (!advanceToWall(hitBlox)) {
             return false;
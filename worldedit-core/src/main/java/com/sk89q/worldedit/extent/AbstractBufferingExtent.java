@@ -23,6 +23,7 @@
 import com.sk89q.worldedit.internal.util.DeprecationUtil;
 import com.sk89q.worldedit.internal.util.NonAbstractForCompatibility;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.collection.BlockBatch;
 import com.sk89q.worldedit.world.block.BaseBlock;
 import com.sk89q.worldedit.world.block.BlockState;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
@@ -52,6 +53,14 @@ protected final <T extends BlockStateHolder<T>> boolean setDelegateBlock(BlockVe
         return super.setBlock(location, block);
     }
 
+    protected final <T extends BlockStateHolder<T>> boolean setDelegateBlock(int x, int y, int z, T block) throws WorldEditException {
+        return super.setBlockAt(x, y, z, block);
+    }
+
+    protected final int setDelegateBlocks(BlockBatch batch) throws WorldEditException {
+        return super.setBlockBatch(batch);
+    }
+
     @Override
     public BlockState getBlock(BlockVector3 position) {
         BaseBlock block = getBufferedFullBlock(position);
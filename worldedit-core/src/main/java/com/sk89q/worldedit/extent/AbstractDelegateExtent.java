@@ -27,22 +27,48 @@
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.util.Location;
+import com.sk89q.worldedit.util.collection.BlockBatch;
 import com.sk89q.worldedit.world.biome.BiomeType;
 import com.sk89q.worldedit.world.block.BaseBlock;
 import com.sk89q.worldedit.world.block.BlockState;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * A base class for {@link Extent}s that merely passes extents onto another.
+ *
+ * <p>The {@code int x, int y, int z} overloads are final. They call the
+ * matching {@code ...At} method, such as {@link #getBlockAt(int, int, int)},
+ * which forwards to the delegate as-is. If a subclass overrides the
+ * {@link BlockVector3} variant of a method but not its {@code ...At}
+ * method, the overload is routed through the vector override instead.
+ * Subclasses that want to benefit from the primitive overloads should
+ * override both. In the same way, {@link #setBlocks(BlockBatch)} only
+ * forwards the batch as a whole through {@link #setBlockBatch(BlockBatch)}
+ * if the subclass does not override {@code setBlock} or
+ * {@code setBlockAt} without also overriding {@code setBlockBatch}.</p>
+ *
+ * <p>Block and biome calls skip over delegates that are currently
+ * {@linkplain #isPassThrough() pass-through}, so that stages which are
+ * disabled for an edit do not cost a virtual call per block. Every chain
+ * of delegating extents shares one counter that is bumped whenever a stage
+ * stops being pass-through, so toggling a stage in one edit session does
+ * not make the extents of every other session look up their target again.
+ * Like most extents, a chain is meant to be used by one thread at a time;
+ * the cached target is still published as a single immutable object, so a
+ * chain handed over to another thread never sees a torn target.</p>
  */
 public abstract class AbstractDelegateExtent implements Extent {
 
     private final Extent extent;
+    private final int bridged = PrimitiveBridges.bridgedMethods(getClass());
+    private final AtomicInteger passThroughGeneration;
+    private Target target;
 
     /**
      * Create a new instance.
@@ -52,6 +78,10 @@ public abstract class AbstractDelegateExtent implements Extent {
     protected AbstractDelegateExtent(Extent extent) {
         checkNotNull(extent);
         this.extent = extent;
+        this.passThroughGeneration = extent instanceof AbstractDelegateExtent
+            ? ((AbstractDelegateExtent) extent).passThroughGeneration
+            : new AtomicInteger();
+        this.target = new Target(extent, -1);
     }
 
     /**
@@ -63,19 +93,152 @@ public Extent getExtent() {
         return extent;
     }
 
+    /**
+     * Whether block and biome access through this extent currently behaves
+     * exactly like access to its delegate.
+     *
+     * <p>Extents that are pass-through are skipped by the extent above
+     * them. Subclasses that override this must call
+     * {@link #invalidatePassThrough()} whenever they stop being
+     * pass-through.</p>
+     *
+     * @return true if this extent may be skipped
+     */
+    protected boolean isPassThrough() {
+        return false;
+    }
+
+    /**
+     * Signal that an extent may no longer be {@linkplain #isPassThrough() pass-through},
+     * so that extents above it stop skipping it.
+     */
+    protected final void invalidatePassThrough() {
+        passThroughGeneration.incrementAndGet();
+    }
+
+    /**
+     * Get the first delegate that is not pass-through.
+     */
+    private Extent target() {
+        int generation = passThroughGeneration.get();
+        Target target = this.target;
+        if (target.generation != generation) {
+            Extent next = extent;
+            while (next instanceof AbstractDelegateExtent && ((AbstractDelegateExtent) next).isPassThrough()) {
+                next = ((AbstractDelegateExtent) next).extent;
+            }
+            target = new Target(next, generation);
+            this.target = target;
+        }
+        return target.extent;
+    }
+
     @Override
     public BlockState getBlock(BlockVector3 position) {
-        return extent.getBlock(position);
+        return target().getBlock(position);
+    }
+
+    @Override
+    public final BlockState getBlock(int x, int y, int z) {
+        if ((bridged & PrimitiveBridges.GET_BLOCK) != 0) {
+            return getBlock(BlockVector3.at(x, y, z));
+        }
+        return getBlockAt(x, y, z);
+    }
+
+    /**
+     * Get a block by its coordinates, see {@link #getBlock(int, int, int)}.
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @return the block
+     */
+    protected BlockState getBlockAt(int x, int y, int z) {
+        return target().getBlock(x, y, z);
     }
 
     @Override
     public BaseBlock getFullBlock(BlockVector3 position) {
-        return extent.getFullBlock(position);
+        return target().getFullBlock(position);
+    }
+
+    @Override
+    public final BaseBlock getFullBlock(int x, int y, int z) {
+        if ((bridged & PrimitiveBridges.GET_FULL_BLOCK) != 0) {
+            return getFullBlock(BlockVector3.at(x, y, z));
+        }
+        return getFullBlockAt(x, y, z);
+    }
+
+    /**
+     * Get a full block by its coordinates, see {@link #getFullBlock(int, int, int)}.
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @return the block
+     */
+    protected BaseBlock getFullBlockAt(int x, int y, int z) {
+        return target().getFullBlock(x, y, z);
     }
 
     @Override
     public <T extends BlockStateHolder<T>> boolean setBlock(BlockVector3 location, T block) throws WorldEditException {
-        return extent.setBlock(location, block);
+        return target().setBlock(location, block);
+    }
+
+    @Override
+    public final <T extends BlockStateHolder<T>> boolean setBlock(int x, int y, int z, T block) throws WorldEditException {
+        if ((bridged & PrimitiveBridges.SET_BLOCK) != 0) {
+            return setBlock(BlockVector3.at(x, y, z), block);
+        }
+        return setBlockAt(x, y, z, block);
+    }
+
+    /**
+     * Set a block by its coordinates, see {@link #setBlock(int, int, int, BlockStateHolder)}.
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @param block the block
+     * @return true if the block was probably changed
+     * @throws WorldEditException thrown on an error
+     */
+    protected <T extends BlockStateHolder<T>> boolean setBlockAt(int x, int y, int z, T block) throws WorldEditException {
+        return target().setBlock(x, y, z, block);
+    }
+
+    @Override
+    public final int setBlocks(BlockBatch batch) throws WorldEditException {
+        if ((bridged & PrimitiveBridges.SET_BLOCKS) != 0) {
+            return setEachBlock(batch);
+        }
+        return setBlockBatch(batch);
+    }
+
+    /**
+     * Set the blocks of a batch as a whole, see {@link #setBlocks(BlockBatch)}.
+     *
+     * @param batch the blocks to set
+     * @return the number of blocks that were probably changed
+     * @throws WorldEditException thrown on an error
+     */
+    protected int setBlockBatch(BlockBatch batch) throws WorldEditException {
+        return target().setBlocks(batch);
+    }
+
+    /**
+     * Set the blocks of a batch one by one through
+     * {@link #setBlock(int, int, int, BlockStateHolder)} of this extent.
+     *
+     * @param batch the blocks to set
+     * @return the number of blocks that were probably changed
+     * @throws WorldEditException thrown on an error
+     */
+    protected final int setEachBlock(BlockBatch batch) throws WorldEditException {
+        return Extent.super.setBlocks(batch);
     }
 
     @Override
@@ -101,12 +264,53 @@ public boolean fullySupports3DBiomes() {
 
     @Override
     public BiomeType getBiome(BlockVector3 position) {
-        return extent.getBiome(position);
+        return target().getBiome(position);
+    }
+
+    @Override
+    public final BiomeType getBiome(int x, int y, int z) {
+        if ((bridged & PrimitiveBridges.GET_BIOME) != 0) {
+            return getBiome(BlockVector3.at(x, y, z));
+        }
+        return getBiomeAt(x, y, z);
+    }
+
+    /**
+     * Get a biome by its coordinates, see {@link #getBiome(int, int, int)}.
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @return the biome
+     */
+    protected BiomeType getBiomeAt(int x, int y, int z) {
+        return target().getBiome(x, y, z);
     }
 
     @Override
     public boolean setBiome(BlockVector3 position, BiomeType biome) {
-        return extent.setBiome(position, biome);
+        return target().setBiome(position, biome);
+    }
+
+    @Override
+    public final boolean setBiome(int x, int y, int z, BiomeType biome) {
+        if ((bridged & PrimitiveBridges.SET_BIOME) != 0) {
+            return setBiome(BlockVector3.at(x, y, z), biome);
+        }
+        return setBiomeAt(x, y, z, biome);
+    }
+
+    /**
+     * Set a biome by its coordinates, see {@link #setBiome(int, int, int, BiomeType)}.
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @param biome the biome
+     * @return true if the biome was probably changed
+     */
+    protected boolean setBiomeAt(int x, int y, int z, BiomeType biome) {
+        return target().setBiome(x, y, z, biome);
     }
 
     @Override
@@ -138,4 +342,17 @@ protected Operation commitBefore() {
         }
     }
 
+    /**
+     * A delegate together with the generation it was looked up at.
+     */
+    private static final class Target {
+        private final Extent extent;
+        private final int generation;
+
+        private Target(Extent extent, int generation) {
+            this.extent = extent;
+            this.generation = generation;
+        }
+    }
+
 }
@@ -30,6 +30,7 @@
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.util.Location;
+import com.sk89q.worldedit.util.collection.BlockBatch;
 import com.sk89q.worldedit.world.biome.BiomeType;
 import com.sk89q.worldedit.world.block.BaseBlock;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
@@ -66,6 +67,22 @@ public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B
         return super.setBlock(location, block);
     }
 
+    @Override
+    protected <B extends BlockStateHolder<B>> boolean setBlockAt(int x, int y, int z, B block) throws WorldEditException {
+        BaseBlock previous = getFullBlock(x, y, z);
+        changeSet.add(new BlockChange(BlockVector3.at(x, y, z), previous, block));
+        return super.setBlockAt(x, y, z, block);
+    }
+
+    @Override
+    protected int setBlockBatch(BlockBatch batch) throws WorldEditException {
+        // A batch holds one block per position, so recording everything up
+        // front sees the same previous blocks as setting them one by one
+        batch.forEach((x, y, z, block) ->
+            changeSet.add(new BlockChange(BlockVector3.at(x, y, z), getFullBlock(x, y, z), block)));
+        return super.setBlockBatch(batch);
+    }
+
     @Override
     public boolean setBiome(BlockVector3 position, BiomeType biome) {
         BiomeType previous = getBiome(position);
@@ -73,6 +90,11 @@ public boolean setBiome(BlockVector3 position, BiomeType biome) {
         return super.setBiome(position, biome);
     }
 
+    @Override
+    protected boolean setBiomeAt(int x, int y, int z, BiomeType biome) {
+        return setBiome(BlockVector3.at(x, y, z), biome);
+    }
+
     @Nullable
     @Override
     public Entity createEntity(Location location, BaseEntity state) {
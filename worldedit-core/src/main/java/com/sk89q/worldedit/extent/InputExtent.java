@@ -49,6 +49,22 @@ public interface InputExtent {
      */
     BlockState getBlock(BlockVector3 position);
 
+    /**
+     * Get a snapshot of the block at the given location.
+     *
+     * <p>This is equivalent to {@link #getBlock(BlockVector3)}, but lets
+     * implementations avoid allocating a vector in hot loops. The default
+     * implementation delegates to {@link #getBlock(BlockVector3)}.</p>
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @return the block
+     */
+    default BlockState getBlock(int x, int y, int z) {
+        return getBlock(BlockVector3.at(x, y, z));
+    }
+
     /**
      * Get a immutable snapshot of the block at the given location.
      *
@@ -57,6 +73,21 @@ public interface InputExtent {
      */
     BaseBlock getFullBlock(BlockVector3 position);
 
+    /**
+     * Get a immutable snapshot of the block at the given location.
+     *
+     * <p>The default implementation delegates to
+     * {@link #getFullBlock(BlockVector3)}.</p>
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @return the block
+     */
+    default BaseBlock getFullBlock(int x, int y, int z) {
+        return getFullBlock(BlockVector3.at(x, y, z));
+    }
+
     /**
      * Get the biome at the given location.
      *
@@ -100,4 +131,19 @@ default BiomeType getBiome(BlockVector3 position) {
 
         return getBiome(position.toBlockVector2());
     }
+
+    /**
+     * Get the biome at the given location.
+     *
+     * <p>The default implementation delegates to
+     * {@link #getBiome(BlockVector3)}.</p>
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @return the biome at the location
+     */
+    default BiomeType getBiome(int x, int y, int z) {
+        return getBiome(BlockVector3.at(x, y, z));
+    }
 }
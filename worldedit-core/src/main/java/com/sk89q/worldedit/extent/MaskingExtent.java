@@ -21,7 +21,9 @@
 
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.function.mask.Mask;
+import com.sk89q.worldedit.function.mask.Masks;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.collection.BlockBatch;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -62,6 +64,12 @@ public Mask getMask() {
     public void setMask(Mask mask) {
         checkNotNull(mask);
         this.mask = mask;
+        invalidatePassThrough();
+    }
+
+    @Override
+    protected boolean isPassThrough() {
+        return mask == Masks.alwaysTrue();
     }
 
     @Override
@@ -69,4 +77,20 @@ public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B
         return mask.test(location) && super.setBlock(location, block);
     }
 
+    @Override
+    protected <B extends BlockStateHolder<B>> boolean setBlockAt(int x, int y, int z, B block) throws WorldEditException {
+        if (mask == Masks.alwaysTrue()) {
+            return super.setBlockAt(x, y, z, block);
+        }
+        return mask.test(BlockVector3.at(x, y, z)) && super.setBlockAt(x, y, z, block);
+    }
+
+    @Override
+    protected int setBlockBatch(BlockBatch batch) throws WorldEditException {
+        if (mask == Masks.alwaysTrue()) {
+            return super.setBlockBatch(batch);
+        }
+        return super.setBlockBatch(batch.filter((x, y, z, block) -> mask.test(BlockVector3.at(x, y, z))));
+    }
+
 }
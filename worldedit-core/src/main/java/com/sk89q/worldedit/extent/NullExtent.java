@@ -26,6 +26,7 @@
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.util.Location;
+import com.sk89q.worldedit.util.collection.BlockBatch;
 import com.sk89q.worldedit.world.biome.BiomeType;
 import com.sk89q.worldedit.world.biome.BiomeTypes;
 import com.sk89q.worldedit.world.block.BaseBlock;
@@ -89,6 +90,11 @@ public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 position, B
         return false;
     }
 
+    @Override
+    public int setBlocks(BlockBatch batch) throws WorldEditException {
+        return 0;
+    }
+
     @Override
     public boolean fullySupports3DBiomes() {
         return false;
@@ -25,6 +25,7 @@
 import com.sk89q.worldedit.internal.util.NonAbstractForCompatibility;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.collection.BlockBatch;
 import com.sk89q.worldedit.world.biome.BiomeType;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 
@@ -54,6 +55,48 @@ public interface OutputExtent {
      */
     <T extends BlockStateHolder<T>> boolean setBlock(BlockVector3 position, T block) throws WorldEditException;
 
+    /**
+     * Change the block at the given location to the given block.
+     *
+     * <p>This is equivalent to {@link #setBlock(BlockVector3, BlockStateHolder)},
+     * but lets implementations avoid allocating a vector in hot loops. The
+     * default implementation delegates to
+     * {@link #setBlock(BlockVector3, BlockStateHolder)}.</p>
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @param block block to set
+     * @return true if the block was successfully set (return value may not be accurate)
+     * @throws WorldEditException thrown on an error
+     */
+    default <T extends BlockStateHolder<T>> boolean setBlock(int x, int y, int z, T block) throws WorldEditException {
+        return setBlock(BlockVector3.at(x, y, z), block);
+    }
+
+    /**
+     * Change all blocks in the given batch.
+     *
+     * <p>This is equivalent to calling {@link #setBlock(int, int, int, BlockStateHolder)}
+     * for every block of the batch, but lets implementations handle the
+     * change a chunk section at a time. The batch is not modified, and is
+     * not retained after this method returns. The default implementation
+     * sets the blocks one by one.</p>
+     *
+     * @param batch the blocks to set
+     * @return the number of blocks that were probably changed (return value may not be accurate)
+     * @throws WorldEditException thrown on an error
+     */
+    default int setBlocks(BlockBatch batch) throws WorldEditException {
+        int[] changed = new int[1];
+        batch.forEach((x, y, z, block) -> {
+            if (setBlock(x, y, z, block)) {
+                changed[0]++;
+            }
+        });
+        return changed[0];
+    }
+
     /**
      * Check if this extent fully supports 3D biomes.
      *
@@ -108,6 +151,22 @@ default boolean setBiome(BlockVector3 position, BiomeType biome) {
         return setBiome(position.toBlockVector2(), biome);
     }
 
+    /**
+     * Set the biome.
+     *
+     * <p>The default implementation delegates to
+     * {@link #setBiome(BlockVector3, BiomeType)}.</p>
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @param biome the biome to set to
+     * @return true if the biome was successfully set (return value may not be accurate)
+     */
+    default boolean setBiome(int x, int y, int z, BiomeType biome) {
+        return setBiome(BlockVector3.at(x, y, z), biome);
+    }
+
     /**
      * Return an {@link Operation} that should be called to tie up loose ends
      * (such as to commit changes in a buffer).
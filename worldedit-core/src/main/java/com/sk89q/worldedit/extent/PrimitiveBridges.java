@@ -0,0 +1,141 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.collection.BlockBatch;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+
+/**
+ * Determines which coordinate methods of an {@link AbstractDelegateExtent}
+ * subclass must be routed through the {@link BlockVector3} variant.
+ *
+ * <p>Subclasses written before the {@code int x, int y, int z} overloads
+ * existed only override the vector methods. Forwarding the primitive
+ * overloads straight to the delegate would silently skip those overrides,
+ * so for such classes the primitive overload falls back to the vector
+ * method instead. The primitive overrides of a subclass live in the
+ * protected {@code ...At} methods, since the public overloads are final.</p>
+ *
+ * <p>Likewise, batches can only be forwarded as a whole when the class does
+ * not change how single blocks are set, or handles batches itself.</p>
+ */
+final class PrimitiveBridges {
+
+    static final int GET_BLOCK = 1;
+    static final int GET_FULL_BLOCK = 1 << 1;
+    static final int GET_BIOME = 1 << 2;
+    static final int SET_BLOCK = 1 << 3;
+    static final int SET_BIOME = 1 << 4;
+    static final int SET_BLOCKS = 1 << 5;
+
+    private static final Class<?>[] XYZ = { int.class, int.class, int.class };
+
+    private static final ClassValue<Integer> BRIDGED = new ClassValue<Integer>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            int bridged = 0;
+            if (needsBridge(type, "getBlock", "getBlockAt", new Class<?>[] { BlockVector3.class }, XYZ)) {
+                bridged |= GET_BLOCK;
+            }
+            if (needsBridge(type, "getFullBlock", "getFullBlockAt", new Class<?>[] { BlockVector3.class }, XYZ)) {
+                bridged |= GET_FULL_BLOCK;
+            }
+            if (needsBridge(type, "getBiome", "getBiomeAt", new Class<?>[] { BlockVector3.class }, XYZ)) {
+                bridged |= GET_BIOME;
+            }
+            if (needsBridge(type, "setBlock", "setBlockAt",
+                new Class<?>[] { BlockVector3.class, BlockStateHolder.class },
+                new Class<?>[] { int.class, int.class, int.class, BlockStateHolder.class })) {
+                bridged |= SET_BLOCK;
+            }
+            if (needsBridge(type, "setBiome", "setBiomeAt",
+                new Class<?>[] { BlockVector3.class, BiomeType.class },
+                new Class<?>[] { int.class, int.class, int.class, BiomeType.class })) {
+                bridged |= SET_BIOME;
+            }
+            if (needsBatchBridge(type)) {
+                bridged |= SET_BLOCKS;
+            }
+            return bridged;
+        }
+    };
+
+    /**
+     * Get the set of methods that need bridging for the given class.
+     *
+     * @param type the extent class
+     * @return a bit set of the constants in this class
+     */
+    static int bridgedMethods(Class<? extends AbstractDelegateExtent> type) {
+        return BRIDGED.get(type);
+    }
+
+    private static boolean needsBridge(Class<?> type, String name, String primitiveName,
+                                       Class<?>[] vectorParams, Class<?>[] primitiveParams) {
+        try {
+            Class<?> vectorOwner = type.getMethod(name, vectorParams).getDeclaringClass();
+            Class<?> primitiveOwner = declaringClass(type, primitiveName, primitiveParams);
+            // The vector method was overridden further down the hierarchy
+            // than the primitive one, so the primitive one can't be trusted
+            return overridesBelow(primitiveOwner, vectorOwner);
+        } catch (NoSuchMethodException e) {
+            throw new AssertionError("Extent method " + name + " is missing", e);
+        }
+    }
+
+    private static boolean needsBatchBridge(Class<?> type) {
+        try {
+            Class<?> batchOwner = declaringClass(type, "setBlockBatch", BlockBatch.class);
+            Class<?> vectorOwner = type.getMethod("setBlock", BlockVector3.class, BlockStateHolder.class)
+                .getDeclaringClass();
+            Class<?> primitiveOwner = declaringClass(type, "setBlockAt",
+                int.class, int.class, int.class, BlockStateHolder.class);
+            return overridesBelow(batchOwner, vectorOwner) || overridesBelow(batchOwner, primitiveOwner);
+        } catch (NoSuchMethodException e) {
+            throw new AssertionError("Extent method setBlockBatch is missing", e);
+        }
+    }
+
+    /**
+     * Find the class declaring the most specific version of a method,
+     * including protected ones that {@link Class#getMethod} can't see.
+     */
+    private static Class<?> declaringClass(Class<?> type, String name, Class<?>... params)
+            throws NoSuchMethodException {
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            try {
+                return c.getDeclaredMethod(name, params).getDeclaringClass();
+            } catch (NoSuchMethodException ignored) {
+                // Keep looking in the superclass
+            }
+        }
+        throw new NoSuchMethodException(type.getName() + "." + name);
+    }
+
+    private static boolean overridesBelow(Class<?> owner, Class<?> otherOwner) {
+        return owner != otherOwner && owner.isAssignableFrom(otherOwner);
+    }
+
+    private PrimitiveBridges() {
+    }
+
+}
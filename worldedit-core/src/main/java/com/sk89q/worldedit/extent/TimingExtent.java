@@ -0,0 +1,183 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent;
+
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.collection.BlockBatch;
+import com.sk89q.worldedit.util.metrics.EditMetrics;
+import com.sk89q.worldedit.util.metrics.StageTimer;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An extent that times the block and biome calls into the extent below it.
+ *
+ * <em>Internal use only.</em>
+ */
+public class TimingExtent extends AbstractDelegateExtent {
+
+    private final EditMetrics metrics;
+    private final StageTimer timer;
+
+    /**
+     * Create a new instance.
+     *
+     * @param extent the extent to time
+     * @param metrics the metrics of the edit
+     * @param name the name of the stage
+     */
+    public TimingExtent(Extent extent, EditMetrics metrics, String name) {
+        super(extent);
+        checkNotNull(metrics);
+        this.metrics = metrics;
+        this.timer = metrics.newStage(name);
+    }
+
+    @Override
+    public BlockState getBlock(BlockVector3 position) {
+        long start = System.nanoTime();
+        long token = metrics.enter();
+        try {
+            return super.getBlock(position);
+        } finally {
+            metrics.exit(timer, start, token);
+        }
+    }
+
+    @Override
+    protected BlockState getBlockAt(int x, int y, int z) {
+        long start = System.nanoTime();
+        long token = metrics.enter();
+        try {
+            return super.getBlockAt(x, y, z);
+        } finally {
+            metrics.exit(timer, start, token);
+        }
+    }
+
+    @Override
+    public BaseBlock getFullBlock(BlockVector3 position) {
+        long start = System.nanoTime();
+        long token = metrics.enter();
+        try {
+            return super.getFullBlock(position);
+        } finally {
+            metrics.exit(timer, start, token);
+        }
+    }
+
+    @Override
+    protected BaseBlock getFullBlockAt(int x, int y, int z) {
+        long start = System.nanoTime();
+        long token = metrics.enter();
+        try {
+            return super.getFullBlockAt(x, y, z);
+        } finally {
+            metrics.exit(timer, start, token);
+        }
+    }
+
+    @Override
+    public <T extends BlockStateHolder<T>> boolean setBlock(BlockVector3 location, T block) throws WorldEditException {
+        long start = System.nanoTime();
+        long token = metrics.enter();
+        try {
+            return super.setBlock(location, block);
+        } finally {
+            metrics.exit(timer, start, token);
+        }
+    }
+
+    @Override
+    protected <T extends BlockStateHolder<T>> boolean setBlockAt(int x, int y, int z, T block) throws WorldEditException {
+        long start = System.nanoTime();
+        long token = metrics.enter();
+        try {
+            return super.setBlockAt(x, y, z, block);
+        } finally {
+            metrics.exit(timer, start, token);
+        }
+    }
+
+    @Override
+    protected int setBlockBatch(BlockBatch batch) throws WorldEditException {
+        long start = System.nanoTime();
+        long token = metrics.enter();
+        try {
+            return super.setBlockBatch(batch);
+        } finally {
+            metrics.exit(timer, start, token);
+        }
+    }
+
+    @Override
+    public BiomeType getBiome(BlockVector3 position) {
+        long start = System.nanoTime();
+        long token = metrics.enter();
+        try {
+            return super.getBiome(position);
+        } finally {
+            metrics.exit(timer, start, token);
+        }
+    }
+
+    @Override
+    protected BiomeType getBiomeAt(int x, int y, int z) {
+        long start = System.nanoTime();
+        long token = metrics.enter();
+        try {
+            return super.getBiomeAt(x, y, z);
+        } finally {
+            metrics.exit(timer, start, token);
+        }
+    }
+
+    @Override
+    public boolean setBiome(BlockVector3 position, BiomeType biome) {
+        long start = System.nanoTime();
+        long token = metrics.enter();
+        try {
+            return super.setBiome(position, biome);
+        } finally {
+            metrics.exit(timer, start, token);
+        }
+    }
+
+    @Override
+    protected boolean setBiomeAt(int x, int y, int z, BiomeType biome) {
+        long start = System.nanoTime();
+        long token = metrics.enter();
+        try {
+            return super.setBiomeAt(x, y, z, biome);
+        } finally {
+            metrics.exit(timer, start, token);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TimingExtent{delegate=" + getExtent() + "}";
+    }
+}
@@ -39,7 +39,7 @@
  */
 public class ExtentBuffer extends AbstractBufferingExtent {
 
-    private final Map<BlockVector3, BaseBlock> buffer = BlockMap.create();
+    private final Map<BlockVector3, BaseBlock> buffer = BlockMap.createForBaseBlock();
     private final Mask mask;
 
     /**
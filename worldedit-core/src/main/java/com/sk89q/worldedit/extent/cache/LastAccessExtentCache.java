@@ -23,6 +23,7 @@
 import com.sk89q.worldedit.extent.AbstractDelegateExtent;
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.collection.BlockBatch;
 import com.sk89q.worldedit.world.block.BaseBlock;
 import com.sk89q.worldedit.world.block.BlockState;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
@@ -47,24 +48,34 @@ public LastAccessExtentCache(Extent extent) {
 
     @Override
     public BlockState getBlock(BlockVector3 position) {
+        return getBlock(position.getBlockX(), position.getBlockY(), position.getBlockZ());
+    }
+
+    @Override
+    protected BlockState getBlockAt(int x, int y, int z) {
         CachedBlock<BlockState> lastBlock = this.lastBlock;
-        if (lastBlock != null && lastBlock.position.equals(position)) {
+        if (lastBlock != null && lastBlock.isAt(x, y, z)) {
             return lastBlock.block;
         } else {
-            BlockState block = super.getBlock(position);
-            this.lastBlock = new CachedBlock<>(position, block);
+            BlockState block = super.getBlockAt(x, y, z);
+            this.lastBlock = new CachedBlock<>(x, y, z, block);
             return block;
         }
     }
 
     @Override
     public BaseBlock getFullBlock(BlockVector3 position) {
+        return getFullBlock(position.getBlockX(), position.getBlockY(), position.getBlockZ());
+    }
+
+    @Override
+    protected BaseBlock getFullBlockAt(int x, int y, int z) {
         CachedBlock<BaseBlock> lastFullBlock = this.lastFullBlock;
-        if (lastFullBlock != null && lastFullBlock.position.equals(position)) {
+        if (lastFullBlock != null && lastFullBlock.isAt(x, y, z)) {
             return lastFullBlock.block;
         } else {
-            BaseBlock block = super.getFullBlock(position);
-            this.lastFullBlock = new CachedBlock<>(position, block);
+            BaseBlock block = super.getFullBlockAt(x, y, z);
+            this.lastFullBlock = new CachedBlock<>(x, y, z, block);
             return block;
         }
     }
@@ -72,26 +83,62 @@ public BaseBlock getFullBlock(BlockVector3 position) {
     @Override
     public <T extends BlockStateHolder<T>> boolean setBlock(BlockVector3 location, T block) throws WorldEditException {
         if (super.setBlock(location, block)) {
-            if (lastFullBlock != null && lastFullBlock.position.equals(location)) {
-                this.lastFullBlock = new CachedBlock<>(location, block.toBaseBlock());
-            }
-            if (lastBlock != null && lastBlock.position.equals(location)) {
-                this.lastBlock = new CachedBlock<>(location, block.toImmutableState());
-            }
+            updateCache(location.getBlockX(), location.getBlockY(), location.getBlockZ(), block);
+            return true;
+        }
+        return false;
+    }
 
+    @Override
+    protected <T extends BlockStateHolder<T>> boolean setBlockAt(int x, int y, int z, T block) throws WorldEditException {
+        if (super.setBlockAt(x, y, z, block)) {
+            updateCache(x, y, z, block);
             return true;
         }
         return false;
     }
 
+    @Override
+    protected int setBlockBatch(BlockBatch batch) throws WorldEditException {
+        int changed = super.setBlockBatch(batch);
+        // Not every block of the batch may have been set, so forget the
+        // cached blocks rather than updating them
+        CachedBlock<BaseBlock> lastFullBlock = this.lastFullBlock;
+        if (lastFullBlock != null && batch.get(lastFullBlock.x, lastFullBlock.y, lastFullBlock.z) != null) {
+            this.lastFullBlock = null;
+        }
+        CachedBlock<BlockState> lastBlock = this.lastBlock;
+        if (lastBlock != null && batch.get(lastBlock.x, lastBlock.y, lastBlock.z) != null) {
+            this.lastBlock = null;
+        }
+        return changed;
+    }
+
+    private <T extends BlockStateHolder<T>> void updateCache(int x, int y, int z, T block) {
+        if (lastFullBlock != null && lastFullBlock.isAt(x, y, z)) {
+            this.lastFullBlock = new CachedBlock<>(x, y, z, block.toBaseBlock());
+        }
+        if (lastBlock != null && lastBlock.isAt(x, y, z)) {
+            this.lastBlock = new CachedBlock<>(x, y, z, block.toImmutableState());
+        }
+    }
+
     private static class CachedBlock<B extends BlockStateHolder<B>> {
-        private final BlockVector3 position;
+        private final int x;
+        private final int y;
+        private final int z;
         private final B block;
 
-        private CachedBlock(BlockVector3 position, B block) {
-            this.position = position;
+        private CachedBlock(int x, int y, int z, B block) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
             this.block = block;
         }
+
+        private boolean isAt(int x, int y, int z) {
+            return this.x == x && this.y == y && this.z == z;
+        }
     }
 
 }
@@ -24,6 +24,7 @@
 import com.sk89q.worldedit.entity.Entity;
 import com.sk89q.worldedit.function.operation.Operation;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.util.Location;
 import com.sk89q.worldedit.world.biome.BiomeType;
@@ -47,6 +48,10 @@
 public class BlockArrayClipboard implements Clipboard {
 
     private final Region region;
+    private final boolean cuboid;
+    private final int minX;
+    private final int minY;
+    private final int minZ;
     private BlockVector3 origin;
     private final BaseBlock[][][] blocks;
     private BiomeType[][][] biomes = null;
@@ -63,6 +68,10 @@ public BlockArrayClipboard(Region region) {
         checkNotNull(region);
         this.region = region.clone();
         this.origin = region.getMinimumPoint();
+        this.cuboid = this.region instanceof CuboidRegion;
+        this.minX = origin.getBlockX();
+        this.minY = origin.getBlockY();
+        this.minZ = origin.getBlockZ();
 
         BlockVector3 dimensions = getDimensions();
         blocks = new BaseBlock[dimensions.getBlockX()][dimensions.getBlockY()][dimensions.getBlockZ()];
@@ -135,6 +144,18 @@ public BlockState getBlock(BlockVector3 position) {
         return BlockTypes.AIR.getDefaultState();
     }
 
+    @Override
+    public BlockState getBlock(int x, int y, int z) {
+        if (contains(x, y, z)) {
+            BaseBlock block = blocks[x - minX][y - minY][z - minZ];
+            if (block != null) {
+                return block.toImmutableState();
+            }
+        }
+
+        return BlockTypes.AIR.getDefaultState();
+    }
+
     @Override
     public BaseBlock getFullBlock(BlockVector3 position) {
         if (region.contains(position)) {
@@ -148,6 +169,18 @@ public BaseBlock getFullBlock(BlockVector3 position) {
         return BlockTypes.AIR.getDefaultState().toBaseBlock();
     }
 
+    @Override
+    public BaseBlock getFullBlock(int x, int y, int z) {
+        if (contains(x, y, z)) {
+            BaseBlock block = blocks[x - minX][y - minY][z - minZ];
+            if (block != null) {
+                return block;
+            }
+        }
+
+        return BlockTypes.AIR.getDefaultState().toBaseBlock();
+    }
+
     @Override
     public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 position, B block) throws WorldEditException {
         if (region.contains(position)) {
@@ -159,6 +192,31 @@ public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 position, B
         }
     }
 
+    @Override
+    public <B extends BlockStateHolder<B>> boolean setBlock(int x, int y, int z, B block) throws WorldEditException {
+        if (contains(x, y, z)) {
+            blocks[x - minX][y - minY][z - minZ] = block.toBaseBlock();
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Check whether the given position is inside the region, without
+     * allocating a vector when the region is a cuboid.
+     */
+    private boolean contains(int x, int y, int z) {
+        int lx = x - minX;
+        int ly = y - minY;
+        int lz = z - minZ;
+        if (lx < 0 || ly < 0 || lz < 0
+                || lx >= blocks.length || ly >= blocks[0].length || lz >= blocks[0][0].length) {
+            return false;
+        }
+        return cuboid || region.contains(BlockVector3.at(x, y, z));
+    }
+
     @Override
     public boolean hasBiomes() {
         return biomes != null;
@@ -178,6 +236,24 @@ public BiomeType getBiome(BlockVector3 position) {
         return BiomeTypes.OCEAN;
     }
 
+    @Override
+    public BiomeType getBiome(int x, int y, int z) {
+        if (biomes != null) {
+            int lx = x - minX;
+            int ly = y - minY;
+            int lz = z - minZ;
+            if (lx >= 0 && ly >= 0 && lz >= 0
+                    && lx < biomes.length && ly < biomes[0].length && lz < biomes[0][0].length) {
+                BiomeType biomeType = biomes[lx][ly][lz];
+                if (biomeType != null) {
+                    return biomeType;
+                }
+            }
+        }
+
+        return BiomeTypes.OCEAN;
+    }
+
     @Override
     public boolean setBiome(BlockVector3 position, BiomeType biome) {
         if (position.containedWithin(getMinimumPoint(), getMaximumPoint())) {
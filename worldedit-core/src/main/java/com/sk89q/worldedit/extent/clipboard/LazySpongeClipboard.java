@@ -0,0 +1,452 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent.clipboard;
+
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.worldedit.entity.BaseEntity;
+import com.sk89q.worldedit.entity.Entity;
+import com.sk89q.worldedit.function.operation.Operation;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.util.Location;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.biome.BiomeTypes;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import com.sk89q.worldedit.world.block.BlockTypes;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A clipboard that reads its blocks from the encoded block data of a Sponge
+ * schematic, decoding it one section at a time when first read.
+ *
+ * <p>Loading only has to index where each section starts in the data, so a
+ * schematic is usable almost as soon as it has been inflated. A bounded
+ * number of decoded sections is kept. Blocks that are set afterwards are
+ * kept separately and take precedence over the schematic's data.</p>
+ *
+ * <p>Since the schematic's data is never changed, {@link #copy()} can hand
+ * out further clipboards that share it, including the decoded sections, and
+ * only keep their own changes.</p>
+ */
+public class LazySpongeClipboard implements Clipboard {
+
+    private static final int SECTION_SHIFT = 12;
+    private static final int SECTION_SIZE = 1 << SECTION_SHIFT;
+    private static final int SECTION_MASK = SECTION_SIZE - 1;
+    private static final int MAX_CACHED_SECTIONS = 256;
+
+    private final CuboidRegion region;
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int width;
+    private final int height;
+    private final int length;
+    private BlockVector3 origin;
+
+    private final ByteBuffer data;
+    private final BlockState[] palette;
+    private final Map<BlockVector3, CompoundTag> tileEntities;
+    private final int[] sectionOffsets;
+    // shared with copies, and guarded by itself
+    private final Map<Integer, BlockState[]> sections;
+    private volatile DecodedSection lastSection;
+
+    private final Map<BlockVector3, BaseBlock> changes = new HashMap<>();
+    @Nullable
+    private BiomeType[] biomeColumns;
+    private final Map<BlockVector3, BiomeType> biomeChanges = new HashMap<>();
+    private final List<ClipboardEntity> entities = new ArrayList<>();
+
+    /**
+     * Create a new instance.
+     *
+     * @param region the bounding region
+     * @param palette the block states by palette ID
+     * @param tileEntities the block entities, by position relative to the minimum point
+     * @param data the block data, as palette IDs encoded as VarInts in Y, Z, X order
+     * @throws IOException if the block data does not match the region
+     */
+    public LazySpongeClipboard(CuboidRegion region, BlockState[] palette, Map<BlockVector3, CompoundTag> tileEntities,
+                               ByteBuffer data) throws IOException {
+        checkNotNull(region);
+        checkNotNull(palette);
+        checkNotNull(tileEntities);
+        checkNotNull(data);
+        this.region = region.clone();
+        this.origin = region.getMinimumPoint();
+        this.minX = origin.getBlockX();
+        this.minY = origin.getBlockY();
+        this.minZ = origin.getBlockZ();
+        this.width = region.getWidth();
+        this.height = region.getHeight();
+        this.length = region.getLength();
+        this.data = data;
+        this.palette = palette;
+        this.tileEntities = tileEntities;
+        this.sectionOffsets = index(data, (long) width * height * length);
+        this.sections = new LinkedHashMap<Integer, BlockState[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, BlockState[]> eldest) {
+                return size() > MAX_CACHED_SECTIONS;
+            }
+        };
+    }
+
+    private LazySpongeClipboard(LazySpongeClipboard other) {
+        this.region = other.region.clone();
+        this.origin = other.origin;
+        this.minX = other.minX;
+        this.minY = other.minY;
+        this.minZ = other.minZ;
+        this.width = other.width;
+        this.height = other.height;
+        this.length = other.length;
+        this.data = other.data;
+        this.palette = other.palette;
+        this.tileEntities = other.tileEntities;
+        this.sectionOffsets = other.sectionOffsets;
+        this.sections = other.sections;
+        this.biomeColumns = other.biomeColumns;
+        this.changes.putAll(other.changes);
+        this.biomeChanges.putAll(other.biomeChanges);
+        for (ClipboardEntity entity : other.entities) {
+            this.entities.add(new ClipboardEntity(entity.getLocation().setExtent(this), entity.getState()));
+        }
+    }
+
+    /**
+     * Create a clipboard with the same contents as this one, that shares
+     * the schematic's data with it.
+     *
+     * <p>Changes made to either clipboard afterwards are not seen by the
+     * other.</p>
+     *
+     * @return the copy
+     */
+    public LazySpongeClipboard copy() {
+        return new LazySpongeClipboard(this);
+    }
+
+    /**
+     * Find where each section starts in the block data, checking that the
+     * data holds exactly the given number of valid VarInts.
+     */
+    private static int[] index(ByteBuffer data, long volume) throws IOException {
+        if (volume > data.remaining()) {
+            throw new IOException("Block data is shorter than the schematic's dimensions");
+        }
+        int[] offsets = new int[(int) ((volume + SECTION_SIZE - 1) >>> SECTION_SHIFT)];
+        int limit = data.limit();
+        int blocks = 0;
+        int varIntLength = 0;
+        for (int i = data.position(); i < limit; i++) {
+            if (varIntLength == 0) {
+                if (blocks == volume) {
+                    throw new IOException("Block data is longer than the schematic's dimensions");
+                }
+                if ((blocks & SECTION_MASK) == 0) {
+                    offsets[blocks >>> SECTION_SHIFT] = i;
+                }
+            }
+            if ((data.get(i) & 128) == 0) {
+                varIntLength = 0;
+                blocks++;
+            } else if (++varIntLength == 5) {
+                throw new IOException("VarInt too big (probably corrupted data)");
+            }
+        }
+        if (blocks != volume || varIntLength != 0) {
+            throw new IOException("Block data is shorter than the schematic's dimensions");
+        }
+        return offsets;
+    }
+
+    private BlockState[] getSection(int section) {
+        DecodedSection last = lastSection;
+        if (last != null && last.index == section) {
+            return last.states;
+        }
+        BlockState[] states;
+        synchronized (sections) {
+            states = sections.get(section);
+            if (states == null) {
+                states = decode(section);
+                sections.put(section, states);
+            }
+        }
+        lastSection = new DecodedSection(section, states);
+        return states;
+    }
+
+    private BlockState[] decode(int section) {
+        int first = section << SECTION_SHIFT;
+        BlockState[] states = new BlockState[Math.min(SECTION_SIZE, width * height * length - first)];
+        BlockState air = BlockTypes.AIR.getDefaultState();
+        int position = sectionOffsets[section];
+        for (int i = 0; i < states.length; i++) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data.get(position++);
+                value |= (b & 127) << shift;
+                shift += 7;
+            } while ((b & 128) != 0);
+            BlockState state = value < palette.length ? palette[value] : null;
+            states[i] = state != null ? state : air;
+        }
+        return states;
+    }
+
+    /**
+     * Get the index of the given position in the block data.
+     *
+     * @return the index, or {@code -1} if the position is outside the clipboard
+     */
+    private int indexOf(int x, int y, int z) {
+        int lx = x - minX;
+        int ly = y - minY;
+        int lz = z - minZ;
+        if (lx < 0 || ly < 0 || lz < 0 || lx >= width || ly >= height || lz >= length) {
+            return -1;
+        }
+        return (ly * length + lz) * width + lx;
+    }
+
+    @Nullable
+    private BaseBlock getChange(int x, int y, int z) {
+        if (changes.isEmpty()) {
+            return null;
+        }
+        return changes.get(BlockVector3.at(x - minX, y - minY, z - minZ));
+    }
+
+    /**
+     * Set the biomes of the clipboard, which are the same for every block
+     * in a column.
+     *
+     * @param columns the biomes, in Z, X order
+     */
+    public void setBiomeColumns(BiomeType[] columns) {
+        checkNotNull(columns);
+        this.biomeColumns = columns;
+    }
+
+    @Override
+    public Region getRegion() {
+        return region;
+    }
+
+    @Override
+    public BlockVector3 getOrigin() {
+        return origin;
+    }
+
+    @Override
+    public void setOrigin(BlockVector3 origin) {
+        this.origin = origin;
+    }
+
+    @Override
+    public BlockVector3 getDimensions() {
+        return BlockVector3.at(width, height, length);
+    }
+
+    @Override
+    public BlockVector3 getMinimumPoint() {
+        return region.getMinimumPoint();
+    }
+
+    @Override
+    public BlockVector3 getMaximumPoint() {
+        return region.getMaximumPoint();
+    }
+
+    @Override
+    public List<? extends Entity> getEntities(Region region) {
+        List<Entity> filtered = new ArrayList<>();
+        for (Entity entity : entities) {
+            if (region.contains(entity.getLocation().toVector().toBlockPoint())) {
+                filtered.add(entity);
+            }
+        }
+        return Collections.unmodifiableList(filtered);
+    }
+
+    @Override
+    public List<? extends Entity> getEntities() {
+        return Collections.unmodifiableList(entities);
+    }
+
+    @Nullable
+    @Override
+    public Entity createEntity(Location location, BaseEntity entity) {
+        ClipboardEntity ret = new ClipboardEntity(location, entity);
+        entities.add(ret);
+        return ret;
+    }
+
+    @Override
+    public BlockState getBlock(BlockVector3 position) {
+        return getBlock(position.getBlockX(), position.getBlockY(), position.getBlockZ());
+    }
+
+    @Override
+    public BlockState getBlock(int x, int y, int z) {
+        int index = indexOf(x, y, z);
+        if (index < 0) {
+            return BlockTypes.AIR.getDefaultState();
+        }
+        BaseBlock change = getChange(x, y, z);
+        if (change != null) {
+            return change.toImmutableState();
+        }
+        return getSection(index >>> SECTION_SHIFT)[index & SECTION_MASK];
+    }
+
+    @Override
+    public BaseBlock getFullBlock(BlockVector3 position) {
+        return getFullBlock(position.getBlockX(), position.getBlockY(), position.getBlockZ());
+    }
+
+    @Override
+    public BaseBlock getFullBlock(int x, int y, int z) {
+        int index = indexOf(x, y, z);
+        if (index < 0) {
+            return BlockTypes.AIR.getDefaultState().toBaseBlock();
+        }
+        BaseBlock change = getChange(x, y, z);
+        if (change != null) {
+            return change;
+        }
+        BlockState state = getSection(index >>> SECTION_SHIFT)[index & SECTION_MASK];
+        if (!tileEntities.isEmpty()) {
+            CompoundTag nbt = tileEntities.get(BlockVector3.at(x - minX, y - minY, z - minZ));
+            if (nbt != null) {
+                return state.toBaseBlock(nbt);
+            }
+        }
+        return state.toBaseBlock();
+    }
+
+    @Override
+    public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 position, B block) {
+        return setBlock(position.getBlockX(), position.getBlockY(), position.getBlockZ(), block);
+    }
+
+    @Override
+    public <B extends BlockStateHolder<B>> boolean setBlock(int x, int y, int z, B block) {
+        if (indexOf(x, y, z) < 0) {
+            return false;
+        }
+        changes.put(BlockVector3.at(x - minX, y - minY, z - minZ), block.toBaseBlock());
+        return true;
+    }
+
+    @Override
+    public boolean hasBiomes() {
+        return biomeColumns != null || !biomeChanges.isEmpty();
+    }
+
+    @Override
+    public BiomeType getBiome(BlockVector3 position) {
+        return getBiome(position.getBlockX(), position.getBlockY(), position.getBlockZ());
+    }
+
+    @Override
+    public BiomeType getBiome(int x, int y, int z) {
+        if (indexOf(x, y, z) >= 0) {
+            if (!biomeChanges.isEmpty()) {
+                BiomeType biome = biomeChanges.get(BlockVector3.at(x - minX, y - minY, z - minZ));
+                if (biome != null) {
+                    return biome;
+                }
+            }
+            if (biomeColumns != null) {
+                BiomeType biome = biomeColumns[(z - minZ) * width + (x - minX)];
+                if (biome != null) {
+                    return biome;
+                }
+            }
+        }
+        return BiomeTypes.OCEAN;
+    }
+
+    @Override
+    public boolean setBiome(BlockVector3 position, BiomeType biome) {
+        if (indexOf(position.getBlockX(), position.getBlockY(), position.getBlockZ()) < 0) {
+            return false;
+        }
+        biomeChanges.put(position.subtract(region.getMinimumPoint()), biome);
+        return true;
+    }
+
+    @Nullable
+    @Override
+    public Operation commit() {
+        return null;
+    }
+
+    private static final class DecodedSection {
+        private final int index;
+        private final BlockState[] states;
+
+        private DecodedSection(int index, BlockState[] states) {
+            this.index = index;
+            this.states = states;
+        }
+    }
+
+    /**
+     * Stores entity data.
+     */
+    private class ClipboardEntity extends StoredEntity {
+        ClipboardEntity(Location location, BaseEntity entity) {
+            super(location, entity);
+        }
+
+        @Override
+        public boolean remove() {
+            return entities.remove(this);
+        }
+
+        @Nullable
+        @Override
+        public <T> T getFacet(Class<? extends T> cls) {
+            return null;
+        }
+    }
+
+}
@@ -20,21 +20,37 @@
 package com.sk89q.worldedit.extent.clipboard.io;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.LazyNBTReader;
 import com.sk89q.jnbt.NBTInputStream;
 import com.sk89q.jnbt.NBTOutputStream;
 import com.sk89q.jnbt.NamedTag;
 import com.sk89q.jnbt.Tag;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.util.io.ParallelGZIPOutputStream;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 /**
  * A collection of supported clipboard formats.
@@ -64,8 +80,8 @@ public ClipboardWriter getWriter(OutputStream outputStream) throws IOException {
 
         @Override
         public boolean isFormat(File file) {
-            try (NBTInputStream str = new NBTInputStream(new GZIPInputStream(new FileInputStream(file)))) {
-                NamedTag rootTag = str.readNamedTag();
+            try {
+                NamedTag rootTag = readRootTag(file);
                 if (!rootTag.getName().equals("Schematic")) {
                     return false;
                 }
@@ -95,16 +111,24 @@ public ClipboardReader getReader(InputStream inputStream) throws IOException {
             return new SpongeSchematicReader(nbtStream);
         }
 
+        @Override
+        public Clipboard load(File file) throws IOException {
+            try (SpongeSchematicReader reader = new SpongeSchematicReader(inflate(file))) {
+                return reader.read();
+            }
+        }
+
         @Override
         public ClipboardWriter getWriter(OutputStream outputStream) throws IOException {
-            NBTOutputStream nbtStream = new NBTOutputStream(new GZIPOutputStream(outputStream));
-            return new SpongeSchematicWriter(nbtStream);
+            ExecutorService executor = WriterExecutor.INSTANCE;
+            NBTOutputStream nbtStream = new NBTOutputStream(new ParallelGZIPOutputStream(outputStream, executor));
+            return new SpongeSchematicWriter(nbtStream, executor);
         }
 
         @Override
         public boolean isFormat(File file) {
-            try (NBTInputStream str = new NBTInputStream(new GZIPInputStream(new FileInputStream(file)))) {
-                NamedTag rootTag = str.readNamedTag();
+            try {
+                NamedTag rootTag = readRootTag(file);
                 if (!rootTag.getName().equals("Schematic")) {
                     return false;
                 }
@@ -123,6 +147,129 @@ public boolean isFormat(File file) {
         }
     };
 
+    /**
+     * The compressed size above which schematics are inflated to disk.
+     */
+    private static final long MAPPED_THRESHOLD = 1024 * 1024;
+
+    /**
+     * Read the root tag of a gzipped NBT file, without creating any of the
+     * tags below the root until they are accessed.
+     */
+    private static NamedTag readRootTag(File file) throws IOException {
+        try (InputStream stream = new GZIPInputStream(new FileInputStream(file))) {
+            return LazyNBTReader.readNamedTag(ByteStreams.toByteArray(stream));
+        }
+    }
+
+    private static ByteBuffer inflate(File file) throws IOException {
+        return inflate(file, MAPPED_THRESHOLD);
+    }
+
+    /**
+     * Inflate a gzipped file into a buffer. Larger files are inflated into a
+     * temporary file that is mapped into memory, so that their contents are
+     * kept in the page cache rather than on the heap.
+     *
+     * @param file the file
+     * @param mappedThreshold the compressed size from which the file is mapped
+     * @return the inflated contents
+     * @throws IOException thrown on I/O error
+     */
+    static ByteBuffer inflate(File file, long mappedThreshold) throws IOException {
+        if (file.length() < mappedThreshold) {
+            try (InputStream stream = new GZIPInputStream(new FileInputStream(file))) {
+                return ByteBuffer.wrap(ByteStreams.toByteArray(stream));
+            }
+        }
+        Path temp = InflatedFiles.create();
+        try {
+            try (InputStream stream = new GZIPInputStream(new FileInputStream(file), 64 * 1024)) {
+                Files.copy(stream, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException("Schematic is too large to load");
+                }
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        } finally {
+            // the mapping stays valid once the file is gone, where the platform allows deleting it
+            InflatedFiles.delete(temp);
+        }
+    }
+
+    /**
+     * Keeps track of the temporary files of inflated schematics.
+     *
+     * <p>Some platforms, like Windows, don't allow deleting a file while it
+     * is mapped. Such files are deleted on a later load, once the clipboard
+     * using the mapping has been collected. Files left behind by an earlier
+     * run are deleted on the first load.</p>
+     */
+    private static final class InflatedFiles {
+        private static final String PREFIX = "worldedit-schematic-";
+        private static final String SUFFIX = ".nbt";
+        // files of other servers sharing the temporary directory may still be in use
+        private static final long STALE_MILLIS = TimeUnit.HOURS.toMillis(1);
+        private static final Set<Path> undeleted = ConcurrentHashMap.newKeySet();
+
+        static {
+            deleteStale();
+        }
+
+        static Path create() throws IOException {
+            undeleted.removeIf(InflatedFiles::tryDelete);
+            return Files.createTempFile(PREFIX, SUFFIX);
+        }
+
+        static void delete(Path file) {
+            if (!tryDelete(file)) {
+                undeleted.add(file);
+            }
+        }
+
+        private static boolean tryDelete(Path file) {
+            try {
+                Files.deleteIfExists(file);
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        private static void deleteStale() {
+            Path directory = Paths.get(System.getProperty("java.io.tmpdir"));
+            long staleBefore = System.currentTimeMillis() - STALE_MILLIS;
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+                for (Path file : files) {
+                    try {
+                        if (Files.getLastModifiedTime(file).toMillis() < staleBefore) {
+                            tryDelete(file);
+                        }
+                    } catch (IOException ignored) {
+                        // gone already, or not ours to delete
+                    }
+                }
+            } catch (IOException ignored) {
+                // nothing to clean up
+            }
+        }
+    }
+
+    /**
+     * Holds the threads used to encode and compress schematics, which are
+     * only started the first time a schematic is saved.
+     */
+    private static final class WriterExecutor {
+        private static final ExecutorService INSTANCE = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(),
+                new ThreadFactoryBuilder()
+                        .setNameFormat("WorldEdit Schematic Writer - %d")
+                        .setDaemon(true)
+                        .build());
+    }
+
     private final ImmutableSet<String> aliases;
 
     BuiltInClipboardFormat(String... aliases) {
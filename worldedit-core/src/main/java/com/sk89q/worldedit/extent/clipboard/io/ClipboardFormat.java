@@ -19,7 +19,11 @@
 
 package com.sk89q.worldedit.extent.clipboard.io;
 
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -62,6 +66,22 @@ public interface ClipboardFormat {
      */
     ClipboardWriter getWriter(OutputStream outputStream) throws IOException;
 
+    /**
+     * Load a clipboard from a file.
+     *
+     * <p>Formats may return a clipboard that reads from the file's contents
+     * as it is used, rather than one that holds every block up front.</p>
+     *
+     * @param file the file
+     * @return the clipboard
+     * @throws IOException thrown on I/O error
+     */
+    default Clipboard load(File file) throws IOException {
+        try (ClipboardReader reader = getReader(new BufferedInputStream(new FileInputStream(file)))) {
+            return reader.read();
+        }
+    }
+
     /**
      * Return whether the given file is of this format.
      *
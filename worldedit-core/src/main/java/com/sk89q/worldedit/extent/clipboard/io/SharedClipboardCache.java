@@ -0,0 +1,139 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent.clipboard.io;
+
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.extent.clipboard.LazySpongeClipboard;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Shares the clipboards loaded from the same schematic file.
+ *
+ * <p>When a format loads a {@link LazySpongeClipboard}, an untouched copy of
+ * it is kept here, softly referenced, and later loads of the unchanged file
+ * get a copy that shares its data. Each copy keeps its own changes. Other
+ * clipboards are not shared, as copying them costs about as much as loading
+ * them again.</p>
+ */
+public final class SharedClipboardCache {
+
+    private static final int MAX_ENTRIES = 16;
+
+    private static final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * Load a clipboard from a file, sharing it with earlier loads of the
+     * same file where possible.
+     *
+     * @param format the format of the file
+     * @param file the file
+     * @return the clipboard, which is never shared with another caller
+     * @throws IOException thrown on I/O error
+     */
+    public static Clipboard load(ClipboardFormat format, File file) throws IOException {
+        checkNotNull(format);
+        checkNotNull(file);
+        String key = format.getName() + ':' + file.getCanonicalPath();
+        long lastModified = file.lastModified();
+        long length = file.length();
+
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                LazySpongeClipboard shared = entry.clipboard.get();
+                if (shared != null && entry.lastModified == lastModified && entry.length == length) {
+                    return shared.copy();
+                }
+                entries.remove(key);
+            }
+        }
+
+        Clipboard clipboard = format.load(file);
+        if (clipboard instanceof LazySpongeClipboard) {
+            LazySpongeClipboard shared = ((LazySpongeClipboard) clipboard).copy();
+            synchronized (entries) {
+                entries.put(key, new Entry(lastModified, length, shared));
+            }
+        }
+        return clipboard;
+    }
+
+    /**
+     * Forget any clipboard loaded from the given file, such as when it is
+     * about to be replaced or deleted.
+     *
+     * @param file the file
+     */
+    public static void invalidate(File file) {
+        String suffix;
+        try {
+            suffix = ':' + file.getCanonicalPath();
+        } catch (IOException e) {
+            clear();
+            return;
+        }
+        synchronized (entries) {
+            Iterator<String> it = entries.keySet().iterator();
+            while (it.hasNext()) {
+                if (it.next().endsWith(suffix)) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Forget every shared clipboard.
+     */
+    public static void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private static final class Entry {
+        private final long lastModified;
+        private final long length;
+        private final SoftReference<LazySpongeClipboard> clipboard;
+
+        private Entry(long lastModified, long length, LazySpongeClipboard clipboard) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.clipboard = new SoftReference<>(clipboard);
+        }
+    }
+
+    private SharedClipboardCache() {
+    }
+
+}
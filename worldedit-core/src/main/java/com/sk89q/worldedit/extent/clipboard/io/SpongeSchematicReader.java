@@ -24,6 +24,7 @@
 import com.sk89q.jnbt.CompoundTag;
 import com.sk89q.jnbt.IntArrayTag;
 import com.sk89q.jnbt.IntTag;
+import com.sk89q.jnbt.LazyNBTReader;
 import com.sk89q.jnbt.ListTag;
 import com.sk89q.jnbt.NBTInputStream;
 import com.sk89q.jnbt.NamedTag;
@@ -39,10 +40,10 @@
 import com.sk89q.worldedit.extension.platform.Platform;
 import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.extent.clipboard.LazySpongeClipboard;
 import com.sk89q.worldedit.internal.Constants;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.CuboidRegion;
-import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.util.Location;
 import com.sk89q.worldedit.world.DataFixer;
 import com.sk89q.worldedit.world.biome.BiomeType;
@@ -56,12 +57,15 @@
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.OptionalInt;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -71,7 +75,10 @@
 public class SpongeSchematicReader extends NBTSchematicReader {
 
     private static final Logger log = LoggerFactory.getLogger(SpongeSchematicReader.class);
+    @Nullable
     private final NBTInputStream inputStream;
+    @Nullable
+    private final ByteBuffer buffer;
     private DataFixer fixer = null;
     private int schematicVersion = -1;
     private int dataVersion = -1;
@@ -84,6 +91,22 @@ public class SpongeSchematicReader extends NBTSchematicReader {
     public SpongeSchematicReader(NBTInputStream inputStream) {
         checkNotNull(inputStream);
         this.inputStream = inputStream;
+        this.buffer = null;
+    }
+
+    /**
+     * Create a new instance that reads uncompressed NBT from a buffer.
+     *
+     * <p>The clipboards it reads keep the buffer, and only decode their
+     * blocks as they are accessed. The buffer must not be modified while
+     * they are in use.</p>
+     *
+     * @param buffer the buffer to read from
+     */
+    public SpongeSchematicReader(ByteBuffer buffer) {
+        checkNotNull(buffer);
+        this.inputStream = null;
+        this.buffer = buffer;
     }
 
     @Override
@@ -121,7 +144,7 @@ public Clipboard read() throws IOException {
                 }
             }
 
-            BlockArrayClipboard clip = readVersion1(schematicTag);
+            Clipboard clip = readVersion1(schematicTag);
             return readVersion2(clip, schematicTag);
         }
         throw new IOException("This schematic version is currently not supported");
@@ -148,7 +171,7 @@ public OptionalInt getDataVersion() {
     }
 
     private CompoundTag getBaseTag() throws IOException {
-        NamedTag rootTag = inputStream.readNamedTag();
+        NamedTag rootTag = buffer != null ? LazyNBTReader.readNamedTag(buffer) : inputStream.readNamedTag();
         CompoundTag schematicTag = (CompoundTag) rootTag.getTag();
 
         // Check
@@ -158,9 +181,9 @@ private CompoundTag getBaseTag() throws IOException {
         return schematicTag;
     }
 
-    private BlockArrayClipboard readVersion1(CompoundTag schematicTag) throws IOException {
+    private Clipboard readVersion1(CompoundTag schematicTag) throws IOException {
         BlockVector3 origin;
-        Region region;
+        CuboidRegion region;
         Map<String, Tag> schematic = schematicTag.getValue();
 
         int width = requireTag(schematic, "Width", ShortTag.class).getValue();
@@ -195,6 +218,60 @@ private BlockArrayClipboard readVersion1(CompoundTag schematicTag) throws IOExce
             region = new CuboidRegion(origin, origin.add(width, height, length).subtract(BlockVector3.ONE));
         }
 
+        Map<Integer, BlockState> palette = readPalette(schematic);
+        Map<BlockVector3, Map<String, Tag>> tileEntitiesMap = readTileEntities(schematic);
+
+        if (buffer != null) {
+            return readLazily(region, origin, palette, tileEntitiesMap);
+        }
+
+        byte[] blocks = requireTag(schematic, "BlockData", ByteArrayTag.class).getValue();
+
+        BlockArrayClipboard clipboard = new BlockArrayClipboard(region);
+        clipboard.setOrigin(origin);
+
+        int index = 0;
+        int i = 0;
+        int value;
+        int varintLength;
+        while (i < blocks.length) {
+            value = 0;
+            varintLength = 0;
+
+            while (true) {
+                value |= (blocks[i] & 127) << (varintLength++ * 7);
+                if (varintLength > 5) {
+                    throw new IOException("VarInt too big (probably corrupted data)");
+                }
+                if ((blocks[i] & 128) != 128) {
+                    i++;
+                    break;
+                }
+                i++;
+            }
+            // index = (y * length * width) + (z * width) + x
+            int y = index / (width * length);
+            int z = (index % (width * length)) / width;
+            int x = (index % (width * length)) % width;
+            BlockState state = palette.get(value);
+            BlockVector3 pt = BlockVector3.at(x, y, z);
+            try {
+                if (tileEntitiesMap.containsKey(pt)) {
+                    clipboard.setBlock(clipboard.getMinimumPoint().add(pt), state.toBaseBlock(new CompoundTag(tileEntitiesMap.get(pt))));
+                } else {
+                    clipboard.setBlock(clipboard.getMinimumPoint().add(pt), state);
+                }
+            } catch (WorldEditException e) {
+                throw new IOException("Failed to load a block in the schematic");
+            }
+
+            index++;
+        }
+
+        return clipboard;
+    }
+
+    private Map<Integer, BlockState> readPalette(Map<String, Tag> schematic) throws IOException {
         IntTag paletteMaxTag = getTag(schematic, "PaletteMax", IntTag.class);
         Map<String, Tag> paletteObject = requireTag(schematic, "Palette", CompoundTag.class).getValue();
         if (paletteMaxTag != null && paletteObject.size() != paletteMaxTag.getValue()) {
@@ -208,11 +285,12 @@ private BlockArrayClipboard readVersion1(CompoundTag schematicTag) throws IOExce
         parserContext.setTryLegacy(false);
         parserContext.setPreferringWildcard(false);
 
+        Map<String, String> fixedPalette = fixer != null
+            ? fixer.fixUpAll(DataFixer.FixTypes.BLOCK_STATE, paletteObject.keySet(), dataVersion)
+            : Collections.emptyMap();
         for (String palettePart : paletteObject.keySet()) {
             int id = requireTag(paletteObject, palettePart, IntTag.class).getValue();
-            if (fixer != null) {
-                palettePart = fixer.fixUp(DataFixer.FixTypes.BLOCK_STATE, palettePart, dataVersion);
-            }
+            palettePart = fixedPalette.getOrDefault(palettePart, palettePart);
             BlockState state;
             try {
                 state = WorldEdit.getInstance().getBlockFactory().parseFromInput(palettePart, parserContext).toImmutableState();
@@ -222,9 +300,10 @@ private BlockArrayClipboard readVersion1(CompoundTag schematicTag) throws IOExce
             }
             palette.put(id, state);
         }
+        return palette;
+    }
 
-        byte[] blocks = requireTag(schematic, "BlockData", ByteArrayTag.class).getValue();
-
+    private Map<BlockVector3, Map<String, Tag>> readTileEntities(Map<String, Tag> schematic) throws IOException {
         Map<BlockVector3, Map<String, Tag>> tileEntitiesMap = new HashMap<>();
         ListTag tileEntities = getTag(schematic, "BlockEntities", ListTag.class);
         if (tileEntities == null) {
@@ -254,52 +333,33 @@ private BlockArrayClipboard readVersion1(CompoundTag schematicTag) throws IOExce
                 tileEntitiesMap.put(pt, tileEntity);
             }
         }
+        return tileEntitiesMap;
+    }
 
-        BlockArrayClipboard clipboard = new BlockArrayClipboard(region);
-        clipboard.setOrigin(origin);
-
-        int index = 0;
-        int i = 0;
-        int value;
-        int varintLength;
-        while (i < blocks.length) {
-            value = 0;
-            varintLength = 0;
-
-            while (true) {
-                value |= (blocks[i] & 127) << (varintLength++ * 7);
-                if (varintLength > 5) {
-                    throw new IOException("VarInt too big (probably corrupted data)");
-                }
-                if ((blocks[i] & 128) != 128) {
-                    i++;
-                    break;
-                }
-                i++;
-            }
-            // index = (y * length * width) + (z * width) + x
-            int y = index / (width * length);
-            int z = (index % (width * length)) / width;
-            int x = (index % (width * length)) % width;
-            BlockState state = palette.get(value);
-            BlockVector3 pt = BlockVector3.at(x, y, z);
-            try {
-                if (tileEntitiesMap.containsKey(pt)) {
-                    clipboard.setBlock(clipboard.getMinimumPoint().add(pt), state.toBaseBlock(new CompoundTag(tileEntitiesMap.get(pt))));
-                } else {
-                    clipboard.setBlock(clipboard.getMinimumPoint().add(pt), state);
-                }
-            } catch (WorldEditException e) {
-                throw new IOException("Failed to load a block in the schematic");
+    private Clipboard readLazily(CuboidRegion region, BlockVector3 origin, Map<Integer, BlockState> palette,
+                                 Map<BlockVector3, Map<String, Tag>> tileEntitiesMap) throws IOException {
+        ByteBuffer blocks = LazyNBTReader.findByteArray(buffer, "BlockData");
+        if (blocks == null) {
+            throw new IOException("Schematic file is missing a \"BlockData\" tag of type " + ByteArrayTag.class.getName());
+        }
+        int maxId = palette.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1);
+        BlockState[] states = new BlockState[maxId + 1];
+        for (Entry<Integer, BlockState> entry : palette.entrySet()) {
+            if (entry.getKey() >= 0) {
+                states[entry.getKey()] = entry.getValue();
             }
-
-            index++;
+        }
+        Map<BlockVector3, CompoundTag> tileEntities = new HashMap<>();
+        for (Entry<BlockVector3, Map<String, Tag>> entry : tileEntitiesMap.entrySet()) {
+            tileEntities.put(entry.getKey(), new CompoundTag(entry.getValue()));
         }
 
+        LazySpongeClipboard clipboard = new LazySpongeClipboard(region, states, tileEntities, blocks);
+        clipboard.setOrigin(origin);
         return clipboard;
     }
 
-    private Clipboard readVersion2(BlockArrayClipboard version1, CompoundTag schematicTag) throws IOException {
+    private Clipboard readVersion2(Clipboard version1, CompoundTag schematicTag) throws IOException {
         Map<String, Tag> schematic = schematicTag.getValue();
         if (schematic.containsKey("BiomeData")) {
             readBiomes(version1, schematic);
@@ -310,7 +370,7 @@ private Clipboard readVersion2(BlockArrayClipboard version1, CompoundTag schemat
         return version1;
     }
 
-    private void readBiomes(BlockArrayClipboard clipboard, Map<String, Tag> schematic) throws IOException {
+    private void readBiomes(Clipboard clipboard, Map<String, Tag> schematic) throws IOException {
         ByteArrayTag dataTag = requireTag(schematic, "BiomeData", ByteArrayTag.class);
         IntTag maxTag = requireTag(schematic, "BiomePaletteMax", IntTag.class);
         CompoundTag paletteTag = requireTag(schematic, "BiomePalette", CompoundTag.class);
@@ -320,11 +380,11 @@ private void readBiomes(BlockArrayClipboard clipboard, Map<String, Tag> schemati
             throw new IOException("Biome palette size does not match expected size.");
         }
 
+        Map<String, String> fixedPalette = fixer != null
+            ? fixer.fixUpAll(DataFixer.FixTypes.BIOME, paletteTag.getValue().keySet(), dataVersion)
+            : Collections.emptyMap();
         for (Entry<String, Tag> palettePart : paletteTag.getValue().entrySet()) {
-            String key = palettePart.getKey();
-            if (fixer != null) {
-                key = fixer.fixUp(DataFixer.FixTypes.BIOME, key, dataVersion);
-            }
+            String key = fixedPalette.getOrDefault(palettePart.getKey(), palettePart.getKey());
             BiomeType biome = BiomeTypes.get(key);
             if (biome == null) {
                 log.warn("Unknown biome type :" + key
@@ -338,6 +398,10 @@ private void readBiomes(BlockArrayClipboard clipboard, Map<String, Tag> schemati
         }
 
         int width = clipboard.getDimensions().getX();
+        // a lazy clipboard keeps one biome per column, rather than one per block
+        BiomeType[] columns = clipboard instanceof LazySpongeClipboard
+            ? new BiomeType[width * clipboard.getDimensions().getZ()]
+            : null;
 
         byte[] biomes = dataTag.getValue();
         int biomeIndex = 0;
@@ -363,14 +427,23 @@ private void readBiomes(BlockArrayClipboard clipboard, Map<String, Tag> schemati
             int z = biomeIndex / width;
             int x = biomeIndex % width;
             BiomeType type = palette.get(bVal);
-            for (int y = 0; y < clipboard.getRegion().getHeight(); y++) {
-                clipboard.setBiome(min.add(x, y, z), type);
+            if (columns != null) {
+                if (biomeIndex < columns.length) {
+                    columns[biomeIndex] = type;
+                }
+            } else {
+                for (int y = 0; y < clipboard.getRegion().getHeight(); y++) {
+                    clipboard.setBiome(min.add(x, y, z), type);
+                }
             }
             biomeIndex++;
         }
+        if (columns != null) {
+            ((LazySpongeClipboard) clipboard).setBiomeColumns(columns);
+        }
     }
 
-    private void readEntities(BlockArrayClipboard clipboard, Map<String, Tag> schematic) throws IOException {
+    private void readEntities(Clipboard clipboard, Map<String, Tag> schematic) throws IOException {
         List<Tag> entList = requireTag(schematic, "Entities", ListTag.class).getValue();
         if (entList.isEmpty()) {
             return;
@@ -403,6 +476,8 @@ private void readEntities(BlockArrayClipboard clipboard, Map<String, Tag> schema
 
     @Override
     public void close() throws IOException {
-        inputStream.close();
+        if (inputStream != null) {
+            inputStream.close();
+        }
     }
 }
@@ -20,6 +20,8 @@
 package com.sk89q.worldedit.extent.clipboard.io;
 
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.sk89q.jnbt.ByteArrayTag;
 import com.sk89q.jnbt.CompoundTag;
 import com.sk89q.jnbt.DoubleTag;
@@ -27,6 +29,7 @@
 import com.sk89q.jnbt.IntArrayTag;
 import com.sk89q.jnbt.IntTag;
 import com.sk89q.jnbt.ListTag;
+import com.sk89q.jnbt.NBTConstants;
 import com.sk89q.jnbt.NBTOutputStream;
 import com.sk89q.jnbt.ShortTag;
 import com.sk89q.jnbt.StringTag;
@@ -41,51 +44,84 @@
 import com.sk89q.worldedit.util.Location;
 import com.sk89q.worldedit.world.biome.BiomeType;
 import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import it.unimi.dsi.fastutil.objects.Object2IntLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Writes schematic files using the Sponge schematic format.
+ *
+ * <p>Block data is streamed rather than built as one tag. The clipboard is
+ * cut into slabs of rows that are scanned, and then encoded, in parallel on
+ * the executor given to the writer. Only a few encoded slabs are held in
+ * memory at a time.</p>
  */
 public class SpongeSchematicWriter implements ClipboardWriter {
 
     private static final int CURRENT_VERSION = 2;
 
     private static final int MAX_SIZE = Short.MAX_VALUE - Short.MIN_VALUE;
+    // about one chunk column of blocks per slab
+    private static final int SLAB_VOLUME = 16 * 16 * 256;
+
     private final NBTOutputStream outputStream;
+    private final ExecutorService executor;
+    private final int maxPending;
 
     /**
-     * Create a new schematic writer.
+     * Create a new schematic writer that encodes on the calling thread.
      *
      * @param outputStream the output stream to write to
      */
     public SpongeSchematicWriter(NBTOutputStream outputStream) {
+        this(outputStream, MoreExecutors.newDirectExecutorService());
+    }
+
+    /**
+     * Create a new schematic writer.
+     *
+     * @param outputStream the output stream to write to
+     * @param executor the executor to scan and encode block data on
+     */
+    public SpongeSchematicWriter(NBTOutputStream outputStream, ExecutorService executor) {
         checkNotNull(outputStream);
+        checkNotNull(executor);
         this.outputStream = outputStream;
+        this.executor = executor;
+        this.maxPending = Runtime.getRuntime().availableProcessors() * 2;
     }
 
     @Override
     public void write(Clipboard clipboard) throws IOException {
         // For now always write the latest version. Maybe provide support for earlier if more appear.
-        outputStream.writeNamedTag("Schematic", new CompoundTag(write2(clipboard)));
+        outputStream.writeNamedTagHeader("Schematic", NBTConstants.TYPE_COMPOUND);
+        write2(clipboard);
+        outputStream.writeEndTag();
     }
 
     /**
-     * Writes a version 2 schematic file.
+     * Writes the entries of a version 2 schematic file.
      *
      * @param clipboard The clipboard
-     * @return The schematic map
      */
-    private Map<String, Tag> write2(Clipboard clipboard) {
+    private void write2(Clipboard clipboard) throws IOException {
         Region region = clipboard.getRegion();
         BlockVector3 origin = clipboard.getOrigin();
         BlockVector3 min = region.getMinimumPoint();
@@ -127,75 +163,213 @@ private Map<String, Tag> write2(Clipboard clipboard) {
                 min.getBlockZ(),
         }));
 
-        int paletteMax = 0;
-        Map<String, Integer> palette = new HashMap<>();
+        // version 2 stuff
+        if (clipboard.hasBiomes()) {
+            writeBiomes(clipboard, schematic);
+        }
+
+        if (!clipboard.getEntities().isEmpty()) {
+            writeEntities(clipboard, schematic);
+        }
+
+        for (Map.Entry<String, Tag> entry : schematic.entrySet()) {
+            outputStream.writeNamedTag(entry.getKey(), entry.getValue());
+        }
+
+        writeBlocks(clipboard, min, width, height, length);
+    }
 
+    /**
+     * Writes the block palette, block data and block entities.
+     */
+    private void writeBlocks(Clipboard clipboard, BlockVector3 min, int width, int height, int length)
+            throws IOException {
+        int rows = height * length;
+        int rowsPerSlab = Math.max(1, SLAB_VOLUME / width);
+        int slabCount = (rows + rowsPerSlab - 1) / rowsPerSlab;
+
+        // First pass: find the states used in each slab and how often
+        List<Object2IntMap<BlockState>> counts = runInOrder(slabCount, slab -> {
+            Object2IntLinkedOpenHashMap<BlockState> slabCounts = new Object2IntLinkedOpenHashMap<>();
+            forEachInSlab(min, width, length, rows, rowsPerSlab, slab, (point, x, y, z) ->
+                slabCounts.addTo(clipboard.getBlock(point), 1));
+            return slabCounts;
+        }, null);
+
+        // The palette is in order of first appearance, as it was when written serially
+        Object2IntMap<BlockState> palette = new Object2IntOpenHashMap<>();
+        palette.defaultReturnValue(-1);
+        Map<String, Tag> paletteTag = new HashMap<>();
+        long totalLength = 0;
+        for (Object2IntMap<BlockState> slabCounts : counts) {
+            for (Object2IntMap.Entry<BlockState> entry : slabCounts.object2IntEntrySet()) {
+                BlockState state = entry.getKey();
+                int blockId = palette.getInt(state);
+                if (blockId == -1) {
+                    blockId = palette.size();
+                    palette.put(state, blockId);
+                    paletteTag.put(state.getAsString(), new IntTag(blockId));
+                }
+                totalLength += (long) entry.getIntValue() * varIntLength(blockId);
+            }
+        }
+        if (totalLength > Integer.MAX_VALUE) {
+            throw new IOException("Clipboard is too large for a .schematic");
+        }
+        int dataLength = (int) totalLength;
+
+        outputStream.writeNamedTag("PaletteMax", new IntTag(palette.size()));
+        outputStream.writeNamedTag("Palette", new CompoundTag(paletteTag));
+
+        // Second pass: encode each slab, and stream the slabs out in order
         List<CompoundTag> tileEntities = new ArrayList<>();
+        outputStream.writeNamedTagHeader("BlockData", NBTConstants.TYPE_BYTE_ARRAY);
+        outputStream.writePayloadInt(dataLength);
+        long[] written = new long[1];
+        runInOrder(slabCount, slab -> {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(rowsPerSlab * width);
+            List<CompoundTag> slabTileEntities = new ArrayList<>();
+            forEachInSlab(min, width, length, rows, rowsPerSlab, slab, (point, x, y, z) -> {
+                BaseBlock block = clipboard.getFullBlock(point);
+                if (block.getNbtData() != null) {
+                    Map<String, Tag> values = new HashMap<>(block.getNbtData().getValue());
+
+                    values.remove("id"); // Remove 'id' if it exists. We want 'Id'
+
+                    // Positions are kept in NBT, we don't want that.
+                    values.remove("x");
+                    values.remove("y");
+                    values.remove("z");
+
+                    values.put("Id", new StringTag(block.getNbtId()));
+                    values.put("Pos", new IntArrayTag(new int[] { x, y, z }));
+
+                    slabTileEntities.add(new CompoundTag(values));
+                }
 
-        ByteArrayOutputStream buffer = new ByteArrayOutputStream(width * height * length);
+                int blockId = palette.getInt(block.toImmutableState());
+                if (blockId == -1) {
+                    throw new IllegalStateException("Clipboard was modified while it was being saved");
+                }
+                while ((blockId & -128) != 0) {
+                    buffer.write(blockId & 127 | 128);
+                    blockId >>>= 7;
+                }
+                buffer.write(blockId);
+            });
+            return new EncodedSlab(buffer, slabTileEntities);
+        }, encoded -> {
+            written[0] += encoded.data.size();
+            if (written[0] > dataLength) {
+                throw new IllegalStateException("Clipboard was modified while it was being saved");
+            }
+            encoded.data.writeTo(new PayloadOutputStream());
+            tileEntities.addAll(encoded.tileEntities);
+        });
+        if (written[0] != dataLength) {
+            throw new IllegalStateException("Clipboard was modified while it was being saved");
+        }
 
-        for (int y = 0; y < height; y++) {
+        outputStream.writeNamedTag("BlockEntities", new ListTag(CompoundTag.class, tileEntities));
+    }
+
+    private static int varIntLength(int value) {
+        int length = 1;
+        while ((value & -128) != 0) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    @FunctionalInterface
+    private interface BlockVisitor {
+        void visit(BlockVector3 point, int x, int y, int z);
+    }
+
+    /**
+     * Visits the blocks of a slab in schematic order: by row, where a row is
+     * one y and z, and then by x.
+     */
+    private static void forEachInSlab(BlockVector3 min, int width, int length, int rows, int rowsPerSlab,
+                                      int slab, BlockVisitor visitor) {
+        int endRow = Math.min(rows, (slab + 1) * rowsPerSlab);
+        for (int row = slab * rowsPerSlab; row < endRow; row++) {
+            int y = row / length;
+            int z = row % length;
             int y0 = min.getBlockY() + y;
-            for (int z = 0; z < length; z++) {
-                int z0 = min.getBlockZ() + z;
-                for (int x = 0; x < width; x++) {
-                    int x0 = min.getBlockX() + x;
-                    BlockVector3 point = BlockVector3.at(x0, y0, z0);
-                    BaseBlock block = clipboard.getFullBlock(point);
-                    if (block.getNbtData() != null) {
-                        Map<String, Tag> values = new HashMap<>(block.getNbtData().getValue());
-
-                        values.remove("id"); // Remove 'id' if it exists. We want 'Id'
-
-                        // Positions are kept in NBT, we don't want that.
-                        values.remove("x");
-                        values.remove("y");
-                        values.remove("z");
-
-                        values.put("Id", new StringTag(block.getNbtId()));
-                        values.put("Pos", new IntArrayTag(new int[] { x, y, z }));
-
-                        tileEntities.add(new CompoundTag(values));
-                    }
-
-                    String blockKey = block.toImmutableState().getAsString();
-                    int blockId;
-                    if (palette.containsKey(blockKey)) {
-                        blockId = palette.get(blockKey);
-                    } else {
-                        blockId = paletteMax;
-                        palette.put(blockKey, blockId);
-                        paletteMax++;
-                    }
-
-                    while ((blockId & -128) != 0) {
-                        buffer.write(blockId & 127 | 128);
-                        blockId >>>= 7;
-                    }
-                    buffer.write(blockId);
-                }
+            int z0 = min.getBlockZ() + z;
+            for (int x = 0; x < width; x++) {
+                visitor.visit(BlockVector3.at(min.getBlockX() + x, y0, z0), x, y, z);
             }
         }
+    }
 
-        schematic.put("PaletteMax", new IntTag(paletteMax));
+    @FunctionalInterface
+    private interface SlabTask<T> {
+        T run(int slab) throws IOException;
+    }
 
-        Map<String, Tag> paletteTag = new HashMap<>();
-        palette.forEach((key, value) -> paletteTag.put(key, new IntTag(value)));
+    @FunctionalInterface
+    private interface SlabConsumer<T> {
+        void accept(T result) throws IOException;
+    }
 
-        schematic.put("Palette", new CompoundTag(paletteTag));
-        schematic.put("BlockData", new ByteArrayTag(buffer.toByteArray()));
-        schematic.put("BlockEntities", new ListTag(CompoundTag.class, tileEntities));
+    /**
+     * Runs a task for every slab on the executor, with a bounded number in
+     * flight, and hands the results to the consumer in slab order.
+     *
+     * @return the results, if no consumer is given
+     */
+    private <T> List<T> runInOrder(int slabCount, SlabTask<T> task, @Nullable SlabConsumer<T> consumer)
+            throws IOException {
+        List<T> results = new ArrayList<>(consumer == null ? slabCount : 0);
+        ArrayDeque<Future<T>> pending = new ArrayDeque<>();
+        int next = 0;
+        try {
+            while (next < slabCount || !pending.isEmpty()) {
+                while (next < slabCount && pending.size() < maxPending) {
+                    int slab = next++;
+                    pending.add(executor.submit(() -> task.run(slab)));
+                }
+                T result = Futures.getChecked(pending.remove(), IOException.class);
+                if (consumer == null) {
+                    results.add(result);
+                } else {
+                    consumer.accept(result);
+                }
+            }
+        } finally {
+            for (Future<T> future : pending) {
+                future.cancel(false);
+            }
+        }
+        return results;
+    }
 
-        // version 2 stuff
-        if (clipboard.hasBiomes()) {
-            writeBiomes(clipboard, schematic);
+    private static final class EncodedSlab {
+        private final ByteArrayOutputStream data;
+        private final List<CompoundTag> tileEntities;
+
+        private EncodedSlab(ByteArrayOutputStream data, List<CompoundTag> tileEntities) {
+            this.data = data;
+            this.tileEntities = tileEntities;
         }
+    }
 
-        if (!clipboard.getEntities().isEmpty()) {
-            writeEntities(clipboard, schematic);
+    /**
+     * Forwards writes to the payload of the tag being written.
+     */
+    private final class PayloadOutputStream extends OutputStream {
+        @Override
+        public void write(int b) throws IOException {
+            outputStream.writePayloadBytes(new byte[] { (byte) b }, 0, 1);
         }
 
-        return schematic;
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            outputStream.writePayloadBytes(b, off, len);
+        }
     }
 
     private void writeBiomes(Clipboard clipboard, Map<String, Tag> schematic) {
@@ -66,6 +66,12 @@ public BlockBagExtent(Extent extent, @Nullable BlockBag blockBag) {
      */
     public void setBlockBag(@Nullable BlockBag blockBag) {
         this.blockBag = blockBag;
+        invalidatePassThrough();
+    }
+
+    @Override
+    protected boolean isPassThrough() {
+        return blockBag == null;
     }
 
     /**
@@ -112,4 +118,12 @@ public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 position, B
 
         return super.setBlock(position, block);
     }
+
+    @Override
+    protected <B extends BlockStateHolder<B>> boolean setBlockAt(int x, int y, int z, B block) throws WorldEditException {
+        if (blockBag != null) {
+            return setBlock(BlockVector3.at(x, y, z), block);
+        }
+        return super.setBlockAt(x, y, z, block);
+    }
 }
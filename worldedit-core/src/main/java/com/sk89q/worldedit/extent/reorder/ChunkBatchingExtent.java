@@ -24,15 +24,12 @@
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.function.operation.Operation;
 import com.sk89q.worldedit.function.operation.RunContext;
-import com.sk89q.worldedit.internal.util.RegionOptimizedVectorSorter;
 import com.sk89q.worldedit.math.BlockVector3;
-import com.sk89q.worldedit.util.collection.BlockMap;
+import com.sk89q.worldedit.util.collection.BlockBatch;
 import com.sk89q.worldedit.world.block.BaseBlock;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import java.util.Comparator;
 
 /**
  * A special extent that batches changes into Minecraft chunks. This helps
@@ -42,7 +39,17 @@
  */
 public class ChunkBatchingExtent extends AbstractBufferingExtent {
 
-    private final BlockMap<BaseBlock> blockMap = BlockMap.createForBaseBlock();
+    /**
+     * Orders sections by region file, then chunk, then Y value (max -> min).
+     */
+    private static final Comparator<BlockBatch.Section> REGION_OPTIMIZED_ORDER =
+        Comparator.<BlockBatch.Section>comparingInt(section -> section.getX() >> 5)
+            .thenComparingInt(section -> section.getZ() >> 5)
+            .thenComparingInt(BlockBatch.Section::getX)
+            .thenComparingInt(BlockBatch.Section::getZ)
+            .thenComparing(Comparator.comparingInt(BlockBatch.Section::getY).reversed());
+
+    private final BlockBatch buffer = new BlockBatch();
     private boolean enabled;
 
     public ChunkBatchingExtent(Extent extent) {
@@ -60,24 +67,48 @@ public boolean isEnabled() {
 
     public void setEnabled(boolean enabled) {
         this.enabled = enabled;
+        invalidatePassThrough();
     }
 
     public boolean commitRequired() {
         return enabled;
     }
 
+    @Override
+    protected boolean isPassThrough() {
+        return !enabled && buffer.isEmpty();
+    }
+
+    @Override
+    protected <B extends BlockStateHolder<B>> boolean setBlockAt(int x, int y, int z, B block) throws WorldEditException {
+        if (!enabled) {
+            return setDelegateBlock(x, y, z, block);
+        }
+        buffer.add(x, y, z, block);
+        return true;
+    }
+
     @Override
     public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B block) throws WorldEditException {
         if (!enabled) {
             return setDelegateBlock(location, block);
         }
-        blockMap.put(location, block.toBaseBlock());
+        buffer.add(location, block);
         return true;
     }
 
+    @Override
+    protected int setBlockBatch(BlockBatch batch) throws WorldEditException {
+        if (!enabled) {
+            return setDelegateBlocks(batch);
+        }
+        buffer.addAll(batch);
+        return batch.size();
+    }
+
     @Override
     protected BaseBlock getBufferedFullBlock(BlockVector3 position) {
-        return blockMap.get(position);
+        return buffer.get(position);
     }
 
     @Override
@@ -87,22 +118,12 @@ protected Operation commitBefore() {
         }
         return new Operation() {
 
-            // we get modified between create/resume -- only create this on resume to prevent CME
-            private Iterator<BlockVector3> iterator;
-
             @Override
             public Operation resume(RunContext run) throws WorldEditException {
-                if (iterator == null) {
-                    List<BlockVector3> blockVectors = new ArrayList<>(blockMap.keySet());
-                    RegionOptimizedVectorSorter.sort(blockVectors);
-                    iterator = blockVectors.iterator();
-                }
-                while (iterator.hasNext()) {
-                    BlockVector3 position = iterator.next();
-                    BaseBlock block = blockMap.get(position);
-                    getExtent().setBlock(position, block);
-                }
-                blockMap.clear();
+                // we get modified between create/resume -- only sort on resume
+                buffer.sortSections(REGION_OPTIMIZED_ORDER);
+                getExtent().setBlocks(buffer);
+                buffer.clear();
                 return null;
             }
 
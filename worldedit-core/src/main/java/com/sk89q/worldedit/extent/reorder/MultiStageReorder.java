@@ -25,9 +25,9 @@
 import com.sk89q.worldedit.function.operation.Operation;
 import com.sk89q.worldedit.function.operation.OperationQueue;
 import com.sk89q.worldedit.function.operation.RunContext;
-import com.sk89q.worldedit.function.operation.SetBlockMap;
+import com.sk89q.worldedit.function.operation.SetBlockBatch;
 import com.sk89q.worldedit.math.BlockVector3;
-import com.sk89q.worldedit.util.collection.BlockMap;
+import com.sk89q.worldedit.util.collection.BlockBatch;
 import com.sk89q.worldedit.world.block.BaseBlock;
 import com.sk89q.worldedit.world.block.BlockCategories;
 import com.sk89q.worldedit.world.block.BlockState;
@@ -144,7 +144,7 @@ public class MultiStageReorder extends AbstractBufferingExtent implements Reorde
         priorityMap.put(BlockTypes.MOVING_PISTON, PlacementPriority.FINAL);
     }
 
-    private final Map<PlacementPriority, BlockMap<BaseBlock>> stages = new HashMap<>();
+    private final Map<PlacementPriority, BlockBatch> stages = new HashMap<>();
 
     private boolean enabled;
 
@@ -178,7 +178,7 @@ public MultiStageReorder(Extent extent, boolean enabled) {
         this.enabled = enabled;
 
         for (PlacementPriority priority : PlacementPriority.values()) {
-            stages.put(priority, BlockMap.createForBaseBlock());
+            stages.put(priority, new BlockBatch());
         }
     }
 
@@ -198,12 +198,26 @@ public boolean isEnabled() {
      */
     public void setEnabled(boolean enabled) {
         this.enabled = enabled;
+        invalidatePassThrough();
     }
 
     public boolean commitRequired() {
         return enabled;
     }
 
+    @Override
+    protected boolean isPassThrough() {
+        if (enabled) {
+            return false;
+        }
+        for (BlockBatch blocks : stages.values()) {
+            if (!blocks.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Gets the stage priority of the block.
      *
@@ -214,6 +228,14 @@ private <B extends BlockStateHolder<B>> PlacementPriority getPlacementPriority(B
         return priorityMap.getOrDefault(block.getBlockType(), PlacementPriority.FIRST);
     }
 
+    @Override
+    protected <B extends BlockStateHolder<B>> boolean setBlockAt(int x, int y, int z, B block) throws WorldEditException {
+        if (!enabled) {
+            return setDelegateBlock(x, y, z, block);
+        }
+        return setBlock(BlockVector3.at(x, y, z), block);
+    }
+
     @Override
     public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B block) throws WorldEditException {
         if (!enabled) {
@@ -229,13 +251,13 @@ public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B
 
             switch (srcPriority) {
                 case FINAL:
-                    stages.get(PlacementPriority.CLEAR_FINAL).put(location, replacement);
+                    stages.get(PlacementPriority.CLEAR_FINAL).add(location, replacement);
                     break;
                 case LATE:
-                    stages.get(PlacementPriority.CLEAR_LATE).put(location, replacement);
+                    stages.get(PlacementPriority.CLEAR_LATE).add(location, replacement);
                     break;
                 case LAST:
-                    stages.get(PlacementPriority.CLEAR_LAST).put(location, replacement);
+                    stages.get(PlacementPriority.CLEAR_LAST).add(location, replacement);
                     break;
                 default:
                     break;
@@ -246,13 +268,22 @@ public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B
             }
         }
 
-        stages.get(priority).put(location, block.toBaseBlock());
+        stages.get(priority).add(location, block);
         return !existing.equalsFuzzy(block);
     }
 
+    @Override
+    protected int setBlockBatch(BlockBatch batch) throws WorldEditException {
+        if (!enabled) {
+            return setDelegateBlocks(batch);
+        }
+        // Every block needs to be sorted into its stage
+        return setEachBlock(batch);
+    }
+
     @Override
     protected BaseBlock getBufferedFullBlock(BlockVector3 position) {
-        for (BlockMap<BaseBlock> blocks : stages.values()) {
+        for (BlockBatch blocks : stages.values()) {
             BaseBlock baseBlock = blocks.get(position);
             if (baseBlock != null) {
                 return baseBlock;
@@ -268,8 +299,8 @@ public Operation commitBefore() {
         }
         List<Operation> operations = new ArrayList<>();
         for (PlacementPriority priority : PlacementPriority.values()) {
-            BlockMap<BaseBlock> blocks = stages.get(priority);
-            operations.add(new SetBlockMap(getExtent(), blocks) {
+            BlockBatch blocks = stages.get(priority);
+            operations.add(new SetBlockBatch(getExtent(), blocks) {
                 @Override
                 public Operation resume(RunContext run) throws WorldEditException {
                     Operation operation = super.resume(run);
@@ -24,6 +24,7 @@
 import com.sk89q.worldedit.extent.AbstractDelegateExtent;
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.collection.BlockBatch;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -65,6 +66,7 @@ public int getLimit() {
     public void setLimit(int limit) {
         checkArgument(limit >= -1, "limit >= -1 required");
         this.limit = limit;
+        invalidatePassThrough();
     }
 
     /**
@@ -76,6 +78,11 @@ public int getCount() {
         return count;
     }
 
+    @Override
+    protected boolean isPassThrough() {
+        return limit < 0;
+    }
+
     @Override
     public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B block) throws WorldEditException {
         if (limit >= 0) {
@@ -86,4 +93,27 @@ public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B
         }
         return super.setBlock(location, block);
     }
+
+    @Override
+    protected <B extends BlockStateHolder<B>> boolean setBlockAt(int x, int y, int z, B block) throws WorldEditException {
+        if (limit >= 0) {
+            if (count >= limit) {
+                throw new MaxChangedBlocksException(limit);
+            }
+            count++;
+        }
+        return super.setBlockAt(x, y, z, block);
+    }
+
+    @Override
+    protected int setBlockBatch(BlockBatch batch) throws WorldEditException {
+        if (limit >= 0) {
+            if ((long) count + batch.size() > limit) {
+                // Set what fits, then fail on the same block as setBlock would
+                return setEachBlock(batch);
+            }
+            count += batch.size();
+        }
+        return super.setBlockBatch(batch);
+    }
 }
@@ -23,6 +23,7 @@
 import com.sk89q.worldedit.extent.AbstractDelegateExtent;
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.collection.BlockBatch;
 import com.sk89q.worldedit.world.World;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 import com.sk89q.worldedit.world.block.BlockType;
@@ -64,4 +65,26 @@ public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B
         return super.setBlock(location, block);
     }
 
+    @Override
+    protected <B extends BlockStateHolder<B>> boolean setBlockAt(int x, int y, int z, B block) throws WorldEditException {
+        if (y < world.getMinY() || y > world.getMaxY()) {
+            return false;
+        }
+
+        // No invalid blocks
+        if (block.getBlockType() == null) {
+            return false;
+        }
+
+        return super.setBlockAt(x, y, z, block);
+    }
+
+    @Override
+    protected int setBlockBatch(BlockBatch batch) throws WorldEditException {
+        int minY = world.getMinY();
+        int maxY = world.getMaxY();
+        return super.setBlockBatch(batch.filter((x, y, z, block) ->
+            y >= minY && y <= maxY && block.getBlockType() != null));
+    }
+
 }
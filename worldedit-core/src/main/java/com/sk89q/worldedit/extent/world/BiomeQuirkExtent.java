@@ -47,4 +47,14 @@ public boolean setBiome(BlockVector3 position, BiomeType biome) {
         }
         return super.setBiome(position, biome) || success;
     }
+
+    @Override
+    protected boolean setBiomeAt(int x, int y, int z, BiomeType biome) {
+        boolean success = false;
+        if (!fullySupports3DBiomes()) {
+            // Also place at Y = 0 for proper handling
+            success = super.setBiomeAt(x, 0, z, biome);
+        }
+        return super.setBiomeAt(x, y, z, biome) || success;
+    }
 }
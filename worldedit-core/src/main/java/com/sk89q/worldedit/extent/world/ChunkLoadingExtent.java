@@ -23,6 +23,7 @@
 import com.sk89q.worldedit.extent.AbstractDelegateExtent;
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.collection.BlockBatch;
 import com.sk89q.worldedit.world.World;
 import com.sk89q.worldedit.world.biome.BiomeType;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
@@ -61,6 +62,11 @@ public ChunkLoadingExtent(Extent extent, World world) {
         this(extent, world, true);
     }
 
+    @Override
+    protected boolean isPassThrough() {
+        return !enabled;
+    }
+
     @Override
     public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B block) throws WorldEditException {
         if (enabled) {
@@ -69,6 +75,24 @@ public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B
         return super.setBlock(location, block);
     }
 
+    @Override
+    protected <B extends BlockStateHolder<B>> boolean setBlockAt(int x, int y, int z, B block) throws WorldEditException {
+        if (enabled) {
+            return setBlock(BlockVector3.at(x, y, z), block);
+        }
+        return super.setBlockAt(x, y, z, block);
+    }
+
+    @Override
+    protected int setBlockBatch(BlockBatch batch) throws WorldEditException {
+        if (enabled) {
+            for (BlockBatch.Section section : batch.getSections()) {
+                world.checkLoadedChunk(BlockVector3.at(section.getX() << 4, section.getY() << 4, section.getZ() << 4));
+            }
+        }
+        return super.setBlockBatch(batch);
+    }
+
     @Override
     public boolean setBiome(BlockVector3 position, BiomeType biome) {
         if (enabled) {
@@ -76,4 +100,12 @@ public boolean setBiome(BlockVector3 position, BiomeType biome) {
         }
         return super.setBiome(position, biome);
     }
+
+    @Override
+    protected boolean setBiomeAt(int x, int y, int z, BiomeType biome) {
+        if (enabled) {
+            return setBiome(BlockVector3.at(x, y, z), biome);
+        }
+        return super.setBiomeAt(x, y, z, biome);
+    }
 }
@@ -27,6 +27,7 @@
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.util.SideEffect;
 import com.sk89q.worldedit.util.SideEffectSet;
+import com.sk89q.worldedit.util.collection.BlockBatch;
 import com.sk89q.worldedit.util.collection.BlockMap;
 import com.sk89q.worldedit.world.World;
 import com.sk89q.worldedit.world.block.BlockState;
@@ -89,6 +90,28 @@ public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B
         return world.setBlock(location, block, postEditSimulation ? SideEffectSet.none() : sideEffectSet);
     }
 
+    @Override
+    protected int setBlockBatch(BlockBatch batch) throws WorldEditException {
+        boolean delayedLighting = sideEffectSet.getState(SideEffect.LIGHTING) == SideEffect.State.DELAYED;
+        SideEffectSet appliedSideEffects = postEditSimulation ? SideEffectSet.none() : sideEffectSet;
+        int[] changed = new int[1];
+        for (BlockBatch.Section section : batch.getSections()) {
+            if (delayedLighting) {
+                dirtyChunks.add(BlockVector2.at(section.getX(), section.getZ()));
+            }
+            section.forEach((x, y, z, block) -> {
+                BlockVector3 location = BlockVector3.at(x, y, z);
+                if (postEditSimulation) {
+                    positions.put(location, world.getBlock(location));
+                }
+                if (world.setBlock(location, block, appliedSideEffects)) {
+                    changed[0]++;
+                }
+            });
+        }
+        return changed[0];
+    }
+
     public boolean commitRequired() {
         return postEditSimulation || !dirtyChunks.isEmpty();
     }
@@ -77,6 +77,7 @@ public boolean hasToolUse() {
      */
     public void setToolUse(boolean toolUse) {
         this.toolUse = toolUse;
+        invalidatePassThrough();
     }
 
     public boolean hasStripNbt() {
@@ -85,6 +86,12 @@ public boolean hasStripNbt() {
 
     public void setStripNbt(boolean stripNbt) {
         this.stripNbt = stripNbt;
+        invalidatePassThrough();
+    }
+
+    @Override
+    protected boolean isPassThrough() {
+        return !toolUse && !stripNbt;
     }
 
     @Override
@@ -102,4 +109,12 @@ public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 location, B
         }
     }
 
+    @Override
+    protected <B extends BlockStateHolder<B>> boolean setBlockAt(int x, int y, int z, B block) throws WorldEditException {
+        if (toolUse || stripNbt) {
+            return setBlock(BlockVector3.at(x, y, z), block);
+        }
+        return super.setBlockAt(x, y, z, block);
+    }
+
 }
@@ -28,6 +28,7 @@
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.util.Location;
+import com.sk89q.worldedit.util.collection.BlockBatch;
 import com.sk89q.worldedit.world.biome.BiomeType;
 import com.sk89q.worldedit.world.block.BaseBlock;
 import com.sk89q.worldedit.world.block.BlockState;
@@ -65,6 +66,12 @@ public boolean isEnabled() {
 
     public void setEnabled(boolean enabled) {
         this.enabled = enabled;
+        invalidatePassThrough();
+    }
+
+    @Override
+    protected boolean isPassThrough() {
+        return !enabled;
     }
 
     private void onOperation() {
@@ -83,6 +90,27 @@ public <T extends BlockStateHolder<T>> boolean setBlock(BlockVector3 location, T
         return super.setBlock(location, block);
     }
 
+    @Override
+    protected <T extends BlockStateHolder<T>> boolean setBlockAt(int x, int y, int z, T block) throws WorldEditException {
+        onOperation();
+        return super.setBlockAt(x, y, z, block);
+    }
+
+    @Override
+    protected int setBlockBatch(BlockBatch batch) throws WorldEditException {
+        if (!enabled) {
+            return super.setBlockBatch(batch);
+        }
+        // Large batches are forwarded in parts, so the watchdog is still
+        // ticked while they are being set
+        int changed = 0;
+        for (BlockBatch part : batch.partition(OPS_PER_TICK)) {
+            changed += super.setBlockBatch(part);
+            watchdog.tick();
+        }
+        return changed;
+    }
+
     @Nullable
     @Override
     public Entity createEntity(Location location, BaseEntity entity) {
@@ -96,24 +124,48 @@ public boolean setBiome(BlockVector3 position, BiomeType biome) {
         return super.setBiome(position, biome);
     }
 
+    @Override
+    protected boolean setBiomeAt(int x, int y, int z, BiomeType biome) {
+        onOperation();
+        return super.setBiomeAt(x, y, z, biome);
+    }
+
     @Override
     public BlockState getBlock(BlockVector3 position) {
         onOperation();
         return super.getBlock(position);
     }
 
+    @Override
+    protected BlockState getBlockAt(int x, int y, int z) {
+        onOperation();
+        return super.getBlockAt(x, y, z);
+    }
+
     @Override
     public BaseBlock getFullBlock(BlockVector3 position) {
         onOperation();
         return super.getFullBlock(position);
     }
 
+    @Override
+    protected BaseBlock getFullBlockAt(int x, int y, int z) {
+        onOperation();
+        return super.getFullBlockAt(x, y, z);
+    }
+
     @Override
     public BiomeType getBiome(BlockVector3 position) {
         onOperation();
         return super.getBiome(position);
     }
 
+    @Override
+    protected BiomeType getBiomeAt(int x, int y, int z) {
+        onOperation();
+        return super.getBiomeAt(x, y, z);
+    }
+
     @Override
     public List<? extends Entity> getEntities() {
         onOperation();
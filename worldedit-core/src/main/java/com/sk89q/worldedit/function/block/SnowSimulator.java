@@ -94,8 +94,10 @@ public boolean apply(BlockVector3 position, int depth) throws WorldEditException
             return false;
         }
 
-        BlockVector3 abovePosition = position.add(0, 1, 0);
-        BlockState above = this.extent.getBlock(abovePosition);
+        int x = position.getBlockX();
+        int y = position.getBlockY() + 1;
+        int z = position.getBlockZ();
+        BlockState above = this.extent.getBlock(x, y, z);
 
         // Can only replace air (or snow in stack mode)
         if (!above.getBlockType().getMaterial().isAir() && (!stack || above.getBlockType() != BlockTypes.SNOW)) {
@@ -106,17 +108,17 @@ public boolean apply(BlockVector3 position, int depth) throws WorldEditException
             int currentHeight = above.getState(snowLayersProperty);
             // We've hit the highest layer (If it doesn't contain current + 2 it means it's 1 away from full)
             if (!snowLayersProperty.getValues().contains(currentHeight + 2)) {
-                if (this.extent.setBlock(abovePosition, snowBlock)) {
+                if (this.extent.setBlock(x, y, z, snowBlock)) {
                     this.affected++;
                 }
             } else {
-                if (this.extent.setBlock(abovePosition, above.with(snowLayersProperty, currentHeight + 1))) {
+                if (this.extent.setBlock(x, y, z, above.with(snowLayersProperty, currentHeight + 1))) {
                     this.affected++;
                 }
             }
             return false;
         }
-        if (this.extent.setBlock(abovePosition, snow)) {
+        if (this.extent.setBlock(x, y, z, snow)) {
             this.affected++;
         }
         return false;
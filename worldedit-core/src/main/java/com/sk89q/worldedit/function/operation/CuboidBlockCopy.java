@@ -0,0 +1,129 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.operation;
+
+import com.google.common.collect.ImmutableList;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.util.formatting.text.Component;
+import com.sk89q.worldedit.util.formatting.text.TextComponent;
+import com.sk89q.worldedit.util.formatting.text.TranslatableComponent;
+import com.sk89q.worldedit.util.formatting.text.format.TextColor;
+import com.sk89q.worldedit.world.block.BaseBlock;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Copies the blocks of a cuboid to another position, one chunk section at
+ * a time, without transforming them.
+ *
+ * <p>This is the path {@link ForwardExtentCopy} takes for plain copies. It
+ * skips the per-block transform and mask, and reading a section at a time
+ * keeps consecutive reads from the source within the same chunk.</p>
+ */
+class CuboidBlockCopy implements Operation {
+
+    private final Extent source;
+    private final CuboidRegion region;
+    private final Extent destination;
+    private final BlockVector3 offset;
+    private int affected;
+
+    /**
+     * Create a new copy.
+     *
+     * @param source the source extent
+     * @param region the region to copy
+     * @param destination the destination extent
+     * @param offset the offset from a source position to its destination
+     */
+    CuboidBlockCopy(Extent source, CuboidRegion region, Extent destination, BlockVector3 offset) {
+        checkNotNull(source);
+        checkNotNull(region);
+        checkNotNull(destination);
+        checkNotNull(offset);
+        this.source = source;
+        this.region = region;
+        this.destination = destination;
+        this.offset = offset;
+    }
+
+    /**
+     * Get the number of affected blocks.
+     *
+     * @return the number of affected
+     */
+    int getAffected() {
+        return affected;
+    }
+
+    @Override
+    public Operation resume(RunContext run) throws WorldEditException {
+        // like RegionVisitor, this copies the whole region at once, so it
+        // doesn't check the run context and can't be cancelled part way
+        BlockVector3 min = region.getMinimumPoint();
+        BlockVector3 max = region.getMaximumPoint();
+        for (int cx = min.getX() >> 4; cx <= max.getX() >> 4; cx++) {
+            int minX = Math.max(min.getX(), cx << 4);
+            int maxX = Math.min(max.getX(), (cx << 4) + 15);
+            for (int cz = min.getZ() >> 4; cz <= max.getZ() >> 4; cz++) {
+                int minZ = Math.max(min.getZ(), cz << 4);
+                int maxZ = Math.min(max.getZ(), (cz << 4) + 15);
+                for (int cy = min.getY() >> 4; cy <= max.getY() >> 4; cy++) {
+                    int minY = Math.max(min.getY(), cy << 4);
+                    int maxY = Math.min(max.getY(), (cy << 4) + 15);
+                    copySection(minX, minY, minZ, maxX, maxY, maxZ);
+                }
+            }
+        }
+        return null;
+    }
+
+    private void copySection(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) throws WorldEditException {
+        int offsetX = offset.getX();
+        int offsetY = offset.getY();
+        int offsetZ = offset.getZ();
+        for (int y = minY; y <= maxY; y++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int x = minX; x <= maxX; x++) {
+                    BaseBlock block = source.getFullBlock(x, y, z);
+                    if (destination.setBlock(x + offsetX, y + offsetY, z + offsetZ, block)) {
+                        affected++;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void cancel() {
+    }
+
+    @Override
+    public Iterable<Component> getStatusMessages() {
+        return ImmutableList.of(TranslatableComponent.of(
+                "worldedit.operation.affected.block",
+                TextComponent.of(getAffected())
+        ).color(TextColor.LIGHT_PURPLE));
+    }
+
+}
@@ -38,6 +38,7 @@
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.math.transform.Identity;
 import com.sk89q.worldedit.math.transform.Transform;
+import com.sk89q.worldedit.regions.CuboidRegion;
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.util.formatting.text.Component;
 import com.sk89q.worldedit.util.formatting.text.TextComponent;
@@ -73,6 +74,7 @@ public class ForwardExtentCopy implements Operation {
     private Transform currentTransform = null;
 
     private RegionVisitor lastVisitor;
+    private CuboidBlockCopy lastCuboidCopy;
     private RegionVisitor lastBiomeVisitor;
     private EntityVisitor lastEntityVisitor;
 
@@ -268,6 +270,10 @@ public Operation resume(RunContext run) throws WorldEditException {
             affectedBlocks += lastVisitor.getAffected();
             lastVisitor = null;
         }
+        if (lastCuboidCopy != null) {
+            affectedBlocks += lastCuboidCopy.getAffected();
+            lastCuboidCopy = null;
+        }
         if (lastBiomeVisitor != null) {
             affectedBiomeCols += lastBiomeVisitor.getAffected();
             lastBiomeVisitor = null;
@@ -286,18 +292,28 @@ public Operation resume(RunContext run) throws WorldEditException {
                 currentTransform = currentTransform.combine(transform);
             }
 
-            ExtentBlockCopy blockCopy = new ExtentBlockCopy(source, from, destination, to, currentTransform);
-            RegionMaskingFilter filteredFunction = new RegionMaskingFilter(sourceMask,
-                    sourceFunction == null ? blockCopy : new CombinedRegionFunction(blockCopy, sourceFunction));
-            RegionVisitor blockVisitor = new RegionVisitor(region, filteredFunction);
+            Operation blockOperation;
+            if (canCopyDirectly()) {
+                CuboidBlockCopy cuboidCopy = new CuboidBlockCopy(source, (CuboidRegion) region, destination, to.subtract(from));
+                lastCuboidCopy = cuboidCopy;
+                // every block is read before the source function changes any of them
+                blockOperation = sourceFunction == null ? cuboidCopy
+                        : new OperationQueue(cuboidCopy, new RegionVisitor(region, sourceFunction));
+            } else {
+                ExtentBlockCopy blockCopy = new ExtentBlockCopy(source, from, destination, to, currentTransform);
+                RegionMaskingFilter filteredFunction = new RegionMaskingFilter(sourceMask,
+                        sourceFunction == null ? blockCopy : new CombinedRegionFunction(blockCopy, sourceFunction));
+                RegionVisitor blockVisitor = new RegionVisitor(region, filteredFunction);
 
-            lastVisitor = blockVisitor;
+                lastVisitor = blockVisitor;
+                blockOperation = blockVisitor;
+            }
 
             if (!copyingBiomes && !copyingEntities) {
-                return new DelegateOperation(this, blockVisitor);
+                return new DelegateOperation(this, blockOperation);
             }
 
-            List<Operation> ops = Lists.newArrayList(blockVisitor);
+            List<Operation> ops = Lists.newArrayList(blockOperation);
 
             if (copyingBiomes) {
                 ExtentBiomeCopy biomeCopy = new ExtentBiomeCopy(source, from,
@@ -328,6 +344,18 @@ public Operation resume(RunContext run) throws WorldEditException {
         }
     }
 
+    /**
+     * Whether blocks can be copied as they are, a chunk section at a time,
+     * rather than going through the transform and mask for each block.
+     */
+    private boolean canCopyDirectly() {
+        // copying within one extent relies on the visiting order
+        return currentTransform.isIdentity()
+                && sourceMask == Masks.alwaysTrue()
+                && region instanceof CuboidRegion
+                && source != destination;
+    }
+
     @Override
     public void cancel() {
     }
@@ -21,6 +21,7 @@
 
 import com.sk89q.worldedit.MaxChangedBlocksException;
 import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.util.metrics.PerformanceMetrics;
 
 /**
  * Operation helper methods.
@@ -38,7 +39,7 @@ private Operations() {
      */
     public static void complete(Operation op) throws WorldEditException {
         while (op != null) {
-            op = op.resume(new RunContext());
+            op = resume(op);
         }
     }
 
@@ -52,7 +53,7 @@ public static void complete(Operation op) throws WorldEditException {
     public static void completeLegacy(Operation op) throws MaxChangedBlocksException {
         while (op != null) {
             try {
-                op = op.resume(new RunContext());
+                op = resume(op);
             } catch (MaxChangedBlocksException e) {
                 throw e;
             } catch (WorldEditException e) {
@@ -71,11 +72,28 @@ public static void completeLegacy(Operation op) throws MaxChangedBlocksException
     public static void completeBlindly(Operation op) {
         while (op != null) {
             try {
-                op = op.resume(new RunContext());
+                op = resume(op);
             } catch (WorldEditException e) {
                 throw new RuntimeException(e);
             }
         }
     }
 
+    /**
+     * Resume an operation once, timing the call if performance metrics are enabled.
+     */
+    private static Operation resume(Operation op) throws WorldEditException {
+        PerformanceMetrics metrics = PerformanceMetrics.getInstance();
+        if (!metrics.isEnabled()) {
+            return op.resume(new RunContext());
+        }
+        long start = System.nanoTime();
+        long token = metrics.enterOperation();
+        try {
+            return op.resume(new RunContext());
+        } finally {
+            metrics.exitOperation(op.getClass(), start, token);
+        }
+    }
+
 }
@@ -0,0 +1,52 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.operation;
+
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.util.collection.BlockBatch;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Sets the blocks of a {@link BlockBatch} in one call to
+ * {@link Extent#setBlocks(BlockBatch)}.
+ */
+public class SetBlockBatch implements Operation {
+
+    private final Extent extent;
+    private final BlockBatch blocks;
+
+    public SetBlockBatch(Extent extent, BlockBatch blocks) {
+        this.extent = checkNotNull(extent);
+        this.blocks = checkNotNull(blocks);
+    }
+
+    @Override
+    public Operation resume(RunContext run) throws WorldEditException {
+        extent.setBlocks(blocks);
+        return null;
+    }
+
+    @Override
+    public void cancel() {
+    }
+
+}
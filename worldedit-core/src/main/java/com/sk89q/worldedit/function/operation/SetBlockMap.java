@@ -22,6 +22,7 @@
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.collection.BlockBatch;
 import com.sk89q.worldedit.util.collection.BlockMap;
 import com.sk89q.worldedit.world.block.BaseBlock;
 
@@ -41,9 +42,11 @@ public SetBlockMap(Extent extent, BlockMap<BaseBlock> blocks) {
 
     @Override
     public Operation resume(RunContext run) throws WorldEditException {
+        BlockBatch batch = new BlockBatch();
         for (Map.Entry<BlockVector3, BaseBlock> entry : blocks.entrySet()) {
-            extent.setBlock(entry.getKey(), entry.getValue());
+            batch.add(entry.getKey(), entry.getValue());
         }
+        extent.setBlocks(batch);
         return null;
     }
 
@@ -33,6 +33,9 @@
  */
 public class ArrayListHistory implements ChangeSet {
 
+    // a list slot, the change and its position; block states are shared
+    private static final long BYTES_PER_CHANGE = 80;
+
     private final List<Change> changes = new ArrayList<>();
 
     private boolean recordChanges = true;
@@ -70,4 +73,9 @@ public int size() {
         return changes.size();
     }
 
+    @Override
+    public long getMemoryUsage() {
+        return changes.size() * BYTES_PER_CHANGE;
+    }
+
 }
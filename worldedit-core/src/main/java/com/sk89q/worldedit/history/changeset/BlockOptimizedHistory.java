@@ -41,6 +41,9 @@
  */
 public class BlockOptimizedHistory extends ArrayListHistory {
 
+    // a packed position in the order list plus the block's entry in its batch section
+    private static final long BYTES_PER_BLOCK = 16;
+
     private static Change createChange(LocatedBlock block) {
         return new BlockChange(block.getLocation(), block.getBlock(), block.getBlock());
     }
@@ -82,4 +85,9 @@ public Iterator<Change> backwardIterator() {
     public int size() {
         return super.size() + previous.size();
     }
+
+    @Override
+    public long getMemoryUsage() {
+        return super.getMemoryUsage() + (previous.size() + (long) current.size()) * BYTES_PER_BLOCK;
+    }
 }
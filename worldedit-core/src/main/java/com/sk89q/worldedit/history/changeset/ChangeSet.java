@@ -77,4 +77,16 @@ public interface ChangeSet {
      */
     int size();
 
+    /**
+     * Get an estimate of the memory retained by this change set, in bytes.
+     *
+     * <p>The estimate is used to keep history within a memory budget, so it
+     * should be cheap to compute rather than exact.</p>
+     *
+     * @return the estimated retained size in bytes
+     */
+    default long getMemoryUsage() {
+        return size() * 64L;
+    }
+
 }
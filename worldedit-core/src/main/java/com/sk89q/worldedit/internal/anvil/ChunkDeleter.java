@@ -19,6 +19,7 @@
 
 package com.sk89q.worldedit.internal.anvil;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonIOException;
@@ -38,28 +39,32 @@
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.function.BiPredicate;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntPredicate;
 
 public final class ChunkDeleter {
 
     public static final String DELCHUNKS_FILE_NAME = "delete_chunks.json";
     private static final Logger logger = LoggerFactory.getLogger(ChunkDeleter.class);
 
-    private static final Comparator<BlockVector2> chunkSorter = Comparator.comparing(
-        pos -> (pos.getBlockX() & 31) + (pos.getBlockZ() & 31) * 32
-    );
+    private static final int MAX_THREADS = 8;
 
     private static final Gson chunkDeleterGson = new GsonBuilder()
-            .registerTypeAdapter(BlockVector2.class, new BlockVector2Adapter())
+            .registerTypeAdapter(BlockVector2.class, new BlockVector2Adapter().nullSafe())
             .setPrettyPrinting()
             .create();
 
@@ -119,101 +124,146 @@ private static ChunkDeleter createFromFile(Path chunkFile) throws IOException {
     }
 
     private final ChunkDeletionInfo chunkDeletionInfo;
-    private final Set<Path> backedUpRegions = new HashSet<>();
-    private boolean shouldPreload;
-    private int debugRate = 100;
-    private int totalChunksDeleted = 0;
+    private final Set<Path> backedUpRegions = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger totalChunksDeleted = new AtomicInteger();
+    private final AtomicLong totalBytesReclaimed = new AtomicLong();
     private int deletionsRequested = 0;
 
     private boolean runDeleter() {
-        return chunkDeletionInfo.batches.stream().allMatch(this::runBatch);
+        int threads = Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+            new ThreadFactoryBuilder().setNameFormat("WorldEdit Chunk Deleter #%d").setDaemon(true).build());
+        try {
+            for (ChunkDeletionInfo.ChunkBatch batch : chunkDeletionInfo.batches) {
+                if (!runBatch(batch, executor)) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            executor.shutdownNow();
+        }
     }
 
-    private boolean runBatch(ChunkDeletionInfo.ChunkBatch chunkBatch) {
+    private boolean runBatch(ChunkDeletionInfo.ChunkBatch chunkBatch, ExecutorService executor) {
         int chunkCount = chunkBatch.getChunkCount();
         logger.debug("Processing deletion batch with {} chunks.", chunkCount);
-        final Map<Path, Stream<BlockVector2>> regionToChunkList = groupChunks(chunkBatch);
-        BiPredicate<RegionAccess, BlockVector2> predicate = createPredicates(chunkBatch.deletionPredicates);
-        shouldPreload = chunkBatch.chunks == null;
+        final Map<Path, BitSet> regionToChunks = groupChunks(chunkBatch);
+        IntPredicate predicate = createPredicates(chunkBatch.deletionPredicates);
         deletionsRequested += chunkCount;
-        debugRate = chunkCount / 10;
 
-        return regionToChunkList.entrySet().stream().allMatch(entry -> {
-            Path regionPath = entry.getKey();
-            if (!Files.exists(regionPath)) {
-                return true;
-            }
-            if (chunkBatch.backup && !backedUpRegions.contains(regionPath)) {
-                try {
-                    backupRegion(regionPath);
-                } catch (IOException e) {
-                    logger.warn("Error backing up region file: " + regionPath + ". Aborting the process.", e);
-                    return false;
+        long start = System.nanoTime();
+        int deletedBefore = totalChunksDeleted.get();
+        int regionCount = regionToChunks.size();
+        int progressRate = Math.max(1, regionCount / 10);
+        AtomicInteger regionsDone = new AtomicInteger();
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Future<?>> futures = new ArrayList<>(regionCount);
+        for (Map.Entry<Path, BitSet> entry : regionToChunks.entrySet()) {
+            futures.add(executor.submit(() -> {
+                // stop early once a region failed, like the serial process did
+                if (failed.get() || !processRegion(chunkBatch, entry.getKey(), entry.getValue(), predicate)) {
+                    failed.set(true);
+                    return;
                 }
+                int done = regionsDone.incrementAndGet();
+                if (done % progressRate == 0) {
+                    logger.debug("Processed {} of {} region files, deleted {} chunks so far.",
+                        done, regionCount, totalChunksDeleted.get());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Interrupted while deleting chunks. Aborting the process.");
+                return false;
+            } catch (ExecutionException e) {
+                logger.warn("Error deleting chunks. Aborting the process.", e.getCause());
+                failed.set(true);
             }
-            return deleteChunks(regionPath, entry.getValue(), predicate);
-        });
+        }
+        if (failed.get()) {
+            return false;
+        }
+        long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        logger.info("Processed {} region files in {} ms ({} regions/s), deleted {} chunks, reclaimed {} KiB.",
+            regionCount, millis, regionCount * 1000L / millis,
+            totalChunksDeleted.get() - deletedBefore, totalBytesReclaimed.get() / 1024);
+        return true;
+    }
+
+    private boolean processRegion(ChunkDeletionInfo.ChunkBatch chunkBatch, Path regionPath, BitSet chunks,
+                                  IntPredicate predicate) {
+        if (!Files.exists(regionPath)) {
+            return true;
+        }
+        if (chunkBatch.backup && backedUpRegions.add(regionPath)) {
+            try {
+                backupRegion(regionPath);
+            } catch (IOException e) {
+                logger.warn("Error backing up region file: " + regionPath + ". Aborting the process.", e);
+                return false;
+            }
+        }
+        return deleteChunks(regionPath, chunks, predicate);
     }
 
-    private Map<Path, Stream<BlockVector2>> groupChunks(ChunkDeletionInfo.ChunkBatch chunkBatch) {
-        Path worldPath = Paths.get(chunkBatch.worldPath);
+    /**
+     * Group the chunks of a batch by region file. The chunks of each region
+     * are given as a set of indices into the region header.
+     */
+    private Map<Path, BitSet> groupChunks(ChunkDeletionInfo.ChunkBatch chunkBatch) {
+        Path regionFolder = Paths.get(chunkBatch.worldPath).resolve("region");
+        Map<Path, BitSet> groupedChunks = new HashMap<>();
         if (chunkBatch.chunks != null) {
-            return chunkBatch.chunks.stream()
-                .collect(Collectors.groupingBy(RegionFilePos::new))
-                .entrySet().stream().collect(Collectors.toMap(
-                    e -> worldPath.resolve("region").resolve(e.getKey().getFileName()),
-                    e -> e.getValue().stream().sorted(chunkSorter)));
+            for (BlockVector2 chunk : chunkBatch.chunks) {
+                Path regionPath = regionFolder.resolve(new RegionFilePos(chunk).getFileName());
+                groupedChunks.computeIfAbsent(regionPath, k -> new BitSet(RegionAccess.CHUNKS_PER_REGION))
+                    .set(RegionAccess.indexChunk(chunk));
+            }
         } else {
             final BlockVector2 minChunk = chunkBatch.minChunk;
             final BlockVector2 maxChunk = chunkBatch.maxChunk;
             final RegionFilePos minRegion = new RegionFilePos(minChunk);
             final RegionFilePos maxRegion = new RegionFilePos(maxChunk);
-            Map<Path, Stream<BlockVector2>> groupedChunks = new HashMap<>();
             for (int regX = minRegion.getX(); regX <= maxRegion.getX(); regX++) {
                 for (int regZ = minRegion.getZ(); regZ <= maxRegion.getZ(); regZ++) {
-                    final Path regionPath = worldPath.resolve("region").resolve(new RegionFilePos(regX, regZ).getFileName());
+                    final Path regionPath = regionFolder.resolve(new RegionFilePos(regX, regZ).getFileName());
                     if (!Files.exists(regionPath)) {
                         continue;
                     }
-                    int startX = regX << 5;
-                    int endX = (regX << 5) + 31;
-                    int startZ = regZ << 5;
-                    int endZ = (regZ << 5) + 31;
-
-                    int minX = Math.max(Math.min(startX, endX), minChunk.getBlockX());
-                    int minZ = Math.max(Math.min(startZ, endZ), minChunk.getBlockZ());
-                    int maxX = Math.min(Math.max(startX, endX), maxChunk.getBlockX());
-                    int maxZ = Math.min(Math.max(startZ, endZ), maxChunk.getBlockZ());
-                    Stream<BlockVector2> stream = Stream.iterate(BlockVector2.at(minX, minZ),
-                        bv2 -> {
-                            int nextX = bv2.getBlockX();
-                            int nextZ = bv2.getBlockZ();
-                            if (++nextX > maxX) {
-                                nextX = minX;
-                                if (++nextZ > maxZ) {
-                                    return null;
-                                }
-                            }
-                            return BlockVector2.at(nextX, nextZ);
-                        });
-                    groupedChunks.put(regionPath, stream);
+                    int minX = Math.max(regX << 5, minChunk.getBlockX());
+                    int minZ = Math.max(regZ << 5, minChunk.getBlockZ());
+                    int maxX = Math.min((regX << 5) + 31, maxChunk.getBlockX());
+                    int maxZ = Math.min((regZ << 5) + 31, maxChunk.getBlockZ());
+                    BitSet chunks = new BitSet(RegionAccess.CHUNKS_PER_REGION);
+                    for (int z = minZ; z <= maxZ; z++) {
+                        chunks.set(RegionAccess.indexChunk(minX, z), RegionAccess.indexChunk(maxX, z) + 1);
+                    }
+                    groupedChunks.put(regionPath, chunks);
                 }
             }
-            return groupedChunks;
         }
+        return groupedChunks;
     }
 
-    private BiPredicate<RegionAccess, BlockVector2> createPredicates(List<ChunkDeletionInfo.DeletionPredicate> deletionPredicates) {
+    private IntPredicate createPredicates(List<ChunkDeletionInfo.DeletionPredicate> deletionPredicates) {
         if (deletionPredicates == null) {
-            return (r, p) -> true;
+            return t -> true;
         }
         return deletionPredicates.stream()
                 .map(this::createPredicate)
-                .reduce(BiPredicate::and)
-                .orElse((r, p) -> true);
+                .reduce(IntPredicate::and)
+                .orElse(t -> true);
     }
 
-    private BiPredicate<RegionAccess, BlockVector2> createPredicate(ChunkDeletionInfo.DeletionPredicate deletionPredicate) {
+    /**
+     * Create a predicate over the modification time of a chunk.
+     */
+    private IntPredicate createPredicate(ChunkDeletionInfo.DeletionPredicate deletionPredicate) {
         if ("modification".equals(deletionPredicate.property)) {
             int time;
             try {
@@ -223,21 +273,9 @@ private BiPredicate<RegionAccess, BlockVector2> createPredicate(ChunkDeletionInf
             }
             switch (deletionPredicate.comparison) {
                 case "<":
-                    return (r, p) -> {
-                        try {
-                            return r.getModificationTime(p) < time;
-                        } catch (IOException e) {
-                            return false;
-                        }
-                    };
+                    return t -> t < time;
                 case ">":
-                    return (r, p) -> {
-                        try {
-                            return r.getModificationTime(p) > time;
-                        } catch (IOException e) {
-                            return false;
-                        }
-                    };
+                    return t -> t > time;
                 default:
                     throw new IllegalStateException("Unexpected comparison value: " + deletionPredicate.comparison);
             }
@@ -248,27 +286,28 @@ private BiPredicate<RegionAccess, BlockVector2> createPredicate(ChunkDeletionInf
     private void backupRegion(Path regionFile) throws IOException {
         Path backupFile = regionFile.resolveSibling(regionFile.getFileName() + ".bak");
         Files.copy(regionFile, backupFile, StandardCopyOption.REPLACE_EXISTING);
-        backedUpRegions.add(backupFile);
     }
 
-    private boolean deleteChunks(Path regionFile, Stream<BlockVector2> chunks,
-                                 BiPredicate<RegionAccess, BlockVector2> deletionPredicate) {
-        try (RegionAccess region = new RegionAccess(regionFile, shouldPreload)) {
-            for (Iterator<BlockVector2> iterator = chunks.iterator(); iterator.hasNext();) {
-                BlockVector2 chunk = iterator.next();
-                if (chunk == null) {
-                    break;
+    private boolean deleteChunks(Path regionFile, BitSet chunks, IntPredicate deletionPredicate) {
+        try (RegionAccess region = new RegionAccess(regionFile)) {
+            int[] timestamps = region.getModificationTimes();
+            int deleted = 0;
+            for (int index = chunks.nextSetBit(0); index >= 0; index = chunks.nextSetBit(index + 1)) {
+                if (!region.hasChunk(index)) {
+                    continue;
                 }
-                if (deletionPredicate.test(region, chunk)) {
-                    region.deleteChunk(chunk);
-                    totalChunksDeleted++;
-                    if (debugRate != 0 && totalChunksDeleted % debugRate == 0) {
-                        logger.debug("Deleted {} chunks so far.", totalChunksDeleted);
-                    }
-                } else {
-                    logger.debug("Chunk did not match predicates: " + chunk);
+                if (deletionPredicate.test(timestamps[index])) {
+                    region.deleteChunk(index);
+                    deleted++;
+                } else if (logger.isDebugEnabled()) {
+                    logger.debug("Chunk did not match predicates: " + (index & 31) + ", " + (index >> 5)
+                        + " in " + regionFile.getFileName());
                 }
             }
+            totalChunksDeleted.addAndGet(deleted);
+            if (deleted > 0) {
+                totalBytesReclaimed.addAndGet(region.reclaimSectors());
+            }
             return true;
         } catch (IOException e) {
             logger.warn("Error deleting chunks from region: " + regionFile + ". Aborting the process.", e);
@@ -277,7 +316,7 @@ private boolean deleteChunks(Path regionFile, Stream<BlockVector2> chunks,
     }
 
     public int getDeletedChunkCount() {
-        return totalChunksDeleted;
+        return totalChunksDeleted.get();
     }
 
     public int getDeletionsRequested() {
@@ -22,80 +22,138 @@
 import com.sk89q.worldedit.math.BlockVector2;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 /**
  * Internal class. Subject to changes.
+ *
+ * <p>The header of the region is read into memory in one read, edited there,
+ * and written back in one write when closed.</p>
  */
 class RegionAccess implements AutoCloseable {
 
-    private final RandomAccessFile raf;
-    private int[] offsets;
-    private int[] timestamps;
+    static final int CHUNKS_PER_REGION = 1024;
+    private static final int SECTOR_BYTES = 4096;
+    private static final int HEADER_SECTORS = 2;
+
+    private final FileChannel channel;
+    private final ByteBuffer header = ByteBuffer.allocate(HEADER_SECTORS * SECTOR_BYTES);
+    private final IntBuffer offsets;
+    private final IntBuffer timestamps;
+    private final boolean hasHeader;
+    private boolean dirty;
 
     RegionAccess(Path file) throws IOException {
-        this(file, false);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            hasHeader = channel.size() >= header.capacity();
+            if (hasHeader) {
+                while (header.hasRemaining()) {
+                    if (channel.read(header, header.position()) < 0) {
+                        throw new IOException("Unexpected end of region file " + file);
+                    }
+                }
+            }
+        } catch (Throwable t) {
+            channel.close();
+            throw t;
+        }
+        header.clear();
+        offsets = ((ByteBuffer) header.duplicate().limit(SECTOR_BYTES)).slice().asIntBuffer();
+        timestamps = ((ByteBuffer) header.duplicate().position(SECTOR_BYTES)).slice().asIntBuffer();
     }
 
-    RegionAccess(Path file, boolean preload) throws IOException {
-        raf = new RandomAccessFile(file.toFile(), "rw");
-        if (preload) {
-            readHeaders();
-        }
+    static int indexChunk(BlockVector2 pos) {
+        return indexChunk(pos.getBlockX(), pos.getBlockZ());
     }
 
-    private void readHeaders() throws IOException {
-        offsets = new int[1024];
-        timestamps = new int[1024];
-        for (int idx = 0; idx < 1024; ++idx) {
-            offsets[idx] = raf.readInt();
-        }
-        for (int idx = 0; idx < 1024; ++idx) {
-            timestamps[idx] = raf.readInt();
-        }
+    static int indexChunk(int chunkX, int chunkZ) {
+        return (chunkX & 31) + (chunkZ & 31) * 32;
+    }
+
+    int getModificationTime(BlockVector2 pos) {
+        return timestamps.get(indexChunk(pos));
+    }
+
+    /**
+     * Copy the modification times of all chunks, indexed like
+     * {@link #indexChunk(int, int)}.
+     *
+     * @return the modification times
+     */
+    int[] getModificationTimes() {
+        int[] result = new int[CHUNKS_PER_REGION];
+        ((IntBuffer) timestamps.duplicate().clear()).get(result);
+        return result;
+    }
+
+    int getChunkSize(BlockVector2 pos) {
+        return offsets.get(indexChunk(pos)) & 0xFF;
+    }
+
+    boolean hasChunk(int index) {
+        return offsets.get(index) != 0;
     }
 
-    private static int indexChunk(BlockVector2 pos) {
-        int x = pos.getBlockX() & 31;
-        int z = pos.getBlockZ() & 31;
-        return x + z * 32;
+    void deleteChunk(BlockVector2 pos) {
+        deleteChunk(indexChunk(pos));
     }
 
-    int getModificationTime(BlockVector2 pos) throws IOException {
-        int idx = indexChunk(pos);
-        if (timestamps != null) {
-            return timestamps[idx];
+    void deleteChunk(int index) {
+        if (offsets.get(index) != 0) {
+            offsets.put(index, 0);
+            dirty = true;
         }
-        raf.seek(idx * 4L + 4096);
-        return raf.readInt();
     }
 
-    int getChunkSize(BlockVector2 pos) throws IOException {
-        int idx = indexChunk(pos);
-        if (offsets != null) {
-            return offsets[idx] & 0xFF;
+    /**
+     * Write the header back, and cut off any sectors at the end of the file
+     * that no chunk uses anymore.
+     *
+     * @return the number of bytes reclaimed
+     */
+    long reclaimSectors() throws IOException {
+        flush();
+        if (!hasHeader) {
+            return 0;
         }
-        raf.seek(idx * 4L);
-        // 3 bytes for offset
-        raf.read();
-        raf.read();
-        raf.read();
-        // one byte for size - note, yes, could do raf.readInt() & 0xFF but that does extra checks
-        return raf.read();
+        long end = HEADER_SECTORS;
+        for (int i = 0; i < CHUNKS_PER_REGION; i++) {
+            int offset = offsets.get(i);
+            if (offset != 0) {
+                end = Math.max(end, (offset >>> 8) + (offset & 0xFF));
+            }
+        }
+        long size = channel.size();
+        long newSize = end * SECTOR_BYTES;
+        if (newSize >= size) {
+            return 0;
+        }
+        channel.truncate(newSize);
+        return size - newSize;
     }
 
-    void deleteChunk(BlockVector2 pos) throws IOException {
-        int idx = indexChunk(pos);
-        raf.seek(idx * 4L);
-        raf.writeInt(0);
-        if (offsets != null) {
-            offsets[idx] = 0;
+    private void flush() throws IOException {
+        if (!dirty) {
+            return;
         }
+        ByteBuffer toWrite = (ByteBuffer) header.duplicate().clear();
+        while (toWrite.hasRemaining()) {
+            channel.write(toWrite, toWrite.position());
+        }
+        dirty = false;
     }
 
     @Override
     public void close() throws IOException {
-        raf.close();
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
     }
 }
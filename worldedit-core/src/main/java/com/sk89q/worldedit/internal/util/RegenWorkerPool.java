@@ -0,0 +1,232 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.internal.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Keeps the temporary generator worlds used by {@code //regen} alive between
+ * uses, so repeated regenerations with the same dimension, seed and generator
+ * options skip world construction and re-use chunks that were already generated.
+ *
+ * <p>A worker is handed out to one caller at a time. Idle workers are closed
+ * once they have not been used for a while, once they have generated enough
+ * chunks that keeping them is more expensive than starting over, or when the
+ * pool holds too many of them.</p>
+ *
+ * <p>This class is not bound to a thread, but worlds usually have to be
+ * created and closed on the server thread, so platforms should only call it
+ * from there.</p>
+ *
+ * @param <W> the platform's worker type
+ */
+public final class RegenWorkerPool<W extends Closeable> {
+
+    private static final Logger log = LoggerFactory.getLogger(RegenWorkerPool.class);
+
+    /**
+     * Creates a new worker when the pool has none for a key.
+     *
+     * @param <W> the worker type
+     */
+    @FunctionalInterface
+    public interface WorkerFactory<W> {
+
+        W create() throws Exception;
+
+    }
+
+    private static final class Key {
+
+        private final Object world;
+        private final long seed;
+        private final Object generatorOptions;
+
+        Key(Object world, long seed, Object generatorOptions) {
+            this.world = world;
+            this.seed = seed;
+            this.generatorOptions = generatorOptions;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return seed == key.seed
+                && world.equals(key.world)
+                && generatorOptions.equals(key.generatorOptions);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(world, seed, generatorOptions);
+        }
+
+    }
+
+    private static final class Entry<W> {
+
+        private final Key key;
+        private final W worker;
+        private long lastUsed;
+        private long chunksGenerated;
+
+        Entry(Key key, W worker) {
+            this.key = key;
+            this.worker = worker;
+        }
+
+    }
+
+    private final int maxIdleWorkers;
+    private final long idleTimeoutNanos;
+    private final long maxChunksPerWorker;
+    // access-ordered, so the eldest entry is the least recently released
+    private final Map<Key, Entry<W>> idle = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<W, Entry<W>> leased = new IdentityHashMap<>();
+
+    /**
+     * Create a new pool.
+     *
+     * @param maxIdleWorkers the number of idle workers to keep at most
+     * @param idleTimeout how long an idle worker is kept
+     * @param unit the unit of {@code idleTimeout}
+     * @param maxChunksPerWorker the number of chunks a worker may generate before it is retired
+     */
+    public RegenWorkerPool(int maxIdleWorkers, long idleTimeout, TimeUnit unit, long maxChunksPerWorker) {
+        checkArgument(maxIdleWorkers >= 0, "maxIdleWorkers must be >= 0");
+        checkArgument(maxChunksPerWorker > 0, "maxChunksPerWorker must be > 0");
+        this.maxIdleWorkers = maxIdleWorkers;
+        this.idleTimeoutNanos = unit.toNanos(idleTimeout);
+        this.maxChunksPerWorker = maxChunksPerWorker;
+    }
+
+    /**
+     * Take a worker for the given world, seed and generator options, creating
+     * one if none is idle.
+     *
+     * <p>The worker must be handed back with {@link #release(Object, int, boolean)}.</p>
+     *
+     * <p>The generator options are compared with {@code equals}. The platforms'
+     * option classes do not override it, so they are compared by identity,
+     * which still hands out a new worker once the server replaces its options.</p>
+     *
+     * @param world an object identifying the world being regenerated, such as its registry key
+     * @param seed the generator seed
+     * @param generatorOptions the world's generator options the worker was derived from
+     * @param factory creates a worker if none is available
+     * @return the worker
+     * @throws Exception if the factory fails
+     */
+    public synchronized W acquire(Object world, long seed, Object generatorOptions,
+                                  WorkerFactory<W> factory) throws Exception {
+        closeExpired();
+        Key key = new Key(world, seed, generatorOptions);
+        Entry<W> entry = idle.remove(key);
+        if (entry == null) {
+            entry = new Entry<>(key, factory.create());
+        }
+        leased.put(entry.worker, entry);
+        return entry.worker;
+    }
+
+    /**
+     * Hand a worker back to the pool.
+     *
+     * @param worker the worker from {@link #acquire(Object, long, Object, WorkerFactory)}
+     * @param chunksGenerated the number of chunks generated during this use
+     * @param reusable {@code false} if the worker failed and must not be handed out again
+     */
+    public synchronized void release(W worker, int chunksGenerated, boolean reusable) {
+        Entry<W> entry = leased.remove(worker);
+        checkState(entry != null, "Worker was not leased from this pool");
+        entry.chunksGenerated += chunksGenerated;
+        if (!reusable || entry.chunksGenerated >= maxChunksPerWorker) {
+            close(entry);
+            return;
+        }
+        entry.lastUsed = System.nanoTime();
+        Entry<W> replaced = idle.put(entry.key, entry);
+        if (replaced != null) {
+            close(replaced);
+        }
+        Iterator<Entry<W>> iterator = idle.values().iterator();
+        while (idle.size() > maxIdleWorkers && iterator.hasNext()) {
+            Entry<W> eldest = iterator.next();
+            iterator.remove();
+            close(eldest);
+        }
+    }
+
+    /**
+     * Close idle workers that have not been used within the idle timeout.
+     */
+    public synchronized void closeExpired() {
+        if (idle.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        Iterator<Entry<W>> iterator = idle.values().iterator();
+        while (iterator.hasNext()) {
+            Entry<W> entry = iterator.next();
+            if (now - entry.lastUsed >= idleTimeoutNanos) {
+                iterator.remove();
+                close(entry);
+            }
+        }
+    }
+
+    /**
+     * Close all idle workers, e.g. when the server stops.
+     */
+    public synchronized void closeAll() {
+        for (Entry<W> entry : idle.values()) {
+            close(entry);
+        }
+        idle.clear();
+    }
+
+    private void close(Entry<W> entry) {
+        try {
+            entry.worker.close();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to close regeneration world", e);
+        }
+    }
+
+}
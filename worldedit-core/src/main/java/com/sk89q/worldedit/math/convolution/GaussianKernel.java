@@ -21,8 +21,11 @@
 
 /**
  * A Gaussian Kernel generator (2D bellcurve).
+ *
+ * <p>The 2D Gaussian is the product of two 1D Gaussians, so this kernel
+ * is separable.</p>
  */
-public class GaussianKernel extends Kernel {
+public class GaussianKernel extends SeparableKernel {
 
     /**
      * Constructor of the kernel.
@@ -31,19 +34,21 @@ public class GaussianKernel extends Kernel {
      * @param sigma controls 'flatness'
      */
     public GaussianKernel(int radius, double sigma) {
-        super(radius * 2 + 1, radius * 2 + 1, createKernel(radius, sigma));
+        this(createKernel(radius, sigma));
+    }
+
+    private GaussianKernel(float[] vector) {
+        super(vector, vector);
     }
 
     private static float[] createKernel(int radius, double sigma) {
         int diameter = radius * 2 + 1;
-        float[] data = new float[diameter * diameter];
+        float[] data = new float[diameter];
 
         double sigma22 = 2 * sigma * sigma;
-        double constant = Math.PI * sigma22;
-        for (int y = -radius; y <= radius; ++y) {
-            for (int x = -radius; x <= radius; ++x) {
-                data[(y + radius) * diameter + x + radius] = (float) (Math.exp(-(x * x + y * y) / sigma22) / constant);
-            }
+        double constant = Math.sqrt(Math.PI * sigma22);
+        for (int x = -radius; x <= radius; ++x) {
+            data[x + radius] = (float) (Math.exp(-(x * x) / sigma22) / constant);
         }
 
         return data;
@@ -86,14 +86,23 @@ public HeightMap(EditSession session, Region region, @Nullable Mask mask) {
     public int applyFilter(HeightMapFilter filter, int iterations) throws MaxChangedBlocksException {
         checkNotNull(filter);
 
-        int[] newData = new int[data.length];
-        System.arraycopy(data, 0, newData, 0, data.length);
+        // Stay in floating point between iterations so that rounding
+        // errors do not accumulate
+        float[] newData = new float[data.length];
+        for (int i = 0; i < data.length; ++i) {
+            newData[i] = data[i];
+        }
 
         for (int i = 0; i < iterations; ++i) {
             newData = filter.filter(newData, width, height);
         }
 
-        return apply(newData);
+        int[] roundedData = new int[data.length];
+        for (int i = 0; i < data.length; ++i) {
+            roundedData[i] = (int) (newData[i] + 0.5);
+        }
+
+        return apply(roundedData);
     }
 
     /**
@@ -135,17 +144,17 @@ public int apply(int[] data) throws MaxChangedBlocksException {
                 // Depending on growing or shrinking we need to start at the bottom or top
                 if (newHeight > curHeight) {
                     // Set the top block of the column to be the same type (this might go wrong with rounding)
-                    BlockState existing = session.getBlock(BlockVector3.at(xr, curHeight, zr));
+                    BlockState existing = session.getBlock(xr, curHeight, zr);
 
                     // Skip water/lava
                     if (existing.getBlockType() != BlockTypes.WATER && existing.getBlockType() != BlockTypes.LAVA) {
-                        session.setBlock(BlockVector3.at(xr, newHeight, zr), existing);
+                        session.setBlock(xr, newHeight, zr, existing);
                         ++blocksChanged;
 
                         // Grow -- start from 1 below top replacing airblocks
                         for (int y = newHeight - 1 - originY; y >= 0; --y) {
                             int copyFrom = (int) (y * scale);
-                            session.setBlock(BlockVector3.at(xr, originY + y, zr), session.getBlock(BlockVector3.at(xr, originY + copyFrom, zr)));
+                            session.setBlock(xr, originY + y, zr, session.getBlock(xr, originY + copyFrom, zr));
                             ++blocksChanged;
                         }
                     }
@@ -153,18 +162,18 @@ public int apply(int[] data) throws MaxChangedBlocksException {
                     // Shrink -- start from bottom
                     for (int y = 0; y < newHeight - originY; ++y) {
                         int copyFrom = (int) (y * scale);
-                        session.setBlock(BlockVector3.at(xr, originY + y, zr), session.getBlock(BlockVector3.at(xr, originY + copyFrom, zr)));
+                        session.setBlock(xr, originY + y, zr, session.getBlock(xr, originY + copyFrom, zr));
                         ++blocksChanged;
                     }
 
                     // Set the top block of the column to be the same type
                     // (this could otherwise go wrong with rounding)
-                    session.setBlock(BlockVector3.at(xr, newHeight, zr), session.getBlock(BlockVector3.at(xr, curHeight, zr)));
+                    session.setBlock(xr, newHeight, zr, session.getBlock(xr, curHeight, zr));
                     ++blocksChanged;
 
                     // Fill rest with air
                     for (int y = newHeight + 1; y <= curHeight; ++y) {
-                        session.setBlock(BlockVector3.at(xr, y, zr), fillerAir);
+                        session.setBlock(xr, y, zr, fillerAir);
                         ++blocksChanged;
                     }
                 }
@@ -19,15 +19,28 @@
 
 package com.sk89q.worldedit.math.convolution;
 
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Allows applications of Kernels onto the region's height map.
  *
  * <p>Only used for smoothing (with a GaussianKernel).</p>
+ *
+ * <p>{@link SeparableKernel}s are applied as a row pass followed by a
+ * column pass, and uniform ones with running sums, so the cost per cell
+ * does not grow with the square of the radius. Large height maps are
+ * processed on multiple threads.</p>
  */
 public class HeightMapFilter {
 
+    /**
+     * Number of cells above which rows are filtered in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+
     private Kernel kernel;
 
     /**
@@ -82,48 +95,195 @@ public void setKernel(Kernel kernel) {
     public int[] filter(int[] inData, int width, int height) {
         checkNotNull(inData);
 
-        int index = 0;
-        float[] matrix = kernel.getKernelData(null);
+        float[] floatData = new float[inData.length];
+        for (int i = 0; i < inData.length; ++i) {
+            floatData[i] = inData[i];
+        }
+        float[] filtered = filter(floatData, width, height);
         int[] outData = new int[inData.length];
+        for (int i = 0; i < outData.length; ++i) {
+            outData[i] = (int) (filtered[i] + 0.5);
+        }
+        return outData;
+    }
+
+    /**
+     * Filter with a 2D kernel, without rounding the result.
+     *
+     * <p>Keeping the height map as floats between iterations avoids
+     * accumulating rounding errors.</p>
+     *
+     * @param inData the data
+     * @param width the width
+     * @param height the height
+     *
+     * @return the modified height map
+     */
+    public float[] filter(float[] inData, int width, int height) {
+        checkNotNull(inData);
+
+        Kernel kernel = this.kernel;
+        float[] outData = new float[inData.length];
+        if (kernel instanceof SeparableKernel) {
+            SeparableKernel separable = (SeparableKernel) kernel;
+            float[] rowData = separable.getRowData();
+            float[] columnData = separable.getColumnData();
+            float[] rowPass = new float[inData.length];
+            if (separable.isUniform()) {
+                forEach(height, width, y -> boxRow(inData, rowPass, y, width,
+                    kernel.getWidth(), kernel.getXOrigin(), rowData[0]));
+                forEach(width, height, x -> boxColumn(rowPass, outData, x, width, height,
+                    kernel.getHeight(), kernel.getYOrigin(), columnData[0]));
+            } else {
+                forEach(height, width, y -> convolveRow(inData, rowPass, y, width,
+                    rowData, kernel.getXOrigin()));
+                forEach(height, width, y -> convolveColumn(rowPass, outData, y, width, height,
+                    columnData, kernel.getYOrigin()));
+            }
+        } else {
+            float[] matrix = kernel.getKernelData(null);
+            forEach(height, width, y -> convolve2D(inData, outData, y, width, height, kernel, matrix));
+        }
+        return outData;
+    }
+
+    private static void forEach(int lines, int cellsPerLine, IntConsumer action) {
+        if ((long) lines * cellsPerLine < PARALLEL_THRESHOLD) {
+            for (int i = 0; i < lines; ++i) {
+                action.accept(i);
+            }
+        } else {
+            IntStream.range(0, lines).parallel().forEach(action);
+        }
+    }
+
+    // Out-of-range taps read the cell at the centre of the kernel instead,
+    // so that edges are not pulled towards zero.
+
+    private static void convolveRow(float[] inData, float[] outData, int y, int width,
+                                    float[] row, int origin) {
+        int offset = y * width;
+        for (int x = 0; x < width; ++x) {
+            float z = 0;
+            for (int k = 0; k < row.length; ++k) {
+                float f = row[k];
+                if (f == 0) {
+                    continue;
+                }
+                int offsetX = x + k - origin;
+                if (offsetX < 0 || offsetX >= width) {
+                    offsetX = x;
+                }
+                z += f * inData[offset + offsetX];
+            }
+            outData[offset + x] = z;
+        }
+    }
+
+    private static void convolveColumn(float[] inData, float[] outData, int y, int width, int height,
+                                       float[] column, int origin) {
+        int offset = y * width;
+        for (int k = 0; k < column.length; ++k) {
+            float f = column[k];
+            if (f == 0) {
+                continue;
+            }
+            int offsetY = y + k - origin;
+            if (offsetY < 0 || offsetY >= height) {
+                offsetY = y;
+            }
+            offsetY *= width;
+            for (int x = 0; x < width; ++x) {
+                outData[offset + x] += f * inData[offsetY + x];
+            }
+        }
+    }
+
+    private static void boxRow(float[] inData, float[] outData, int y, int width,
+                               int size, int origin, float weight) {
+        int offset = y * width;
+        double sum = 0;
+        // Prime the window for x = -1
+        for (int i = -1 - origin; i < size - 1 - origin; ++i) {
+            if (i >= 0 && i < width) {
+                sum += inData[offset + i];
+            }
+        }
+        for (int x = 0; x < width; ++x) {
+            int enter = x - origin + size - 1;
+            int leave = x - origin - 1;
+            if (enter >= 0 && enter < width) {
+                sum += inData[offset + enter];
+            }
+            if (leave >= 0 && leave < width) {
+                sum -= inData[offset + leave];
+            }
+            int inside = Math.min(width - 1, enter) - Math.max(0, leave + 1) + 1;
+            outData[offset + x] = (float) ((sum + (size - inside) * (double) inData[offset + x]) * weight);
+        }
+    }
+
+    private static void boxColumn(float[] inData, float[] outData, int x, int width, int height,
+                                  int size, int origin, float weight) {
+        double sum = 0;
+        for (int i = -1 - origin; i < size - 1 - origin; ++i) {
+            if (i >= 0 && i < height) {
+                sum += inData[i * width + x];
+            }
+        }
+        for (int y = 0; y < height; ++y) {
+            int enter = y - origin + size - 1;
+            int leave = y - origin - 1;
+            if (enter >= 0 && enter < height) {
+                sum += inData[enter * width + x];
+            }
+            if (leave >= 0 && leave < height) {
+                sum -= inData[leave * width + x];
+            }
+            int inside = Math.min(height - 1, enter) - Math.max(0, leave + 1) + 1;
+            int index = y * width + x;
+            outData[index] = (float) ((sum + (size - inside) * (double) inData[index]) * weight);
+        }
+    }
 
+    private static void convolve2D(float[] inData, float[] outData, int y, int width, int height,
+                                   Kernel kernel, float[] matrix) {
         int kh = kernel.getHeight();
         int kw = kernel.getWidth();
         int kox = kernel.getXOrigin();
         int koy = kernel.getYOrigin();
 
-        for (int y = 0; y < height; ++y) {
-            for (int x = 0; x < width; ++x) {
-                float z = 0;
+        int index = y * width;
+        for (int x = 0; x < width; ++x) {
+            float z = 0;
 
-                for (int ky = 0; ky < kh; ++ky) {
-                    int offsetY = y + ky - koy;
-                    // Clamp coordinates inside data
-                    if (offsetY < 0 || offsetY >= height) {
-                        offsetY = y;
-                    }
-
-                    offsetY *= width;
+            for (int ky = 0; ky < kh; ++ky) {
+                int offsetY = y + ky - koy;
+                // Clamp coordinates inside data
+                if (offsetY < 0 || offsetY >= height) {
+                    offsetY = y;
+                }
 
-                    int matrixOffset = ky * kw;
-                    for (int kx = 0; kx < kw; ++kx) {
-                        float f = matrix[matrixOffset + kx];
-                        if (f == 0) {
-                            continue;
-                        }
+                offsetY *= width;
 
-                        int offsetX = x + kx - kox;
-                        // Clamp coordinates inside data
-                        if (offsetX < 0 || offsetX >= width) {
-                            offsetX = x;
-                        }
+                int matrixOffset = ky * kw;
+                for (int kx = 0; kx < kw; ++kx) {
+                    float f = matrix[matrixOffset + kx];
+                    if (f == 0) {
+                        continue;
+                    }
 
-                        z += f * inData[offsetY + offsetX];
+                    int offsetX = x + kx - kox;
+                    // Clamp coordinates inside data
+                    if (offsetX < 0 || offsetX >= width) {
+                        offsetX = x;
                     }
+
+                    z += f * inData[offsetY + offsetX];
                 }
-                outData[index++] = (int) (z + 0.5);
             }
+            outData[index++] = z;
         }
-        return outData;
     }
 
 }
@@ -24,17 +24,21 @@
 /**
  * A linear Kernel generator (all cells weigh the same).
  */
-public class LinearKernel extends Kernel {
+public class LinearKernel extends SeparableKernel {
 
     public LinearKernel(int radius) {
-        super(radius * 2 + 1, radius * 2 + 1, createKernel(radius));
+        this(createKernel(radius));
+    }
+
+    private LinearKernel(float[] vector) {
+        super(vector, vector);
     }
 
     private static float[] createKernel(int radius) {
         int diameter = radius * 2 + 1;
-        float[] data = new float[diameter * diameter];
+        float[] data = new float[diameter];
 
-        Arrays.fill(data, 1.0f / data.length);
+        Arrays.fill(data, 1.0f / diameter);
 
         return data;
     }
@@ -0,0 +1,101 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.math.convolution;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A kernel that is the outer product of a row vector and a column vector.
+ *
+ * <p>Applying a separable kernel can be done as a horizontal pass followed
+ * by a vertical pass, which costs {@code O(w + h)} per cell instead of
+ * {@code O(w * h)}.</p>
+ */
+public class SeparableKernel extends Kernel {
+
+    private final float[] row;
+    private final float[] column;
+    private final boolean uniform;
+
+    /**
+     * Create a new separable kernel.
+     *
+     * @param row the horizontal component
+     * @param column the vertical component
+     */
+    public SeparableKernel(float[] row, float[] column) {
+        super(checkNotNull(row).length, checkNotNull(column).length, outerProduct(row, column));
+        this.row = row.clone();
+        this.column = column.clone();
+        this.uniform = isConstant(row) && isConstant(column);
+    }
+
+    private static float[] outerProduct(float[] row, float[] column) {
+        checkArgument(row.length > 0 && column.length > 0, "row and column must not be empty");
+        float[] data = new float[row.length * column.length];
+        for (int y = 0; y < column.length; ++y) {
+            for (int x = 0; x < row.length; ++x) {
+                data[y * row.length + x] = row[x] * column[y];
+            }
+        }
+        return data;
+    }
+
+    private static boolean isConstant(float[] data) {
+        for (float f : data) {
+            if (f != data[0]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get a copy of the horizontal component of this kernel.
+     *
+     * @return the row vector, of length {@link #getWidth()}
+     */
+    public final float[] getRowData() {
+        return row.clone();
+    }
+
+    /**
+     * Get a copy of the vertical component of this kernel.
+     *
+     * @return the column vector, of length {@link #getHeight()}
+     */
+    public final float[] getColumnData() {
+        return column.clone();
+    }
+
+    /**
+     * Whether every cell in this kernel has the same weight.
+     *
+     * <p>Uniform kernels are box blurs, which can be applied with running
+     * sums in constant time per cell regardless of the radius.</p>
+     *
+     * @return true if the kernel is a box blur
+     */
+    public final boolean isUniform() {
+        return uniform;
+    }
+
+}
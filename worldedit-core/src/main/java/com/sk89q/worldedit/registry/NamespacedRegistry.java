@@ -19,9 +19,13 @@
 
 package com.sk89q.worldedit.registry;
 
+import com.google.common.collect.Maps;
+import com.sk89q.worldedit.util.collection.PrefixIndex;
+
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkState;
@@ -31,6 +35,8 @@
     private static final String MINECRAFT_NAMESPACE = "minecraft";
     private final Set<String> knownNamespaces = new HashSet<>();
     private final String defaultNamespace;
+    @Nullable
+    private volatile PrefixIndex<String> pathIndex;
 
     public NamespacedRegistry(final String name) {
         this(name, MINECRAFT_NAMESPACE);
@@ -54,9 +60,28 @@ public V register(final String key, final V value) {
         checkState(i > 0, "key is not namespaced");
         final V registered = super.register(key, value);
         knownNamespaces.add(key.substring(0, i));
+        pathIndex = null;
         return registered;
     }
 
+    /**
+     * Get a prefix index over the paths of all registered keys, that is the
+     * part after the namespace. The values of the index are the full keys.
+     *
+     * @return the path index
+     */
+    public PrefixIndex<String> getPathIndex() {
+        PrefixIndex<String> index = this.pathIndex;
+        Set<String> keys = keySet();
+        if (index == null || index.size() != keys.size()) {
+            index = PrefixIndex.ofEntries(keys.stream()
+                .map(key -> Maps.immutableEntry(key.substring(key.indexOf(':') + 1), key))
+                .collect(Collectors.toList()));
+            this.pathIndex = index;
+        }
+        return index;
+    }
+
     /**
      * Get a set of the namespaces of all registered keys.
      *
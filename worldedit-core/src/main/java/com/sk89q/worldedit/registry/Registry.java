@@ -19,6 +19,8 @@
 
 package com.sk89q.worldedit.registry;
 
+import com.sk89q.worldedit.util.collection.PrefixIndex;
+
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -34,6 +36,8 @@
 public class Registry<V extends Keyed> implements Iterable<V> {
     private final Map<String, V> map = new HashMap<>();
     private final String name;
+    @Nullable
+    private volatile PrefixIndex<String> keyIndex;
 
     public Registry(final String name) {
         this.name = name;
@@ -55,6 +59,7 @@ public V register(final String key, final V value) {
         checkState(key.equals(key.toLowerCase(Locale.ROOT)), "key must be lowercase");
         checkState(!this.map.containsKey(key), "key '%s' already has an associated %s", key, this.name);
         this.map.put(key, value);
+        this.keyIndex = null;
         return value;
     }
 
@@ -62,6 +67,23 @@ public Set<String> keySet() {
         return Collections.unmodifiableSet(this.map.keySet());
     }
 
+    /**
+     * Get a prefix index over all registered keys.
+     *
+     * <p>The index is built on first use after the registry changes, and
+     * shared by every caller until the next change.</p>
+     *
+     * @return the key index
+     */
+    public PrefixIndex<String> getKeyIndex() {
+        PrefixIndex<String> index = this.keyIndex;
+        if (index == null || index.size() != this.map.size()) {
+            index = PrefixIndex.ofKeys(this.map.keySet());
+            this.keyIndex = index;
+        }
+        return index;
+    }
+
     public Collection<V> values() {
         return Collections.unmodifiableCollection(this.map.values());
     }
@@ -47,16 +47,21 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -71,6 +76,16 @@
 public class SessionManager {
 
     public static int EXPIRATION_GRACE = 10 * 60 * 1000;
+    /**
+     * The memory, in bytes, that the undo history of all sessions together
+     * may retain before old entries are discarded, or -1 for no budget.
+     */
+    public static long HISTORY_MEMORY_BUDGET = Runtime.getRuntime().maxMemory() / 4;
+    /**
+     * The memory, in bytes, that one session's history may retain before it
+     * is trimmed ahead of other sessions when over budget, or -1 for none.
+     */
+    public static long HISTORY_SESSION_SOFT_LIMIT = -1;
     private static final int FLUSH_PERIOD = 1000 * 30;
     private static final ListeningExecutorService executorService = MoreExecutors.listeningDecorator(
             EvenMoreExecutors.newBoundedCachedThreadPool(0, 1, 5, "WorldEdit Session Saver - %s"));
@@ -81,6 +96,9 @@ public class SessionManager {
     private final WorldEdit worldEdit;
     private final Map<UUID, SessionHolder> sessions = new HashMap<>();
     private SessionStore store = new VoidStore();
+    private final Object historyTrimLock = new Object();
+    private final AtomicLong historyEvictions = new AtomicLong();
+    private final AtomicLong historyEvictedBytes = new AtomicLong();
 
     /**
      * Create a new session manager.
@@ -292,6 +310,136 @@ protected UUID getKey(SessionKey key) {
         return key.getUniqueId();
     }
 
+    /**
+     * Set the history memory limits from configuration values.
+     *
+     * @param budgetMegabytes the budget for all sessions in MiB, 0 for a quarter of the maximum heap, or -1 for none
+     * @param sessionSoftLimitMegabytes the soft limit per session in MiB, or -1 for none
+     */
+    public static void setHistoryMemoryLimits(int budgetMegabytes, int sessionSoftLimitMegabytes) {
+        if (budgetMegabytes == 0) {
+            HISTORY_MEMORY_BUDGET = Runtime.getRuntime().maxMemory() / 4;
+        } else {
+            HISTORY_MEMORY_BUDGET = budgetMegabytes < 0 ? -1 : budgetMegabytes * 1024L * 1024L;
+        }
+        HISTORY_SESSION_SOFT_LIMIT = sessionSoftLimitMegabytes < 0 ? -1 : sessionSoftLimitMegabytes * 1024L * 1024L;
+    }
+
+    /**
+     * Discard old history entries until the history of all sessions together
+     * fits in {@link #HISTORY_MEMORY_BUDGET}.
+     *
+     * <p>Sessions over {@link #HISTORY_SESSION_SOFT_LIMIT} are trimmed first,
+     * then the session retaining the most memory gives up its oldest entry
+     * until the budget is met. The entry each session would undo next is
+     * never discarded.</p>
+     */
+    public void trimHistory() {
+        long budget = HISTORY_MEMORY_BUDGET;
+        if (budget < 0) {
+            return;
+        }
+        List<LocalSession> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(sessions.size());
+            for (SessionHolder holder : sessions.values()) {
+                snapshot.add(holder.session);
+            }
+        }
+
+        synchronized (historyTrimLock) {
+            List<HistoryUsage> usages = new ArrayList<>(snapshot.size());
+            long total = 0;
+            for (LocalSession session : snapshot) {
+                HistoryUsage usage = new HistoryUsage(session, session.getHistoryMemoryUsage());
+                total += usage.bytes;
+                usages.add(usage);
+            }
+            if (total <= budget) {
+                return;
+            }
+
+            long before = total;
+            int evicted = 0;
+            Comparator<HistoryUsage> largestFirst = Comparator.comparingLong((HistoryUsage u) -> u.bytes).reversed();
+            long softLimit = HISTORY_SESSION_SOFT_LIMIT;
+            if (softLimit >= 0) {
+                usages.sort(largestFirst);
+                for (HistoryUsage usage : usages) {
+                    while (usage.bytes > softLimit && total > budget) {
+                        long freed = usage.session.trimHistory();
+                        if (freed < 0) {
+                            break;
+                        }
+                        usage.bytes -= freed;
+                        total -= freed;
+                        evicted++;
+                    }
+                }
+            }
+            PriorityQueue<HistoryUsage> largest = new PriorityQueue<>(Math.max(1, usages.size()), largestFirst);
+            largest.addAll(usages);
+            while (total > budget && !largest.isEmpty()) {
+                HistoryUsage usage = largest.poll();
+                long freed = usage.session.trimHistory();
+                if (freed < 0) {
+                    // nothing left to discard in this session
+                    continue;
+                }
+                usage.bytes -= freed;
+                total -= freed;
+                evicted++;
+                largest.add(usage);
+            }
+
+            if (evicted > 0) {
+                historyEvictions.addAndGet(evicted);
+                historyEvictedBytes.addAndGet(before - total);
+                log.debug("Discarded {} history entries ({} bytes) to stay within the history memory budget",
+                    evicted, before - total);
+            }
+        }
+    }
+
+    /**
+     * Get the estimated memory retained by the history of each session.
+     *
+     * @return the usage in bytes, by session name
+     */
+    public Map<String, Long> getHistoryMemoryUsage() {
+        Map<String, LocalSession> snapshot = new HashMap<>();
+        synchronized (this) {
+            for (SessionHolder holder : sessions.values()) {
+                snapshot.put(holder.key.getName(), holder.session);
+            }
+        }
+        Map<String, Long> usage = new HashMap<>();
+        for (Map.Entry<String, LocalSession> entry : snapshot.entrySet()) {
+            usage.put(entry.getKey(), entry.getValue().getHistoryMemoryUsage());
+        }
+        return usage;
+    }
+
+    /**
+     * Get the number of history entries discarded to stay within the budget
+     * since this session manager was created.
+     *
+     * @return the number of entries
+     */
+    public long getHistoryEvictions() {
+        return historyEvictions.get();
+    }
+
+    /**
+     * Get the estimated memory freed by discarding history entries since
+     * this session manager was created.
+     *
+     * @return the freed memory in bytes
+     */
+    public long getHistoryEvictedBytes() {
+        return historyEvictedBytes.get();
+    }
+
     /**
      * Remove the session for the given owner if one exists.
      *
@@ -368,6 +516,19 @@ private SessionHolder(SessionKey key, LocalSession session) {
         }
     }
 
+    /**
+     * The estimated history usage of a session while trimming.
+     */
+    private static final class HistoryUsage {
+        private final LocalSession session;
+        private long bytes;
+
+        private HistoryUsage(LocalSession session, long bytes) {
+            this.session = session;
+            this.bytes = bytes;
+        }
+    }
+
     /**
      * Removes inactive sessions after they have been inactive for a period
      * of time. Commits them as well.
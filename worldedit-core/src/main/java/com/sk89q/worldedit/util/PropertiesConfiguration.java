@@ -24,6 +24,8 @@
 import com.sk89q.util.StringUtil;
 import com.sk89q.worldedit.LocalConfiguration;
 import com.sk89q.worldedit.LocalSession;
+import com.sk89q.worldedit.session.SessionManager;
+import com.sk89q.worldedit.util.metrics.PerformanceMetrics;
 import com.sk89q.worldedit.util.report.Unreported;
 import com.sk89q.worldedit.world.registry.LegacyMapper;
 import org.slf4j.Logger;
@@ -134,10 +136,15 @@ public void load() {
         setDefaultLocaleName(getString("default-locale", defaultLocaleName));
 
         LocalSession.MAX_HISTORY_SIZE = Math.max(15, getInt("history-size", 15));
+        SessionManager.setHistoryMemoryLimits(getInt("history-memory-budget", 0),
+            getInt("history-player-soft-limit", -1));
+        PerformanceMetrics.configure(getBool("perf-enabled", false),
+            getInt("perf-slow-edit-log-threshold", 1000));
 
         String snapshotsDir = getString("snapshots-dir", "");
         boolean experimentalSnapshots = getBool("snapshots-experimental", false);
-        initializeSnapshotConfiguration(snapshotsDir, experimentalSnapshots);
+        boolean deduplicateSnapshots = getBool("snapshots-deduplicate", false);
+        initializeSnapshotConfiguration(snapshotsDir, experimentalSnapshots, deduplicateSnapshots);
 
         path.getParentFile().mkdirs();
         try (OutputStream output = new FileOutputStream(path)) {
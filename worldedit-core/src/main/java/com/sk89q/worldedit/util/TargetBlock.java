@@ -30,23 +30,41 @@
 import javax.annotation.Nullable;
 
 /**
- * This class uses an inefficient method to figure out what block a player
- * is looking towards.
+ * Figures out what block a player is looking towards.
+ *
+ * <p>The line of sight is walked with a voxel traversal (Amanatides &amp; Woo,
+ * "A Fast Voxel Traversal Algorithm for Ray Tracing"), so every block the line
+ * passes through is visited exactly once, in order, and no block is skipped
+ * however thin the slice of it the line crosses.</p>
  *
  * <p>Originally written by toi. It was ported to WorldEdit and trimmed down by
  * sk89q. Thanks to Raphfrk for optimization of toi's original class.</p>
  */
 public class TargetBlock {
 
+    private static final double DEFAULT_VIEW_HEIGHT = 1.65;
+
     private final World world;
 
     private int maxDistance;
-    private double checkDistance;
+    // distance along the line at which the current block was entered
     private double curDistance;
     private BlockVector3 targetPos = BlockVector3.ZERO;
-    private Vector3 targetPosDouble = Vector3.ZERO;
     private BlockVector3 prevPos = BlockVector3.ZERO;
-    private Vector3 offset = Vector3.ZERO;
+    @Nullable
+    private Direction face;
+
+    // traversal state: the step direction per axis, the distance at which the
+    // next boundary on each axis is crossed, and the distance between boundaries
+    private int stepX;
+    private int stepY;
+    private int stepZ;
+    private double nextX;
+    private double nextY;
+    private double nextZ;
+    private double deltaX;
+    private double deltaY;
+    private double deltaZ;
 
     // the mask which dictates when to stop a trace - defaults to stopping at non-air blocks
     private Mask stopMask;
@@ -59,9 +77,19 @@ public class TargetBlock {
      * @param player player to work with
      */
     public TargetBlock(Player player) {
+        this(player, 300);
+    }
+
+    /**
+     * Constructor requiring a player and a max distance.
+     *
+     * @param player Player to work with
+     * @param maxDistance how far it checks for blocks
+     */
+    public TargetBlock(Player player, int maxDistance) {
         this.world = player.getWorld();
         this.setValues(player.getLocation().toVector(), player.getLocation().getYaw(), player.getLocation().getPitch(),
-                300, 1.65, 0.2);
+                maxDistance, DEFAULT_VIEW_HEIGHT);
         this.stopMask = new ExistingBlockMask(world);
         this.solidMask = new SolidBlockMask(world);
     }
@@ -71,13 +99,12 @@ public TargetBlock(Player player) {
      *
      * @param player Player to work with
      * @param maxDistance how far it checks for blocks
-     * @param checkDistance how often to check for blocks, the smaller the more precise
+     * @param checkDistance ignored, every block along the line is checked
+     * @deprecated every block along the line is visited, use {@link #TargetBlock(Player, int)}
      */
+    @Deprecated
     public TargetBlock(Player player, int maxDistance, double checkDistance) {
-        this.world = player.getWorld();
-        this.setValues(player.getLocation().toVector(), player.getLocation().getYaw(), player.getLocation().getPitch(), maxDistance, 1.65, checkDistance);
-        this.stopMask = new ExistingBlockMask(world);
-        this.solidMask = new SolidBlockMask(world);
+        this(player, maxDistance);
     }
 
     /**
@@ -116,24 +143,76 @@ public void setSolidMask(@Nullable Mask solidMask) {
      * @param rotationY the Y rotation
      * @param maxDistance how far it checks for blocks
      * @param viewHeight where the view is positioned in y-axis
-     * @param checkDistance how often to check for blocks, the smaller the more precise
      */
-    private void setValues(Vector3 loc, double rotationX, double rotationY, int maxDistance, double viewHeight, double checkDistance) {
+    private void setValues(Vector3 loc, double rotationX, double rotationY, int maxDistance, double viewHeight) {
         this.maxDistance = maxDistance;
-        this.checkDistance = checkDistance;
         this.curDistance = 0;
+        this.face = null;
         rotationX = (rotationX + 90) % 360;
         rotationY *= -1;
 
-        double h = (checkDistance * Math.cos(Math.toRadians(rotationY)));
+        double h = Math.cos(Math.toRadians(rotationY));
+        double dirX = h * Math.cos(Math.toRadians(rotationX));
+        double dirY = Math.sin(Math.toRadians(rotationY));
+        double dirZ = h * Math.sin(Math.toRadians(rotationX));
+
+        Vector3 origin = loc.add(0, viewHeight, 0);
+        targetPos = origin.toBlockPoint();
+        prevPos = targetPos;
+
+        stepX = (int) Math.signum(dirX);
+        stepY = (int) Math.signum(dirY);
+        stepZ = (int) Math.signum(dirZ);
+        deltaX = stepX == 0 ? Double.POSITIVE_INFINITY : 1 / Math.abs(dirX);
+        deltaY = stepY == 0 ? Double.POSITIVE_INFINITY : 1 / Math.abs(dirY);
+        deltaZ = stepZ == 0 ? Double.POSITIVE_INFINITY : 1 / Math.abs(dirZ);
+        nextX = firstBoundary(origin.getX(), targetPos.getX(), stepX, deltaX);
+        nextY = firstBoundary(origin.getY(), targetPos.getY(), stepY, deltaY);
+        nextZ = firstBoundary(origin.getZ(), targetPos.getZ(), stepZ, deltaZ);
+    }
 
-        offset = Vector3.at((h * Math.cos(Math.toRadians(rotationX))),
-                            (checkDistance * Math.sin(Math.toRadians(rotationY))),
-                            (h * Math.sin(Math.toRadians(rotationX))));
+    /**
+     * Get the distance along the line to the first block boundary on an axis.
+     */
+    private static double firstBoundary(double origin, int block, int step, double delta) {
+        if (step == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double toBoundary = step > 0 ? block + 1 - origin : origin - block;
+        return toBoundary * delta;
+    }
 
-        targetPosDouble = loc.add(0, viewHeight, 0);
-        targetPos = targetPosDouble.toBlockPoint();
+    /**
+     * Move to the next block along the line.
+     *
+     * @return false if the next block is out of range
+     */
+    private boolean advance() {
+        if (curDistance > maxDistance) {
+            return false;
+        }
         prevPos = targetPos;
+        int x = targetPos.getX();
+        int y = targetPos.getY();
+        int z = targetPos.getZ();
+        if (nextX <= nextY && nextX <= nextZ) {
+            curDistance = nextX;
+            nextX += deltaX;
+            x += stepX;
+            face = stepX > 0 ? Direction.WEST : Direction.EAST;
+        } else if (nextY <= nextZ) {
+            curDistance = nextY;
+            nextY += deltaY;
+            y += stepY;
+            face = stepY > 0 ? Direction.DOWN : Direction.UP;
+        } else {
+            curDistance = nextZ;
+            nextZ += deltaZ;
+            z += stepZ;
+            face = stepZ > 0 ? Direction.NORTH : Direction.SOUTH;
+        }
+        targetPos = BlockVector3.at(x, y, z);
+        return curDistance <= maxDistance;
     }
 
     /**
@@ -144,13 +223,13 @@ private void setValues(Vector3 loc, double rotationX, double rotationY, int maxD
      */
     public Location getAnyTargetBlock() {
         boolean searchForLastBlock = true;
-        Location lastBlock = null;
-        while (getNextBlock() != null) {
+        BlockVector3 lastBlock = null;
+        while (advance()) {
             if (stopMask.test(targetPos)) {
                 break;
             } else {
                 if (searchForLastBlock) {
-                    lastBlock = getCurrentBlock();
+                    lastBlock = targetPos;
                     if (lastBlock.getBlockY() <= world.getMinY()
                         || lastBlock.getBlockY() >= world.getMaxY()) {
                         searchForLastBlock = false;
@@ -159,7 +238,10 @@ public Location getAnyTargetBlock() {
             }
         }
         Location currentBlock = getCurrentBlock();
-        return (currentBlock != null ? currentBlock : lastBlock);
+        if (currentBlock != null) {
+            return currentBlock;
+        }
+        return lastBlock != null ? new Location(world, lastBlock.toVector3()) : null;
     }
 
     /**
@@ -170,7 +252,7 @@ public Location getAnyTargetBlock() {
      */
     public Location getTargetBlock() {
         //noinspection StatementWithEmptyBody
-        while (getNextBlock() != null && !stopMask.test(targetPos)) {
+        while (advance() && !stopMask.test(targetPos)) {
         }
         return getCurrentBlock();
     }
@@ -183,7 +265,7 @@ public Location getTargetBlock() {
      */
     public Location getSolidTargetBlock() {
         //noinspection StatementWithEmptyBody
-        while (getNextBlock() != null && !solidMask.test(targetPos)) {
+        while (advance() && !solidMask.test(targetPos)) {
         }
         return getCurrentBlock();
     }
@@ -194,20 +276,7 @@ public Location getSolidTargetBlock() {
      * @return next block position
      */
     public Location getNextBlock() {
-        prevPos = targetPos;
-        do {
-            curDistance += checkDistance;
-
-            targetPosDouble = offset.add(targetPosDouble.getX(),
-                                         targetPosDouble.getY(),
-                                         targetPosDouble.getZ());
-            targetPos = targetPosDouble.toBlockPoint();
-        } while (curDistance <= maxDistance
-                && targetPos.getBlockX() == prevPos.getBlockX()
-                && targetPos.getBlockY() == prevPos.getBlockY()
-                && targetPos.getBlockZ() == prevPos.getBlockZ());
-
-        if (curDistance > maxDistance) {
+        if (!advance()) {
             return null;
         }
 
@@ -227,6 +296,27 @@ public Location getCurrentBlock() {
         }
     }
 
+    /**
+     * Returns the distance from the eyes to the point where the line of
+     * vision entered the current block.
+     *
+     * @return the distance, in blocks
+     */
+    public double getCurrentDistance() {
+        return curDistance;
+    }
+
+    /**
+     * Returns the face of the current block that the line of vision entered
+     * through.
+     *
+     * @return the face, or null if the line has not left the starting block
+     */
+    @Nullable
+    public Direction getCurrentFace() {
+        return face;
+    }
+
     /**
      * Returns the previous block in the aimed path.
      *
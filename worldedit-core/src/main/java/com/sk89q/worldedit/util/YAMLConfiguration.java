@@ -24,6 +24,7 @@
 import com.sk89q.worldedit.LocalConfiguration;
 import com.sk89q.worldedit.LocalSession;
 import com.sk89q.worldedit.session.SessionManager;
+import com.sk89q.worldedit.util.metrics.PerformanceMetrics;
 import com.sk89q.worldedit.util.report.Unreported;
 import org.slf4j.Logger;
 
@@ -114,13 +115,18 @@ public void load() {
         allowSymlinks = config.getBoolean("files.allow-symbolic-links", false);
         LocalSession.MAX_HISTORY_SIZE = Math.max(0, config.getInt("history.size", 15));
         SessionManager.EXPIRATION_GRACE = config.getInt("history.expiration", 10) * 60 * 1000;
+        SessionManager.setHistoryMemoryLimits(config.getInt("history.memory-budget", 0),
+            config.getInt("history.player-soft-limit", -1));
+        PerformanceMetrics.configure(config.getBoolean("perf.enabled", false),
+            config.getInt("perf.slow-edit-log-threshold", 1000));
 
         showHelpInfo = config.getBoolean("show-help-on-first-use", true);
         serverSideCUI = config.getBoolean("server-side-cui", true);
 
         String snapshotsDir = config.getString("snapshots.directory", "");
         boolean experimentalSnapshots = config.getBoolean("snapshots.experimental", false);
-        initializeSnapshotConfiguration(snapshotsDir, experimentalSnapshots);
+        boolean deduplicateSnapshots = config.getBoolean("snapshots.deduplicate", false);
+        initializeSnapshotConfiguration(snapshotsDir, experimentalSnapshots, deduplicateSnapshots);
 
         String type = config.getString("shell-save-type", "").trim();
         shellSaveType = type.isEmpty() ? null : type;
@@ -0,0 +1,518 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.collection;
+
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A buffer of block changes, grouped by the 16x16x16 chunk section that
+ * they fall into.
+ *
+ * <p>Each position holds at most one block, so adding a block at a position
+ * that was already added replaces the earlier block. Sections are visited in
+ * the order they were first added to, unless re-ordered with
+ * {@link #sortSections(Comparator)}, and the blocks of a section are visited
+ * from the top down.</p>
+ */
+public final class BlockBatch {
+
+    /**
+     * Receives the blocks of a batch.
+     */
+    @FunctionalInterface
+    public interface BlockConsumer {
+
+        /**
+         * Accept a block.
+         *
+         * @param x the X coordinate
+         * @param y the Y coordinate
+         * @param z the Z coordinate
+         * @param block the block
+         * @throws WorldEditException thrown on an error
+         */
+        void accept(int x, int y, int z, BaseBlock block) throws WorldEditException;
+
+    }
+
+    /**
+     * Decides which blocks of a batch to keep.
+     */
+    @FunctionalInterface
+    public interface BlockFilter {
+
+        /**
+         * Test a block.
+         *
+         * @param x the X coordinate
+         * @param y the Y coordinate
+         * @param z the Z coordinate
+         * @param block the block
+         * @return true to keep the block
+         */
+        boolean test(int x, int y, int z, BaseBlock block);
+
+    }
+
+    /**
+     * The blocks of one chunk section.
+     */
+    public static final class Section {
+
+        private final int x;
+        private final int y;
+        private final int z;
+        // Sections start out with a map, and switch to a palette index per
+        // block once they hold enough blocks for that to be smaller
+        @Nullable
+        private Int2ObjectMap<BaseBlock> sparse = new Int2BaseBlockMap();
+        @Nullable
+        private char[] dense;
+        @Nullable
+        private BlockPalette palette;
+        @Nullable
+        private Int2ObjectMap<BaseBlock> unpaletted;
+        private int size;
+
+        private Section(int x, int y, int z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        @Nullable
+        private BaseBlock get(int index) {
+            if (dense == null) {
+                return sparse.get(index);
+            }
+            char entry = dense[index];
+            if (entry == ABSENT) {
+                return null;
+            }
+            if (entry == UNPALETTED) {
+                return unpaletted.get(index);
+            }
+            return palette.get(entry - 1);
+        }
+
+        /**
+         * Put a block into this section.
+         *
+         * @return true if there was no block at the index yet
+         */
+        private boolean put(int index, BaseBlock block) {
+            if (dense == null) {
+                if (sparse.put(index, block) != null) {
+                    return false;
+                }
+                size++;
+                if (size > DENSE_THRESHOLD) {
+                    toDense();
+                }
+                return true;
+            }
+            char previous = dense[index];
+            if (previous == UNPALETTED) {
+                unpaletted.remove(index);
+            }
+            int paletteIndex = palette.indexOf(block);
+            if (paletteIndex == BlockPalette.NOT_PALETTED || paletteIndex + 1 >= UNPALETTED) {
+                if (unpaletted == null) {
+                    unpaletted = new Int2ObjectOpenHashMap<>();
+                }
+                unpaletted.put(index, block);
+                dense[index] = UNPALETTED;
+            } else {
+                dense[index] = (char) (paletteIndex + 1);
+            }
+            if (previous == ABSENT) {
+                size++;
+                return true;
+            }
+            return false;
+        }
+
+        private void toDense() {
+            Int2ObjectMap<BaseBlock> blocks = sparse;
+            sparse = null;
+            dense = new char[SECTION_VOLUME];
+            palette = new BlockPalette();
+            size = 0;
+            for (ObjectIterator<Int2ObjectMap.Entry<BaseBlock>> iter = Int2ObjectMaps.fastIterator(blocks);
+                 iter.hasNext(); ) {
+                Int2ObjectMap.Entry<BaseBlock> entry = iter.next();
+                put(entry.getIntKey(), entry.getValue());
+            }
+        }
+
+        /**
+         * Get the X coordinate of this section, in sections.
+         *
+         * @return the X coordinate
+         */
+        public int getX() {
+            return x;
+        }
+
+        /**
+         * Get the Y coordinate of this section, in sections.
+         *
+         * @return the Y coordinate
+         */
+        public int getY() {
+            return y;
+        }
+
+        /**
+         * Get the Z coordinate of this section, in sections.
+         *
+         * @return the Z coordinate
+         */
+        public int getZ() {
+            return z;
+        }
+
+        /**
+         * Get the number of blocks in this section.
+         *
+         * @return the number of blocks
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Visit every block in this section, from the top down.
+         *
+         * @param consumer the consumer
+         * @throws WorldEditException thrown by the consumer
+         */
+        public void forEach(BlockConsumer consumer) throws WorldEditException {
+            if (dense != null) {
+                for (int index = SECTION_VOLUME - 1; index >= 0; index--) {
+                    if (dense[index] != ABSENT) {
+                        accept(consumer, index, get(index));
+                    }
+                }
+                return;
+            }
+            int[] indices = sparse.keySet().toIntArray();
+            Arrays.sort(indices);
+            for (int i = indices.length - 1; i >= 0; i--) {
+                accept(consumer, indices[i], sparse.get(indices[i]));
+            }
+        }
+
+        private void accept(BlockConsumer consumer, int index, BaseBlock block) throws WorldEditException {
+            consumer.accept(
+                (x << SECTION_SHIFT) + (index & SECTION_MASK),
+                (y << SECTION_SHIFT) + (index >>> (SECTION_SHIFT + SECTION_SHIFT)),
+                (z << SECTION_SHIFT) + ((index >>> SECTION_SHIFT) & SECTION_MASK),
+                block
+            );
+        }
+
+    }
+
+    private static final int SECTION_SHIFT = 4;
+    private static final int SECTION_MASK = (1 << SECTION_SHIFT) - 1;
+    private static final int SECTION_VOLUME = 1 << (SECTION_SHIFT * 3);
+
+    /*
+     * Dense sections store one char per block: 0 for no block, the palette
+     * index + 1 for paletted blocks, and UNPALETTED for blocks with NBT data,
+     * which are kept in a side map. At 2 bytes per block this is smaller
+     * than the map once a quarter of the section is filled.
+     */
+    private static final int DENSE_THRESHOLD = SECTION_VOLUME / 4;
+    private static final char ABSENT = 0;
+    private static final char UNPALETTED = Character.MAX_VALUE;
+
+    /*
+     * Section keys store 22 bits each of x and z, which covers the whole
+     * 30 million block world border, and 20 bits of y.
+     */
+    private static final long BITS_22 = (1L << 22) - 1;
+    private static final long BITS_20 = (1L << 20) - 1;
+
+    private static long toSectionKey(int sectionX, int sectionY, int sectionZ) {
+        return (sectionX & BITS_22)
+            | ((sectionZ & BITS_22) << 22)
+            | ((sectionY & BITS_20) << (22 + 22));
+    }
+
+    private static int toIndex(int x, int y, int z) {
+        return (x & SECTION_MASK)
+            | ((z & SECTION_MASK) << SECTION_SHIFT)
+            | ((y & SECTION_MASK) << (SECTION_SHIFT + SECTION_SHIFT));
+    }
+
+    private final Long2ObjectLinkedOpenHashMap<Section> sections = new Long2ObjectLinkedOpenHashMap<>();
+    private final Collection<Section> sectionView = Collections.unmodifiableCollection(sections.values());
+    // consecutive changes usually hit the same section
+    @Nullable
+    private Section lastSection;
+    private int size;
+    private boolean readOnly;
+
+    @Nullable
+    private Section getSection(int x, int y, int z) {
+        Section last = lastSection;
+        int sectionX = x >> SECTION_SHIFT;
+        int sectionY = y >> SECTION_SHIFT;
+        int sectionZ = z >> SECTION_SHIFT;
+        if (last != null && last.x == sectionX && last.y == sectionY && last.z == sectionZ) {
+            return last;
+        }
+        Section section = sections.get(toSectionKey(sectionX, sectionY, sectionZ));
+        if (section != null) {
+            lastSection = section;
+        }
+        return section;
+    }
+
+    private Section getOrCreateSection(int x, int y, int z) {
+        Section section = getSection(x, y, z);
+        if (section == null) {
+            int sectionX = x >> SECTION_SHIFT;
+            int sectionY = y >> SECTION_SHIFT;
+            int sectionZ = z >> SECTION_SHIFT;
+            section = new Section(sectionX, sectionY, sectionZ);
+            sections.put(toSectionKey(sectionX, sectionY, sectionZ), section);
+            lastSection = section;
+        }
+        return section;
+    }
+
+    /**
+     * Add a block to the batch, replacing any block already at that position.
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @param block the block
+     */
+    public <B extends BlockStateHolder<B>> void add(int x, int y, int z, B block) {
+        checkNotNull(block);
+        checkState(!readOnly, "This batch shares its sections with another batch");
+        Section section = getOrCreateSection(x, y, z);
+        if (section.put(toIndex(x, y, z), block.toBaseBlock())) {
+            size++;
+        }
+    }
+
+    /**
+     * Add a block to the batch, replacing any block already at that position.
+     *
+     * @param position the position
+     * @param block the block
+     */
+    public <B extends BlockStateHolder<B>> void add(BlockVector3 position, B block) {
+        add(position.getX(), position.getY(), position.getZ(), block);
+    }
+
+    /**
+     * Add all blocks of another batch to this one.
+     *
+     * @param other the other batch
+     */
+    public void addAll(BlockBatch other) {
+        if (other == this) {
+            return;
+        }
+        try {
+            other.forEach(this::add);
+        } catch (WorldEditException e) {
+            throw new AssertionError("Adding to a batch does not throw", e);
+        }
+    }
+
+    /**
+     * Get the block at the given position.
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @return the block, or {@code null} if the batch has no block there
+     */
+    @Nullable
+    public BaseBlock get(int x, int y, int z) {
+        Section section = getSection(x, y, z);
+        return section == null ? null : section.get(toIndex(x, y, z));
+    }
+
+    /**
+     * Get the block at the given position.
+     *
+     * @param position the position
+     * @return the block, or {@code null} if the batch has no block there
+     */
+    @Nullable
+    public BaseBlock get(BlockVector3 position) {
+        return get(position.getX(), position.getY(), position.getZ());
+    }
+
+    /**
+     * Get the number of blocks in this batch.
+     *
+     * @return the number of blocks
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Remove all blocks from this batch.
+     */
+    public void clear() {
+        checkState(!readOnly, "This batch shares its sections with another batch");
+        sections.clear();
+        lastSection = null;
+        size = 0;
+    }
+
+    /**
+     * Get an unmodifiable view of the sections of this batch, in visiting order.
+     *
+     * @return the sections
+     */
+    public Collection<Section> getSections() {
+        return sectionView;
+    }
+
+    /**
+     * Re-order the sections of this batch.
+     *
+     * @param comparator the section order
+     */
+    public void sortSections(Comparator<? super Section> comparator) {
+        List<Section> sorted = new ArrayList<>(sections.values());
+        sorted.sort(comparator);
+        sections.clear();
+        for (Section section : sorted) {
+            sections.put(toSectionKey(section.x, section.y, section.z), section);
+        }
+    }
+
+    /**
+     * Get the blocks of this batch that pass the given filter.
+     *
+     * @param filter the filter
+     * @return this batch if every block passes, otherwise a new batch
+     */
+    public BlockBatch filter(BlockFilter filter) {
+        BitSet rejected = new BitSet();
+        int[] index = new int[1];
+        try {
+            forEach((x, y, z, block) -> {
+                if (!filter.test(x, y, z, block)) {
+                    rejected.set(index[0]);
+                }
+                index[0]++;
+            });
+        } catch (WorldEditException e) {
+            throw new AssertionError("Filtering a batch does not throw", e);
+        }
+        if (rejected.isEmpty()) {
+            return this;
+        }
+        BlockBatch accepted = new BlockBatch();
+        index[0] = 0;
+        try {
+            forEach((x, y, z, block) -> {
+                if (!rejected.get(index[0])) {
+                    accepted.add(x, y, z, block);
+                }
+                index[0]++;
+            });
+        } catch (WorldEditException e) {
+            throw new AssertionError("Filtering a batch does not throw", e);
+        }
+        return accepted;
+    }
+
+    /**
+     * Split this batch into batches of whole sections, each holding roughly
+     * {@code maxBlocks} blocks or fewer, unless a single section is larger.
+     *
+     * <p>The returned batches share their sections with this batch, and so
+     * can not be modified, and are only valid while this batch is not
+     * modified either.</p>
+     *
+     * @param maxBlocks the preferred number of blocks per batch
+     * @return the batches, in visiting order
+     */
+    public List<BlockBatch> partition(int maxBlocks) {
+        checkArgument(maxBlocks > 0, "maxBlocks must be positive");
+        if (size <= maxBlocks) {
+            return Collections.singletonList(this);
+        }
+        List<BlockBatch> parts = new ArrayList<>();
+        BlockBatch part = null;
+        for (Section section : sections.values()) {
+            if (part == null || (part.size > 0 && part.size + section.size() > maxBlocks)) {
+                part = new BlockBatch();
+                part.readOnly = true;
+                parts.add(part);
+            }
+            part.sections.put(toSectionKey(section.x, section.y, section.z), section);
+            part.size += section.size();
+        }
+        return parts;
+    }
+
+    /**
+     * Visit every block in this batch, section by section.
+     *
+     * @param consumer the consumer
+     * @throws WorldEditException thrown by the consumer
+     */
+    public void forEach(BlockConsumer consumer) throws WorldEditException {
+        for (Section section : sections.values()) {
+            section.forEach(consumer);
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.collection;
+
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Assigns small indices to block states, so that blocks can be stored
+ * in primitive arrays.
+ *
+ * <p>Blocks with NBT data can't be shared between positions, so they
+ * are not paletted.</p>
+ */
+final class BlockPalette {
+
+    static final int NOT_PALETTED = -1;
+
+    private final List<BlockState> states = new ArrayList<>();
+    private final Object2IntMap<BlockState> indices = new Object2IntOpenHashMap<>();
+
+    {
+        indices.defaultReturnValue(NOT_PALETTED);
+    }
+
+    /**
+     * Get the index of the given block, adding it to the palette if needed.
+     *
+     * @param block the block
+     * @return the index, or {@link #NOT_PALETTED} if the block has NBT data
+     */
+    int indexOf(BaseBlock block) {
+        if (block.hasNbtData()) {
+            return NOT_PALETTED;
+        }
+        BlockState state = block.toImmutableState();
+        int index = indices.getInt(state);
+        if (index == NOT_PALETTED) {
+            index = states.size();
+            states.add(state);
+            indices.put(state, index);
+        }
+        return index;
+    }
+
+    BaseBlock get(int index) {
+        return states.get(index).toBaseBlock();
+    }
+
+    int size() {
+        return states.size();
+    }
+
+}
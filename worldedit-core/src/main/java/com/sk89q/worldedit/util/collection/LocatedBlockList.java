@@ -34,10 +34,13 @@
 
 /**
  * Wrapper around a list of blocks located in the world.
+ *
+ * <p>The blocks are kept in a {@link BlockBatch}, so densely filled areas
+ * cost a palette index per block rather than a reference.</p>
  */
 public class LocatedBlockList implements Iterable<LocatedBlock> {
 
-    private final BlockMap<BaseBlock> blocks = BlockMap.createForBaseBlock();
+    private final BlockBatch blocks = new BlockBatch();
     private final PositionList order = PositionList.create(
         WorldEdit.getInstance().getConfiguration().extendedYLimit
     );
@@ -57,12 +60,12 @@ public void add(LocatedBlock setBlockCall) {
     }
 
     public <B extends BlockStateHolder<B>> void add(BlockVector3 location, B block) {
-        blocks.put(location, block.toBaseBlock());
+        blocks.add(location, block);
         order.add(location);
     }
 
     public boolean containsLocation(BlockVector3 location) {
-        return blocks.containsKey(location);
+        return blocks.get(location) != null;
     }
 
     public @Nullable BaseBlock get(BlockVector3 location) {
@@ -0,0 +1,157 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.collection;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * An immutable index for looking up values by the prefix of their key.
+ *
+ * <p>Keys are kept in a sorted array, so a prefix lookup is a binary search
+ * for the first matching key followed by a scan of the matching range,
+ * instead of a test against every key.</p>
+ *
+ * @param <V> the value type
+ */
+public final class PrefixIndex<V> {
+
+    /**
+     * Create an index where each string is both key and value.
+     *
+     * @param keys the keys
+     * @return the index
+     */
+    public static PrefixIndex<String> ofKeys(Collection<String> keys) {
+        String[] sorted = keys.toArray(new String[0]);
+        Arrays.sort(sorted);
+        return new PrefixIndex<>(sorted, sorted);
+    }
+
+    /**
+     * Create an index from the entries of a map.
+     *
+     * <p>Entries with equal keys keep the iteration order of the map.</p>
+     *
+     * @param entries the entries
+     * @param <V> the value type
+     * @return the index
+     */
+    public static <V> PrefixIndex<V> ofEntries(Collection<? extends Map.Entry<String, ? extends V>> entries) {
+        @SuppressWarnings("unchecked")
+        Map.Entry<String, ? extends V>[] sorted = entries.toArray(new Map.Entry[0]);
+        Arrays.sort(sorted, Comparator.comparing(Map.Entry::getKey));
+        String[] keys = new String[sorted.length];
+        Object[] values = new Object[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            keys[i] = sorted[i].getKey();
+            values[i] = sorted[i].getValue();
+        }
+        return new PrefixIndex<>(keys, values);
+    }
+
+    private final String[] keys;
+    private final Object[] values;
+
+    private PrefixIndex(String[] keys, Object[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * Get the number of entries in this index.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Get all values, ordered by key.
+     *
+     * @return the values
+     */
+    public Stream<V> values() {
+        return range(0, keys.length);
+    }
+
+    /**
+     * Get the values whose key starts with the given prefix, ordered by key.
+     *
+     * @param prefix the prefix
+     * @return the matching values
+     */
+    public Stream<V> withPrefix(String prefix) {
+        int start = lowerBound(prefix);
+        int end = start;
+        while (end < keys.length && keys[end].startsWith(prefix)) {
+            end++;
+        }
+        return range(start, end);
+    }
+
+    /**
+     * Get the values whose key starts with the given prefix, ordered by key.
+     *
+     * @param prefix the prefix
+     * @return the matching values
+     */
+    public List<V> listWithPrefix(String prefix) {
+        return withPrefix(prefix).collect(ImmutableList.toImmutableList());
+    }
+
+    /**
+     * Check if any key starts with the given prefix.
+     *
+     * @param prefix the prefix
+     * @return {@code true} if a key matches
+     */
+    public boolean hasPrefix(String prefix) {
+        int start = lowerBound(prefix);
+        return start < keys.length && keys[start].startsWith(prefix);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Stream<V> range(int start, int end) {
+        return Arrays.stream(values, start, end).map(v -> (V) v);
+    }
+
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+}
@@ -19,6 +19,8 @@
 
 package com.sk89q.worldedit.util.eventbus;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.SetMultimap;
@@ -27,13 +29,11 @@
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -44,16 +44,29 @@
  * <p>This class is based on Guava's {@link EventBus} but priority is supported
  * and events are dispatched at the time of call, rather than being queued up.
  * This does allow dispatching during an in-progress dispatch.</p>
+ *
+ * <p>Handlers are resolved once per concrete event class into a sorted array,
+ * which is thrown away whenever handlers are added or removed. Posting an
+ * event whose class has been seen before takes no locks.</p>
  */
 public final class EventBus {
 
+    private static final EventHandler[] NO_HANDLERS = new EventHandler[0];
+
     private final Logger logger = LoggerFactory.getLogger(EventBus.class);
 
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object lock = new Object();
 
     private final SetMultimap<Class<?>, EventHandler> handlersByType =
         HashMultimap.create();
 
+    /**
+     * Sorted handlers by concrete event class. Replaced on every change to
+     * {@link #handlersByType}, and only filled while holding {@link #lock},
+     * so a table never holds handlers from an older registration state.
+     */
+    private volatile Cache<Class<?>, EventHandler[]> dispatchTable = newDispatchTable();
+
     /**
      * Strategy for finding handler methods in registered objects.  Currently,
      * only the {@link AnnotatedSubscriberFinder} is supported, but this is
@@ -63,6 +76,10 @@ public final class EventBus {
 
     private final HierarchyCache flattenHierarchyCache = new HierarchyCache();
 
+    private static Cache<Class<?>, EventHandler[]> newDispatchTable() {
+        return CacheBuilder.newBuilder().weakKeys().build();
+    }
+
     /**
      * Registers the given handler for the given class to receive events.
      *
@@ -72,11 +89,10 @@ public final class EventBus {
     public void subscribe(Class<?> clazz, EventHandler handler) {
         checkNotNull(clazz);
         checkNotNull(handler);
-        lock.writeLock().lock();
-        try {
-            handlersByType.put(clazz, handler);
-        } finally {
-            lock.writeLock().unlock();
+        synchronized (lock) {
+            if (handlersByType.put(clazz, handler)) {
+                dispatchTable = newDispatchTable();
+            }
         }
     }
 
@@ -87,11 +103,10 @@ public void subscribe(Class<?> clazz, EventHandler handler) {
      */
     public void subscribeAll(Multimap<Class<?>, EventHandler> handlers) {
         checkNotNull(handlers);
-        lock.writeLock().lock();
-        try {
-            handlersByType.putAll(handlers);
-        } finally {
-            lock.writeLock().unlock();
+        synchronized (lock) {
+            if (handlersByType.putAll(handlers)) {
+                dispatchTable = newDispatchTable();
+            }
         }
     }
 
@@ -104,11 +119,10 @@ public void subscribeAll(Multimap<Class<?>, EventHandler> handlers) {
     public void unsubscribe(Class<?> clazz, EventHandler handler) {
         checkNotNull(clazz);
         checkNotNull(handler);
-        lock.writeLock().lock();
-        try {
-            handlersByType.remove(clazz, handler);
-        } finally {
-            lock.writeLock().unlock();
+        synchronized (lock) {
+            if (handlersByType.remove(clazz, handler)) {
+                dispatchTable = newDispatchTable();
+            }
         }
     }
 
@@ -119,13 +133,14 @@ public void unsubscribe(Class<?> clazz, EventHandler handler) {
      */
     public void unsubscribeAll(Multimap<Class<?>, EventHandler> handlers) {
         checkNotNull(handlers);
-        lock.writeLock().lock();
-        try {
+        synchronized (lock) {
+            boolean changed = false;
             for (Map.Entry<Class<?>, Collection<EventHandler>> entry : handlers.asMap().entrySet()) {
-                handlersByType.get(entry.getKey()).removeAll(entry.getValue());
+                changed |= handlersByType.get(entry.getKey()).removeAll(entry.getValue());
+            }
+            if (changed) {
+                dispatchTable = newDispatchTable();
             }
-        } finally {
-            lock.writeLock().unlock();
         }
     }
 
@@ -159,11 +174,34 @@ public void unregister(Object object) {
      * @param event  event to post.
      */
     public void post(Object event) {
-        List<EventHandler> dispatching = new ArrayList<>();
+        Class<?> eventClass = event.getClass();
+        EventHandler[] dispatching = dispatchTable.getIfPresent(eventClass);
+        if (dispatching == null) {
+            dispatching = resolveHandlers(eventClass);
+        }
 
-        Set<Class<?>> dispatchTypes = flattenHierarchyCache.get(event.getClass());
-        lock.readLock().lock();
-        try {
+        for (EventHandler handler : dispatching) {
+            dispatch(event, handler);
+        }
+    }
+
+    /**
+     * Collect and sort the handlers for an event class, and remember them
+     * in the current dispatch table.
+     *
+     * @param eventClass the concrete event class
+     * @return the handlers, in dispatch order
+     */
+    private EventHandler[] resolveHandlers(Class<?> eventClass) {
+        Set<Class<?>> dispatchTypes = flattenHierarchyCache.get(eventClass);
+        synchronized (lock) {
+            Cache<Class<?>, EventHandler[]> table = dispatchTable;
+            EventHandler[] handlers = table.getIfPresent(eventClass);
+            if (handlers != null) {
+                return handlers;
+            }
+
+            List<EventHandler> dispatching = new ArrayList<>();
             for (Class<?> eventType : dispatchTypes) {
                 Set<EventHandler> wrappers = handlersByType.get(eventType);
 
@@ -171,14 +209,12 @@ public void post(Object event) {
                     dispatching.addAll(wrappers);
                 }
             }
-        } finally {
-            lock.readLock().unlock();
-        }
 
-        Collections.sort(dispatching);
-
-        for (EventHandler handler : dispatching) {
-            dispatch(event, handler);
+            handlers = dispatching.isEmpty() ? NO_HANDLERS : dispatching.toArray(NO_HANDLERS);
+            // stable, so handlers of equal priority keep a consistent order
+            Arrays.sort(handlers);
+            table.put(eventClass, handlers);
+            return handlers;
         }
     }
 
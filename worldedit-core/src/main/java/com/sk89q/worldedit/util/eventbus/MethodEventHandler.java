@@ -19,17 +19,43 @@
 
 package com.sk89q.worldedit.util.eventbus;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Invokes a {@link Method} to dispatch an event.
+ *
+ * <p>Where the method's class can be linked against directly, the call goes
+ * through a class generated by {@link LambdaMetafactory}, which the JIT can
+ * inline like a normal call. Other methods, such as those on non-public
+ * classes, are called through a {@link MethodHandle}. Neither path uses
+ * reflection once the handler has been created.</p>
  */
 public class MethodEventHandler extends EventHandler {
 
+    /**
+     * Calls an event handler method on a listener.
+     */
+    @FunctionalInterface
+    private interface Invoker {
+
+        void invoke(Object listener, Object event) throws Exception;
+
+    }
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
     private final Object object;
     private final Method method;
+    private final Invoker invoker;
 
     /**
      * Create a new event handler.
@@ -42,6 +68,70 @@ public MethodEventHandler(Priority priority, Object object, Method method) {
         checkNotNull(method);
         this.object = object;
         this.method = method;
+        this.invoker = createInvoker(method);
+    }
+
+    private static Invoker createInvoker(Method method) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle handle;
+        try {
+            method.setAccessible(true);
+            handle = lookup.unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot access event handler " + method, e);
+        }
+        if (canLinkDirectly(method)) {
+            try {
+                CallSite site = LambdaMetafactory.metafactory(
+                    lookup, "invoke", MethodType.methodType(Invoker.class),
+                    INVOKER_TYPE, handle, handle.type().changeReturnType(void.class)
+                );
+                return (Invoker) site.getTarget().invoke();
+            } catch (Throwable ignored) {
+                // fall back to the method handle below
+            }
+        }
+        MethodHandle target = Modifier.isStatic(method.getModifiers())
+            ? MethodHandles.dropArguments(handle, 0, Object.class)
+            : handle;
+        MethodHandle generic = target.asType(INVOKER_TYPE);
+        return (listener, event) -> {
+            try {
+                generic.invokeExact(listener, event);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new UndeclaredThrowableException(t);
+            }
+        };
+    }
+
+    /**
+     * Check whether a class generated in this package can call the method.
+     * The generated class links against the method's class by name from this
+     * class loader, so the class must be public, not static (the generated
+     * interface takes a receiver), and visible from here.
+     */
+    private static boolean canLinkDirectly(Method method) {
+        if (Modifier.isStatic(method.getModifiers()) || !Modifier.isPublic(method.getModifiers())) {
+            return false;
+        }
+        Class<?>[] classes = { method.getDeclaringClass(), method.getParameterTypes()[0] };
+        for (Class<?> clazz : classes) {
+            for (Class<?> c = clazz; c != null; c = c.getEnclosingClass()) {
+                if (!Modifier.isPublic(c.getModifiers())) {
+                    return false;
+                }
+            }
+            try {
+                if (Class.forName(clazz.getName(), false, MethodEventHandler.class.getClassLoader()) != clazz) {
+                    return false;
+                }
+            } catch (ClassNotFoundException | LinkageError e) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -55,7 +145,7 @@ public Method getMethod() {
 
     @Override
     public void dispatch(Object event) throws Exception {
-        method.invoke(object, event);
+        invoker.invoke(object, event);
     }
 
     @Override
@@ -0,0 +1,197 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An output stream that compresses in GZIP format using several threads.
+ *
+ * <p>Data is cut into fixed-size blocks, each of which is compressed on the
+ * given executor into a complete GZIP member. The members are written in
+ * order, which yields a valid multi-member GZIP stream that any GZIP reader,
+ * including {@link java.util.zip.GZIPInputStream}, reads back as one.</p>
+ *
+ * <p>Only a bounded number of blocks is in flight at once, so memory use does
+ * not depend on the amount of data written. The stream itself must only be
+ * used from one thread.</p>
+ */
+public final class ParallelGZIPOutputStream extends OutputStream {
+
+    private static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    private final OutputStream out;
+    private final ExecutorService executor;
+    private final int blockSize;
+    private final int maxPending;
+    private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+    private byte[] block;
+    private int count;
+    private boolean wroteMember;
+    private boolean closed;
+
+    /**
+     * Create a new stream with 1 MiB blocks.
+     *
+     * @param out the stream to write compressed data to
+     * @param executor the executor to compress blocks on
+     */
+    public ParallelGZIPOutputStream(OutputStream out, ExecutorService executor) {
+        this(out, executor, DEFAULT_BLOCK_SIZE, Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    /**
+     * Create a new stream.
+     *
+     * @param out the stream to write compressed data to
+     * @param executor the executor to compress blocks on
+     * @param blockSize the number of uncompressed bytes per GZIP member
+     * @param maxPending the number of blocks that may be compressing at once
+     */
+    public ParallelGZIPOutputStream(OutputStream out, ExecutorService executor, int blockSize, int maxPending) {
+        checkNotNull(out);
+        checkNotNull(executor);
+        checkArgument(blockSize > 0, "blockSize must be > 0");
+        checkArgument(maxPending > 0, "maxPending must be > 0");
+        this.out = out;
+        this.executor = executor;
+        this.blockSize = blockSize;
+        this.maxPending = maxPending;
+        this.block = new byte[blockSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        block[count++] = (byte) b;
+        if (count == blockSize) {
+            submitBlock();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            int n = Math.min(len, blockSize - count);
+            System.arraycopy(b, off, block, count, n);
+            count += n;
+            off += n;
+            len -= n;
+            if (count == blockSize) {
+                submitBlock();
+            }
+        }
+    }
+
+    /**
+     * Compresses and writes everything written so far. Every flush ends a
+     * GZIP member, so frequent flushing makes compression worse.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        finishPending();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            finishPending();
+            if (!wroteMember) {
+                // an empty GZIP file still needs one member
+                out.write(compress(new byte[0], 0));
+            }
+        } finally {
+            closed = true;
+            for (Future<byte[]> future : pending) {
+                future.cancel(false);
+            }
+            pending.clear();
+            out.close();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    private void finishPending() throws IOException {
+        if (count > 0) {
+            submitBlock();
+        }
+        while (!pending.isEmpty()) {
+            writeOldest();
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        byte[] data = block;
+        int length = count;
+        block = new byte[blockSize];
+        count = 0;
+        pending.add(executor.submit(() -> compress(data, length)));
+        while (pending.size() >= maxPending) {
+            writeOldest();
+        }
+    }
+
+    private void writeOldest() throws IOException {
+        Future<byte[]> future = pending.remove();
+        byte[] member;
+        try {
+            member = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compressing", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to compress", e.getCause());
+        }
+        out.write(member);
+        wroteMember = true;
+    }
+
+    private static byte[] compress(byte[] data, int length) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(length / 2 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer, 64 * 1024)) {
+            gzip.write(data, 0, length);
+        }
+        return buffer.toByteArray();
+    }
+
+}
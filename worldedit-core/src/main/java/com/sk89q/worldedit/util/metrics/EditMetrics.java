@@ -0,0 +1,189 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.metrics;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The timers of a single edit.
+ *
+ * <p>Timed calls are bracketed by {@link #enter()} and
+ * {@link #exit(StageTimer, long, long)}, which keep track of the time spent
+ * in nested stages so that each stage is only charged its own time. Like an
+ * edit session, this class is not thread-safe.</p>
+ *
+ * <p>The calls recorded so far are moved to the server totals on every
+ * flush and when the edit is closed. The edit keeps its own copy of
+ * everything it reported, for the slow edit log.</p>
+ *
+ * <em>Internal use only.</em>
+ */
+public final class EditMetrics {
+
+    private final String owner;
+    private final String world;
+    private final long startNanos = System.nanoTime();
+    private final Map<String, StageTimer> stages = new LinkedHashMap<>();
+    private final Map<String, StageTimer> reportedStages = new LinkedHashMap<>();
+    private final StageTimer flush = new StageTimer("flush");
+    private final StageTimer reportedFlush = new StageTimer("flush");
+    private int reportedBlocks;
+    private long nestedNanos;
+    private boolean finished;
+
+    /**
+     * Create a new instance.
+     *
+     * @param owner the name of the actor that owns the edit
+     * @param world the name of the world that is edited
+     */
+    public EditMetrics(String owner, String world) {
+        checkNotNull(owner);
+        checkNotNull(world);
+        this.owner = owner;
+        this.world = world;
+    }
+
+    /**
+     * Create the timer of a new stage. Stages that share a name are numbered.
+     *
+     * @param name the name of the stage
+     * @return the timer
+     */
+    public StageTimer newStage(String name) {
+        String unique = name;
+        for (int i = 2; stages.containsKey(unique); i++) {
+            unique = name + " #" + i;
+        }
+        StageTimer timer = new StageTimer(unique);
+        stages.put(unique, timer);
+        reportedStages.put(unique, new StageTimer(unique));
+        return timer;
+    }
+
+    /**
+     * Get the timer for flushing buffered changes to the world.
+     *
+     * @return the flush timer
+     */
+    public StageTimer getFlush() {
+        return flush;
+    }
+
+    /**
+     * Begin a timed call.
+     *
+     * @return a token that must be passed to {@link #exit(StageTimer, long, long)}
+     */
+    public long enter() {
+        long outer = nestedNanos;
+        nestedNanos = 0;
+        return outer;
+    }
+
+    /**
+     * End a timed call.
+     *
+     * @param timer the timer of the stage
+     * @param startNanos the {@link System#nanoTime()} at which the call started
+     * @param token the token returned by {@link #enter()}
+     */
+    public void exit(StageTimer timer, long startNanos, long token) {
+        long elapsed = System.nanoTime() - startNanos;
+        timer.record(elapsed, elapsed - nestedNanos);
+        nestedNanos = token + elapsed;
+    }
+
+    /**
+     * Move the calls recorded since the last report to the given totals.
+     *
+     * @param stageTotals the totals of all stages by name
+     * @param flushTotal the total of all flushes
+     * @param changedBlocks the number of blocks the edit has changed so far
+     * @return the number of blocks changed since the last report
+     */
+    int report(Map<String, StageTimer> stageTotals, StageTimer flushTotal, int changedBlocks) {
+        for (StageTimer timer : stages.values()) {
+            stageTotals.computeIfAbsent(timer.getName(), StageTimer::new).merge(timer);
+            reportedStages.get(timer.getName()).merge(timer);
+            timer.reset();
+        }
+        flushTotal.merge(flush);
+        reportedFlush.merge(flush);
+        flush.reset();
+        int blocks = changedBlocks - reportedBlocks;
+        reportedBlocks = changedBlocks;
+        return blocks;
+    }
+
+    /**
+     * Mark this edit as finished.
+     *
+     * @return false if it was already finished
+     */
+    boolean finish() {
+        if (finished) {
+            return false;
+        }
+        finished = true;
+        return true;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public String getWorld() {
+        return world;
+    }
+
+    /**
+     * Get the time since this edit started.
+     *
+     * @return the elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Get the reported timers of all stages.
+     *
+     * @return the timers, innermost stage first
+     */
+    public Collection<StageTimer> getReportedStages() {
+        return Collections.unmodifiableCollection(reportedStages.values());
+    }
+
+    /**
+     * Get the reported flush timer.
+     *
+     * @return the timer
+     */
+    public StageTimer getReportedFlush() {
+        return reportedFlush;
+    }
+
+}
@@ -0,0 +1,289 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Collects the timers of all edits while performance metrics are enabled.
+ *
+ * <p>Metrics are off by default. When they are off, edit sessions are built
+ * without any timing extents and no time is measured. Each edit keeps its
+ * own {@link EditMetrics}, which are added to the totals here whenever the
+ * edit is flushed. Only closed edits count towards the number and duration
+ * of edits. Edits that take longer than the slow edit threshold are logged
+ * with a breakdown of their slowest stages.</p>
+ *
+ * <p>The totals are also available over JMX as
+ * {@code com.sk89q.worldedit:type=PerformanceMetrics}.</p>
+ */
+public final class PerformanceMetrics implements PerformanceMetricsMXBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PerformanceMetrics.class);
+    private static final String OBJECT_NAME = "com.sk89q.worldedit:type=PerformanceMetrics";
+    private static final int SLOW_EDIT_STAGES = 5;
+    private static final PerformanceMetrics INSTANCE = new PerformanceMetrics();
+
+    static {
+        INSTANCE.register();
+    }
+
+    private volatile boolean enabled;
+    private volatile long slowEditThresholdMillis = 1000;
+    private final Map<String, StageTimer> stages = new LinkedHashMap<>();
+    private final Map<String, StageTimer> operations = new LinkedHashMap<>();
+    // time spent in nested operations, see EditMetrics#enter()
+    private final ThreadLocal<long[]> nestedOperationNanos = ThreadLocal.withInitial(() -> new long[1]);
+    private StageTimer edits = new StageTimer("edit");
+    private StageTimer flushes = new StageTimer("flush");
+    private long slowEdits;
+    private long changedBlocks;
+
+    /**
+     * Get the performance metrics of this server.
+     *
+     * @return the metrics
+     */
+    public static PerformanceMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Apply the settings from the configuration.
+     *
+     * @param enabled whether metrics are collected
+     * @param slowEditThresholdMillis the duration after which an edit is logged, or -1 to log none
+     */
+    public static void configure(boolean enabled, long slowEditThresholdMillis) {
+        INSTANCE.setEnabled(enabled);
+        INSTANCE.setSlowEditThresholdMillis(slowEditThresholdMillis);
+    }
+
+    private PerformanceMetrics() {
+    }
+
+    private void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            // A reload may leave the bean of the previous class loader behind
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException | SecurityException e) {
+            log.warn("Failed to register the performance metrics with JMX", e);
+        }
+    }
+
+    /**
+     * Start collecting the metrics of a new edit, if metrics are enabled.
+     *
+     * @param owner the name of the actor that owns the edit
+     * @param world the name of the world that is edited
+     * @return the metrics of the edit, or null if metrics are disabled
+     */
+    @Nullable
+    public EditMetrics startEdit(String owner, String world) {
+        return enabled ? new EditMetrics(owner, world) : null;
+    }
+
+    /**
+     * Add the metrics an edit has recorded since its last flush to the totals.
+     *
+     * @param edit the metrics of the edit
+     * @param changedBlocks the number of blocks the edit has changed so far
+     */
+    public synchronized void flushEdit(EditMetrics edit, int changedBlocks) {
+        checkNotNull(edit);
+        this.changedBlocks += edit.report(stages, flushes, changedBlocks);
+    }
+
+    /**
+     * Add the metrics of a finished edit to the totals. Finishing an edit
+     * again has no effect.
+     *
+     * @param edit the metrics of the edit
+     * @param changedBlocks the number of blocks changed by the edit
+     */
+    public void finishEdit(EditMetrics edit, int changedBlocks) {
+        checkNotNull(edit);
+        if (!edit.finish()) {
+            return;
+        }
+        long elapsed = edit.getElapsedNanos();
+        boolean slow;
+        synchronized (this) {
+            flushEdit(edit, changedBlocks);
+            edits.record(elapsed, elapsed);
+            long threshold = slowEditThresholdMillis;
+            slow = threshold >= 0 && elapsed >= TimeUnit.MILLISECONDS.toNanos(threshold);
+            if (slow) {
+                slowEdits++;
+            }
+        }
+        if (slow) {
+            String slowest = edit.getReportedStages().stream()
+                .sorted(Comparator.comparingLong(StageTimer::getSelfNanos).reversed())
+                .limit(SLOW_EDIT_STAGES)
+                .map(timer -> timer.getName() + "=" + toMillis(timer.getSelfNanos()) + "ms/" + timer.getCalls())
+                .collect(Collectors.joining(", "));
+            log.info("Slow edit: owner={} world={} blocks={} elapsedMs={} flushMs={} stages=[{}]",
+                edit.getOwner(), edit.getWorld(), changedBlocks, toMillis(elapsed),
+                toMillis(edit.getReportedFlush().getInclusiveNanos()), slowest);
+        }
+    }
+
+    /**
+     * Begin a call to {@link com.sk89q.worldedit.function.operation.Operation#resume}.
+     * Operations that complete other operations while they resume are only
+     * charged their own time, like the stages of an edit.
+     *
+     * @return a token that must be passed to {@link #exitOperation(Class, long, long)}
+     */
+    public long enterOperation() {
+        long[] nested = nestedOperationNanos.get();
+        long outer = nested[0];
+        nested[0] = 0;
+        return outer;
+    }
+
+    /**
+     * End a call to {@link com.sk89q.worldedit.function.operation.Operation#resume}.
+     *
+     * @param operation the class of the operation
+     * @param startNanos the {@link System#nanoTime()} at which the call started
+     * @param token the token returned by {@link #enterOperation()}
+     */
+    public void exitOperation(Class<?> operation, long startNanos, long token) {
+        long elapsed = System.nanoTime() - startNanos;
+        long[] nested = nestedOperationNanos.get();
+        long self = elapsed - nested[0];
+        nested[0] = token + elapsed;
+        synchronized (this) {
+            operations.computeIfAbsent(operation.getName(), StageTimer::new).record(elapsed, self);
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public long getSlowEditThresholdMillis() {
+        return slowEditThresholdMillis;
+    }
+
+    @Override
+    public void setSlowEditThresholdMillis(long slowEditThresholdMillis) {
+        this.slowEditThresholdMillis = Math.max(-1, slowEditThresholdMillis);
+    }
+
+    @Override
+    public synchronized long getEditCount() {
+        return edits.getCalls();
+    }
+
+    @Override
+    public synchronized long getSlowEditCount() {
+        return slowEdits;
+    }
+
+    @Override
+    public synchronized long getChangedBlocks() {
+        return changedBlocks;
+    }
+
+    @Override
+    public synchronized StageTimer getEdits() {
+        return edits.copy();
+    }
+
+    @Override
+    public synchronized StageTimer getFlushes() {
+        return flushes.copy();
+    }
+
+    /**
+     * Get the totals of all stages of the edit session pipeline.
+     *
+     * @return copies of the timers, the stage with the most self time first
+     */
+    @Override
+    public synchronized List<StageTimer> getStages() {
+        return sortedCopy(stages);
+    }
+
+    /**
+     * Get the totals of all operations that were run to completion.
+     *
+     * @return copies of the timers, the operation with the most time first
+     */
+    @Override
+    public synchronized List<StageTimer> getOperations() {
+        return sortedCopy(operations);
+    }
+
+    @Override
+    public synchronized void reset() {
+        stages.clear();
+        operations.clear();
+        edits = new StageTimer("edit");
+        flushes = new StageTimer("flush");
+        slowEdits = 0;
+        changedBlocks = 0;
+    }
+
+    private static List<StageTimer> sortedCopy(Map<String, StageTimer> timers) {
+        List<StageTimer> copy = new ArrayList<>(timers.size());
+        for (StageTimer timer : timers.values()) {
+            copy.add(timer.copy());
+        }
+        copy.sort(Comparator.comparingLong(StageTimer::getSelfNanos).reversed());
+        return copy;
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.metrics;
+
+import java.util.List;
+
+/**
+ * The JMX view of {@link PerformanceMetrics}.
+ */
+public interface PerformanceMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    long getSlowEditThresholdMillis();
+
+    void setSlowEditThresholdMillis(long slowEditThresholdMillis);
+
+    long getEditCount();
+
+    long getSlowEditCount();
+
+    long getChangedBlocks();
+
+    StageTimer getEdits();
+
+    StageTimer getFlushes();
+
+    List<StageTimer> getStages();
+
+    List<StageTimer> getOperations();
+
+    void reset();
+
+}
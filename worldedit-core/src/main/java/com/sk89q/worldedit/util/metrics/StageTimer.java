@@ -0,0 +1,119 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.metrics;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Counts the calls into one stage of an edit and the time spent in them.
+ *
+ * <p>Inclusive time is the whole duration of each call. Self time excludes
+ * the time spent in nested stages that are timed themselves, so the self
+ * times of all stages add up to the time spent in the pipeline.</p>
+ */
+public final class StageTimer {
+
+    private final String name;
+    private final LatencyHistogram self = new LatencyHistogram();
+    private long inclusiveNanos;
+
+    /**
+     * Create a new instance.
+     *
+     * @param name the name of the stage
+     */
+    public StageTimer(String name) {
+        checkNotNull(name);
+        this.name = name;
+    }
+
+    /**
+     * Record a call.
+     *
+     * @param inclusiveNanos the duration of the call
+     * @param selfNanos the duration of the call without nested stages
+     */
+    public void record(long inclusiveNanos, long selfNanos) {
+        this.inclusiveNanos += inclusiveNanos;
+        self.record(selfNanos);
+    }
+
+    /**
+     * Add the calls recorded by another timer to this one.
+     *
+     * @param other the other timer
+     */
+    public void merge(StageTimer other) {
+        inclusiveNanos += other.inclusiveNanos;
+        self.merge(other.self);
+    }
+
+    /**
+     * Discard all recorded calls.
+     */
+    public void reset() {
+        inclusiveNanos = 0;
+        self.reset();
+    }
+
+    /**
+     * Get a copy of this timer.
+     *
+     * @return a copy
+     */
+    public StageTimer copy() {
+        StageTimer copy = new StageTimer(name);
+        copy.merge(this);
+        return copy;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCalls() {
+        return self.getCount();
+    }
+
+    public long getInclusiveNanos() {
+        return inclusiveNanos;
+    }
+
+    public long getSelfNanos() {
+        return self.getTotalNanos();
+    }
+
+    public long getMeanSelfNanos() {
+        return self.getMeanNanos();
+    }
+
+    public long getP50SelfNanos() {
+        return self.getPercentileNanos(0.5);
+    }
+
+    public long getP99SelfNanos() {
+        return self.getPercentileNanos(0.99);
+    }
+
+    public long getMaxSelfNanos() {
+        return self.getMaxNanos();
+    }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.report;
+
+import com.sk89q.worldedit.session.SessionManager;
+
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+public class HistoryReport extends DataReport {
+
+    public HistoryReport(SessionManager sessionManager) {
+        super("History");
+        checkNotNull(sessionManager, "sessionManager");
+
+        Map<String, Long> usage = sessionManager.getHistoryMemoryUsage();
+        long total = usage.values().stream().mapToLong(Long::longValue).sum();
+        long budget = SessionManager.HISTORY_MEMORY_BUDGET;
+        long softLimit = SessionManager.HISTORY_SESSION_SOFT_LIMIT;
+
+        append("Sessions", usage.size());
+        append("Memory Used", total / 1024 / 1024 + " MB");
+        append("Memory Budget", budget < 0 ? "unlimited" : budget / 1024 / 1024 + " MB");
+        append("Session Soft Limit", softLimit < 0 ? "none" : softLimit / 1024 / 1024 + " MB");
+        append("Discarded Entries", sessionManager.getHistoryEvictions());
+        append("Discarded Memory", sessionManager.getHistoryEvictedBytes() / 1024 / 1024 + " MB");
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.report;
+
+import com.sk89q.worldedit.util.metrics.PerformanceMetrics;
+import com.sk89q.worldedit.util.metrics.StageTimer;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+public class PerformanceReport extends DataReport {
+
+    public PerformanceReport(PerformanceMetrics metrics) {
+        super("Performance");
+        checkNotNull(metrics, "metrics");
+
+        StageTimer edits = metrics.getEdits();
+        append("Enabled", metrics.isEnabled());
+        append("Slow Edit Threshold", metrics.getSlowEditThresholdMillis() < 0
+            ? "disabled" : metrics.getSlowEditThresholdMillis() + " ms");
+        append("Edits", edits.getCalls());
+        append("Slow Edits", metrics.getSlowEditCount());
+        append("Changed Blocks", metrics.getChangedBlocks());
+        append("Edit Time", toMillis(edits.getSelfNanos()) + " ms");
+        append("Flush Time", toMillis(metrics.getFlushes().getInclusiveNanos()) + " ms");
+        for (StageTimer stage : metrics.getStages()) {
+            append("Stage " + stage.getName(), toMillis(stage.getSelfNanos()) + " ms in "
+                + stage.getCalls() + " calls, p99 " + stage.getP99SelfNanos() + " ns");
+        }
+        for (StageTimer operation : metrics.getOperations()) {
+            append("Operation " + operation.getName(), toMillis(operation.getSelfNanos()) + " ms in "
+                + operation.getCalls() + " calls");
+        }
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+}
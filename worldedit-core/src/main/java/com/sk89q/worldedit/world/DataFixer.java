@@ -22,6 +22,10 @@
 import com.google.common.annotations.Beta;
 import com.sk89q.jnbt.CompoundTag;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * This entire class is subject to heavy changes. Do not use this as API.
  */
@@ -50,4 +54,21 @@ default <T> T fixUp(FixType<T> type, T original) {
     }
 
     <T> T fixUp(FixType<T> type, T original, int srcVer);
+
+    /**
+     * Fix up many values of the same type and version at once, such as a
+     * whole palette.
+     *
+     * @param type the type of the values
+     * @param originals the values to fix up
+     * @param srcVer the data version the values are from
+     * @return the fixed up value for each original
+     */
+    default Map<String, String> fixUpAll(FixType<String> type, Collection<String> originals, int srcVer) {
+        Map<String, String> fixed = new HashMap<>();
+        for (String original : originals) {
+            fixed.put(original, fixUp(type, original, srcVer));
+        }
+        return fixed;
+    }
 }
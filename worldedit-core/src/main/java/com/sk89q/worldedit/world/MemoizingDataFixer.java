@@ -0,0 +1,145 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A {@link DataFixer} that remembers the results of fixing block states,
+ * biomes and item types, which are looked up over and over when upgrading
+ * many schematics or chunks from the same version.
+ *
+ * <p>Tags are passed straight through, they are rarely the same twice.</p>
+ */
+public final class MemoizingDataFixer implements DataFixer {
+
+    private static final int MAX_CACHED = 16384;
+
+    /**
+     * Wrap a data fixer, unless it already remembers its results.
+     *
+     * @param delegate the data fixer, may be null
+     * @return the wrapped data fixer, or null if there is none
+     */
+    @Nullable
+    public static DataFixer wrap(@Nullable DataFixer delegate) {
+        if (delegate == null || delegate instanceof MemoizingDataFixer) {
+            return delegate;
+        }
+        return new MemoizingDataFixer(delegate);
+    }
+
+    private static boolean isMemoized(FixType<?> type) {
+        return type == FixTypes.BLOCK_STATE || type == FixTypes.BIOME || type == FixTypes.ITEM_TYPE;
+    }
+
+    private static final class Key {
+        private final FixType<?> type;
+        private final String value;
+        private final int srcVer;
+
+        private Key(FixType<?> type, String value, int srcVer) {
+            this.type = type;
+            this.value = value;
+            this.srcVer = srcVer;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return srcVer == key.srcVer && type == key.type && value.equals(key.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(type), value, srcVer);
+        }
+    }
+
+    private final DataFixer delegate;
+    private final Cache<Key, String> cache = CacheBuilder.newBuilder()
+        .maximumSize(MAX_CACHED)
+        .build();
+
+    private MemoizingDataFixer(DataFixer delegate) {
+        this.delegate = checkNotNull(delegate);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T fixUp(FixType<T> type, T original, int srcVer) {
+        if (!isMemoized(type)) {
+            return delegate.fixUp(type, original, srcVer);
+        }
+        Key key = new Key(type, (String) original, srcVer);
+        String fixed = cache.getIfPresent(key);
+        if (fixed == null) {
+            fixed = (String) delegate.fixUp(type, original, srcVer);
+            if (fixed != null) {
+                cache.put(key, fixed);
+            }
+        }
+        return (T) fixed;
+    }
+
+    @Override
+    public Map<String, String> fixUpAll(FixType<String> type, Collection<String> originals, int srcVer) {
+        if (!isMemoized(type)) {
+            return delegate.fixUpAll(type, originals, srcVer);
+        }
+        Map<String, String> result = new HashMap<>();
+        Map<String, Key> missing = new HashMap<>();
+        for (String original : originals) {
+            Key key = new Key(type, original, srcVer);
+            String fixed = cache.getIfPresent(key);
+            if (fixed != null) {
+                result.put(original, fixed);
+            } else {
+                missing.put(original, key);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<String, String> fixed = delegate.fixUpAll(type, missing.keySet(), srcVer);
+            for (Map.Entry<String, Key> entry : missing.entrySet()) {
+                String value = fixed.get(entry.getKey());
+                if (value != null) {
+                    cache.put(entry.getValue(), value);
+                    result.put(entry.getKey(), value);
+                }
+            }
+        }
+        return result;
+    }
+}
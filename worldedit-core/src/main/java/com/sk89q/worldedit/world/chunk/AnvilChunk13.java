@@ -26,31 +26,51 @@
 import com.sk89q.jnbt.LongArrayTag;
 import com.sk89q.jnbt.NBTUtils;
 import com.sk89q.jnbt.Tag;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.OutputExtent;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.registry.state.Property;
+import com.sk89q.worldedit.util.collection.BlockBatch;
 import com.sk89q.worldedit.world.DataException;
 import com.sk89q.worldedit.world.block.BaseBlock;
 import com.sk89q.worldedit.world.block.BlockState;
 import com.sk89q.worldedit.world.block.BlockType;
 import com.sk89q.worldedit.world.block.BlockTypes;
 import com.sk89q.worldedit.world.storage.InvalidFormatException;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import javax.annotation.Nullable;
 
 /**
  * The chunk format for Minecraft 1.13 to 1.15
+ *
+ * <p>Sections are kept as their palette and packed block states, and each
+ * palette is only decoded when its section is first read. Blocks are read
+ * straight out of the packed array.</p>
  */
 public class AnvilChunk13 implements Chunk {
 
+    /**
+     * Reads palette indices out of the packed block states of a section.
+     */
+    @FunctionalInterface
+    protected interface PaletteIndexReader {
+
+        int get(int index);
+
+    }
+
+    private static final int SECTION_VOLUME = 16 * 16 * 16;
+
     private final CompoundTag rootTag;
-    private final BlockState[][] blocks;
+    private final Section[] sections;
     private final int rootX;
     private final int rootZ;
 
-    private Map<BlockVector3, Map<String, Tag>> tileEntities;
+    @Nullable
+    private Int2ObjectMap<CompoundTag> tileEntities;
 
     /**
      * Construct the chunk with a compound tag.
@@ -64,11 +84,11 @@ public AnvilChunk13(CompoundTag tag) throws DataException {
         rootX = NBTUtils.getChildTag(rootTag.getValue(), "xPos", IntTag.class).getValue();
         rootZ = NBTUtils.getChildTag(rootTag.getValue(), "zPos", IntTag.class).getValue();
 
-        blocks = new BlockState[16][];
+        sections = new Section[16];
 
-        List<Tag> sections = NBTUtils.getChildTag(rootTag.getValue(), "Sections", ListTag.class).getValue();
+        List<Tag> sectionTags = NBTUtils.getChildTag(rootTag.getValue(), "Sections", ListTag.class).getValue();
 
-        for (Tag rawSectionTag : sections) {
+        for (Tag rawSectionTag : sectionTags) {
             if (!(rawSectionTag instanceof CompoundTag)) {
                 continue;
             }
@@ -83,133 +103,111 @@ public AnvilChunk13(CompoundTag tag) throws DataException {
                 continue;
             }
 
-            // parse palette
             List<CompoundTag> paletteEntries = sectionTag.getList("Palette", CompoundTag.class);
-            int paletteSize = paletteEntries.size();
-            if (paletteSize == 0) {
+            if (paletteEntries.isEmpty()) {
                 continue;
             }
-            BlockState[] palette = new BlockState[paletteSize];
-            for (int paletteEntryId = 0; paletteEntryId < paletteSize; paletteEntryId++) {
-                CompoundTag paletteEntry = paletteEntries.get(paletteEntryId);
-                BlockType type = BlockTypes.get(paletteEntry.getString("Name"));
-                if (type == null) {
-                    throw new InvalidFormatException("Invalid block type: " + paletteEntry.getString("Name"));
-                }
-                BlockState blockState = type.getDefaultState();
-                if (paletteEntry.containsKey("Properties")) {
-                    CompoundTag properties = NBTUtils.getChildTag(paletteEntry.getValue(), "Properties", CompoundTag.class);
-                    for (Property<?> property : blockState.getStates().keySet()) {
-                        if (properties.containsKey(property.getName())) {
-                            String value = properties.getString(property.getName());
-                            try {
-                                blockState = getBlockStateWith(blockState, property, value);
-                            } catch (IllegalArgumentException e) {
-                                throw new InvalidFormatException("Invalid block state for " + blockState.getBlockType().getId() + ", " + property.getName() + ": " + value);
-                            }
-                        }
-                    }
-                }
-                palette[paletteEntryId] = blockState;
-            }
-
-            // parse block states
             long[] blockStatesSerialized = NBTUtils.getChildTag(sectionTag.getValue(), "BlockStates", LongArrayTag.class).getValue();
 
-            BlockState[] chunkSectionBlocks = new BlockState[16 * 16 * 16];
-            blocks[y] = chunkSectionBlocks;
-
-            readBlockStates(palette, blockStatesSerialized, chunkSectionBlocks);
+            sections[y] = new Section(paletteEntries, blockStatesSerialized);
         }
     }
 
-    protected void readBlockStates(BlockState[] palette, long[] blockStatesSerialized, BlockState[] chunkSectionBlocks) throws InvalidFormatException {
-        int paletteBits = 4;
-        while ((1 << paletteBits) < palette.length) {
-            ++paletteBits;
+    /**
+     * Create a reader for the packed block states of a section.
+     *
+     * <p>In this format, entries may span two longs.</p>
+     *
+     * @param blockStatesSerialized the packed block states
+     * @param paletteBits the number of bits per entry
+     * @return the reader
+     * @throws InvalidFormatException if the array is too short
+     */
+    protected PaletteIndexReader createIndexReader(long[] blockStatesSerialized, int paletteBits) throws InvalidFormatException {
+        if ((long) blockStatesSerialized.length * 64 < (long) SECTION_VOLUME * paletteBits) {
+            throw new InvalidFormatException("Too short block state table");
         }
-        int paletteMask = (1 << paletteBits) - 1;
-
-        long currentSerializedValue = 0;
-        int nextSerializedItem = 0;
-        int remainingBits = 0;
-        for (int blockPos = 0; blockPos < chunkSectionBlocks.length; blockPos++) {
-            int localBlockId;
-            if (remainingBits < paletteBits) {
-                int bitsNextLong = paletteBits - remainingBits;
-                localBlockId = (int) currentSerializedValue;
-                if (nextSerializedItem >= blockStatesSerialized.length) {
-                    throw new InvalidFormatException("Too short block state table");
-                }
-                currentSerializedValue = blockStatesSerialized[nextSerializedItem++];
-                localBlockId |= (currentSerializedValue & ((1 << bitsNextLong) - 1)) << remainingBits;
-                currentSerializedValue >>>= bitsNextLong;
-                remainingBits = 64 - bitsNextLong;
-            } else {
-                localBlockId = (int) (currentSerializedValue & paletteMask);
-                currentSerializedValue >>>= paletteBits;
-                remainingBits -= paletteBits;
+        long paletteMask = (1L << paletteBits) - 1;
+        return index -> {
+            long bit = (long) index * paletteBits;
+            int longIndex = (int) (bit >> 6);
+            int offset = (int) (bit & 63);
+            long value = blockStatesSerialized[longIndex] >>> offset;
+            if (offset + paletteBits > 64) {
+                value |= blockStatesSerialized[longIndex + 1] << (64 - offset);
             }
-            if (localBlockId >= palette.length) {
-                throw new InvalidFormatException("Invalid block state table entry: " + localBlockId);
-            }
-            chunkSectionBlocks[blockPos] = palette[localBlockId];
-        }
+            return (int) (value & paletteMask);
+        };
     }
 
     private <T> BlockState getBlockStateWith(BlockState source, Property<T> property, String value) {
         return source.with(property, property.getValueFor(value));
     }
 
-    /**
-     * Used to load the tile entities.
-     */
-    private void populateTileEntities() throws DataException {
-        tileEntities = new HashMap<>();
-        if (!rootTag.getValue().containsKey("TileEntities")) {
-            return;
-        }
-        List<Tag> tags = NBTUtils.getChildTag(rootTag.getValue(),
-                "TileEntities", ListTag.class).getValue();
-
-        for (Tag tag : tags) {
-            if (!(tag instanceof CompoundTag)) {
-                throw new InvalidFormatException("CompoundTag expected in TileEntities");
+    private BlockState[] readPalette(List<CompoundTag> paletteEntries) throws InvalidFormatException {
+        BlockState[] palette = new BlockState[paletteEntries.size()];
+        for (int paletteEntryId = 0; paletteEntryId < palette.length; paletteEntryId++) {
+            CompoundTag paletteEntry = paletteEntries.get(paletteEntryId);
+            BlockType type = BlockTypes.get(paletteEntry.getString("Name"));
+            if (type == null) {
+                throw new InvalidFormatException("Invalid block type: " + paletteEntry.getString("Name"));
             }
-
-            CompoundTag t = (CompoundTag) tag;
-
-            Map<String, Tag> values = new HashMap<>(t.getValue());
-            int x = ((IntTag) values.get("x")).getValue();
-            int y = ((IntTag) values.get("y")).getValue();
-            int z = ((IntTag) values.get("z")).getValue();
-
-            BlockVector3 vec = BlockVector3.at(x, y, z);
-            tileEntities.put(vec, values);
+            BlockState blockState = type.getDefaultState();
+            if (paletteEntry.containsKey("Properties")) {
+                CompoundTag properties = NBTUtils.getChildTag(paletteEntry.getValue(), "Properties", CompoundTag.class);
+                for (Property<?> property : blockState.getStates().keySet()) {
+                    if (properties.containsKey(property.getName())) {
+                        String value = properties.getString(property.getName());
+                        try {
+                            blockState = getBlockStateWith(blockState, property, value);
+                        } catch (IllegalArgumentException e) {
+                            throw new InvalidFormatException("Invalid block state for " + blockState.getBlockType().getId() + ", " + property.getName() + ": " + value);
+                        }
+                    }
+                }
+            }
+            palette[paletteEntryId] = blockState;
         }
+        return palette;
+    }
+
+    private static int packLocal(int x, int y, int z) {
+        return (y << 8) | ((z & 0x0F) << 4) | (x & 0x0F);
     }
 
     /**
-     * Get the map of tags keyed to strings for a block's tile entity data. May
-     * return null if there is no tile entity data. Not public yet because
-     * what this function returns isn't ideal for usage.
-     *
-     * @param position the position
-     * @return the compound tag for that position, which may be null
-     * @throws DataException thrown if there is a data error
+     * Used to load the tile entities.
      */
-    @Nullable
-    private CompoundTag getBlockTileEntity(BlockVector3 position) throws DataException {
-        if (tileEntities == null) {
-            populateTileEntities();
+    private Int2ObjectMap<CompoundTag> getTileEntities() throws DataException {
+        if (tileEntities != null) {
+            return tileEntities;
         }
+        Int2ObjectMap<CompoundTag> result = new Int2ObjectOpenHashMap<>();
+        if (rootTag.getValue().containsKey("TileEntities")) {
+            List<Tag> tags = NBTUtils.getChildTag(rootTag.getValue(),
+                    "TileEntities", ListTag.class).getValue();
+
+            for (Tag tag : tags) {
+                if (!(tag instanceof CompoundTag)) {
+                    throw new InvalidFormatException("CompoundTag expected in TileEntities");
+                }
 
-        Map<String, Tag> values = tileEntities.get(position);
-        if (values == null) {
-            return null;
+                CompoundTag t = (CompoundTag) tag;
+                int x = ((IntTag) t.getValue().get("x")).getValue();
+                int y = ((IntTag) t.getValue().get("y")).getValue();
+                int z = ((IntTag) t.getValue().get("z")).getValue();
+                result.put(packLocal(x, y, z), t);
+            }
         }
+        tileEntities = result;
+        return result;
+    }
 
-        return new CompoundTag(values);
+    private Section getSection(BlockVector3 position, int section) throws DataException {
+        if (section < 0 || section >= sections.length) {
+            throw new DataException("Chunk does not contain position " + position);
+        }
+        return sections[section];
     }
 
     @Override
@@ -218,17 +216,12 @@ public BaseBlock getBlock(BlockVector3 position) throws DataException {
         int y = position.getY();
         int z = position.getZ() - rootZ * 16;
 
-        int section = y >> 4;
-        int yIndex = y & 0x0F;
+        Section section = getSection(position, y >> 4);
+        BlockState state = section != null
+            ? section.getBlock(((y & 0x0F) << 8) | (z << 4) | x)
+            : BlockTypes.AIR.getDefaultState();
 
-        if (section < 0 || section >= blocks.length) {
-            throw new DataException("Chunk does not contain position " + position);
-        }
-
-        BlockState[] sectionBlocks = blocks[section];
-        BlockState state = sectionBlocks != null ? sectionBlocks[(yIndex << 8) | (z << 4) | x] : BlockTypes.AIR.getDefaultState();
-
-        CompoundTag tileEntity = getBlockTileEntity(position);
+        CompoundTag tileEntity = getTileEntities().get(packLocal(x, y, z));
 
         if (tileEntity != null) {
             return state.toBaseBlock(tileEntity);
@@ -237,4 +230,87 @@ public BaseBlock getBlock(BlockVector3 position) throws DataException {
         return state.toBaseBlock();
     }
 
+    /**
+     * Copy every block of a section into an extent, at its position in the
+     * world. Missing sections are copied as air.
+     *
+     * @param sectionY the Y coordinate of the section
+     * @param extent the extent to copy to
+     * @return the number of blocks that were changed
+     * @throws DataException if the section can't be read
+     * @throws WorldEditException if the extent fails to set blocks
+     */
+    public int copySection(int sectionY, OutputExtent extent) throws DataException, WorldEditException {
+        BlockVector3 origin = BlockVector3.at(rootX << 4, sectionY << 4, rootZ << 4);
+        Section section = getSection(origin, sectionY);
+        BaseBlock[] blocks;
+        if (section != null) {
+            BlockState[] palette = section.getPalette();
+            blocks = new BaseBlock[palette.length];
+            for (int i = 0; i < palette.length; i++) {
+                blocks[i] = palette[i].toBaseBlock();
+            }
+        } else {
+            blocks = new BaseBlock[] { BlockTypes.AIR.getDefaultState().toBaseBlock() };
+        }
+        Int2ObjectMap<CompoundTag> tileEntities = getTileEntities();
+        BlockBatch batch = new BlockBatch();
+        for (int index = 0; index < SECTION_VOLUME; index++) {
+            int x = index & 0x0F;
+            int z = (index >> 4) & 0x0F;
+            int y = (sectionY << 4) | (index >> 8);
+            BaseBlock block = blocks[section != null ? section.getPaletteIndex(index) : 0];
+            CompoundTag tileEntity = tileEntities.isEmpty() ? null : tileEntities.get(packLocal(x, y, z));
+            if (tileEntity != null) {
+                block = block.toImmutableState().toBaseBlock(tileEntity);
+            }
+            batch.add(origin.getX() + x, y, origin.getZ() + z, block);
+        }
+        return extent.setBlocks(batch);
+    }
+
+    /**
+     * A section, kept as its palette and packed block states.
+     */
+    private final class Section {
+
+        private final List<CompoundTag> paletteEntries;
+        private final long[] blockStatesSerialized;
+        @Nullable
+        private BlockState[] palette;
+        @Nullable
+        private PaletteIndexReader indices;
+
+        private Section(List<CompoundTag> paletteEntries, long[] blockStatesSerialized) {
+            this.paletteEntries = paletteEntries;
+            this.blockStatesSerialized = blockStatesSerialized;
+        }
+
+        private BlockState[] getPalette() throws InvalidFormatException {
+            if (palette == null) {
+                BlockState[] decoded = readPalette(paletteEntries);
+                int paletteBits = 4;
+                while ((1 << paletteBits) < decoded.length) {
+                    ++paletteBits;
+                }
+                indices = createIndexReader(blockStatesSerialized, paletteBits);
+                palette = decoded;
+            }
+            return palette;
+        }
+
+        private int getPaletteIndex(int index) throws InvalidFormatException {
+            BlockState[] palette = getPalette();
+            int paletteIndex = indices.get(index);
+            if (paletteIndex >= palette.length) {
+                throw new InvalidFormatException("Invalid block state table entry: " + paletteIndex);
+            }
+            return paletteIndex;
+        }
+
+        private BlockState getBlock(int index) throws InvalidFormatException {
+            return getPalette()[getPaletteIndex(index)];
+        }
+    }
+
 }
@@ -21,7 +21,6 @@
 
 import com.sk89q.jnbt.CompoundTag;
 import com.sk89q.worldedit.world.DataException;
-import com.sk89q.worldedit.world.block.BlockState;
 import com.sk89q.worldedit.world.storage.InvalidFormatException;
 
 /**
@@ -40,14 +39,14 @@ public AnvilChunk16(CompoundTag tag) throws DataException {
     }
 
     @Override
-    protected void readBlockStates(BlockState[] palette, long[] blockStatesSerialized, BlockState[] chunkSectionBlocks) throws InvalidFormatException {
-        PackedIntArrayReader reader = new PackedIntArrayReader(blockStatesSerialized);
-        for (int blockPos = 0; blockPos < chunkSectionBlocks.length; blockPos++) {
-            int index = reader.get(blockPos);
-            if (index >= palette.length) {
-                throw new InvalidFormatException("Invalid block state table entry: " + index);
-            }
-            chunkSectionBlocks[blockPos] = palette[index];
+    protected PaletteIndexReader createIndexReader(long[] blockStatesSerialized, int paletteBits) throws InvalidFormatException {
+        // entries don't span longs in this format
+        PackedIntArrayReader reader;
+        try {
+            reader = new PackedIntArrayReader(blockStatesSerialized, paletteBits);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new InvalidFormatException(e.getMessage());
         }
+        return reader::get;
     }
 }
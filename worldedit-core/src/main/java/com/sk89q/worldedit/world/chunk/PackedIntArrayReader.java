@@ -19,6 +19,7 @@
 
 package com.sk89q.worldedit.world.chunk;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkElementIndex;
 
 public class PackedIntArrayReader {
@@ -40,8 +41,21 @@ public class PackedIntArrayReader {
     private final int factor;
 
     public PackedIntArrayReader(long[] data) {
+        this(data, data.length * 64 / 4096);
+    }
+
+    /**
+     * Create a reader for entries of a known width. Widths that fit the same
+     * number of entries into a long, such as 13 and 16 bits, have the same
+     * array length, so the width can't always be derived from the array.
+     *
+     * @param data the packed entries
+     * @param elementBits the number of bits per entry
+     */
+    public PackedIntArrayReader(long[] data, int elementBits) {
+        checkArgument(elementBits > 0 && elementBits <= 32, "Invalid number of bits per entry: %s", elementBits);
         this.data = data;
-        this.elementBits = data.length * 64 / 4096;
+        this.elementBits = elementBits;
         this.maxValue = (1L << elementBits) - 1L;
         this.elementsPerLong = 64 / elementBits;
         this.factor = FACTORS[elementsPerLong - 1];
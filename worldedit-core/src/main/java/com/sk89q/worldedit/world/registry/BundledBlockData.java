@@ -78,33 +78,58 @@ private BundledBlockData() {
      * @throws IOException thrown on I/O error
      */
     private void loadFromResource() throws IOException {
-        GsonBuilder gsonBuilder = new GsonBuilder();
-        gsonBuilder.registerTypeAdapter(Vector3.class, new VectorAdapter());
-        Gson gson = gsonBuilder.create();
-        URL url = null;
+        String name = null;
         final int dataVersion = WorldEdit.getInstance().getPlatformManager().queryCapability(Capability.WORLD_EDITING).getDataVersion();
         if (dataVersion >= Constants.DATA_VERSION_MC_1_16) {
-            url = resourceLoader.getResource(BundledBlockData.class, "blocks.116.json");
+            name = "blocks.116.json";
         } else if (dataVersion >= Constants.DATA_VERSION_MC_1_15) {
-            url = resourceLoader.getResource(BundledBlockData.class, "blocks.115.json");
+            name = "blocks.115.json";
         } else if (dataVersion >= Constants.DATA_VERSION_MC_1_14) {
-            url = resourceLoader.getResource(BundledBlockData.class, "blocks.114.json");
+            name = "blocks.114.json";
         }
+        URL url = name == null ? null : resourceLoader.getResource(BundledBlockData.class, name);
         if (url == null) {
-            url = resourceLoader.getResource(BundledBlockData.class, "blocks.json");
+            name = "blocks.json";
+            url = resourceLoader.getResource(BundledBlockData.class, name);
         }
         if (url == null) {
             throw new IOException("Could not find blocks.json");
         }
-        log.debug("Using {} for bundled block data.", url);
-        String data = Resources.toString(url, Charset.defaultCharset());
-        List<BlockEntry> entries = gson.fromJson(data, new TypeToken<List<BlockEntry>>() {}.getType());
+        List<BlockEntry> entries = readImage(name);
+        if (entries == null) {
+            GsonBuilder gsonBuilder = new GsonBuilder();
+            gsonBuilder.registerTypeAdapter(Vector3.class, new VectorAdapter());
+            Gson gson = gsonBuilder.create();
+            log.debug("Using {} for bundled block data.", url);
+            String data = Resources.toString(url, Charset.defaultCharset());
+            entries = gson.fromJson(data, new TypeToken<List<BlockEntry>>() {}.getType());
+        }
 
         for (BlockEntry entry : entries) {
             idMap.put(entry.id, entry);
         }
     }
 
+    /**
+     * Attempt to load the data from the precompiled registry image.
+     *
+     * @param jsonName the name of the JSON file the image was compiled from
+     * @return the entries, or null if the image is unavailable
+     */
+    @Nullable
+    private List<BlockEntry> readImage(String jsonName) {
+        try {
+            URL url = resourceLoader.getResource(BundledBlockData.class, RegistryImages.imageName(jsonName));
+            if (url != null) {
+                log.debug("Using {} for bundled block data.", url);
+                return RegistryImages.readBlocks(url);
+            }
+        } catch (IOException e) {
+            log.debug("Failed to read the block registry image, falling back to JSON", e);
+        }
+        return null;
+    }
+
     /**
      * Return the entry for the given block ID.
      *
@@ -149,9 +174,9 @@ public static BundledBlockData getInstance() {
     }
 
     public static class BlockEntry {
-        private String id;
+        String id;
         public String localizedName;
-        private final SimpleBlockMaterial material = new SimpleBlockMaterial();
+        final SimpleBlockMaterial material = new SimpleBlockMaterial();
     }
 
 }
@@ -78,33 +78,58 @@ private BundledItemData() {
      * @throws IOException thrown on I/O error
      */
     private void loadFromResource() throws IOException {
-        GsonBuilder gsonBuilder = new GsonBuilder();
-        gsonBuilder.registerTypeAdapter(Vector3.class, new VectorAdapter());
-        Gson gson = gsonBuilder.create();
-        URL url = null;
+        String name = null;
         final int dataVersion = WorldEdit.getInstance().getPlatformManager().queryCapability(Capability.WORLD_EDITING).getDataVersion();
         if (dataVersion >= Constants.DATA_VERSION_MC_1_16) {
-            url = resourceLoader.getResource(BundledBlockData.class, "items.116.json");
+            name = "items.116.json";
         } else if (dataVersion >= Constants.DATA_VERSION_MC_1_15) {
-            url = resourceLoader.getResource(BundledBlockData.class, "items.115.json");
+            name = "items.115.json";
         } else if (dataVersion >= Constants.DATA_VERSION_MC_1_14) {
-            url = resourceLoader.getResource(BundledBlockData.class, "items.114.json");
+            name = "items.114.json";
         }
+        URL url = name == null ? null : resourceLoader.getResource(BundledBlockData.class, name);
         if (url == null) {
-            url = resourceLoader.getResource(BundledBlockData.class, "items.json");
+            name = "items.json";
+            url = resourceLoader.getResource(BundledBlockData.class, name);
         }
         if (url == null) {
             throw new IOException("Could not find items.json");
         }
-        log.debug("Using {} for bundled item data.", url);
-        String data = Resources.toString(url, Charset.defaultCharset());
-        List<ItemEntry> entries = gson.fromJson(data, new TypeToken<List<ItemEntry>>() {}.getType());
+        List<ItemEntry> entries = readImage(name);
+        if (entries == null) {
+            GsonBuilder gsonBuilder = new GsonBuilder();
+            gsonBuilder.registerTypeAdapter(Vector3.class, new VectorAdapter());
+            Gson gson = gsonBuilder.create();
+            log.debug("Using {} for bundled item data.", url);
+            String data = Resources.toString(url, Charset.defaultCharset());
+            entries = gson.fromJson(data, new TypeToken<List<ItemEntry>>() {}.getType());
+        }
 
         for (ItemEntry entry : entries) {
             idMap.put(entry.id, entry);
         }
     }
 
+    /**
+     * Attempt to load the data from the precompiled registry image.
+     *
+     * @param jsonName the name of the JSON file the image was compiled from
+     * @return the entries, or null if the image is unavailable
+     */
+    @Nullable
+    private List<ItemEntry> readImage(String jsonName) {
+        try {
+            URL url = resourceLoader.getResource(BundledBlockData.class, RegistryImages.imageName(jsonName));
+            if (url != null) {
+                log.debug("Using {} for bundled item data.", url);
+                return RegistryImages.readItems(url);
+            }
+        } catch (IOException e) {
+            log.debug("Failed to read the item registry image, falling back to JSON", e);
+        }
+        return null;
+    }
+
     /**
      * Return the entry for the given item ID.
      *
@@ -150,11 +175,11 @@ public static BundledItemData getInstance() {
     }
 
     public static class ItemEntry {
-        private String id;
-        private String unlocalizedName;
+        String id;
+        String unlocalizedName;
         public String localizedName;
-        private int maxDamage;
-        private int maxStackSize;
+        int maxDamage;
+        int maxStackSize;
     }
 
 }
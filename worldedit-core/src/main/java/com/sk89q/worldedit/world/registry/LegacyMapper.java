@@ -32,10 +32,13 @@
 import com.sk89q.worldedit.extension.platform.Capability;
 import com.sk89q.worldedit.internal.Constants;
 import com.sk89q.worldedit.math.Vector3;
+import com.sk89q.worldedit.registry.state.Property;
 import com.sk89q.worldedit.util.gson.VectorAdapter;
 import com.sk89q.worldedit.util.io.ResourceLoader;
 import com.sk89q.worldedit.world.DataFixer;
 import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockType;
+import com.sk89q.worldedit.world.block.BlockTypes;
 import com.sk89q.worldedit.world.item.ItemType;
 import com.sk89q.worldedit.world.item.ItemTypes;
 import org.slf4j.Logger;
@@ -45,8 +48,11 @@
 import java.net.URL;
 import java.nio.charset.Charset;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 
 public final class LegacyMapper {
@@ -79,36 +85,59 @@ private LegacyMapper() {
      * @throws IOException thrown on I/O error
      */
     private void loadFromResource() throws IOException {
-        GsonBuilder gsonBuilder = new GsonBuilder();
-        gsonBuilder.registerTypeAdapter(Vector3.class, new VectorAdapter());
-        Gson gson = gsonBuilder.disableHtmlEscaping().create();
         URL url = resourceLoader.getResource(LegacyMapper.class, "legacy.json");
         if (url == null) {
             throw new IOException("Could not find legacy.json");
         }
-        String data = Resources.toString(url, Charset.defaultCharset());
-        LegacyDataFile dataFile = gson.fromJson(data, new TypeToken<LegacyDataFile>() {}.getType());
+        RegistryImages.Legacy dataFile = readImage();
+        if (dataFile == null) {
+            GsonBuilder gsonBuilder = new GsonBuilder();
+            gsonBuilder.registerTypeAdapter(Vector3.class, new VectorAdapter());
+            Gson gson = gsonBuilder.disableHtmlEscaping().create();
+            String data = Resources.toString(url, Charset.defaultCharset());
+            LegacyDataFile jsonFile = gson.fromJson(data, new TypeToken<LegacyDataFile>() {}.getType());
+            Map<String, RegistryImages.LegacyBlock> blocks = new LinkedHashMap<>();
+            for (Map.Entry<String, String> blockEntry : jsonFile.blocks.entrySet()) {
+                blocks.put(blockEntry.getKey(),
+                    new RegistryImages.LegacyBlock(blockEntry.getValue(), null, new String[0], new String[0]));
+            }
+            dataFile = new RegistryImages.Legacy(blocks, jsonFile.items);
+        }
 
         DataFixer fixer = WorldEdit.getInstance().getPlatformManager().queryCapability(Capability.WORLD_EDITING).getDataFixer();
         ParserContext parserContext = new ParserContext();
         parserContext.setPreferringWildcard(false);
         parserContext.setRestricted(false);
         parserContext.setTryLegacy(false); // This is legacy. Don't match itself.
+        BlockFactory blockFactory = WorldEdit.getInstance().getBlockFactory();
 
-        for (Map.Entry<String, String> blockEntry : dataFile.blocks.entrySet()) {
+        Map<String, String> fixedBlocks = fixer != null
+            ? fixer.fixUpAll(DataFixer.FixTypes.BLOCK_STATE,
+                dataFile.blocks.values().stream().map(block -> block.value).collect(Collectors.toSet()),
+                Constants.DATA_VERSION_MC_1_13_2)
+            : Collections.emptyMap();
+
+        for (Map.Entry<String, RegistryImages.LegacyBlock> blockEntry : dataFile.blocks.entrySet()) {
             String id = blockEntry.getKey();
-            final String value = blockEntry.getValue();
+            final RegistryImages.LegacyBlock legacyBlock = blockEntry.getValue();
+            final String value = legacyBlock.value;
 
             BlockState state = null;
-            BlockFactory blockFactory = WorldEdit.getInstance().getBlockFactory();
 
             // if fixer is available, try using that first, as some old blocks that were renamed share names with new blocks
             if (fixer != null) {
-                try {
-                    String newEntry = fixer.fixUp(DataFixer.FixTypes.BLOCK_STATE, value, Constants.DATA_VERSION_MC_1_13_2);
-                    state = blockFactory.parseFromInput(newEntry, parserContext).toImmutableState();
-                } catch (InputParseException ignored) {
+                String newEntry = fixedBlocks.getOrDefault(value, value);
+                if (newEntry.equals(value)) {
+                    state = resolvePrecompiled(legacyBlock);
+                }
+                if (state == null) {
+                    try {
+                        state = blockFactory.parseFromInput(newEntry, parserContext).toImmutableState();
+                    } catch (InputParseException ignored) {
+                    }
                 }
+            } else {
+                state = resolvePrecompiled(legacyBlock);
             }
 
             // if it's still null, the fixer was unavailable or failed
@@ -146,6 +175,52 @@ private void loadFromResource() throws IOException {
         }
     }
 
+    /**
+     * Attempt to load the data from the precompiled registry image.
+     *
+     * @return the data, or null if the image is unavailable
+     */
+    @Nullable
+    private RegistryImages.Legacy readImage() {
+        try {
+            URL url = resourceLoader.getResource(LegacyMapper.class, RegistryImages.imageName("legacy.json"));
+            if (url != null) {
+                return RegistryImages.readLegacy(url);
+            }
+        } catch (IOException e) {
+            log.debug("Failed to read the legacy registry image, falling back to JSON", e);
+        }
+        return null;
+    }
+
+    /**
+     * Resolve a legacy block from its precompiled ID and properties, without
+     * going through the block parser.
+     *
+     * @param legacyBlock the legacy block
+     * @return the state, or null if it can't be resolved this way
+     */
+    @Nullable
+    private static BlockState resolvePrecompiled(RegistryImages.LegacyBlock legacyBlock) {
+        if (legacyBlock.id == null) {
+            return null;
+        }
+        BlockType type = BlockTypes.get(legacyBlock.id);
+        if (type == null) {
+            return null;
+        }
+        BlockState state = type.getDefaultState();
+        try {
+            for (int i = 0; i < legacyBlock.propertyNames.length; i++) {
+                Property<Object> property = type.getProperty(legacyBlock.propertyNames[i]);
+                state = state.with(property, property.getValueFor(legacyBlock.propertyValues[i]));
+            }
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return state;
+    }
+
     @Nullable
     public ItemType getItemFromLegacy(int legacyId) {
         return getItemFromLegacy(legacyId, 0);
@@ -0,0 +1,222 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.registry;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Reads the registry images that the build precompiles from the bundled
+ * JSON registry files.
+ *
+ * <p>An image holds the same data as its JSON file, in a binary form that
+ * is read in a single pass without reflection. The layout must be kept in
+ * sync with the {@code CompileRegistryImages} build task. Callers fall back
+ * to the JSON files if an image is missing or can't be read.</p>
+ */
+final class RegistryImages {
+
+    static final int MAGIC = 0x57455249;
+    static final int FORMAT_VERSION = 1;
+
+    static final int KIND_BLOCKS = 0;
+    static final int KIND_ITEMS = 1;
+    static final int KIND_LEGACY = 2;
+
+    private static final int FULL_CUBE = 1;
+    private static final int OPAQUE = 1 << 1;
+    private static final int POWER_SOURCE = 1 << 2;
+    private static final int LIQUID = 1 << 3;
+    private static final int SOLID = 1 << 4;
+    private static final int FRAGILE_WHEN_PUSHED = 1 << 5;
+    private static final int UNPUSHABLE = 1 << 6;
+    private static final int TICKS_RANDOMLY = 1 << 7;
+    private static final int MOVEMENT_BLOCKER = 1 << 8;
+    private static final int BURNABLE = 1 << 9;
+    private static final int TOOL_REQUIRED = 1 << 10;
+    private static final int REPLACED_DURING_PLACEMENT = 1 << 11;
+    private static final int TRANSLUCENT = 1 << 12;
+    private static final int HAS_CONTAINER = 1 << 13;
+
+    /**
+     * A legacy block mapping, with its block state already split into the
+     * block ID and properties.
+     */
+    static final class LegacyBlock {
+
+        final String value;
+        @Nullable
+        final String id;
+        final String[] propertyNames;
+        final String[] propertyValues;
+
+        LegacyBlock(String value, @Nullable String id, String[] propertyNames, String[] propertyValues) {
+            this.value = value;
+            this.id = id;
+            this.propertyNames = propertyNames;
+            this.propertyValues = propertyValues;
+        }
+
+    }
+
+    /**
+     * The contents of a legacy image.
+     */
+    static final class Legacy {
+
+        final Map<String, LegacyBlock> blocks;
+        final Map<String, String> items;
+
+        Legacy(Map<String, LegacyBlock> blocks, Map<String, String> items) {
+            this.blocks = blocks;
+            this.items = items;
+        }
+
+    }
+
+    /**
+     * Get the name of the image that is compiled from the given JSON file.
+     *
+     * @param jsonName the JSON file name
+     * @return the image name
+     */
+    static String imageName(String jsonName) {
+        return jsonName.substring(0, jsonName.length() - ".json".length()) + ".bin";
+    }
+
+    static List<BundledBlockData.BlockEntry> readBlocks(URL url) throws IOException {
+        try (DataInputStream in = open(url, KIND_BLOCKS)) {
+            int count = in.readInt();
+            List<BundledBlockData.BlockEntry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                BundledBlockData.BlockEntry entry = new BundledBlockData.BlockEntry();
+                entry.id = in.readUTF();
+                entry.localizedName = readNullableUTF(in);
+                readMaterial(in, entry.material);
+                entries.add(entry);
+            }
+            return entries;
+        }
+    }
+
+    private static void readMaterial(DataInputStream in, SimpleBlockMaterial material) throws IOException {
+        int flags = in.readInt();
+        material.setFullCube((flags & FULL_CUBE) != 0);
+        material.setOpaque((flags & OPAQUE) != 0);
+        material.setPowerSource((flags & POWER_SOURCE) != 0);
+        material.setLiquid((flags & LIQUID) != 0);
+        material.setSolid((flags & SOLID) != 0);
+        material.setFragileWhenPushed((flags & FRAGILE_WHEN_PUSHED) != 0);
+        material.setUnpushable((flags & UNPUSHABLE) != 0);
+        material.setTicksRandomly((flags & TICKS_RANDOMLY) != 0);
+        material.setMovementBlocker((flags & MOVEMENT_BLOCKER) != 0);
+        material.setBurnable((flags & BURNABLE) != 0);
+        material.setToolRequired((flags & TOOL_REQUIRED) != 0);
+        material.setReplacedDuringPlacement((flags & REPLACED_DURING_PLACEMENT) != 0);
+        material.setTranslucent((flags & TRANSLUCENT) != 0);
+        material.setHasContainer((flags & HAS_CONTAINER) != 0);
+        material.setHardness(in.readFloat());
+        material.setResistance(in.readFloat());
+        material.setSlipperiness(in.readFloat());
+        material.setLightValue(in.readInt());
+    }
+
+    static List<BundledItemData.ItemEntry> readItems(URL url) throws IOException {
+        try (DataInputStream in = open(url, KIND_ITEMS)) {
+            int count = in.readInt();
+            List<BundledItemData.ItemEntry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                BundledItemData.ItemEntry entry = new BundledItemData.ItemEntry();
+                entry.id = in.readUTF();
+                entry.unlocalizedName = readNullableUTF(in);
+                entry.localizedName = readNullableUTF(in);
+                entry.maxDamage = in.readInt();
+                entry.maxStackSize = in.readInt();
+                entries.add(entry);
+            }
+            return entries;
+        }
+    }
+
+    static Legacy readLegacy(URL url) throws IOException {
+        try (DataInputStream in = open(url, KIND_LEGACY)) {
+            int blockCount = in.readInt();
+            Map<String, LegacyBlock> blocks = new LinkedHashMap<>(blockCount * 2);
+            for (int i = 0; i < blockCount; i++) {
+                String key = in.readUTF();
+                String value = in.readUTF();
+                String id = in.readUTF();
+                int propertyCount = in.readUnsignedByte();
+                String[] propertyNames = new String[propertyCount];
+                String[] propertyValues = new String[propertyCount];
+                for (int j = 0; j < propertyCount; j++) {
+                    propertyNames[j] = in.readUTF();
+                    propertyValues[j] = in.readUTF();
+                }
+                blocks.put(key, new LegacyBlock(value, id, propertyNames, propertyValues));
+            }
+            int itemCount = in.readInt();
+            Map<String, String> items = new LinkedHashMap<>(itemCount * 2);
+            for (int i = 0; i < itemCount; i++) {
+                items.put(in.readUTF(), in.readUTF());
+            }
+            return new Legacy(blocks, items);
+        }
+    }
+
+    private static DataInputStream open(URL url, int kind) throws IOException {
+        InputStream stream = url.openStream();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(url + " is not a registry image");
+            }
+            int version = in.readUnsignedShort();
+            if (version != FORMAT_VERSION) {
+                throw new IOException(url + " has unsupported format version " + version);
+            }
+            int actualKind = in.readUnsignedByte();
+            if (actualKind != kind) {
+                throw new IOException(url + " holds registry kind " + actualKind + " instead of " + kind);
+            }
+            return in;
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    @Nullable
+    private static String readNullableUTF(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private RegistryImages() {
+    }
+
+}
@@ -21,17 +21,20 @@
 
 import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.MaxChangedBlocksException;
+import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.CuboidRegion;
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.world.DataException;
+import com.sk89q.worldedit.world.chunk.AnvilChunk13;
 import com.sk89q.worldedit.world.chunk.Chunk;
 import com.sk89q.worldedit.world.storage.ChunkStore;
 import com.sk89q.worldedit.world.storage.MissingChunkException;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -41,6 +44,8 @@
  */
 public class SnapshotRestore {
 
+    private static final int SECTION_VOLUME = 16 * 16 * 16;
+
     private final Map<BlockVector2, ArrayList<BlockVector3>> neededChunks = new LinkedHashMap<>();
     private final Snapshot snapshot;
     private final EditSession editSession;
@@ -144,8 +149,13 @@ public void restore() throws MaxChangedBlocksException {
                 chunk = snapshot.getChunk(chunkPos.toBlockVector3());
                 // Good, the chunk could be at least loaded
 
+                List<BlockVector3> positions = entry.getValue();
+                if (chunk instanceof AnvilChunk13) {
+                    positions = copyWholeSections((AnvilChunk13) chunk, positions);
+                }
+
                 // Now just copy blocks!
-                for (BlockVector3 pos : entry.getValue()) {
+                for (BlockVector3 pos : positions) {
                     try {
                         editSession.setBlock(pos, chunk.getBlock(pos));
                     } catch (DataException e) {
@@ -161,6 +171,48 @@ public void restore() throws MaxChangedBlocksException {
         }
     }
 
+    /**
+     * Copy the sections of a chunk that are restored completely in one go,
+     * straight from their palettes.
+     *
+     * @param chunk the chunk to copy from
+     * @param positions the positions to restore in the chunk
+     * @return the positions that still have to be restored one by one
+     * @throws MaxChangedBlocksException if the max block change limit is exceeded
+     */
+    private List<BlockVector3> copyWholeSections(AnvilChunk13 chunk, List<BlockVector3> positions)
+        throws MaxChangedBlocksException {
+        // the positions are distinct, so a section is whole when all of its blocks are there
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (BlockVector3 pos : positions) {
+            counts.merge(pos.getBlockY() >> 4, 1, Integer::sum);
+        }
+        List<BlockVector3> remaining = new ArrayList<>();
+        for (BlockVector3 pos : positions) {
+            int sectionY = pos.getBlockY() >> 4;
+            Integer count = counts.get(sectionY);
+            if (count == null) {
+                // already copied, or could not be read
+                continue;
+            }
+            if (count < SECTION_VOLUME) {
+                remaining.add(pos);
+                continue;
+            }
+            counts.remove(sectionY);
+            try {
+                chunk.copySection(sectionY, editSession);
+            } catch (DataException e) {
+                // this is a workaround: just ignore for now
+            } catch (MaxChangedBlocksException e) {
+                throw e;
+            } catch (WorldEditException e) {
+                throw new RuntimeException("Unexpected exception", e);
+            }
+        }
+        return remaining;
+    }
+
     /**
      * Get a list of the missing chunks. restore() must have been called
      * already.
@@ -0,0 +1,174 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.snapshot.experimental.dedup;
+
+import com.google.common.hash.HashCode;
+import com.sk89q.worldedit.math.BlockVector2;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * The list of chunks in one snapshot, mapping each chunk position to the
+ * hash of its data.
+ *
+ * <p>Positions are sorted, so that a single chunk can be found with a binary
+ * search.</p>
+ */
+final class ChunkManifest {
+
+    private static final int MAGIC = 0x5745434D;
+    private static final short VERSION = 1;
+    static final int HASH_BYTES = 32;
+
+    static long key(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Read only the date of a manifest.
+     *
+     * @param path the manifest file
+     * @return the date of the snapshot
+     */
+    static ZonedDateTime readDateTime(Path path) throws IOException {
+        try (DataInputStream in = open(path)) {
+            return readHeader(in, path);
+        }
+    }
+
+    /**
+     * Read a manifest.
+     *
+     * @param path the manifest file
+     * @return the manifest
+     */
+    static ChunkManifest read(Path path) throws IOException {
+        try (DataInputStream in = open(path)) {
+            ZonedDateTime dateTime = readHeader(in, path);
+            int size = in.readInt();
+            long[] positions = new long[size];
+            for (int i = 0; i < size; i++) {
+                positions[i] = in.readLong();
+            }
+            byte[] hashes = new byte[size * HASH_BYTES];
+            in.readFully(hashes);
+            return new ChunkManifest(dateTime, positions, hashes);
+        }
+    }
+
+    private static DataInputStream open(Path path) throws IOException {
+        return new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+    }
+
+    private static ZonedDateTime readHeader(DataInputStream in, Path path) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a chunk manifest: " + path);
+        }
+        short version = in.readShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported chunk manifest version " + version + ": " + path);
+        }
+        Instant instant = Instant.ofEpochSecond(in.readLong(), in.readInt());
+        return instant.atZone(ZoneId.of(in.readUTF()));
+    }
+
+    private final ZonedDateTime dateTime;
+    private final long[] positions;
+    private final byte[] hashes;
+
+    /**
+     * Create a manifest.
+     *
+     * @param dateTime the date of the snapshot
+     * @param positions the sorted chunk positions, see {@link #key(int, int)}
+     * @param hashes the hashes, {@link #HASH_BYTES} for each position
+     */
+    ChunkManifest(ZonedDateTime dateTime, long[] positions, byte[] hashes) {
+        checkArgument(hashes.length == positions.length * HASH_BYTES, "Hash count doesn't match");
+        this.dateTime = dateTime;
+        this.positions = positions;
+        this.hashes = hashes;
+    }
+
+    ZonedDateTime getDateTime() {
+        return dateTime;
+    }
+
+    int size() {
+        return positions.length;
+    }
+
+    /**
+     * Get the hash of the data of a chunk.
+     *
+     * @param position the chunk position
+     * @return the hash, or {@code null} if the chunk is not in the snapshot
+     */
+    @Nullable
+    HashCode getHash(BlockVector2 position) {
+        int index = Arrays.binarySearch(positions, key(position.getBlockX(), position.getBlockZ()));
+        if (index < 0) {
+            return null;
+        }
+        return HashCode.fromBytes(Arrays.copyOfRange(hashes, index * HASH_BYTES, (index + 1) * HASH_BYTES));
+    }
+
+    /**
+     * Write this manifest. The file appears at once, or not at all.
+     *
+     * @param path the manifest file
+     */
+    void write(Path path) throws IOException {
+        Path temp = Files.createTempFile(path.getParent(), "manifest", ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeShort(VERSION);
+                Instant instant = dateTime.toInstant();
+                out.writeLong(instant.getEpochSecond());
+                out.writeInt(instant.getNano());
+                out.writeUTF(dateTime.getZone().getId());
+                out.writeInt(positions.length);
+                for (long position : positions) {
+                    out.writeLong(position);
+                }
+                out.write(hashes);
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+}
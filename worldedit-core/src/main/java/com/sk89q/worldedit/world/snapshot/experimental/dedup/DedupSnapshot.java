@@ -0,0 +1,89 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.snapshot.experimental.dedup;
+
+import com.google.common.hash.HashCode;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.world.DataException;
+import com.sk89q.worldedit.world.snapshot.experimental.Snapshot;
+import com.sk89q.worldedit.world.snapshot.experimental.SnapshotInfo;
+import com.sk89q.worldedit.world.storage.ChunkStoreHelper;
+import com.sk89q.worldedit.world.storage.MissingChunkException;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.InflaterInputStream;
+import javax.annotation.Nullable;
+
+/**
+ * Snapshot based on a chunk manifest of a {@link DedupSnapshotDatabase}.
+ * Each chunk is read directly from its blob.
+ */
+public class DedupSnapshot implements Snapshot {
+
+    private final DedupSnapshotDatabase database;
+    private final SnapshotInfo info;
+    private final Path manifestPath;
+    @Nullable
+    private volatile ChunkManifest manifest;
+
+    DedupSnapshot(DedupSnapshotDatabase database, SnapshotInfo info, Path manifestPath) {
+        this.database = database;
+        this.info = info;
+        this.manifestPath = manifestPath;
+    }
+
+    @Override
+    public SnapshotInfo getInfo() {
+        return info;
+    }
+
+    private ChunkManifest getManifest() throws IOException {
+        ChunkManifest manifest = this.manifest;
+        if (manifest == null) {
+            manifest = ChunkManifest.read(manifestPath);
+            this.manifest = manifest;
+        }
+        return manifest;
+    }
+
+    @Override
+    public CompoundTag getChunkTag(BlockVector3 position) throws DataException, IOException {
+        HashCode hash = getManifest().getHash(position.toBlockVector2());
+        if (hash == null) {
+            throw new MissingChunkException();
+        }
+        Path blob = database.getBlobPath(hash);
+        if (!Files.exists(blob)) {
+            throw new DataException("Chunk data " + hash + " is missing from the snapshot database");
+        }
+        return ChunkStoreHelper.readCompoundTag(() ->
+            new InflaterInputStream(new BufferedInputStream(Files.newInputStream(blob)))
+        );
+    }
+
+    @Override
+    public void close() {
+        manifest = null;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.snapshot.experimental.dedup;
+
+import com.google.common.hash.HashCode;
+import com.google.common.net.UrlEscapers;
+import com.sk89q.worldedit.util.function.IOFunction;
+import com.sk89q.worldedit.util.io.file.SafeFiles;
+import com.sk89q.worldedit.world.snapshot.experimental.Snapshot;
+import com.sk89q.worldedit.world.snapshot.experimental.SnapshotDatabase;
+import com.sk89q.worldedit.world.snapshot.experimental.SnapshotInfo;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Implements a snapshot database that stores each distinct chunk only once.
+ *
+ * <p>Chunk data is stored compressed in {@code blobs/}, named by the SHA-256
+ * hash of the uncompressed data. Each snapshot is a manifest in
+ * {@code manifests/<world>/} that maps chunk positions to those hashes, so
+ * chunks that did not change between snapshots share a blob, and a single
+ * chunk can be read without unpacking anything else.</p>
+ *
+ * <p>Snapshots are added with a {@link DedupSnapshotWriter}.</p>
+ */
+public class DedupSnapshotDatabase implements SnapshotDatabase {
+
+    private static final String SCHEME = "snapdedup";
+    private static final String MANIFESTS = "manifests";
+    private static final String BLOBS = "blobs";
+    static final String MANIFEST_EXTENSION = ".manifest";
+
+    private static final DateTimeFormatter MANIFEST_NAME_FORMAT =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH_mm_ss'Z'").withZone(ZoneOffset.UTC);
+
+    /**
+     * Check if the given directory holds a deduplicating snapshot database.
+     *
+     * @param root the directory
+     * @return {@code true} if it is a database
+     */
+    public static boolean isDatabase(Path root) {
+        return Files.isDirectory(root.resolve(MANIFESTS)) && Files.isDirectory(root.resolve(BLOBS));
+    }
+
+    /**
+     * Open the deduplicating snapshot database in the given directory,
+     * creating an empty one if it does not hold one yet.
+     *
+     * @param root the directory
+     * @return the database
+     * @throws IOException if the directories of the database can't be created
+     */
+    public static DedupSnapshotDatabase maybeCreate(Path root) throws IOException {
+        Files.createDirectories(root.resolve(MANIFESTS));
+        Files.createDirectories(root.resolve(BLOBS));
+        return new DedupSnapshotDatabase(root);
+    }
+
+    public static URI createUri(String worldName, String manifestName) {
+        return URI.create(SCHEME + ":" + UrlEscapers.urlFragmentEscaper().escape(worldName + "/" + manifestName));
+    }
+
+    static String getManifestName(ZonedDateTime dateTime) {
+        return MANIFEST_NAME_FORMAT.format(dateTime);
+    }
+
+    private final Path root;
+
+    public DedupSnapshotDatabase(Path root) {
+        checkArgument(isDatabase(root), "Database root is not a deduplicating snapshot database");
+        try {
+            this.root = root.toRealPath();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to resolve snapshot database path", e);
+        }
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    @Override
+    public String getScheme() {
+        return SCHEME;
+    }
+
+    @Override
+    public Optional<Snapshot> getSnapshot(URI name) throws IOException {
+        if (!name.getScheme().equals(SCHEME)) {
+            return Optional.empty();
+        }
+        String id = name.getSchemeSpecificPart();
+        int split = id.lastIndexOf('/');
+        if (split < 0) {
+            return Optional.empty();
+        }
+        Path folder = getManifestFolder(id.substring(0, split));
+        // Catch trickery with paths:
+        Path manifest = folder.resolve(id.substring(split + 1) + MANIFEST_EXTENSION).normalize();
+        if (!isWorldFolder(folder) || !manifest.getParent().equals(folder) || !Files.isRegularFile(manifest)) {
+            return Optional.empty();
+        }
+        return Optional.of(createSnapshot(id.substring(0, split), manifest));
+    }
+
+    @Override
+    public Stream<Snapshot> getSnapshots(String worldName) throws IOException {
+        Path folder = getManifestFolder(worldName);
+        if (!isWorldFolder(folder) || !Files.isDirectory(folder)) {
+            return Stream.of();
+        }
+        return SafeFiles.noLeakFileList(folder)
+            .filter(path -> path.getFileName().toString().endsWith(MANIFEST_EXTENSION))
+            .map(IOFunction.unchecked(manifest -> createSnapshot(worldName, manifest)));
+    }
+
+    private Snapshot createSnapshot(String worldName, Path manifest) throws IOException {
+        String fileName = manifest.getFileName().toString();
+        String manifestName = fileName.substring(0, fileName.length() - MANIFEST_EXTENSION.length());
+        SnapshotInfo info = SnapshotInfo.create(
+            createUri(worldName, manifestName), ChunkManifest.readDateTime(manifest)
+        );
+        return new DedupSnapshot(this, info, manifest);
+    }
+
+    Path getManifestFolder(String worldName) {
+        return root.resolve(MANIFESTS).resolve(worldName).normalize();
+    }
+
+    private boolean isWorldFolder(Path folder) {
+        return root.resolve(MANIFESTS).equals(folder.getParent());
+    }
+
+    Path getBlobPath(HashCode hash) {
+        String hex = hash.toString();
+        return root.resolve(BLOBS).resolve(hex.substring(0, 2)).resolve(hex.substring(2));
+    }
+
+}
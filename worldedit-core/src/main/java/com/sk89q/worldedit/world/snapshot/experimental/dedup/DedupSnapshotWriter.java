@@ -0,0 +1,188 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.snapshot.experimental.dedup;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.util.io.file.SafeFiles;
+import com.sk89q.worldedit.world.DataException;
+import com.sk89q.worldedit.world.snapshot.experimental.SnapshotInfo;
+import com.sk89q.worldedit.world.storage.McRegionFile;
+import it.unimi.dsi.fastutil.longs.Long2ObjectAVLTreeMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectSortedMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.DeflaterOutputStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Adds snapshots of a world to a {@link DedupSnapshotDatabase}.
+ *
+ * <p>Only chunks whose data is not in the database yet are written, so a
+ * snapshot of a world that barely changed costs little more than its
+ * manifest.</p>
+ */
+public class DedupSnapshotWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(DedupSnapshotWriter.class);
+
+    private static final Pattern REGION_FILE = Pattern.compile("r\\.(-?\\d+)\\.(-?\\d+)\\.mc[ar]");
+    private static final HashFunction HASH_FUNCTION = Hashing.sha256();
+
+    private final DedupSnapshotDatabase database;
+    private long writtenChunks;
+    private long sharedChunks;
+
+    public DedupSnapshotWriter(DedupSnapshotDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * Add a snapshot of the given region folder.
+     *
+     * @param worldName the name of the world
+     * @param dateTime the date of the snapshot
+     * @param regionFolder the region folder of the world
+     * @return the info of the new snapshot
+     * @throws IOException if the world can't be read, or the snapshot can't be written
+     */
+    public SnapshotInfo write(String worldName, ZonedDateTime dateTime, Path regionFolder) throws IOException {
+        checkArgument(Files.isDirectory(regionFolder), "Region folder is not a directory");
+        Path manifestFolder = database.getManifestFolder(worldName);
+        checkArgument(manifestFolder.getParent().equals(database.getManifestFolder("")),
+            "Invalid world name: %s", worldName);
+        String manifestName = DedupSnapshotDatabase.getManifestName(dateTime);
+        Path manifestPath = manifestFolder.resolve(manifestName + DedupSnapshotDatabase.MANIFEST_EXTENSION);
+        if (Files.exists(manifestPath)) {
+            throw new FileAlreadyExistsException(manifestPath.toString());
+        }
+
+        Long2ObjectSortedMap<HashCode> chunks = new Long2ObjectAVLTreeMap<>();
+        List<Path> regionFiles;
+        try (Stream<Path> files = SafeFiles.noLeakFileList(regionFolder)) {
+            regionFiles = files.sorted().collect(Collectors.toList());
+        }
+        for (Path regionFile : regionFiles) {
+            Matcher matcher = REGION_FILE.matcher(regionFile.getFileName().toString());
+            if (!matcher.matches() || !Files.isRegularFile(regionFile)) {
+                continue;
+            }
+            BlockVector2 region = BlockVector2.at(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            writeRegion(region, regionFile, chunks);
+        }
+
+        long[] positions = chunks.keySet().toLongArray();
+        byte[] hashes = new byte[positions.length * ChunkManifest.HASH_BYTES];
+        int i = 0;
+        for (HashCode hash : chunks.values()) {
+            hash.writeBytesTo(hashes, i * ChunkManifest.HASH_BYTES, ChunkManifest.HASH_BYTES);
+            i++;
+        }
+        Files.createDirectories(manifestFolder);
+        new ChunkManifest(dateTime, positions, hashes).write(manifestPath);
+        return SnapshotInfo.create(DedupSnapshotDatabase.createUri(worldName, manifestName), dateTime);
+    }
+
+    private void writeRegion(BlockVector2 region, Path regionFile, Long2ObjectSortedMap<HashCode> chunks)
+        throws IOException {
+        try (McRegionFile regionReader = McRegionFile.open(regionFile)) {
+            for (int z = 0; z < 32; z++) {
+                for (int x = 0; x < 32; x++) {
+                    if (!regionReader.hasChunk(x, z)) {
+                        continue;
+                    }
+                    int chunkX = (region.getBlockX() << 5) + x;
+                    int chunkZ = (region.getBlockZ() << 5) + z;
+                    long key = ChunkManifest.key(chunkX, chunkZ);
+                    if (chunks.containsKey(key)) {
+                        // .mca and .mcr of the same region, the first one wins
+                        continue;
+                    }
+                    byte[] data;
+                    try (InputStream chunkIn = regionReader.getChunkInputStream(BlockVector2.at(chunkX, chunkZ))) {
+                        data = ByteStreams.toByteArray(chunkIn);
+                    } catch (DataException e) {
+                        log.warn("Skipping unreadable chunk " + chunkX + "," + chunkZ + " in " + regionFile, e);
+                        continue;
+                    }
+                    chunks.put(key, writeBlob(data));
+                }
+            }
+        }
+    }
+
+    private HashCode writeBlob(byte[] data) throws IOException {
+        HashCode hash = HASH_FUNCTION.hashBytes(data);
+        Path blob = database.getBlobPath(hash);
+        if (Files.exists(blob)) {
+            sharedChunks++;
+            return hash;
+        }
+        Files.createDirectories(blob.getParent());
+        Path temp = Files.createTempFile(blob.getParent(), "blob", ".tmp");
+        try {
+            try (OutputStream out = new DeflaterOutputStream(Files.newOutputStream(temp))) {
+                out.write(data);
+            }
+            Files.move(temp, blob, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        writtenChunks++;
+        return hash;
+    }
+
+    /**
+     * Get the number of chunks this writer stored new data for.
+     *
+     * @return the number of written chunks
+     */
+    public long getWrittenChunks() {
+        return writtenChunks;
+    }
+
+    /**
+     * Get the number of chunks this writer found already stored.
+     *
+     * @return the number of shared chunks
+     */
+    public long getSharedChunks() {
+        return sharedChunks;
+    }
+
+}
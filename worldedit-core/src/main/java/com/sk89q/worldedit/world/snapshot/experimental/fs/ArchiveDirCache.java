@@ -0,0 +1,198 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.snapshot.experimental.fs;
+
+import com.sk89q.worldedit.util.io.file.ArchiveDir;
+import com.sk89q.worldedit.util.io.file.ArchiveNioSupport;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Keeps recently used archives open, so that listing and restoring from the
+ * same archive doesn't open it again each time.
+ *
+ * <p>Archives are handed out as leases. An evicted archive is closed once
+ * the last lease on it is closed. An archive that was opened from inside
+ * another archive holds a lease on its parent for as long as it is open.</p>
+ */
+final class ArchiveDirCache {
+
+    private static final class Handle {
+        private final Path archive;
+        private final ArchiveDir dir;
+        private final FileTime modified;
+        @Nullable
+        private final Lease parent;
+        private int leases;
+        private boolean evicted;
+
+        private Handle(Path archive, ArchiveDir dir, FileTime modified, @Nullable Lease parent) {
+            this.archive = archive;
+            this.dir = dir;
+            this.modified = modified;
+            this.parent = parent;
+        }
+    }
+
+    /**
+     * A lease on an open archive. Closing it does not close the archive
+     * unless it was evicted from the cache.
+     */
+    final class Lease implements ArchiveDir {
+        private final Handle handle;
+        private boolean closed;
+
+        private Lease(Handle handle) {
+            this.handle = handle;
+        }
+
+        private Lease retain() {
+            checkState(!closed, "Lease is closed");
+            handle.leases++;
+            return new Lease(handle);
+        }
+
+        @Override
+        public Path getPath() {
+            return handle.dir.getPath();
+        }
+
+        @Override
+        public void close() throws IOException {
+            synchronized (ArchiveDirCache.this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                handle.leases--;
+            }
+            closeIfUnused(handle);
+        }
+    }
+
+    private final ArchiveNioSupport archiveNioSupport;
+    private final int maxOpen;
+    private final Map<Path, Handle> handles = new LinkedHashMap<>(16, 0.75f, true);
+
+    ArchiveDirCache(ArchiveNioSupport archiveNioSupport, int maxOpen) {
+        this.archiveNioSupport = archiveNioSupport;
+        this.maxOpen = maxOpen;
+    }
+
+    /**
+     * Try to open the given archive, or lease it if it's already open.
+     *
+     * @param archive the archive
+     * @param parent the lease on the archive containing this archive, if any
+     * @return the lease, if the file is a supported archive
+     */
+    Optional<Lease> tryOpen(Path archive, @Nullable Lease parent) throws IOException {
+        FileTime modified = Files.getLastModifiedTime(archive);
+        List<Handle> toClose = new ArrayList<>();
+        try {
+            synchronized (this) {
+                Handle handle = handles.get(archive);
+                if (handle != null) {
+                    if (handle.modified.equals(modified)) {
+                        handle.leases++;
+                        return Optional.of(new Lease(handle));
+                    }
+                    // changed on disk, so the open view may be stale
+                    handles.remove(archive);
+                    handle.evicted = true;
+                    toClose.add(handle);
+                }
+            }
+            Optional<ArchiveDir> opened = archiveNioSupport.tryOpenAsDir(archive);
+            if (!opened.isPresent()) {
+                return Optional.empty();
+            }
+            synchronized (this) {
+                Lease parentLease = parent == null ? null : parent.retain();
+                Handle handle = new Handle(archive, opened.get(), modified, parentLease);
+                handle.leases++;
+                Handle previous = handles.put(archive, handle);
+                if (previous != null) {
+                    // lost a race with another thread opening the same archive
+                    previous.evicted = true;
+                    toClose.add(previous);
+                }
+                Iterator<Handle> iterator = handles.values().iterator();
+                while (handles.size() > maxOpen && iterator.hasNext()) {
+                    Handle eldest = iterator.next();
+                    iterator.remove();
+                    eldest.evicted = true;
+                    toClose.add(eldest);
+                }
+                return Optional.of(new Lease(handle));
+            }
+        } finally {
+            for (Handle handle : toClose) {
+                closeIfUnused(handle);
+            }
+        }
+    }
+
+    /**
+     * Close every archive that isn't leased right now, and close the rest
+     * as soon as their last lease is closed.
+     */
+    void clear() throws IOException {
+        List<Handle> toClose;
+        synchronized (this) {
+            toClose = new ArrayList<>(handles.values());
+            handles.clear();
+            toClose.forEach(handle -> handle.evicted = true);
+        }
+        for (Handle handle : toClose) {
+            closeIfUnused(handle);
+        }
+    }
+
+    private void closeIfUnused(Handle handle) throws IOException {
+        synchronized (this) {
+            if (!handle.evicted || handle.leases > 0) {
+                return;
+            }
+            // make sure it is only closed once
+            handle.leases = -1;
+        }
+        try {
+            handle.dir.close();
+        } finally {
+            if (handle.parent != null) {
+                handle.parent.close();
+            }
+        }
+    }
+
+}
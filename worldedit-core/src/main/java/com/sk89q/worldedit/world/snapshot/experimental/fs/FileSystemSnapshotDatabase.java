@@ -21,30 +21,50 @@
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.net.UrlEscapers;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.util.function.IOFunction;
 import com.sk89q.worldedit.util.function.IORunnable;
 import com.sk89q.worldedit.util.io.Closer;
-import com.sk89q.worldedit.util.io.file.ArchiveDir;
 import com.sk89q.worldedit.util.io.file.ArchiveNioSupport;
 import com.sk89q.worldedit.util.io.file.MorePaths;
 import com.sk89q.worldedit.util.io.file.SafeFiles;
 import com.sk89q.worldedit.util.time.FileNameDateTimeParser;
 import com.sk89q.worldedit.util.time.ModificationDateTimeParser;
 import com.sk89q.worldedit.util.time.SnapshotDateTimeParser;
+import com.sk89q.worldedit.world.DataException;
 import com.sk89q.worldedit.world.snapshot.experimental.Snapshot;
 import com.sk89q.worldedit.world.snapshot.experimental.SnapshotDatabase;
 import com.sk89q.worldedit.world.snapshot.experimental.SnapshotInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
 
@@ -53,10 +73,28 @@
 /**
  * Implements a snapshot database based on a filesystem.
  */
-public class FileSystemSnapshotDatabase implements SnapshotDatabase {
+public class FileSystemSnapshotDatabase implements SnapshotDatabase, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(FileSystemSnapshotDatabase.class);
 
     private static final String SCHEME = "snapfs";
 
+    /**
+     * The file in the database root that the catalog is kept in, so that a
+     * restart does not have to open every archive again.
+     */
+    private static final String CATALOG_FILE = ".worldedit-catalog";
+
+    private static final int CATALOG_VERSION = 1;
+
+    /**
+     * How long an entry must stay unmodified before what was found in it is
+     * remembered. Backups that are still being written are looked at again.
+     */
+    private static final Duration SETTLE_TIME = Duration.ofMinutes(1);
+
+    private static final int MAX_OPEN_ARCHIVES = 16;
+
     private static final List<SnapshotDateTimeParser> DATE_TIME_PARSERS =
         new ImmutableList.Builder<SnapshotDateTimeParser>()
             .add(FileNameDateTimeParser.getInstance())
@@ -89,7 +127,10 @@ public static FileSystemSnapshotDatabase maybeCreate(
     }
 
     private final Path root;
-    private final ArchiveNioSupport archiveNioSupport;
+    private final ArchiveDirCache archives;
+    private final Map<String, Map<Path, CatalogEntry>> catalog = new ConcurrentHashMap<>();
+    private volatile boolean catalogDirty;
+    private boolean catalogWritable = true;
 
     public FileSystemSnapshotDatabase(Path root, ArchiveNioSupport archiveNioSupport) {
         checkArgument(Files.isDirectory(root), "Database root is not a directory");
@@ -98,7 +139,8 @@ public FileSystemSnapshotDatabase(Path root, ArchiveNioSupport archiveNioSupport
         } catch (IOException e) {
             throw new RuntimeException("Failed to resolve snapshot database path", e);
         }
-        this.archiveNioSupport = archiveNioSupport;
+        this.archives = new ArchiveDirCache(archiveNioSupport, MAX_OPEN_ARCHIVES);
+        loadCatalog();
     }
 
     /*
@@ -161,6 +203,7 @@ private Optional<Snapshot> tryRegularFileSnapshot(Path idPath) throws IOExceptio
         Closer closer = Closer.create();
         Path root = this.root;
         Path relative = idPath;
+        ArchiveDirCache.Lease parent = null;
         Iterator<Path> iterator = null;
         try {
             while (true) {
@@ -177,11 +220,11 @@ private Optional<Snapshot> tryRegularFileSnapshot(Path idPath) throws IOExceptio
                     // This will never be it.
                     continue;
                 }
-                Optional<ArchiveDir> newRootOpt = archiveNioSupport.tryOpenAsDir(next);
+                Optional<ArchiveDirCache.Lease> newRootOpt = archives.tryOpen(next, parent);
                 if (newRootOpt.isPresent()) {
-                    ArchiveDir archiveDir = newRootOpt.get();
+                    ArchiveDirCache.Lease archiveDir = newRootOpt.get();
                     root = archiveDir.getPath();
-                    closer.register(archiveDir);
+                    parent = closer.register(archiveDir);
                     // Switch path to path inside the archive
                     relative = root.resolve(relativeNext.relativize(relative).toString());
                     iterator = null;
@@ -216,34 +259,78 @@ public Stream<Snapshot> getSnapshots(String worldName) throws IOException {
            All archives may have a root directory with the same name as the archive,
            minus the extensions. Due to extension detection methods, this won't work properly
            with some files, e.g. world.qux.zip/world.qux is invalid, but world.qux.zip/world isn't.
+
+         What was found in each entry is remembered in the catalog, until the
+         modification time of the entry changes.
          */
-        return SafeFiles.noLeakFileList(root)
-            .flatMap(IOFunction.unchecked(entry -> {
-                String worldEntry = getWorldEntry(worldName, entry);
-                if (worldEntry != null) {
-                    return Stream.of(worldEntry);
-                }
+        Map<Path, CatalogEntry> worldCatalog = catalog.computeIfAbsent(worldName, k -> new ConcurrentHashMap<>());
+        Set<Path> seen = new HashSet<>();
+        List<Snapshot> snapshots = new ArrayList<>();
+        try (Stream<Path> entries = SafeFiles.noLeakFileList(root)) {
+            for (Path entry : (Iterable<Path>) entries::iterator) {
                 String fileName = SafeFiles.canonicalFileName(entry);
+                if (fileName.equals(CATALOG_FILE)) {
+                    continue;
+                }
                 if (fileName.equals(worldName)
                     && Files.isDirectory(entry)
                     && !Files.exists(entry.resolve("level.dat"))) {
                     // world dir with timestamp entries
-                    return listTimestampedEntries(worldName, entry)
-                        .map(id -> worldName + "/" + id);
+                    try (Stream<Path> timestamped = SafeFiles.noLeakFileList(entry)) {
+                        for (Path child : (Iterable<Path>) timestamped::iterator) {
+                            seen.add(child);
+                            addSnapshots(snapshots, worldCatalog, child, path ->
+                                getTimestampedEntries(worldName, path).map(id -> worldName + "/" + id));
+                        }
+                    }
+                    continue;
                 }
-                return getTimestampedEntries(worldName, entry);
-            }))
-            .map(IOFunction.unchecked(id ->
-                getSnapshot(id)
-                    .orElseThrow(() ->
-                        new AssertionError("Could not find discovered snapshot: " + id)
-                    )
-            ));
+                seen.add(entry);
+                addSnapshots(snapshots, worldCatalog, entry, path -> {
+                    String worldEntry = getWorldEntry(worldName, path, null);
+                    if (worldEntry != null) {
+                        return Stream.of(worldEntry);
+                    }
+                    return getTimestampedEntries(worldName, path);
+                });
+            }
+        }
+        if (worldCatalog.keySet().retainAll(seen)) {
+            catalogDirty = true;
+        }
+        if (catalogDirty) {
+            saveCatalog();
+        }
+        return snapshots.stream();
     }
 
-    private Stream<String> listTimestampedEntries(String worldName, Path directory) throws IOException {
-        return SafeFiles.noLeakFileList(directory)
-            .flatMap(IOFunction.unchecked(entry -> getTimestampedEntries(worldName, entry)));
+    private void addSnapshots(List<Snapshot> snapshots, Map<Path, CatalogEntry> worldCatalog, Path entry,
+                              IOFunction<Path, Stream<String>> idFinder) throws IOException {
+        long modified = Files.getLastModifiedTime(entry).toMillis();
+        long size = Files.size(entry);
+        CatalogEntry cached = worldCatalog.get(entry);
+        if (cached == null || cached.modified != modified || cached.size != size) {
+            ImmutableList.Builder<SnapshotInfo> infos = ImmutableList.builder();
+            try (Stream<String> ids = idFinder.apply(entry)) {
+                for (String id : (Iterable<String>) ids::iterator) {
+                    try (Snapshot snapshot = getSnapshot(id).orElseThrow(() ->
+                        new AssertionError("Could not find discovered snapshot: " + id))) {
+                        infos.add(snapshot.getInfo());
+                    }
+                }
+            }
+            cached = new CatalogEntry(modified, size, infos.build());
+            if (Instant.ofEpochMilli(modified).isBefore(Instant.now().minus(SETTLE_TIME))) {
+                worldCatalog.put(entry, cached);
+                catalogDirty = true;
+            } else if (worldCatalog.remove(entry) != null) {
+                // may still be being written, so look again next time
+                catalogDirty = true;
+            }
+        }
+        for (SnapshotInfo info : cached.snapshots) {
+            snapshots.add(new CatalogSnapshot(info));
+        }
     }
 
     private Stream<String> getTimestampedEntries(String worldName, Path entry) throws IOException {
@@ -255,38 +342,40 @@ private Stream<String> getTimestampedEntries(String worldName, Path entry) throw
         String fileName = SafeFiles.canonicalFileName(entry);
         if (Files.isDirectory(entry)) {
             // timestamped directory, find worlds inside
-            return listWorldEntries(worldName, entry)
+            return listWorldEntries(worldName, entry, null)
                 .map(id -> fileName + "/" + id);
         }
         if (!Files.isRegularFile(entry)) {
             // not an archive either?
             return Stream.of();
         }
-        Optional<ArchiveDir> asArchive = archiveNioSupport.tryOpenAsDir(entry);
+        Optional<ArchiveDirCache.Lease> asArchive = archives.tryOpen(entry, null);
         if (asArchive.isPresent()) {
             // timestamped archive
-            ArchiveDir dir = asArchive.get();
-            return listWorldEntries(worldName, dir.getPath())
+            ArchiveDirCache.Lease dir = asArchive.get();
+            return listWorldEntries(worldName, dir.getPath(), dir)
                 .map(id -> fileName + "/" + id)
                 .onClose(IORunnable.unchecked(dir::close));
         }
         return Stream.of();
     }
 
-    private Stream<String> listWorldEntries(String worldName, Path directory) throws IOException {
+    private Stream<String> listWorldEntries(String worldName, Path directory,
+                                            @Nullable ArchiveDirCache.Lease parent) throws IOException {
         return SafeFiles.noLeakFileList(directory)
-            .map(IOFunction.unchecked(entry -> getWorldEntry(worldName, entry)))
+            .map(IOFunction.unchecked(entry -> getWorldEntry(worldName, entry, parent)))
             .filter(Objects::nonNull);
     }
 
-    private String getWorldEntry(String worldName, Path entry) throws IOException {
+    private String getWorldEntry(String worldName, Path entry,
+                                 @Nullable ArchiveDirCache.Lease parent) throws IOException {
         String fileName = SafeFiles.canonicalFileName(entry);
         if (fileName.equals(worldName) && Files.exists(entry.resolve("level.dat"))) {
             // world directory
             return worldName;
         }
         if (fileName.startsWith(worldName + ".") && Files.isRegularFile(entry)) {
-            Optional<ArchiveDir> asArchive = archiveNioSupport.tryOpenAsDir(entry);
+            Optional<ArchiveDirCache.Lease> asArchive = archives.tryOpen(entry, parent);
             if (asArchive.isPresent()) {
                 // world archive
                 asArchive.get().close();
@@ -296,4 +385,155 @@ private String getWorldEntry(String worldName, Path entry) throws IOException {
         return null;
     }
 
+    /**
+     * Read the catalog saved by an earlier instance. A missing or unreadable
+     * catalog is not an error, the entries are just scanned again.
+     */
+    private void loadCatalog() {
+        Path file = root.resolve(CATALOG_FILE);
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != CATALOG_VERSION) {
+                return;
+            }
+            Map<String, Map<Path, CatalogEntry>> loaded = new ConcurrentHashMap<>();
+            int worlds = in.readInt();
+            for (int i = 0; i < worlds; i++) {
+                Map<Path, CatalogEntry> worldCatalog = new ConcurrentHashMap<>();
+                loaded.put(in.readUTF(), worldCatalog);
+                int entries = in.readInt();
+                for (int j = 0; j < entries; j++) {
+                    Path entry = root.resolve(in.readUTF()).normalize();
+                    long modified = in.readLong();
+                    long size = in.readLong();
+                    ImmutableList.Builder<SnapshotInfo> infos = ImmutableList.builder();
+                    int count = in.readInt();
+                    for (int k = 0; k < count; k++) {
+                        URI name = URI.create(in.readUTF());
+                        ZonedDateTime dateTime = ZonedDateTime.parse(in.readUTF(),
+                            DateTimeFormatter.ISO_ZONED_DATE_TIME);
+                        infos.add(SnapshotInfo.create(name, dateTime));
+                    }
+                    if (entry.startsWith(root)) {
+                        worldCatalog.put(entry, new CatalogEntry(modified, size, infos.build()));
+                    }
+                }
+            }
+            catalog.putAll(loaded);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Ignoring unreadable snapshot catalog " + file, e);
+        }
+    }
+
+    /**
+     * Write the catalog next to the snapshots. It is written to a temporary
+     * file first, so a crash never leaves a half-written catalog behind.
+     */
+    private synchronized void saveCatalog() {
+        if (!catalogWritable) {
+            return;
+        }
+        catalogDirty = false;
+        Path file = root.resolve(CATALOG_FILE);
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(root, CATALOG_FILE, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(CATALOG_VERSION);
+                out.writeInt(catalog.size());
+                for (Map.Entry<String, Map<Path, CatalogEntry>> world : catalog.entrySet()) {
+                    // copied, so the count matches what is written while other lookups run
+                    Map<Path, CatalogEntry> worldCatalog = new HashMap<>(world.getValue());
+                    out.writeUTF(world.getKey());
+                    out.writeInt(worldCatalog.size());
+                    for (Map.Entry<Path, CatalogEntry> entry : worldCatalog.entrySet()) {
+                        CatalogEntry cached = entry.getValue();
+                        out.writeUTF(root.relativize(entry.getKey()).toString());
+                        out.writeLong(cached.modified);
+                        out.writeLong(cached.size);
+                        out.writeInt(cached.snapshots.size());
+                        for (SnapshotInfo info : cached.snapshots) {
+                            out.writeUTF(info.getName().toString());
+                            out.writeUTF(info.getDateTime().format(DateTimeFormatter.ISO_ZONED_DATE_TIME));
+                        }
+                    }
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            // e.g. a read-only backup mount, the catalog is then only kept in memory
+            catalogWritable = false;
+            log.warn("Could not save the snapshot catalog to " + file, e);
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Close the archives kept open by this database. Snapshots that are
+     * still open keep working, and close their archives when closed.
+     */
+    @Override
+    public void close() throws IOException {
+        archives.clear();
+    }
+
+    private static final class CatalogEntry {
+        private final long modified;
+        private final long size;
+        private final List<SnapshotInfo> snapshots;
+
+        private CatalogEntry(long modified, long size, List<SnapshotInfo> snapshots) {
+            this.modified = modified;
+            this.size = size;
+            this.snapshots = snapshots;
+        }
+    }
+
+    /**
+     * A snapshot from the catalog, which only opens the snapshot data when
+     * chunks are requested. Sorting and filtering by date is therefore free.
+     */
+    private final class CatalogSnapshot implements Snapshot {
+        private final SnapshotInfo info;
+        @Nullable
+        private Snapshot opened;
+
+        private CatalogSnapshot(SnapshotInfo info) {
+            this.info = info;
+        }
+
+        @Override
+        public SnapshotInfo getInfo() {
+            return info;
+        }
+
+        @Override
+        public synchronized CompoundTag getChunkTag(BlockVector3 position) throws DataException, IOException {
+            if (opened == null) {
+                opened = getSnapshot(info.getName())
+                    .orElseThrow(() -> new IOException("Snapshot is gone: " + info.getDisplayName()));
+            }
+            return opened.getChunkTag(position);
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (opened != null) {
+                opened.close();
+                opened = null;
+            }
+        }
+    }
+
 }
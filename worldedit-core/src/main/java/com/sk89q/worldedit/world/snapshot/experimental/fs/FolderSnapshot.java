@@ -29,11 +29,11 @@
 import com.sk89q.worldedit.world.storage.ChunkStoreHelper;
 import com.sk89q.worldedit.world.storage.LegacyChunkStore;
 import com.sk89q.worldedit.world.storage.McRegionChunkStore;
-import com.sk89q.worldedit.world.storage.McRegionReader;
+import com.sk89q.worldedit.world.storage.McRegionFile;
+import com.sk89q.worldedit.world.storage.McRegionFileCache;
 import com.sk89q.worldedit.world.storage.MissingChunkException;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Optional;
@@ -151,10 +151,8 @@ public CompoundTag getChunkTag(BlockVector3 position) throws DataException, IOEx
                 throw new MissingChunkException();
             }
         }
-        try (InputStream stream = Files.newInputStream(regionFile)) {
-            McRegionReader regionReader = new McRegionReader(stream);
-            return ChunkStoreHelper.readCompoundTag(() -> regionReader.getChunkInputStream(pos));
-        }
+        McRegionFile regionReader = McRegionFileCache.getShared().get(regionFile);
+        return ChunkStoreHelper.readCompoundTag(() -> regionReader.getChunkInputStream(pos));
     }
 
     @Override
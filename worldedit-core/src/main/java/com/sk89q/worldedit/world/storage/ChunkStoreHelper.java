@@ -19,8 +19,9 @@
 
 package com.sk89q.worldedit.world.storage;
 
+import com.google.common.io.ByteStreams;
 import com.sk89q.jnbt.CompoundTag;
-import com.sk89q.jnbt.NBTInputStream;
+import com.sk89q.jnbt.LazyNBTReader;
 import com.sk89q.jnbt.Tag;
 import com.sk89q.worldedit.WorldEdit;
 import com.sk89q.worldedit.extension.platform.Capability;
@@ -48,9 +49,10 @@ public interface ChunkDataInputSupplier {
     }
 
     public static CompoundTag readCompoundTag(ChunkDataInputSupplier input) throws DataException, IOException {
-        try (InputStream stream = input.openInputStream();
-             NBTInputStream nbt = new NBTInputStream(stream)) {
-            Tag tag = nbt.readNamedTag().getTag();
+        try (InputStream stream = input.openInputStream()) {
+            // chunk readers only look at a few children of the root, so
+            // leave the rest unparsed until something asks for it
+            Tag tag = LazyNBTReader.readNamedTag(ByteStreams.toByteArray(stream)).getTag();
             if (!(tag instanceof CompoundTag)) {
                 throw new ChunkStoreException("CompoundTag expected for chunk; got "
                     + tag.getClass().getName());
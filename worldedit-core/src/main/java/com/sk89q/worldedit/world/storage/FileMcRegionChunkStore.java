@@ -19,14 +19,19 @@
 
 package com.sk89q.worldedit.world.storage;
 
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.world.DataException;
+import com.sk89q.worldedit.world.World;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
 import java.util.regex.Pattern;
+import javax.annotation.Nullable;
 
 public class FileMcRegionChunkStore extends McRegionChunkStore {
 
@@ -42,10 +47,37 @@ public FileMcRegionChunkStore(File path) {
         this.path = path;
     }
 
+    @Override
+    public CompoundTag getChunkTag(BlockVector2 position, World world) throws DataException, IOException {
+        File file = findRegionFile(getFilename(position));
+        if (file == null) {
+            throw new MissingChunkException();
+        }
+        McRegionFile region;
+        try {
+            region = McRegionFileCache.getShared().get(file.toPath());
+        } catch (NoSuchFileException e) {
+            throw new MissingChunkException();
+        }
+        return ChunkStoreHelper.readCompoundTag(() -> region.getChunkInputStream(position));
+    }
+
     @Override
     protected InputStream getInputStream(String name, String world) throws IOException, DataException {
+        File file = findRegionFile(name);
+        try {
+            if (file == null) {
+                throw new FileNotFoundException();
+            }
+            return new FileInputStream(file);
+        } catch (FileNotFoundException e) {
+            throw new MissingChunkException();
+        }
+    }
+
+    @Nullable
+    private File findRegionFile(String name) throws FileNotFoundException {
         Pattern ext = Pattern.compile(".*\\.mc[ra]$"); // allow either file extension, both work the same
-        File file = null;
         File[] files = new File(path, "region").listFiles();
 
         if (files == null) {
@@ -56,19 +88,10 @@ protected InputStream getInputStream(String name, String world) throws IOExcepti
             String tempName = f.getName().replaceFirst("mcr$", "mca"); // matcher only does one at a time
             if (ext.matcher(f.getName()).matches() && name.equalsIgnoreCase(tempName)) {
                 // get full original path now
-                file = new File(path + File.separator + "region" + File.separator + f.getName());
-                break;
+                return new File(path + File.separator + "region" + File.separator + f.getName());
             }
         }
-
-        try {
-            if (file == null) {
-                throw new FileNotFoundException();
-            }
-            return new FileInputStream(file);
-        } catch (FileNotFoundException e) {
-            throw new MissingChunkException();
-        }
+        return null;
     }
 
     @Override
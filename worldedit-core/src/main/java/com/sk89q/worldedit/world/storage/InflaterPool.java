@@ -0,0 +1,90 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.storage;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Inflates zlib data with a bounded pool of {@link Inflater}s, so reading
+ * many chunks doesn't allocate (and leave for finalization) a native
+ * inflater per chunk.
+ */
+final class InflaterPool {
+
+    private static final int MAX_POOLED = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    private static final Queue<Inflater> pool = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger pooled = new AtomicInteger();
+
+    /**
+     * Inflate the given zlib data.
+     *
+     * @param data the compressed data
+     * @param offset the start of the compressed data
+     * @param length the length of the compressed data
+     * @return the inflated data
+     * @throws DataFormatException if the data is not valid zlib data
+     */
+    static byte[] inflate(byte[] data, int offset, int length) throws DataFormatException {
+        Inflater inflater = pool.poll();
+        if (inflater == null) {
+            inflater = new Inflater();
+        } else {
+            pooled.decrementAndGet();
+        }
+        try {
+            inflater.setInput(data, offset, length);
+            // chunk NBT usually compresses between 4:1 and 8:1
+            byte[] out = new byte[Math.max(length * 4, 256)];
+            int size = 0;
+            while (!inflater.finished()) {
+                if (size == out.length) {
+                    out = Arrays.copyOf(out, out.length * 2);
+                }
+                int read = inflater.inflate(out, size, out.length - size);
+                if (read == 0 && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated zlib data");
+                }
+                size += read;
+            }
+            return size == out.length ? out : Arrays.copyOf(out, size);
+        } finally {
+            release(inflater);
+        }
+    }
+
+    private static void release(Inflater inflater) {
+        inflater.reset();
+        if (pooled.incrementAndGet() <= MAX_POOLED) {
+            pool.offer(inflater);
+        } else {
+            pooled.decrementAndGet();
+            inflater.end();
+        }
+    }
+
+    private InflaterPool() {
+    }
+
+}
@@ -0,0 +1,337 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.storage;
+
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.world.DataException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import javax.annotation.Nullable;
+
+/**
+ * A MCRegion file held entirely in a buffer, memory-mapped when the file
+ * system supports it.
+ *
+ * <p>Unlike {@link McRegionReader}, chunks can be read in any order and
+ * from any number of threads at once, because every read uses absolute
+ * positions on the shared buffer. See {@link McRegionReader} for the format
+ * itself.</p>
+ *
+ * <p>Files too large to map in one buffer, and files that were
+ * {@linkplain #close() closed}, read each chunk from the file instead.</p>
+ *
+ * <p>A mapping stays valid after the file is changed, but the chunk it then
+ * returns is undefined. Use {@link McRegionFileCache} to get a file that is
+ * re-opened when it changes.</p>
+ */
+public final class McRegionFile implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(McRegionFile.class);
+
+    private static final int VERSION_GZIP = 1;
+    private static final int VERSION_DEFLATE = 2;
+    private static final int SECTOR_BYTES = 4096;
+
+    /**
+     * Open a region file.
+     *
+     * @param file the file
+     * @return the region file
+     * @throws IOException if the file can't be read or is too short to be a region file
+     */
+    public static McRegionFile open(Path file) throws IOException {
+        return open(file, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Open a region file, mapping it only if it is at most the given size.
+     *
+     * @param file the file
+     * @param maxBufferSize the largest file to hold in a buffer
+     * @return the region file
+     * @throws IOException if the file can't be read or is too short to be a region file
+     */
+    static McRegionFile open(Path file, long maxBufferSize) throws IOException {
+        ByteBuffer data;
+        boolean mapped;
+        long size;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            size = channel.size();
+            if (size < SECTOR_BYTES) {
+                throw new IOException("Region file " + file + " is missing its header");
+            }
+            if (size > maxBufferSize) {
+                // a buffer can't hold more than 2 GiB
+                return new McRegionFile(file, size, readHeader(channel), null, false);
+            }
+            // the mapping outlives the channel
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mapped = true;
+        } catch (UnsupportedOperationException e) {
+            // e.g. files inside a zip file system
+            data = ByteBuffer.wrap(Files.readAllBytes(file));
+            mapped = false;
+            size = data.capacity();
+            if (size < SECTOR_BYTES) {
+                throw new IOException("Region file " + file + " is missing its header");
+            }
+        }
+        ByteBuffer header = ByteBuffer.allocate(SECTOR_BYTES);
+        header.put((ByteBuffer) data.duplicate().limit(SECTOR_BYTES)).flip();
+        return new McRegionFile(file, size, header, data, mapped);
+    }
+
+    private static ByteBuffer readHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(SECTOR_BYTES);
+        readFully(channel, header, 0);
+        header.flip();
+        return header;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long next = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, next);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of region file");
+            }
+            next += read;
+        }
+    }
+
+    private final Path file;
+    private final long size;
+    private final IntBuffer offsets;
+    private final boolean mapped;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    @Nullable
+    private ByteBuffer data;
+
+    private McRegionFile(Path file, long size, ByteBuffer header, @Nullable ByteBuffer data, boolean mapped) {
+        this.file = file;
+        this.size = size;
+        this.offsets = header.asIntBuffer();
+        this.data = data;
+        this.mapped = mapped;
+    }
+
+    /**
+     * Get whether the file is memory-mapped, rather than read onto the heap.
+     *
+     * @return true if memory-mapped
+     */
+    public boolean isMapped() {
+        return mapped;
+    }
+
+    /**
+     * Get whether chunks are read from a buffer, rather than from the file.
+     *
+     * @return true if buffered
+     */
+    boolean isBuffered() {
+        return data != null;
+    }
+
+    /**
+     * Get the size of the file.
+     *
+     * @return the size of the file
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Get the number of bytes of the file that are held on the heap.
+     *
+     * @return the number of bytes, 0 if the file is mapped or read as needed
+     */
+    public int heapSize() {
+        ByteBuffer data = this.data;
+        return data == null || mapped ? 0 : data.capacity();
+    }
+
+    private int getOffset(int x, int z) {
+        return offsets.get((x & 31) + (z & 31) * 32);
+    }
+
+    /**
+     * Returns whether the file contains a chunk.
+     *
+     * @param x the X coordinate, only the lower 5 bits are used
+     * @param z the Z coordinate, only the lower 5 bits are used
+     * @return true if the chunk exists
+     */
+    public boolean hasChunk(int x, int z) {
+        return getOffset(x, z) != 0;
+    }
+
+    /**
+     * Gets the uncompressed data input stream for a chunk.
+     *
+     * @param position chunk position
+     * @return an input stream
+     * @throws IOException if the chunk data can't be decompressed
+     * @throws DataException if the chunk doesn't exist or its data is invalid
+     */
+    public InputStream getChunkInputStream(BlockVector2 position) throws IOException, DataException {
+        int x = position.getBlockX() & 31;
+        int z = position.getBlockZ() & 31;
+
+        int offset = getOffset(x, z);
+
+        // The chunk hasn't been generated
+        if (offset == 0) {
+            throw new DataException("The chunk at " + x + "," + z + " is not generated");
+        }
+
+        int sectorNumber = offset >>> 8;
+        int numSectors = offset & 0xFF;
+        long start = (long) sectorNumber * SECTOR_BYTES;
+        if (start + McRegionReader.CHUNK_HEADER_SIZE > size) {
+            throw new DataException("MCRegion file does not contain "
+                    + x + "," + z + " in full");
+        }
+
+        byte version;
+        byte[] compressed;
+        lock.readLock().lock();
+        try {
+            ByteBuffer data = this.data;
+            if (data != null) {
+                int length = checkLength(data.getInt((int) start), numSectors, start, x, z);
+                version = data.get((int) start + 4);
+                checkVersion(version, x, z);
+                compressed = new byte[length - 1];
+                ByteBuffer view = data.duplicate();
+                view.position((int) start + McRegionReader.CHUNK_HEADER_SIZE);
+                view.get(compressed);
+            } else {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    ByteBuffer chunkHeader = ByteBuffer.allocate(McRegionReader.CHUNK_HEADER_SIZE);
+                    readFully(channel, chunkHeader, start);
+                    int length = checkLength(chunkHeader.getInt(0), numSectors, start, x, z);
+                    version = chunkHeader.get(4);
+                    checkVersion(version, x, z);
+                    compressed = new byte[length - 1];
+                    readFully(channel, ByteBuffer.wrap(compressed), start + McRegionReader.CHUNK_HEADER_SIZE);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (version == VERSION_GZIP) {
+            return new GZIPInputStream(new ByteArrayInputStream(compressed));
+        }
+        try {
+            return new ByteArrayInputStream(InflaterPool.inflate(compressed, 0, compressed.length));
+        } catch (DataFormatException e) {
+            throw new IOException("MCRegion chunk at " + x + "," + z + " is corrupt", e);
+        }
+    }
+
+    private int checkLength(int length, int numSectors, long start, int x, int z) throws DataException {
+        if (length < 1 || length > SECTOR_BYTES * numSectors) {
+            throw new DataException("MCRegion chunk at "
+                    + x + "," + z + " has an invalid length of " + length);
+        }
+        if (start + 4 + length > size) {
+            throw new DataException("MCRegion file does not contain "
+                    + x + "," + z + " in full");
+        }
+        return length;
+    }
+
+    private static void checkVersion(byte version, int x, int z) throws DataException {
+        if (version != VERSION_GZIP && version != VERSION_DEFLATE) {
+            throw new DataException("MCRegion chunk at "
+                    + x + "," + z + " has an unsupported version of " + version);
+        }
+    }
+
+    /**
+     * Release the buffer of the file, unmapping it if it was mapped. Chunks
+     * can still be read afterwards, but each one is read from the file.
+     */
+    @Override
+    public void close() {
+        ByteBuffer released;
+        lock.writeLock().lock();
+        try {
+            released = data;
+            data = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // no read can use the buffer anymore, so it is safe to unmap
+        if (released instanceof MappedByteBuffer) {
+            unmap((MappedByteBuffer) released);
+        }
+    }
+
+    /**
+     * Unmap a buffer right away, instead of when it is garbage collected.
+     * There is no public API for this, so failing is not an error.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            try {
+                // Java 9 and newer
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            } catch (NoSuchMethodException e) {
+                // Java 8
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("Could not unmap region file, leaving it to the garbage collector", e);
+        }
+    }
+
+}
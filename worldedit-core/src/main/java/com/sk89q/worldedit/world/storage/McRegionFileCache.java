@@ -0,0 +1,155 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.storage;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded, least-recently-used cache of open {@link McRegionFile}s.
+ *
+ * <p>Each lookup checks the size and modification time of the file, and
+ * re-opens it if either changed since it was cached. Files that were not
+ * used for a while are dropped, and every dropped file is
+ * {@linkplain McRegionFile#close() closed} to release its mapping.</p>
+ */
+public final class McRegionFileCache {
+
+    private static final McRegionFileCache SHARED = new McRegionFileCache(64 * 1024 * 1024, 5, TimeUnit.MINUTES);
+
+    /**
+     * Mapped files don't take heap, but each one holds a mapping open, so
+     * they still count for something.
+     */
+    private static final int MAPPED_WEIGHT = 1024 * 1024;
+
+    /**
+     * Get the cache shared by all chunk stores and snapshots.
+     *
+     * @return the shared cache
+     */
+    public static McRegionFileCache getShared() {
+        return SHARED;
+    }
+
+    private static final class Entry {
+        private final McRegionFile file;
+        private final FileTime modified;
+        private final long size;
+
+        private Entry(McRegionFile file, FileTime modified, long size) {
+            this.file = file;
+            this.modified = modified;
+            this.size = size;
+        }
+    }
+
+    private final Cache<Path, Entry> cache;
+
+    /**
+     * Create a new cache.
+     *
+     * @param maxBytes roughly the number of bytes of region data to keep
+     * @param expireAfterAccess how long to keep a file that is not used
+     * @param unit the unit of {@code expireAfterAccess}
+     */
+    public McRegionFileCache(long maxBytes, long expireAfterAccess, TimeUnit unit) {
+        this(maxBytes, expireAfterAccess, unit, Ticker.systemTicker());
+    }
+
+    McRegionFileCache(long maxBytes, long expireAfterAccess, TimeUnit unit, Ticker ticker) {
+        this.cache = CacheBuilder.newBuilder()
+            .maximumWeight(maxBytes)
+            .<Path, Entry>weigher((path, entry) -> Math.max(entry.file.heapSize(), MAPPED_WEIGHT))
+            .expireAfterAccess(expireAfterAccess, unit)
+            .ticker(ticker)
+            .removalListener((RemovalListener<Path, Entry>) notification -> notification.getValue().file.close())
+            .build();
+    }
+
+    /**
+     * Get a region file, opening it if it isn't cached or has changed.
+     *
+     * @param file the file
+     * @return the region file
+     * @throws IOException if the file can't be opened
+     */
+    public McRegionFile get(Path file) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            cache.invalidate(file);
+            throw e;
+        }
+        Entry entry = cache.getIfPresent(file);
+        if (entry != null && entry.size == attributes.size()
+            && entry.modified.equals(attributes.lastModifiedTime())) {
+            return entry.file;
+        }
+        if (entry != null) {
+            cache.invalidate(file);
+        }
+        try {
+            return cache.get(file, () -> new Entry(McRegionFile.open(file),
+                attributes.lastModifiedTime(), attributes.size())).file;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Forget a region file, e.g. because it is about to be modified.
+     *
+     * @param file the file
+     */
+    public void invalidate(Path file) {
+        cache.invalidate(file);
+    }
+
+    /**
+     * Forget all region files.
+     */
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Drop the files that expired, without waiting for the next lookup.
+     */
+    public void cleanUp() {
+        cache.cleanUp();
+    }
+
+}
@@ -63,12 +63,15 @@ counts. The chunk offset for a chunk (x, z) begins at byte 4*(x+z*32) in the
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.zip.DataFormatException;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.InflaterInputStream;
 
 /**
  * Reader for a MCRegion file. This reader works on input streams, meaning
  * that it can be used to read files from non-file based sources.
+ *
+ * <p>Chunks can only be read in the order they are stored in the stream.
+ * Use {@link McRegionFile} to read chunks of a file in any order.</p>
  */
 public class McRegionReader {
 
@@ -155,7 +158,11 @@ public synchronized InputStream getChunkInputStream(BlockVector2 position) throw
                 throw new DataException("MCRegion file does not contain "
                         + x + "," + z + " in full");
             }
-            return new InflaterInputStream(new ByteArrayInputStream(data));
+            try {
+                return new ByteArrayInputStream(InflaterPool.inflate(data, 0, data.length));
+            } catch (DataFormatException e) {
+                throw new IOException("MCRegion chunk at " + x + "," + z + " is corrupt", e);
+            }
         } else {
             throw new DataException("MCRegion chunk at "
                     + x + "," + z + " has an unsupported version of " + version);
@@ -0,0 +1,97 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.jnbt;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("A lazy NBT reader")
+class LazyNBTReaderTest {
+
+    private static byte[] write(String name, Tag tag) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (NBTOutputStream out = new NBTOutputStream(bytes)) {
+            out.writeNamedTag(name, tag);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static CompoundTag sample() {
+        return new CompoundTag(ImmutableMap.<String, Tag>builder()
+            .put("Byte", new ByteTag((byte) -3))
+            .put("Int", new IntTag(123456))
+            .put("Long", new LongTag(Long.MIN_VALUE))
+            .put("Double", new DoubleTag(0.25))
+            .put("Name", new StringTag("héllo"))
+            .put("Longs", new LongArrayTag(new long[] { 1, -1, Long.MAX_VALUE }))
+            .put("Ints", new IntArrayTag(new int[] { 7, 8, 9 }))
+            .put("Shorts", new ListTag(ShortTag.class, ImmutableList.of(new ShortTag((short) 1), new ShortTag((short) 2))))
+            .put("Nested", new ListTag(CompoundTag.class, ImmutableList.of(
+                new CompoundTag(ImmutableMap.of("id", new StringTag("a"))),
+                new CompoundTag(ImmutableMap.of("id", new StringTag("bb"), "n", new IntTag(2)))
+            )))
+            .build());
+    }
+
+    @Test
+    @DisplayName("reads the same values as NBTInputStream")
+    void readsSameValues() throws IOException {
+        NamedTag root = LazyNBTReader.readNamedTag(write("Root", sample()));
+        assertEquals("Root", root.getName());
+        CompoundTag tag = (CompoundTag) root.getTag();
+
+        assertEquals(9, tag.getValue().size());
+        assertEquals(-3, tag.getByte("Byte"));
+        assertEquals(123456, tag.getInt("Int"));
+        assertEquals(Long.MIN_VALUE, tag.getLong("Long"));
+        assertEquals(0.25, tag.getDouble("Double"));
+        assertEquals("héllo", tag.getString("Name"));
+        assertArrayEquals(new long[] { 1, -1, Long.MAX_VALUE }, tag.getLongArray("Longs"));
+        assertArrayEquals(new int[] { 7, 8, 9 }, tag.getIntArray("Ints"));
+        assertEquals((short) 2, ((ShortTag) tag.getList("Shorts").get(1)).getValue());
+
+        ListTag nested = tag.getListTag("Nested");
+        assertEquals(CompoundTag.class, nested.getType());
+        CompoundTag second = (CompoundTag) nested.getValue().get(1);
+        assertEquals("bb", second.getString("id"));
+        assertEquals(2, second.getInt("n"));
+        assertFalse(tag.containsKey("Missing"));
+    }
+
+    @Test
+    @DisplayName("rejects truncated data up front")
+    void rejectsTruncatedData() throws IOException {
+        byte[] data = write("Root", sample());
+        byte[] truncated = Arrays.copyOf(data, data.length - 4);
+        assertThrows(IOException.class, () -> LazyNBTReader.readNamedTag(truncated));
+    }
+
+}
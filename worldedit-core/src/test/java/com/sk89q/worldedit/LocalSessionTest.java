@@ -0,0 +1,123 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit;
+
+import com.sk89q.worldedit.extension.platform.Actor;
+import com.sk89q.worldedit.extent.inventory.BlockBag;
+import com.sk89q.worldedit.history.changeset.ChangeSet;
+import com.sk89q.worldedit.session.SessionManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("A local session's history")
+class LocalSessionTest {
+
+    private static EditSession editSession(long memoryUsage) {
+        ChangeSet changeSet = mock(ChangeSet.class);
+        when(changeSet.getMemoryUsage()).thenReturn(memoryUsage);
+        EditSession editSession = mock(EditSession.class);
+        when(editSession.size()).thenReturn(1);
+        when(editSession.getChangeSet()).thenReturn(changeSet);
+        return editSession;
+    }
+
+    @Test
+    @DisplayName("reports the memory of all entries")
+    void reportsMemoryUsage() {
+        LocalSession session = new LocalSession();
+        session.remember(editSession(100));
+        session.remember(editSession(250));
+        assertEquals(350, session.getHistoryMemoryUsage());
+        assertEquals(2, session.getHistorySize());
+    }
+
+    @Test
+    @DisplayName("trims the oldest entry and keeps the newest")
+    void trimsOldestEntry() {
+        LocalSession session = new LocalSession();
+        EditSession oldest = editSession(100);
+        EditSession newest = editSession(250);
+        session.remember(oldest);
+        session.remember(newest);
+
+        assertEquals(100, session.trimHistory());
+        assertEquals(1, session.getHistorySize());
+        assertTrue(session.isLatestHistory(newest));
+
+        assertEquals(-1, session.trimHistory());
+        assertTrue(session.isLatestHistory(newest));
+        assertFalse(session.isLatestHistory(oldest));
+    }
+
+    @Test
+    @DisplayName("keeps many small edits when a memory budget is in use")
+    void keepsSmallEditsUnderBudget() {
+        assertTrue(SessionManager.HISTORY_MEMORY_BUDGET >= 0);
+        LocalSession session = new LocalSession();
+        int edits = LocalSession.MAX_HISTORY_SIZE * 3;
+        for (int i = 0; i < edits; i++) {
+            session.remember(editSession(10));
+        }
+        assertEquals(edits, session.getHistorySize());
+        assertEquals(edits * 10L, session.getHistoryMemoryUsage());
+    }
+
+    @Test
+    @DisplayName("lets other threads read it while an undo or redo runs")
+    void editsOutsideLock() {
+        LocalSession session = new LocalSession() {
+            @Override
+            protected EditSession createHistoryEditSession(EditSession editSession, @Nullable BlockBag blockBag,
+                                                           Actor actor) {
+                return mock(EditSession.class);
+            }
+        };
+        EditSession entry = editSession(100);
+        session.remember(entry);
+        // would time out if the history lock were held by this thread
+        doAnswer(invocation -> CompletableFuture.supplyAsync(session::getHistorySize).get(5, TimeUnit.SECONDS))
+            .when(entry).undo(any());
+        doAnswer(invocation -> CompletableFuture.supplyAsync(session::getHistorySize).get(5, TimeUnit.SECONDS))
+            .when(entry).redo(any());
+        Actor actor = mock(Actor.class);
+
+        assertSame(entry, session.undo(null, actor));
+        assertNull(session.undo(null, actor));
+        assertSame(entry, session.redo(null, actor));
+        assertNull(session.redo(null, actor));
+        assertTrue(session.isLatestHistory(entry));
+    }
+
+}
@@ -0,0 +1,199 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.command.tool;
+
+import com.google.common.collect.ImmutableMap;
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.LocalConfiguration;
+import com.sk89q.worldedit.LocalSession;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.command.tool.brush.Brush;
+import com.sk89q.worldedit.entity.Player;
+import com.sk89q.worldedit.extension.platform.Actor;
+import com.sk89q.worldedit.extension.platform.Capability;
+import com.sk89q.worldedit.extension.platform.Platform;
+import com.sk89q.worldedit.extension.platform.Preference;
+import com.sk89q.worldedit.extent.inventory.BlockBag;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.math.Vector3;
+import com.sk89q.worldedit.util.Location;
+import com.sk89q.worldedit.world.World;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nullable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("A brush tool")
+class BrushToolTest {
+
+    private static final BlockVector3 TARGET = BlockVector3.at(3, 64, -7);
+
+    private final Platform platform = mock(Platform.class);
+    private final World world = mock(World.class);
+    private final Player player = mock(Player.class);
+    private final Brush brush = mock(Brush.class);
+    private final LocalSession session = spy(new LocalSession() {
+        @Override
+        protected EditSession createHistoryEditSession(EditSession editSession, @Nullable BlockBag blockBag,
+                                                       Actor actor) {
+            return mock(EditSession.class);
+        }
+    });
+
+    @BeforeEach
+    void setUp() {
+        when(platform.getCapabilities()).thenReturn(ImmutableMap.of(
+            Capability.CONFIGURATION, Preference.PREFERRED
+        ));
+        when(platform.getConfiguration()).thenReturn(new LocalConfiguration() {
+            @Override
+            public void load() {
+            }
+        });
+        WorldEdit.getInstance().getPlatformManager().register(platform);
+
+        when(player.getWorld()).thenReturn(world);
+        when(player.getBlockTrace(anyInt(), eq(true), any()))
+            .thenReturn(new Location(world, Vector3.at(TARGET.getX(), TARGET.getY(), TARGET.getZ())));
+    }
+
+    @AfterEach
+    void tearDown() {
+        WorldEdit.getInstance().getPlatformManager().unregister(platform);
+    }
+
+    private EditSession editSession() {
+        EditSession editSession = mock(EditSession.class);
+        when(editSession.getWorld()).thenReturn(world);
+        when(editSession.getBlockChangeLimit()).thenReturn(-1);
+        // every click changes something
+        when(editSession.size()).thenReturn(1);
+        return editSession;
+    }
+
+    private BrushTool tool(long strokeWindowMillis) {
+        BrushTool tool = new BrushTool("worldedit.brush.test", strokeWindowMillis);
+        tool.setBrush(brush, "worldedit.brush.test");
+        return tool;
+    }
+
+    private void click(BrushTool tool) {
+        tool.actPrimary(platform, null, player, session);
+    }
+
+    @Test
+    @DisplayName("builds clicks that follow each other closely into one edit session")
+    void coalescesClicks() throws Exception {
+        EditSession stroke = editSession();
+        doReturn(stroke).when(session).createEditSession(player);
+        BrushTool tool = tool(60_000);
+
+        click(tool);
+        click(tool);
+        click(tool);
+
+        verify(session, times(1)).createEditSession(player);
+        verify(brush, times(3)).build(eq(stroke), eq(TARGET), any(), eq(1.0));
+        assertEquals(1, session.getHistorySize());
+        assertTrue(session.isLatestHistory(stroke));
+        verify(stroke, never()).close();
+    }
+
+    @Test
+    @DisplayName("starts a new stroke after its window has passed, and closes the old one then")
+    void endsStrokeAfterWindow() throws Exception {
+        EditSession first = editSession();
+        EditSession second = editSession();
+        doReturn(first, second).when(session).createEditSession(player);
+        BrushTool tool = tool(20);
+
+        click(tool);
+        Thread.sleep(50);
+        verify(first, never()).close();
+        click(tool);
+        verify(first).close();
+
+        verify(brush).build(eq(second), eq(TARGET), any(), eq(1.0));
+        assertEquals(2, session.getHistorySize());
+        assertTrue(session.isLatestHistory(second));
+        verify(second, never()).close();
+
+        session.clearHistory();
+        verify(second).close();
+    }
+
+    @Test
+    @DisplayName("starts a new stroke after another edit is remembered")
+    void endsStrokeOnOtherEdit() throws Exception {
+        EditSession first = editSession();
+        EditSession second = editSession();
+        doReturn(first, second).when(session).createEditSession(player);
+        BrushTool tool = tool(60_000);
+
+        click(tool);
+        session.remember(editSession());
+        click(tool);
+
+        verify(first).close();
+        assertEquals(3, session.getHistorySize());
+        assertTrue(session.isLatestHistory(second));
+    }
+
+    @Test
+    @DisplayName("undoes all clicks of a stroke at once, and doesn't continue it after that")
+    void undoesStroke() throws Exception {
+        EditSession stroke = editSession();
+        EditSession next = editSession();
+        doReturn(stroke, next).when(session).createEditSession(player);
+        BrushTool tool = tool(60_000);
+
+        click(tool);
+        click(tool);
+
+        assertSame(stroke, session.undo(null, player));
+        verify(stroke).close();
+        verify(stroke, times(1)).undo(any());
+        assertNull(session.undo(null, player));
+
+        click(tool);
+        verify(stroke, times(1)).close();
+        verify(brush).build(eq(next), eq(TARGET), any(), eq(1.0));
+        assertEquals(1, session.getHistorySize());
+        assertTrue(session.isLatestHistory(next));
+    }
+
+}
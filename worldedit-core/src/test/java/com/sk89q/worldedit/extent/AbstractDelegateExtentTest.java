@@ -0,0 +1,83 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent;
+
+import com.sk89q.worldedit.MaxChangedBlocksException;
+import com.sk89q.worldedit.extension.platform.Watchdog;
+import com.sk89q.worldedit.extent.validation.BlockChangeLimiter;
+import com.sk89q.worldedit.extent.world.WatchdogTickingExtent;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests skipping of pass-through stages in {@link AbstractDelegateExtent}.
+ */
+public class AbstractDelegateExtentTest {
+
+    private static final class Wrapper extends AbstractDelegateExtent {
+        private Wrapper(Extent extent) {
+            super(extent);
+        }
+    }
+
+    @Test
+    @DisplayName("a disabled stage is skipped until it is enabled again")
+    public void testWatchdogToggle() {
+        Watchdog watchdog = mock(Watchdog.class);
+        Extent base = mock(Extent.class);
+        WatchdogTickingExtent watchdogExtent = new WatchdogTickingExtent(base, watchdog);
+        Extent top = new Wrapper(watchdogExtent);
+
+        for (int i = 0; i < 200; i++) {
+            top.getBlock(BlockVector3.ZERO);
+        }
+        verify(watchdog, never()).tick();
+        verify(base, times(200)).getBlock(BlockVector3.ZERO);
+
+        watchdogExtent.setEnabled(true);
+        for (int i = 0; i < 200; i++) {
+            top.getBlock(BlockVector3.ZERO);
+        }
+        verify(watchdog, times(2)).tick();
+    }
+
+    @Test
+    @DisplayName("setting a limit re-inserts the limiter")
+    public void testLimiterToggle() throws Exception {
+        Extent base = mock(Extent.class);
+        BlockChangeLimiter limiter = new BlockChangeLimiter(base, -1);
+        Extent top = new Wrapper(limiter);
+        BaseBlock block = mock(BaseBlock.class);
+
+        top.setBlock(BlockVector3.ZERO, block);
+        limiter.setLimit(0);
+        assertThrows(MaxChangedBlocksException.class, () -> top.setBlock(BlockVector3.ZERO, block));
+        assertThrows(MaxChangedBlocksException.class, () -> top.setBlock(0, 0, 0, block));
+    }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent;
+
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.function.mask.Masks;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.collection.BlockBatch;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests that the primitive overloads of {@link AbstractDelegateExtent}
+ * respect subclasses that only override the {@link BlockVector3} methods.
+ */
+@DisplayName("Primitive bridges")
+public class PrimitiveBridgesTest {
+
+    private static final class VectorOnly extends AbstractDelegateExtent {
+        private final List<BlockVector3> set = new ArrayList<>();
+        private final BlockState replacement;
+
+        private VectorOnly(Extent extent, BlockState replacement) {
+            super(extent);
+            this.replacement = replacement;
+        }
+
+        @Override
+        public BlockState getBlock(BlockVector3 position) {
+            return replacement;
+        }
+
+        @Override
+        public <T extends BlockStateHolder<T>> boolean setBlock(BlockVector3 location, T block) throws WorldEditException {
+            set.add(location);
+            return false;
+        }
+    }
+
+    private static final class VectorOnlyMasking extends MaskingExtent {
+        private final List<BlockVector3> set = new ArrayList<>();
+
+        private VectorOnlyMasking(Extent extent) {
+            super(extent, Masks.alwaysTrue());
+        }
+
+        @Override
+        public <T extends BlockStateHolder<T>> boolean setBlock(BlockVector3 location, T block) throws WorldEditException {
+            set.add(location);
+            return false;
+        }
+    }
+
+    private static BaseBlock mockBlock() {
+        BaseBlock block = mock(BaseBlock.class);
+        when(block.toBaseBlock()).thenReturn(block);
+        // keeps the batch from looking the block up in the state registry
+        when(block.hasNbtData()).thenReturn(true);
+        return block;
+    }
+
+    @Test
+    @DisplayName("route the overloads of a direct subclass through its vector overrides")
+    public void testDirectSubclass() throws Exception {
+        Extent base = mock(Extent.class);
+        BlockState replacement = mock(BlockState.class);
+        VectorOnly extent = new VectorOnly(base, replacement);
+        BaseBlock block = mockBlock();
+
+        assertEquals(PrimitiveBridges.GET_BLOCK | PrimitiveBridges.SET_BLOCK | PrimitiveBridges.SET_BLOCKS,
+            PrimitiveBridges.bridgedMethods(VectorOnly.class));
+        assertSame(replacement, extent.getBlock(1, 2, 3));
+        extent.setBlock(1, 2, 3, block);
+
+        BlockBatch batch = new BlockBatch();
+        batch.add(4, 5, 6, block);
+        assertEquals(0, extent.setBlocks(batch));
+
+        assertEquals(2, extent.set.size());
+        assertEquals(BlockVector3.at(1, 2, 3), extent.set.get(0));
+        assertEquals(BlockVector3.at(4, 5, 6), extent.set.get(1));
+        verify(base, never()).getBlock(anyInt(), anyInt(), anyInt());
+        verify(base, never()).setBlock(anyInt(), anyInt(), anyInt(), any(BaseBlock.class));
+        verify(base, never()).setBlocks(any());
+    }
+
+    @Test
+    @DisplayName("route the overloads through vector overrides below a primitive override")
+    public void testNestedSubclass() throws Exception {
+        Extent base = mock(Extent.class);
+        VectorOnlyMasking extent = new VectorOnlyMasking(base);
+        BaseBlock block = mockBlock();
+
+        assertEquals(PrimitiveBridges.SET_BLOCK | PrimitiveBridges.SET_BLOCKS,
+            PrimitiveBridges.bridgedMethods(VectorOnlyMasking.class));
+        extent.setBlock(1, 2, 3, block);
+
+        BlockBatch batch = new BlockBatch();
+        batch.add(4, 5, 6, block);
+        extent.setBlocks(batch);
+
+        assertEquals(2, extent.set.size());
+        verify(base, never()).setBlock(anyInt(), anyInt(), anyInt(), any(BaseBlock.class));
+        verify(base, never()).setBlocks(any());
+    }
+
+    @Test
+    @DisplayName("forward the overloads of classes overriding both variants")
+    public void testNoBridge() throws Exception {
+        Extent base = mock(Extent.class);
+        MaskingExtent extent = new MaskingExtent(base, Masks.alwaysTrue());
+        BaseBlock block = mockBlock();
+
+        assertEquals(0, PrimitiveBridges.bridgedMethods(MaskingExtent.class));
+        extent.setBlock(1, 2, 3, block);
+        verify(base).setBlock(1, 2, 3, block);
+
+        BlockBatch batch = new BlockBatch();
+        extent.setBlocks(batch);
+        verify(base).setBlocks(batch);
+    }
+
+}
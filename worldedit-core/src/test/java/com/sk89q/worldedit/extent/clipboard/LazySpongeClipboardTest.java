@@ -0,0 +1,211 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent.clipboard;
+
+import com.google.common.collect.ImmutableMap;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.IntTag;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.extension.platform.Capability;
+import com.sk89q.worldedit.extension.platform.Platform;
+import com.sk89q.worldedit.extension.platform.PlatformManager;
+import com.sk89q.worldedit.extension.platform.Preference;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.registry.Registry;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockType;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import com.sk89q.worldedit.world.registry.BundledRegistries;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("A lazy Sponge clipboard")
+class LazySpongeClipboardTest {
+
+    private static final Platform MOCKED_PLATFORM = mock(Platform.class);
+
+    @BeforeAll
+    static void setupFakePlatform() {
+        when(MOCKED_PLATFORM.getRegistries()).thenReturn(new BundledRegistries() {
+        });
+        when(MOCKED_PLATFORM.getCapabilities()).thenReturn(ImmutableMap.of(
+            Capability.WORLD_EDITING, Preference.PREFERRED,
+            Capability.GAME_HOOKS, Preference.PREFERRED
+        ));
+        PlatformManager platformManager = WorldEdit.getInstance().getPlatformManager();
+        platformManager.register(MOCKED_PLATFORM);
+
+        registerBlock("minecraft:air");
+        registerBlock("minecraft:oak_wood");
+    }
+
+    @AfterAll
+    static void tearDownFakePlatform() throws Exception {
+        WorldEdit.getInstance().getPlatformManager().unregister(MOCKED_PLATFORM);
+        Field map = Registry.class.getDeclaredField("map");
+        map.setAccessible(true);
+        ((Map<?, ?>) map.get(BlockType.REGISTRY)).clear();
+    }
+
+    private static void registerBlock(String id) {
+        BlockType.REGISTRY.register(id, new BlockType(id));
+    }
+
+    // large enough to span a few sections
+    private static final int WIDTH = 40;
+    private static final int HEIGHT = 9;
+    private static final int LENGTH = 30;
+    private static final BlockVector3 MIN = BlockVector3.at(-5, 10, 100);
+
+    private final BlockState air = checkNotNull(BlockTypes.AIR).getDefaultState();
+    private final BlockState oakWood = checkNotNull(BlockTypes.OAK_WOOD).getDefaultState();
+
+    /**
+     * The palette ID the test data uses for the given position, relative to
+     * the minimum point. ID 200 is not in the palette, and needs two bytes.
+     */
+    private static int idAt(int x, int y, int z) {
+        if ((x + y + z) % 7 == 0) {
+            return 200;
+        }
+        return (x * 3 + y + z) % 2;
+    }
+
+    private static ByteBuffer encode(int volume) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int index = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int z = 0; z < LENGTH; z++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    if (index++ >= volume) {
+                        return ByteBuffer.wrap(out.toByteArray());
+                    }
+                    int id = idAt(x, y, z);
+                    while ((id & -128) != 0) {
+                        out.write(id & 127 | 128);
+                        id >>>= 7;
+                    }
+                    out.write(id);
+                }
+            }
+        }
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    private LazySpongeClipboard create(Map<BlockVector3, CompoundTag> tileEntities, ByteBuffer data)
+            throws IOException {
+        CuboidRegion region = new CuboidRegion(MIN, MIN.add(WIDTH - 1, HEIGHT - 1, LENGTH - 1));
+        return new LazySpongeClipboard(region, new BlockState[] { air, oakWood }, tileEntities, data);
+    }
+
+    @Test
+    @DisplayName("decodes every block in schematic order")
+    void decodesBlocks() throws IOException {
+        LazySpongeClipboard clipboard = create(Collections.emptyMap(), encode(WIDTH * HEIGHT * LENGTH));
+        assertEquals(BlockVector3.at(WIDTH, HEIGHT, LENGTH), clipboard.getDimensions());
+        // read out of order, so that sections are decoded more than once
+        for (int x = WIDTH - 1; x >= 0; x--) {
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int z = 0; z < LENGTH; z++) {
+                    int id = idAt(x, y, z);
+                    BlockState expected = id == 1 ? oakWood : air;
+                    assertEquals(expected, clipboard.getBlock(MIN.add(x, y, z)));
+                    assertEquals(expected, clipboard.getBlock(MIN.getX() + x, MIN.getY() + y, MIN.getZ() + z));
+                }
+            }
+        }
+        assertEquals(air, clipboard.getBlock(MIN.subtract(1, 0, 0)));
+        assertEquals(air, clipboard.getBlock(MIN.add(WIDTH, 0, 0)));
+    }
+
+    @Test
+    @DisplayName("attaches block entities to their blocks")
+    void attachesBlockEntities() throws IOException {
+        CompoundTag nbt = new CompoundTag(ImmutableMap.of("Test", new IntTag(5)));
+        LazySpongeClipboard clipboard = create(ImmutableMap.of(BlockVector3.at(1, 0, 0), nbt),
+            encode(WIDTH * HEIGHT * LENGTH));
+        BaseBlock block = clipboard.getFullBlock(MIN.add(1, 0, 0));
+        assertEquals(oakWood, block.toImmutableState());
+        assertEquals(nbt, block.getNbtData());
+        assertNull(clipboard.getFullBlock(MIN.add(3, 0, 0)).getNbtData());
+    }
+
+    @Test
+    @DisplayName("keeps blocks that are set over the schematic's blocks")
+    void keepsSetBlocks() throws Exception {
+        LazySpongeClipboard clipboard = create(Collections.emptyMap(), encode(WIDTH * HEIGHT * LENGTH));
+        BlockVector3 position = MIN.add(1, 2, 3);
+        BlockState replacement = idAt(1, 2, 3) == 1 ? air : oakWood;
+        assertTrue(clipboard.setBlock(position, replacement));
+        assertEquals(replacement, clipboard.getBlock(position));
+        assertFalse(clipboard.setBlock(MIN.subtract(1, 1, 1), replacement));
+    }
+
+    @Test
+    @DisplayName("shares its blocks with copies, but not later changes")
+    void copiesKeepTheirOwnChanges() throws Exception {
+        LazySpongeClipboard clipboard = create(Collections.emptyMap(), encode(WIDTH * HEIGHT * LENGTH));
+        BlockVector3 first = MIN.add(1, 2, 3);
+        BlockVector3 second = MIN.add(4, 5, 6);
+        BlockState original = clipboard.getBlock(second);
+        BlockState replacement = original == air ? oakWood : air;
+        clipboard.setBlock(first, replacement);
+
+        LazySpongeClipboard copy = clipboard.copy();
+        assertEquals(replacement, copy.getBlock(first));
+        copy.setBlock(second, replacement);
+        copy.setOrigin(BlockVector3.ZERO);
+
+        assertEquals(original, clipboard.getBlock(second));
+        assertEquals(replacement, copy.getBlock(second));
+        assertEquals(MIN, clipboard.getOrigin());
+        assertEquals(clipboard.getBlock(MIN.add(WIDTH - 1, HEIGHT - 1, LENGTH - 1)),
+            copy.getBlock(MIN.add(WIDTH - 1, HEIGHT - 1, LENGTH - 1)));
+    }
+
+    @Test
+    @DisplayName("rejects block data that does not match its dimensions")
+    void rejectsMismatchedData() {
+        assertThrows(IOException.class, () -> create(Collections.emptyMap(), encode(WIDTH * HEIGHT * LENGTH - 1)));
+        ByteBuffer longer = ByteBuffer.allocate(WIDTH * HEIGHT * LENGTH * 2 + 1);
+        assertThrows(IOException.class, () -> create(Collections.emptyMap(), longer));
+    }
+
+}
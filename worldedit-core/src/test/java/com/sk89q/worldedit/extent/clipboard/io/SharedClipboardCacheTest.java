@@ -0,0 +1,217 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent.clipboard.io;
+
+import com.google.common.collect.ImmutableMap;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extension.platform.Capability;
+import com.sk89q.worldedit.extension.platform.Platform;
+import com.sk89q.worldedit.extension.platform.PlatformManager;
+import com.sk89q.worldedit.extension.platform.Preference;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.extent.clipboard.LazySpongeClipboard;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.registry.Registry;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockType;
+import com.sk89q.worldedit.world.registry.BundledRegistries;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("The shared clipboard cache")
+class SharedClipboardCacheTest {
+
+    private static final Platform MOCKED_PLATFORM = mock(Platform.class);
+    private static final ClipboardFormat FORMAT = BuiltInClipboardFormat.SPONGE_SCHEMATIC;
+    private static final int TYPE_COUNT = 5;
+    private static final int SIZE = 8;
+    private static final BlockVector3 MIN = BlockVector3.at(10, 20, 30);
+
+    private Path tempDir;
+
+    @BeforeAll
+    static void setupFakePlatform() {
+        when(MOCKED_PLATFORM.getRegistries()).thenReturn(new BundledRegistries() {
+        });
+        when(MOCKED_PLATFORM.getCapabilities()).thenReturn(ImmutableMap.of(
+            Capability.WORLD_EDITING, Preference.PREFERRED,
+            Capability.GAME_HOOKS, Preference.PREFERRED
+        ));
+        PlatformManager platformManager = WorldEdit.getInstance().getPlatformManager();
+        platformManager.register(MOCKED_PLATFORM);
+
+        // clipboards use BlockTypes.AIR, which has to be registered before BlockTypes is initialized
+        registerBlock("minecraft:air");
+        registerBlock("minecraft:oak_wood");
+        for (int i = 0; i < TYPE_COUNT; i++) {
+            registerBlock(typeId(i));
+        }
+    }
+
+    @AfterAll
+    static void tearDownFakePlatform() throws Exception {
+        WorldEdit.getInstance().getPlatformManager().unregister(MOCKED_PLATFORM);
+        Field map = Registry.class.getDeclaredField("map");
+        map.setAccessible(true);
+        ((Map<?, ?>) map.get(BlockType.REGISTRY)).clear();
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("worldedit-clipboard-cache");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        SharedClipboardCache.clear();
+        try (Stream<Path> files = Files.list(tempDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(tempDir);
+    }
+
+    private static void registerBlock(String id) {
+        BlockType.REGISTRY.register(id, new BlockType(id));
+    }
+
+    private static String typeId(int i) {
+        return "worldedit:test_" + i;
+    }
+
+    private static BlockState stateAt(int seed, int x, int y, int z) {
+        return BlockType.REGISTRY.get(typeId(Math.floorMod(seed + x + y * 2 + z * 3, TYPE_COUNT))).getDefaultState();
+    }
+
+    private static void write(File file, int seed) throws IOException, WorldEditException {
+        BlockArrayClipboard clipboard = new BlockArrayClipboard(
+            new CuboidRegion(MIN, MIN.add(SIZE - 1, SIZE - 1, SIZE - 1)));
+        clipboard.setOrigin(MIN);
+        for (int y = 0; y < SIZE; y++) {
+            for (int z = 0; z < SIZE; z++) {
+                for (int x = 0; x < SIZE; x++) {
+                    clipboard.setBlock(MIN.add(x, y, z), stateAt(seed, x, y, z));
+                }
+            }
+        }
+        try (ClipboardWriter writer = FORMAT.getWriter(new FileOutputStream(file))) {
+            writer.write(clipboard);
+        }
+    }
+
+    private static void assertContents(int seed, Clipboard clipboard) {
+        assertEquals(MIN, clipboard.getMinimumPoint());
+        for (int y = 0; y < SIZE; y++) {
+            for (int z = 0; z < SIZE; z++) {
+                for (int x = 0; x < SIZE; x++) {
+                    assertEquals(stateAt(seed, x, y, z), clipboard.getBlock(MIN.add(x, y, z)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Replace the contents of a file with garbage of the same length, and
+     * keep its modification time, so that only a cached copy can be read.
+     */
+    private static void corrupt(File file) throws IOException {
+        long lastModified = file.lastModified();
+        Files.write(file.toPath(), new byte[(int) file.length()]);
+        assertTrue(file.setLastModified(lastModified));
+    }
+
+    @Test
+    @DisplayName("hands out copies of a loaded schematic until the file changes")
+    void sharesUntilChanged() throws Exception {
+        File file = tempDir.resolve("test.schem").toFile();
+        write(file, 0);
+
+        Clipboard first = SharedClipboardCache.load(FORMAT, file);
+        assertTrue(first instanceof LazySpongeClipboard);
+        assertContents(0, first);
+        first.setBlock(MIN, stateAt(1, 0, 0, 0));
+
+        corrupt(file);
+        Clipboard second = SharedClipboardCache.load(FORMAT, file);
+        assertNotSame(first, second);
+        // read from the cache, and without the changes made to the first copy
+        assertContents(0, second);
+
+        write(file, 2);
+        assertTrue(file.setLastModified(file.lastModified() + 2000));
+        assertContents(2, SharedClipboardCache.load(FORMAT, file));
+    }
+
+    @Test
+    @DisplayName("reads the file again after it was invalidated")
+    void reloadsAfterInvalidation() throws Exception {
+        File file = tempDir.resolve("test.schem").toFile();
+        write(file, 0);
+        assertContents(0, SharedClipboardCache.load(FORMAT, file));
+
+        corrupt(file);
+        SharedClipboardCache.invalidate(file);
+        assertThrows(IOException.class, () -> SharedClipboardCache.load(FORMAT, file));
+    }
+
+    @Test
+    @DisplayName("loads large schematics through a mapped file")
+    void loadsMappedSchematics() throws Exception {
+        File file = tempDir.resolve("test.schem").toFile();
+        write(file, 3);
+
+        ByteBuffer inMemory = BuiltInClipboardFormat.inflate(file, Long.MAX_VALUE);
+        ByteBuffer mapped = BuiltInClipboardFormat.inflate(file, 0);
+        assertFalse(inMemory instanceof MappedByteBuffer);
+        assertTrue(mapped instanceof MappedByteBuffer);
+        assertEquals(inMemory, mapped);
+        try (SpongeSchematicReader reader = new SpongeSchematicReader(mapped)) {
+            assertContents(3, reader.read());
+        }
+    }
+
+}
@@ -0,0 +1,234 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent.clipboard.io;
+
+import com.google.common.collect.ImmutableMap;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.IntTag;
+import com.sk89q.jnbt.NBTInputStream;
+import com.sk89q.jnbt.NBTOutputStream;
+import com.sk89q.jnbt.StringTag;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extension.platform.Capability;
+import com.sk89q.worldedit.extension.platform.Platform;
+import com.sk89q.worldedit.extension.platform.PlatformManager;
+import com.sk89q.worldedit.extension.platform.Preference;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.registry.Registry;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockType;
+import com.sk89q.worldedit.world.registry.BundledRegistries;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("A Sponge schematic writer")
+class SpongeSchematicWriterTest {
+
+    private static final Platform MOCKED_PLATFORM = mock(Platform.class);
+    // enough types for palette IDs that take two bytes
+    private static final int TYPE_COUNT = 150;
+    // more rows than fit in two slabs
+    private static final int WIDTH = 40;
+    private static final int HEIGHT = 50;
+    private static final int LENGTH = 70;
+    private static final BlockVector3 MIN = BlockVector3.at(-20, 5, 300);
+    private static final BlockVector3 ORIGIN = MIN.add(3, 4, 5);
+
+    @BeforeAll
+    static void setupFakePlatform() {
+        when(MOCKED_PLATFORM.getRegistries()).thenReturn(new BundledRegistries() {
+        });
+        when(MOCKED_PLATFORM.getCapabilities()).thenReturn(ImmutableMap.of(
+            Capability.WORLD_EDITING, Preference.PREFERRED,
+            Capability.GAME_HOOKS, Preference.PREFERRED
+        ));
+        PlatformManager platformManager = WorldEdit.getInstance().getPlatformManager();
+        platformManager.register(MOCKED_PLATFORM);
+
+        // clipboards use BlockTypes.AIR, which has to be registered before BlockTypes is initialized
+        registerBlock("minecraft:air");
+        registerBlock("minecraft:oak_wood");
+        for (int i = 0; i < TYPE_COUNT; i++) {
+            registerBlock(typeId(i));
+        }
+        BiomeType.REGISTRY.register("minecraft:plains", new BiomeType("minecraft:plains"));
+        BiomeType.REGISTRY.register("minecraft:desert", new BiomeType("minecraft:desert"));
+    }
+
+    @AfterAll
+    static void tearDownFakePlatform() throws Exception {
+        WorldEdit.getInstance().getPlatformManager().unregister(MOCKED_PLATFORM);
+        Field map = Registry.class.getDeclaredField("map");
+        map.setAccessible(true);
+        ((Map<?, ?>) map.get(BlockType.REGISTRY)).clear();
+        ((Map<?, ?>) map.get(BiomeType.REGISTRY)).clear();
+    }
+
+    private static void registerBlock(String id) {
+        BlockType.REGISTRY.register(id, new BlockType(id));
+    }
+
+    private static String typeId(int i) {
+        return "worldedit:test_" + i;
+    }
+
+    private static BlockState stateAt(int x, int y, int z) {
+        return BlockType.REGISTRY.get(typeId(Math.floorMod(x * 7 + y * 3 + z * 5, TYPE_COUNT))).getDefaultState();
+    }
+
+    private static boolean hasBlockEntity(int x, int y, int z) {
+        return (x + y * 3 + z * 7) % 101 == 0;
+    }
+
+    private static CompoundTag blockEntity(int x, int y, int z) {
+        return new CompoundTag(ImmutableMap.of(
+            "id", new StringTag("worldedit:test_entity"),
+            "Index", new IntTag(x + y * WIDTH + z * WIDTH * HEIGHT),
+            // positions are stored as Pos, not in the data
+            "x", new IntTag(-1),
+            "y", new IntTag(-1),
+            "z", new IntTag(-1)
+        ));
+    }
+
+    private static BiomeType biomeAt(int x, int z) {
+        return BiomeType.REGISTRY.get((x + z) % 3 == 0 ? "minecraft:desert" : "minecraft:plains");
+    }
+
+    private static Clipboard createClipboard() throws WorldEditException {
+        BlockArrayClipboard clipboard = new BlockArrayClipboard(
+            new CuboidRegion(MIN, MIN.add(WIDTH - 1, HEIGHT - 1, LENGTH - 1)));
+        clipboard.setOrigin(ORIGIN);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int z = 0; z < LENGTH; z++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    BlockState state = stateAt(x, y, z);
+                    BaseBlock block = hasBlockEntity(x, y, z)
+                        ? state.toBaseBlock(blockEntity(x, y, z))
+                        : state.toBaseBlock();
+                    clipboard.setBlock(MIN.add(x, y, z), block);
+                    clipboard.setBiome(MIN.add(x, y, z), biomeAt(x, z));
+                }
+            }
+        }
+        return clipboard;
+    }
+
+    private static byte[] write(Clipboard clipboard) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (SpongeSchematicWriter writer = new SpongeSchematicWriter(new NBTOutputStream(bytes), executor)) {
+            writer.write(clipboard);
+        } finally {
+            executor.shutdown();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void assertSameContents(Clipboard read) {
+        assertEquals(MIN, read.getMinimumPoint());
+        assertEquals(ORIGIN, read.getOrigin());
+        assertEquals(BlockVector3.at(WIDTH, HEIGHT, LENGTH), read.getDimensions());
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int z = 0; z < LENGTH; z++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    BaseBlock block = read.getFullBlock(MIN.add(x, y, z));
+                    assertEquals(stateAt(x, y, z), block.toImmutableState());
+                    CompoundTag nbt = block.getNbtData();
+                    if (hasBlockEntity(x, y, z)) {
+                        assertEquals("worldedit:test_entity", nbt.getString("id"));
+                        assertEquals(x + y * WIDTH + z * WIDTH * HEIGHT, nbt.getInt("Index"));
+                        // Pos is relative to the minimum point, and read back as the position
+                        assertEquals(x, nbt.getInt("x"));
+                        assertEquals(y, nbt.getInt("y"));
+                        assertEquals(z, nbt.getInt("z"));
+                    } else {
+                        assertNull(nbt);
+                    }
+                }
+            }
+        }
+        for (int z = 0; z < LENGTH; z++) {
+            for (int x = 0; x < WIDTH; x++) {
+                assertEquals(biomeAt(x, z), read.getBiome(MIN.add(x, 0, z)));
+                assertEquals(biomeAt(x, z), read.getBiome(MIN.add(x, HEIGHT - 1, z)));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("writes schematics that read back the same from a stream")
+    void roundTripsThroughStream() throws Exception {
+        byte[] data = write(createClipboard());
+        try (SpongeSchematicReader reader = new SpongeSchematicReader(
+                new NBTInputStream(new ByteArrayInputStream(data)))) {
+            assertSameContents(reader.read());
+        }
+    }
+
+    @Test
+    @DisplayName("writes schematics that read back the same from a buffer")
+    void roundTripsThroughBuffer() throws Exception {
+        byte[] data = write(createClipboard());
+        try (SpongeSchematicReader reader = new SpongeSchematicReader(ByteBuffer.wrap(data))) {
+            assertSameContents(reader.read());
+        }
+    }
+
+    @Test
+    @DisplayName("writes the palette in order of first appearance")
+    void writesPaletteInOrder() throws Exception {
+        byte[] data = write(createClipboard());
+        CompoundTag schematic;
+        try (NBTInputStream in = new NBTInputStream(new ByteArrayInputStream(data))) {
+            schematic = (CompoundTag) in.readNamedTag().getTag();
+        }
+        CompoundTag palette = (CompoundTag) schematic.getValue().get("Palette");
+        assertEquals(TYPE_COUNT, schematic.getInt("PaletteMax"));
+        assertEquals(TYPE_COUNT, palette.getValue().size());
+        // the first blocks of the first row are the first to get IDs
+        for (int x = 0; x < 3; x++) {
+            assertEquals(x, palette.getInt(stateAt(x, 0, 0).getAsString()));
+        }
+    }
+
+}
@@ -0,0 +1,264 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.operation;
+
+import com.google.common.collect.ImmutableMap;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.entity.BaseEntity;
+import com.sk89q.worldedit.entity.Entity;
+import com.sk89q.worldedit.extent.NullExtent;
+import com.sk89q.worldedit.function.block.BlockReplace;
+import com.sk89q.worldedit.function.mask.AbstractMask;
+import com.sk89q.worldedit.function.mask.Mask2D;
+import com.sk89q.worldedit.function.pattern.Pattern;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.math.Vector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.util.Location;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares copies that take the section-at-a-time path with the same copies
+ * made through a {@link com.sk89q.worldedit.function.visitor.RegionVisitor},
+ * which a source mask that accepts every block forces.
+ */
+@DisplayName("A forward extent copy")
+class ForwardExtentCopyTest {
+
+    // crosses section boundaries on every axis
+    private static final CuboidRegion REGION = new CuboidRegion(BlockVector3.at(-3, 10, 14), BlockVector3.at(20, 33, 17));
+    private static final BlockVector3 TO = BlockVector3.at(100, 5, -30);
+    private static final int VOLUME = 24 * 24 * 4;
+
+    private final BaseBlock[] palette = new BaseBlock[4];
+    private final BiomeType[] biomes = { mock(BiomeType.class), mock(BiomeType.class) };
+
+    ForwardExtentCopyTest() {
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = mock(BaseBlock.class);
+        }
+        // block entities keep their data, as long as it has no rotation
+        when(palette[3].getNbtData()).thenReturn(new CompoundTag(ImmutableMap.of()));
+    }
+
+    private BaseBlock blockAt(BlockVector3 position) {
+        return palette[Math.floorMod(position.getX() * 7 + position.getY() * 3 + position.getZ(), palette.length)];
+    }
+
+    private MapExtent source() {
+        MapExtent source = new MapExtent();
+        for (BlockVector3 position : REGION) {
+            source.blocks.put(position, blockAt(position));
+            source.biomes.put(position, biomes[Math.floorMod(position.getX(), 2)]);
+        }
+        return source;
+    }
+
+    /**
+     * A destination that already has some of the blocks, so that setting
+     * those doesn't count as a change.
+     */
+    private MapExtent destination() {
+        MapExtent destination = new MapExtent();
+        for (BlockVector3 position : REGION) {
+            if (Math.floorMod(position.getX() + position.getY() + position.getZ(), 5) == 0) {
+                destination.blocks.put(position.subtract(REGION.getMinimumPoint()).add(TO), blockAt(position));
+            }
+        }
+        return destination;
+    }
+
+    private static void visitEveryBlock(ForwardExtentCopy copy) {
+        copy.setSourceMask(new AbstractMask() {
+            @Override
+            public boolean test(BlockVector3 vector) {
+                return true;
+            }
+
+            @Override
+            public Mask2D toMask2D() {
+                return null;
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("copies the same blocks and counts the same changes either way")
+    void copiesBlocks() throws WorldEditException {
+        MapExtent direct = destination();
+        ForwardExtentCopy directCopy = new ForwardExtentCopy(source(), REGION, direct, TO);
+        directCopy.setCopyingEntities(false);
+        Operations.complete(directCopy);
+
+        MapExtent visited = destination();
+        ForwardExtentCopy visitedCopy = new ForwardExtentCopy(source(), REGION, visited, TO);
+        visitedCopy.setCopyingEntities(false);
+        visitEveryBlock(visitedCopy);
+        Operations.complete(visitedCopy);
+
+        assertEquals(visited.blocks, direct.blocks);
+        assertEquals(VOLUME, direct.blocks.size());
+        assertSame(palette[3], direct.blocks.get(TO));
+        int unchanged = destination().blocks.size();
+        assertEquals(VOLUME - unchanged, visitedCopy.getAffected());
+        assertEquals(visitedCopy.getAffected(), directCopy.getAffected());
+    }
+
+    @Test
+    @DisplayName("copies every block before replacing it with the leave pattern, like //cut")
+    void cutsWithLeavePattern() throws WorldEditException {
+        BaseBlock leave = mock(BaseBlock.class);
+        Pattern leavePattern = new Pattern() {
+            @Override
+            public BaseBlock applyBlock(BlockVector3 position) {
+                return leave;
+            }
+        };
+
+        MapExtent directSource = source();
+        MapExtent direct = new MapExtent();
+        ForwardExtentCopy directCopy = new ForwardExtentCopy(directSource, REGION, direct, TO);
+        directCopy.setSourceFunction(new BlockReplace(directSource, leavePattern));
+        Operations.complete(directCopy);
+
+        MapExtent visitedSource = source();
+        MapExtent visited = new MapExtent();
+        ForwardExtentCopy visitedCopy = new ForwardExtentCopy(visitedSource, REGION, visited, TO);
+        visitedCopy.setSourceFunction(new BlockReplace(visitedSource, leavePattern));
+        visitEveryBlock(visitedCopy);
+        Operations.complete(visitedCopy);
+
+        assertEquals(visited.blocks, direct.blocks);
+        for (BlockVector3 position : REGION) {
+            assertSame(blockAt(position), direct.blocks.get(position.subtract(REGION.getMinimumPoint()).add(TO)));
+            assertSame(leave, directSource.blocks.get(position));
+        }
+        assertEquals(visitedSource.blocks, directSource.blocks);
+        assertEquals(VOLUME, directCopy.getAffected());
+        assertEquals(visitedCopy.getAffected(), directCopy.getAffected());
+    }
+
+    @Test
+    @DisplayName("copies biomes and moves entities the same way on both paths")
+    void copiesBiomesAndEntities() throws WorldEditException {
+        MapExtent directSource = source();
+        Entity directEntity = directSource.addEntity(Vector3.at(0.5, 12, 15.5));
+        MapExtent direct = new MapExtent();
+        ForwardExtentCopy directCopy = new ForwardExtentCopy(directSource, REGION, direct, TO);
+        directCopy.setCopyingBiomes(true);
+        directCopy.setRemovingEntities(true);
+        Operations.complete(directCopy);
+
+        MapExtent visitedSource = source();
+        Entity visitedEntity = visitedSource.addEntity(Vector3.at(0.5, 12, 15.5));
+        MapExtent visited = new MapExtent();
+        ForwardExtentCopy visitedCopy = new ForwardExtentCopy(visitedSource, REGION, visited, TO);
+        visitedCopy.setCopyingBiomes(true);
+        visitedCopy.setRemovingEntities(true);
+        visitEveryBlock(visitedCopy);
+        Operations.complete(visitedCopy);
+
+        assertEquals(visited.blocks, direct.blocks);
+        assertEquals(visited.biomes, direct.biomes);
+        assertSame(biomes[1], direct.biomes.get(TO));
+        assertEquals(visited.createdAt(), direct.createdAt());
+        assertEquals(1, direct.createdAt().size());
+        verify(directEntity).remove();
+        verify(visitedEntity).remove();
+        // every block, every biome, and the entity
+        assertEquals(VOLUME * 2 + 1, directCopy.getAffected());
+        assertEquals(visitedCopy.getAffected(), directCopy.getAffected());
+    }
+
+    /**
+     * An extent that keeps what is set in maps.
+     */
+    private static final class MapExtent extends NullExtent {
+
+        private final Map<BlockVector3, BlockStateHolder<?>> blocks = new HashMap<>();
+        private final Map<BlockVector3, BiomeType> biomes = new HashMap<>();
+        private final List<Entity> entities = new ArrayList<>();
+        private final List<Location> created = new ArrayList<>();
+
+        Entity addEntity(Vector3 position) {
+            Entity entity = mock(Entity.class);
+            when(entity.getState()).thenReturn(mock(BaseEntity.class));
+            when(entity.getLocation()).thenReturn(new Location(this, position));
+            entities.add(entity);
+            return entity;
+        }
+
+        List<Vector3> createdAt() {
+            return created.stream().map(Location::toVector).collect(Collectors.toList());
+        }
+
+        @Override
+        public BaseBlock getFullBlock(BlockVector3 position) {
+            return (BaseBlock) blocks.get(position);
+        }
+
+        @Override
+        public <B extends BlockStateHolder<B>> boolean setBlock(BlockVector3 position, B block) {
+            return blocks.put(position, block) != block;
+        }
+
+        @Override
+        public BiomeType getBiome(BlockVector3 position) {
+            return biomes.get(position);
+        }
+
+        @Override
+        public boolean setBiome(BlockVector3 position, BiomeType biome) {
+            return biomes.put(position, biome) != biome;
+        }
+
+        @Override
+        public List<Entity> getEntities(Region region) {
+            return entities.stream()
+                .filter(entity -> region.contains(entity.getLocation().toVector().toBlockPoint()))
+                .collect(Collectors.toList());
+        }
+
+        @Override
+        public Entity createEntity(Location location, BaseEntity entity) {
+            created.add(location);
+            return mock(Entity.class);
+        }
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.internal.anvil;
+
+import com.google.common.collect.ImmutableList;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.util.io.file.SafeFiles;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("The chunk deleter")
+class ChunkDeleterTest {
+
+    private static final int SECTOR = 4096;
+
+    // chunk index, first sector, sector count, modification time
+    private static final int[][] CHUNKS = {
+        { RegionAccess.indexChunk(0, 0), 2, 1, 100 },
+        { RegionAccess.indexChunk(1, 0), 3, 2, 200 },
+        { RegionAccess.indexChunk(5, 7), 5, 1, 300 },
+        { RegionAccess.indexChunk(1, 1), 6, 1, 400 },
+    };
+
+    private Path tempDir;
+    private Path regionFile;
+    private byte[] original;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("worldedit-chunk-deleter");
+        Path regionFolder = tempDir.resolve("region");
+        Files.createDirectories(regionFolder);
+        regionFile = regionFolder.resolve("r.0.0.mca");
+
+        ByteBuffer data = ByteBuffer.allocate(7 * SECTOR);
+        for (int[] chunk : CHUNKS) {
+            data.putInt(chunk[0] * 4, chunk[1] << 8 | chunk[2]);
+            data.putInt(SECTOR + chunk[0] * 4, chunk[3]);
+            // mark each sector with the chunk it belongs to
+            Arrays.fill(data.array(), chunk[1] * SECTOR, (chunk[1] + chunk[2]) * SECTOR, (byte) (chunk[0] + 1));
+        }
+        original = data.array();
+        Files.write(regionFile, original);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        SafeFiles.tryHardToDeleteDir(tempDir);
+    }
+
+    private Path writeBatch(ChunkDeletionInfo.ChunkBatch batch) throws IOException {
+        batch.worldPath = tempDir.toString();
+        ChunkDeletionInfo info = new ChunkDeletionInfo();
+        info.batches = ImmutableList.of(batch);
+        Path file = tempDir.resolve(ChunkDeleter.DELCHUNKS_FILE_NAME);
+        ChunkDeleter.writeInfo(info, file);
+        return file;
+    }
+
+    private static int headerInt(byte[] region, int offset) {
+        return ByteBuffer.wrap(region).getInt(offset);
+    }
+
+    private void assertKept(byte[] region, int[] chunk) {
+        assertEquals(chunk[1] << 8 | chunk[2], headerInt(region, chunk[0] * 4));
+        assertEquals(chunk[3], headerInt(region, SECTOR + chunk[0] * 4));
+        int from = chunk[1] * SECTOR;
+        int to = (chunk[1] + chunk[2]) * SECTOR;
+        assertArrayEquals(Arrays.copyOfRange(original, from, to), Arrays.copyOfRange(region, from, to));
+    }
+
+    @Test
+    @DisplayName("clears deleted chunks and keeps the others")
+    void deletesListedChunks() throws IOException {
+        ChunkDeletionInfo.ChunkBatch batch = new ChunkDeletionInfo.ChunkBatch();
+        batch.backup = true;
+        batch.chunks = ImmutableList.of(BlockVector2.at(0, 0), BlockVector2.at(1, 1), BlockVector2.at(9, 9));
+        Path file = writeBatch(batch);
+
+        ChunkDeleter.runFromFile(file, true);
+
+        byte[] region = Files.readAllBytes(regionFile);
+        assertEquals(0, headerInt(region, CHUNKS[0][0] * 4));
+        assertEquals(0, headerInt(region, CHUNKS[3][0] * 4));
+        assertKept(region, CHUNKS[1]);
+        assertKept(region, CHUNKS[2]);
+        // the last chunk was deleted, so its sector is cut off
+        assertEquals(6 * SECTOR, region.length);
+
+        assertArrayEquals(original, Files.readAllBytes(regionFile.resolveSibling("r.0.0.mca.bak")));
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    @DisplayName("deletes only chunks matching the predicates in a range")
+    void deletesByModificationTime() throws IOException {
+        ChunkDeletionInfo.ChunkBatch batch = new ChunkDeletionInfo.ChunkBatch();
+        batch.minChunk = BlockVector2.at(0, 0);
+        batch.maxChunk = BlockVector2.at(31, 31);
+        ChunkDeletionInfo.DeletionPredicate predicate = new ChunkDeletionInfo.DeletionPredicate();
+        predicate.property = "modification";
+        predicate.comparison = "<";
+        predicate.value = "250";
+        batch.deletionPredicates = ImmutableList.of(predicate);
+
+        ChunkDeleter.runFromFile(writeBatch(batch), false);
+
+        byte[] region = Files.readAllBytes(regionFile);
+        assertEquals(0, headerInt(region, CHUNKS[0][0] * 4));
+        assertEquals(0, headerInt(region, CHUNKS[1][0] * 4));
+        assertKept(region, CHUNKS[2]);
+        assertKept(region, CHUNKS[3]);
+        assertEquals(original.length, region.length);
+        assertFalse(Files.exists(regionFile.resolveSibling("r.0.0.mca.bak")));
+        assertTrue(Files.exists(tempDir.resolve(ChunkDeleter.DELCHUNKS_FILE_NAME)));
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.internal.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.Closeable;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("A regen worker pool")
+class RegenWorkerPoolTest {
+
+    private static final Object OPTIONS = new Object();
+
+    private static final class Worker implements Closeable {
+        private boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    @Test
+    @DisplayName("reuses a released worker for the same world and seed")
+    void reusesWorker() throws Exception {
+        RegenWorkerPool<Worker> pool = new RegenWorkerPool<>(2, 5, TimeUnit.MINUTES, 100);
+        Worker first = pool.acquire("overworld", 1L, OPTIONS, Worker::new);
+        pool.release(first, 10, true);
+
+        assertSame(first, pool.acquire("overworld", 1L, OPTIONS, Worker::new));
+        assertFalse(first.closed);
+        pool.release(first, 10, true);
+
+        Worker other = pool.acquire("overworld", 2L, OPTIONS, Worker::new);
+        assertNotSame(first, other);
+    }
+
+    @Test
+    @DisplayName("does not reuse a worker once the generator options change")
+    void keysOnGeneratorOptions() throws Exception {
+        RegenWorkerPool<Worker> pool = new RegenWorkerPool<>(2, 5, TimeUnit.MINUTES, 100);
+        Worker first = pool.acquire("overworld", 1L, OPTIONS, Worker::new);
+        pool.release(first, 10, true);
+
+        Worker other = pool.acquire("overworld", 1L, new Object(), Worker::new);
+        assertNotSame(first, other);
+        assertFalse(first.closed);
+    }
+
+    @Test
+    @DisplayName("closes workers that are over budget, failed, or evicted")
+    void closesWorkers() throws Exception {
+        RegenWorkerPool<Worker> pool = new RegenWorkerPool<>(1, 5, TimeUnit.MINUTES, 100);
+        Worker overBudget = pool.acquire("overworld", 1L, OPTIONS, Worker::new);
+        pool.release(overBudget, 100, true);
+        assertTrue(overBudget.closed);
+
+        Worker failed = pool.acquire("overworld", 1L, OPTIONS, Worker::new);
+        pool.release(failed, 1, false);
+        assertTrue(failed.closed);
+
+        Worker a = pool.acquire("overworld", 1L, OPTIONS, Worker::new);
+        Worker b = pool.acquire("nether", 1L, OPTIONS, Worker::new);
+        pool.release(a, 1, true);
+        pool.release(b, 1, true);
+        assertTrue(a.closed);
+        assertFalse(b.closed);
+
+        pool.closeAll();
+        assertTrue(b.closed);
+    }
+
+    @Test
+    @DisplayName("closes idle workers after the timeout")
+    void closesExpiredWorkers() throws Exception {
+        RegenWorkerPool<Worker> pool = new RegenWorkerPool<>(2, 0, TimeUnit.NANOSECONDS, 100);
+        Worker worker = pool.acquire("overworld", 1L, OPTIONS, Worker::new);
+        pool.release(worker, 1, true);
+        pool.closeExpired();
+        assertTrue(worker.closed);
+    }
+
+}
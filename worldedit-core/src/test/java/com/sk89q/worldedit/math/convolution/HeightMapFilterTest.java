@@ -0,0 +1,65 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.math.convolution;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * Tests {@link HeightMapFilter}.
+ */
+public class HeightMapFilterTest {
+
+    private static final float EPSILON = 0.01f;
+
+    static Stream<Arguments> kernels() {
+        return Stream.of(
+            Arguments.of(new GaussianKernel(5, 1.0), 7, 5),
+            Arguments.of(new GaussianKernel(5, 1.0), 300, 200),
+            Arguments.of(new LinearKernel(3), 1, 40),
+            Arguments.of(new LinearKernel(12), 300, 200)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("kernels")
+    @DisplayName("separable filtering matches the full 2D convolution")
+    public void testSeparableMatches2D(SeparableKernel kernel, int width, int height) {
+        Random random = new Random(width * 31 + height);
+        float[] data = new float[width * height];
+        for (int i = 0; i < data.length; ++i) {
+            data[i] = random.nextInt(256);
+        }
+
+        Kernel flat = new Kernel(kernel.getWidth(), kernel.getHeight(), kernel.getKernelData(null));
+        float[] expected = new HeightMapFilter(flat).filter(data, width, height);
+        float[] actual = new HeightMapFilter(kernel).filter(data, width, height);
+
+        assertArrayEquals(expected, actual, EPSILON);
+    }
+
+}
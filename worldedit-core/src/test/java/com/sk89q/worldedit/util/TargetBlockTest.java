@@ -0,0 +1,110 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.sk89q.worldedit.util;
+
+import com.sk89q.worldedit.entity.Player;
+import com.sk89q.worldedit.function.mask.Mask;
+import com.sk89q.worldedit.function.mask.Mask2D;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.math.Vector3;
+import com.sk89q.worldedit.world.World;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@link TargetBlock}.
+ */
+public class TargetBlockTest {
+
+    private static final double EPSILON = 0.0001;
+
+    private static Mask mask(Predicate<BlockVector3> predicate) {
+        return new Mask() {
+            @Override
+            public boolean test(BlockVector3 vector) {
+                return predicate.test(vector);
+            }
+
+            @Nullable
+            @Override
+            public Mask2D toMask2D() {
+                return null;
+            }
+        };
+    }
+
+    private static TargetBlock trace(Vector3 position, float yaw, float pitch, int range) {
+        World world = mock(World.class);
+        Player player = mock(Player.class);
+        when(player.getWorld()).thenReturn(world);
+        when(player.getLocation()).thenReturn(new Location(world, position, yaw, pitch));
+        return new TargetBlock(player, range);
+    }
+
+    @Test
+    public void testHitFaceAndDistance() {
+        // looking along +X from the middle of a block, eyes at y = 1.65
+        TargetBlock target = trace(Vector3.at(0.5, 0, 0.5), -90, 0, 300);
+        target.setStopMask(mask(v -> v.getX() == 10));
+
+        Location hit = target.getTargetBlock();
+        assertNotNull(hit);
+        assertEquals(BlockVector3.at(10, 1, 0), hit.toVector().toBlockPoint());
+        assertEquals(Direction.WEST, target.getCurrentFace());
+        assertEquals(9.5, target.getCurrentDistance(), EPSILON);
+    }
+
+    @Test
+    public void testVisitsEveryBlockOnce() {
+        TargetBlock target = trace(Vector3.at(0.3, 64, 0.7), 37.5f, 21.25f, 50);
+        BlockVector3 previous = target.getCurrentBlock().toVector().toBlockPoint();
+        Location next;
+        int visited = 0;
+        while ((next = target.getNextBlock()) != null) {
+            BlockVector3 current = next.toVector().toBlockPoint();
+            BlockVector3 step = current.subtract(previous);
+            assertEquals(1, Math.abs(step.getX()) + Math.abs(step.getY()) + Math.abs(step.getZ()));
+            assertEquals(current.subtract(step), target.getPreviousBlock().toVector().toBlockPoint());
+            previous = current;
+            visited++;
+        }
+        assertNull(target.getCurrentBlock());
+        // a line of length 50 crosses at least 50 / sqrt(3) block boundaries
+        assertTrue(visited >= 28);
+    }
+
+    @Test
+    public void testOutOfRange() {
+        TargetBlock target = trace(Vector3.at(0.5, 0, 0.5), 0, 0, 20);
+        target.setStopMask(mask(v -> Math.abs(v.getZ()) > 20));
+        assertNull(target.getTargetBlock());
+    }
+
+}
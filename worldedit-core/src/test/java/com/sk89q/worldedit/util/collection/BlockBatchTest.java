@@ -0,0 +1,204 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.collection;
+
+import com.google.common.collect.ImmutableMap;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extension.platform.Capability;
+import com.sk89q.worldedit.extension.platform.Platform;
+import com.sk89q.worldedit.extension.platform.PlatformManager;
+import com.sk89q.worldedit.extension.platform.Preference;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.registry.Registry;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockType;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import com.sk89q.worldedit.world.registry.BundledRegistries;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("A block batch")
+class BlockBatchTest {
+
+    private static final Platform MOCKED_PLATFORM = mock(Platform.class);
+
+    @BeforeAll
+    static void setupFakePlatform() {
+        when(MOCKED_PLATFORM.getRegistries()).thenReturn(new BundledRegistries() {
+        });
+        when(MOCKED_PLATFORM.getCapabilities()).thenReturn(ImmutableMap.of(
+            Capability.WORLD_EDITING, Preference.PREFERRED,
+            Capability.GAME_HOOKS, Preference.PREFERRED
+        ));
+        PlatformManager platformManager = WorldEdit.getInstance().getPlatformManager();
+        platformManager.register(MOCKED_PLATFORM);
+
+        registerBlock("minecraft:air");
+        registerBlock("minecraft:oak_wood");
+    }
+
+    @AfterAll
+    static void tearDownFakePlatform() throws Exception {
+        WorldEdit.getInstance().getPlatformManager().unregister(MOCKED_PLATFORM);
+        Field map = Registry.class.getDeclaredField("map");
+        map.setAccessible(true);
+        ((Map<?, ?>) map.get(BlockType.REGISTRY)).clear();
+    }
+
+    private static void registerBlock(String id) {
+        BlockType.REGISTRY.register(id, new BlockType(id));
+    }
+
+    private final BaseBlock air = checkNotNull(BlockTypes.AIR).getDefaultState().toBaseBlock();
+    private final BaseBlock oakWood = checkNotNull(BlockTypes.OAK_WOOD).getDefaultState().toBaseBlock();
+
+    private final BlockBatch batch = new BlockBatch();
+
+    @Test
+    @DisplayName("returns added blocks, including at negative coordinates")
+    void returnsAddedBlocks() {
+        batch.add(1, 2, 3, air);
+        batch.add(BlockVector3.at(-17, -1, -33), oakWood);
+        assertEquals(2, batch.size());
+        assertEquals(air, batch.get(1, 2, 3));
+        assertEquals(oakWood, batch.get(BlockVector3.at(-17, -1, -33)));
+        assertNull(batch.get(-1, 2, 3));
+        assertNull(batch.get(17, 2, 3));
+    }
+
+    @Test
+    @DisplayName("replaces blocks added at the same position")
+    void replacesBlocks() {
+        batch.add(5, 5, 5, air);
+        batch.add(5, 5, 5, oakWood);
+        assertEquals(1, batch.size());
+        assertEquals(oakWood, batch.get(5, 5, 5));
+    }
+
+    @Test
+    @DisplayName("groups blocks by section and visits them from the top down")
+    void visitsBySection() throws WorldEditException {
+        batch.add(0, 0, 0, air);
+        batch.add(20, 0, 0, air);
+        batch.add(1, 15, 1, oakWood);
+        batch.add(-1, 0, 0, air);
+        assertEquals(3, batch.getSections().size());
+
+        List<BlockVector3> visited = new ArrayList<>();
+        batch.forEach((x, y, z, block) -> visited.add(BlockVector3.at(x, y, z)));
+        assertEquals(4, visited.size());
+        assertEquals(BlockVector3.at(1, 15, 1), visited.get(0));
+        assertEquals(BlockVector3.at(0, 0, 0), visited.get(1));
+        assertEquals(BlockVector3.at(20, 0, 0), visited.get(2));
+        assertEquals(BlockVector3.at(-1, 0, 0), visited.get(3));
+    }
+
+    @Test
+    @DisplayName("keeps every block when a section becomes dense")
+    void keepsBlocksWhenDense() throws WorldEditException {
+        BaseBlock tagged = oakWood.toImmutableState().toBaseBlock(new CompoundTag(ImmutableMap.of()));
+        batch.add(7, 7, 7, tagged);
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    if (x != 7 || y != 7 || z != 7) {
+                        batch.add(x, y, z, (x + y + z) % 2 == 0 ? air : oakWood);
+                    }
+                }
+            }
+        }
+        assertEquals(4096, batch.size());
+        assertEquals(1, batch.getSections().size());
+        assertSame(tagged, batch.get(7, 7, 7));
+        assertEquals(air, batch.get(2, 4, 6));
+        assertEquals(oakWood, batch.get(2, 4, 5));
+
+        int[] visited = new int[1];
+        batch.forEach((x, y, z, block) -> {
+            assertEquals(batch.get(x, y, z), block);
+            visited[0]++;
+        });
+        assertEquals(4096, visited[0]);
+
+        batch.add(7, 7, 7, air);
+        assertEquals(4096, batch.size());
+        assertEquals(air, batch.get(7, 7, 7));
+    }
+
+    @Test
+    @DisplayName("returns itself when filtering keeps everything")
+    void filterKeepsEverything() {
+        batch.add(0, 0, 0, air);
+        batch.add(0, 1, 0, oakWood);
+        assertSame(batch, batch.filter((x, y, z, block) -> true));
+    }
+
+    @Test
+    @DisplayName("returns the remaining blocks when filtering drops some")
+    void filterDropsBlocks() {
+        batch.add(0, 0, 0, air);
+        batch.add(0, 1, 0, oakWood);
+        batch.add(40, 1, 0, oakWood);
+        BlockBatch filtered = batch.filter((x, y, z, block) -> block.equals(oakWood));
+        assertNotSame(batch, filtered);
+        assertEquals(2, filtered.size());
+        assertNull(filtered.get(0, 0, 0));
+        assertEquals(oakWood, filtered.get(40, 1, 0));
+        assertEquals(3, batch.size());
+    }
+
+    @Test
+    @DisplayName("partitions into read-only batches of whole sections")
+    void partitionsBySection() {
+        for (int x = 0; x < 64; x++) {
+            batch.add(x, 0, 0, air);
+        }
+        List<BlockBatch> parts = batch.partition(20);
+        assertEquals(4, parts.size());
+        int total = 0;
+        for (BlockBatch part : parts) {
+            assertEquals(1, part.getSections().size());
+            total += part.size();
+        }
+        assertEquals(64, total);
+        assertThrows(IllegalStateException.class, () -> parts.get(0).add(0, 0, 0, oakWood));
+        assertTrue(batch.partition(64).contains(batch));
+    }
+
+}
@@ -0,0 +1,66 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.collection;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("A prefix index")
+class PrefixIndexTest {
+
+    private static final List<String> KEYS = ImmutableList.of(
+        "minecraft:stone", "minecraft:air", "minecraft:stone_bricks", "minecraft:sand", "mod:stone"
+    );
+
+    @Test
+    @DisplayName("matches keys by prefix in sorted order")
+    void matchesByPrefix() {
+        PrefixIndex<String> index = PrefixIndex.ofKeys(KEYS);
+        assertEquals(ImmutableList.of("minecraft:stone", "minecraft:stone_bricks"),
+            index.listWithPrefix("minecraft:st"));
+        assertEquals(ImmutableList.of("minecraft:air", "minecraft:sand", "minecraft:stone", "minecraft:stone_bricks"),
+            index.listWithPrefix("minecraft:"));
+        assertEquals(KEYS.size(), index.listWithPrefix("").size());
+        assertTrue(index.listWithPrefix("minecraft:z").isEmpty());
+        assertTrue(index.listWithPrefix("zzz").isEmpty());
+        assertTrue(index.hasPrefix("mod:"));
+        assertFalse(index.hasPrefix("mods"));
+    }
+
+    @Test
+    @DisplayName("keeps every value of duplicate keys")
+    void keepsDuplicateKeys() {
+        PrefixIndex<String> index = PrefixIndex.ofEntries(KEYS.stream()
+            .map(key -> Maps.immutableEntry(key.substring(key.indexOf(':') + 1), key))
+            .collect(Collectors.toList()));
+        assertEquals(ImmutableList.of("minecraft:stone", "mod:stone", "minecraft:stone_bricks"),
+            index.listWithPrefix("sto"));
+    }
+
+}
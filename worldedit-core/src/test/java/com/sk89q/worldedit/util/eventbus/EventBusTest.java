@@ -30,7 +30,11 @@
 
 public class EventBusTest {
 
-    private static final class Event {
+    private static class Event {
+
+    }
+
+    private static final class SubEvent extends Event {
 
     }
 
@@ -45,6 +49,22 @@ public void onEvent(Event event) {
 
     }
 
+    public static final class PrioritySubscriber {
+
+        private final List<String> calls = new ArrayList<>();
+
+        @Subscribe(priority = EventHandler.Priority.LATE)
+        public void onLate(Object event) {
+            calls.add("late");
+        }
+
+        @Subscribe(priority = EventHandler.Priority.EARLY)
+        public void onEarly(Object event) {
+            calls.add("early");
+        }
+
+    }
+
     private final EventBus eventBus = new EventBus();
 
     @Test
@@ -69,4 +89,35 @@ public void testUnregister() {
         eventBus.post(e2);
         assertEquals(singletonList(e1), subscriber.events);
     }
+
+    @Test
+    public void testSupertypeHandlers() {
+        Subscriber subscriber = new Subscriber();
+        eventBus.register(subscriber);
+        SubEvent e1 = new SubEvent();
+        eventBus.post(e1);
+        assertEquals(singletonList(e1), subscriber.events);
+    }
+
+    @Test
+    public void testPriorityOrder() {
+        PrioritySubscriber subscriber = new PrioritySubscriber();
+        eventBus.register(subscriber);
+        eventBus.post(new Event());
+        assertEquals(asList("early", "late"), subscriber.calls);
+    }
+
+    @Test
+    public void testRegisterAfterPost() {
+        Subscriber first = new Subscriber();
+        eventBus.register(first);
+        Event e1 = new Event();
+        eventBus.post(e1);
+        Subscriber second = new Subscriber();
+        eventBus.register(second);
+        Event e2 = new Event();
+        eventBus.post(e2);
+        assertEquals(asList(e1, e2), first.events);
+        assertEquals(singletonList(e2), second.events);
+    }
 }
@@ -0,0 +1,84 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.io;
+
+import com.google.common.io.ByteStreams;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class ParallelGZIPOutputStreamTest {
+
+    private static ExecutorService executor;
+
+    @BeforeAll
+    static void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static byte[] roundTrip(byte[] data, int chunk) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (ParallelGZIPOutputStream out = new ParallelGZIPOutputStream(compressed, executor, 1000, 3)) {
+            for (int i = 0; i < data.length; i += chunk) {
+                out.write(data, i, Math.min(chunk, data.length - i));
+            }
+        }
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+            return ByteStreams.toByteArray(in);
+        }
+    }
+
+    @Test
+    void testManyBlocks() throws IOException {
+        byte[] data = new byte[25_123];
+        new Random(42).nextBytes(data);
+        assertArrayEquals(data, roundTrip(data, 777));
+    }
+
+    @Test
+    void testSingleBytes() throws IOException {
+        byte[] data = new byte[2_500];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i % 7);
+        }
+        assertArrayEquals(data, roundTrip(data, 1));
+    }
+
+    @Test
+    void testEmpty() throws IOException {
+        assertArrayEquals(new byte[0], roundTrip(new byte[0], 1));
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.metrics;
+
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.function.operation.Operation;
+import com.sk89q.worldedit.function.operation.Operations;
+import com.sk89q.worldedit.function.operation.RunContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EditMetricsTest {
+
+    private final PerformanceMetrics totals = PerformanceMetrics.getInstance();
+
+    @AfterEach
+    void tearDown() {
+        totals.setEnabled(false);
+        totals.reset();
+    }
+
+    @Test
+    void histogramPercentilesAreBucketUpperBounds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 98; i++) {
+            histogram.record(100);
+        }
+        histogram.record(5000);
+        histogram.record(70000);
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(70000, histogram.getMaxNanos());
+        assertEquals(127, histogram.getPercentileNanos(0.5));
+        assertEquals(8191, histogram.getPercentileNanos(0.99));
+        assertEquals(70000, histogram.getPercentileNanos(1));
+    }
+
+    @Test
+    void nestedStagesAreNotCountedTwice() {
+        EditMetrics metrics = new EditMetrics("owner", "world");
+        StageTimer outer = metrics.newStage("stage");
+        StageTimer inner = metrics.newStage("stage");
+
+        long outerStart = System.nanoTime();
+        long outerToken = metrics.enter();
+        for (int i = 0; i < 3; i++) {
+            long innerStart = System.nanoTime();
+            long innerToken = metrics.enter();
+            metrics.exit(inner, innerStart, innerToken);
+        }
+        metrics.exit(outer, outerStart, outerToken);
+
+        assertEquals("stage #2", inner.getName());
+        assertEquals(1, outer.getCalls());
+        assertEquals(3, inner.getCalls());
+        assertEquals(outer.getInclusiveNanos(), outer.getSelfNanos() + inner.getSelfNanos());
+    }
+
+    @Test
+    void flushedEditsAreReportedOnce() {
+        totals.reset();
+        EditMetrics metrics = new EditMetrics("owner", "world");
+        StageTimer stage = metrics.newStage("stage");
+        stage.record(10, 10);
+        metrics.getFlush().record(5, 5);
+        totals.flushEdit(metrics, 3);
+
+        assertEquals(0, totals.getEditCount());
+        assertEquals(3, totals.getChangedBlocks());
+        assertEquals(10, totals.getStages().get(0).getSelfNanos());
+        assertEquals(5, totals.getFlushes().getInclusiveNanos());
+
+        stage.record(20, 20);
+        totals.finishEdit(metrics, 4);
+        totals.finishEdit(metrics, 4);
+
+        assertEquals(1, totals.getEditCount());
+        assertEquals(4, totals.getChangedBlocks());
+        assertEquals(2, totals.getStages().get(0).getCalls());
+        assertEquals(30, totals.getStages().get(0).getSelfNanos());
+        assertEquals(1, totals.getFlushes().getCalls());
+        assertEquals(30, metrics.getReportedStages().iterator().next().getSelfNanos());
+    }
+
+    @Test
+    void nestedOperationsAreNotCountedTwice() throws Exception {
+        totals.reset();
+        totals.setEnabled(true);
+        Operation inner = new Inner();
+        Operations.complete(new Outer(inner));
+
+        List<StageTimer> operations = totals.getOperations();
+        assertEquals(2, operations.size());
+        StageTimer outer = operations.stream()
+            .filter(timer -> timer.getName().equals(Outer.class.getName())).findFirst().get();
+        StageTimer nested = operations.stream()
+            .filter(timer -> timer.getName().equals(Inner.class.getName())).findFirst().get();
+        assertEquals(3, nested.getCalls());
+        assertEquals(outer.getInclusiveNanos(), outer.getSelfNanos() + nested.getSelfNanos());
+    }
+
+    private static final class Inner implements Operation {
+
+        private int remaining = 3;
+
+        @Override
+        public Operation resume(RunContext run) {
+            return --remaining > 0 ? this : null;
+        }
+
+        @Override
+        public void cancel() {
+        }
+
+    }
+
+    private static final class Outer implements Operation {
+
+        private final Operation inner;
+
+        private Outer(Operation inner) {
+            this.inner = inner;
+        }
+
+        @Override
+        public Operation resume(RunContext run) throws WorldEditException {
+            Operations.complete(inner);
+            return null;
+        }
+
+        @Override
+        public void cancel() {
+        }
+
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+@DisplayName("A memoizing data fixer")
+class MemoizingDataFixerTest {
+
+    private static final class CountingFixer implements DataFixer {
+        private final List<String> calls = new ArrayList<>();
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T fixUp(FixType<T> type, T original, int srcVer) {
+            if (original instanceof String) {
+                calls.add((String) original);
+                return (T) (original + "@" + srcVer);
+            }
+            return original;
+        }
+    }
+
+    @Test
+    @DisplayName("fixes each value and version only once")
+    void fixesOnce() {
+        CountingFixer delegate = new CountingFixer();
+        DataFixer fixer = MemoizingDataFixer.wrap(delegate);
+
+        assertEquals("stone@1", fixer.fixUp(DataFixer.FixTypes.BLOCK_STATE, "stone", 1));
+        assertEquals("stone@1", fixer.fixUp(DataFixer.FixTypes.BLOCK_STATE, "stone", 1));
+        assertEquals("stone@2", fixer.fixUp(DataFixer.FixTypes.BLOCK_STATE, "stone", 2));
+        assertEquals("stone@1", fixer.fixUp(DataFixer.FixTypes.BIOME, "stone", 1));
+        assertEquals(ImmutableList.of("stone", "stone", "stone"), delegate.calls);
+    }
+
+    @Test
+    @DisplayName("only passes values it hasn't seen to the delegate in a batch")
+    void batchesMissingValues() {
+        CountingFixer delegate = new CountingFixer();
+        DataFixer fixer = MemoizingDataFixer.wrap(delegate);
+        fixer.fixUp(DataFixer.FixTypes.BLOCK_STATE, "dirt", 1);
+
+        Map<String, String> fixed = fixer.fixUpAll(DataFixer.FixTypes.BLOCK_STATE,
+            ImmutableList.of("dirt", "sand", "gravel"), 1);
+
+        assertEquals(3, fixed.size());
+        assertEquals("sand@1", fixed.get("sand"));
+        assertEquals(3, delegate.calls.size());
+    }
+
+    @Test
+    @DisplayName("is not wrapped twice")
+    void notWrappedTwice() {
+        DataFixer fixer = MemoizingDataFixer.wrap(new CountingFixer());
+        assertSame(fixer, MemoizingDataFixer.wrap(fixer));
+    }
+
+}
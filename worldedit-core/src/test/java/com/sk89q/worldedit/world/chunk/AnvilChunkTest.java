@@ -0,0 +1,227 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.chunk;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.CompoundTagBuilder;
+import com.sk89q.jnbt.ListTag;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.extension.platform.Capability;
+import com.sk89q.worldedit.extension.platform.Platform;
+import com.sk89q.worldedit.extension.platform.PlatformManager;
+import com.sk89q.worldedit.extension.platform.Preference;
+import com.sk89q.worldedit.extent.OutputExtent;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.registry.Registry;
+import com.sk89q.worldedit.util.collection.BlockBatch;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockType;
+import com.sk89q.worldedit.world.registry.BundledRegistries;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("An anvil chunk")
+class AnvilChunkTest {
+
+    private static final Platform MOCKED_PLATFORM = mock(Platform.class);
+    // prime, so that small palettes use distinct types
+    private static final int TYPE_COUNT = 37;
+    private static final int CHUNK_X = 2;
+    private static final int CHUNK_Z = -3;
+    private static final int SECTION_Y = 1;
+    private static final BlockVector3 TILE_ENTITY = BlockVector3.at(CHUNK_X * 16 + 3, 20, CHUNK_Z * 16 + 9);
+
+    @BeforeAll
+    static void setupFakePlatform() {
+        when(MOCKED_PLATFORM.getRegistries()).thenReturn(new BundledRegistries() {
+        });
+        when(MOCKED_PLATFORM.getCapabilities()).thenReturn(ImmutableMap.of(
+            Capability.WORLD_EDITING, Preference.PREFERRED,
+            Capability.GAME_HOOKS, Preference.PREFERRED
+        ));
+        PlatformManager platformManager = WorldEdit.getInstance().getPlatformManager();
+        platformManager.register(MOCKED_PLATFORM);
+
+        // reading palettes initializes BlockTypes, which other tests need these in
+        registerBlock("minecraft:air");
+        registerBlock("minecraft:oak_wood");
+        for (int i = 0; i < TYPE_COUNT; i++) {
+            registerBlock(typeId(i));
+        }
+    }
+
+    @AfterAll
+    static void tearDownFakePlatform() throws Exception {
+        WorldEdit.getInstance().getPlatformManager().unregister(MOCKED_PLATFORM);
+        Field map = Registry.class.getDeclaredField("map");
+        map.setAccessible(true);
+        ((Map<?, ?>) map.get(BlockType.REGISTRY)).clear();
+    }
+
+    private static void registerBlock(String id) {
+        BlockType.REGISTRY.register(id, new BlockType(id));
+    }
+
+    private static String typeId(int i) {
+        return "worldedit:test_" + i;
+    }
+
+    private static int paletteSize(int bits) {
+        // the smallest palette that needs this many bits per entry
+        return bits == 4 ? 16 : (1 << (bits - 1)) + 1;
+    }
+
+    /**
+     * The palette index stored at a section index. The values go up to the
+     * last palette entry, which has every bit of the entry set.
+     */
+    private static int paletteIndexAt(int index, int paletteSize) {
+        return (int) ((index * 7919L + index / 16) % paletteSize);
+    }
+
+    /**
+     * Pack the indices like 1.13 to 1.15, where entries may span two longs.
+     */
+    private static long[] packSpanning(int[] values, int bits) {
+        long[] packed = new long[values.length * bits / 64];
+        for (int i = 0; i < values.length; i++) {
+            long bit = (long) i * bits;
+            int longIndex = (int) (bit >> 6);
+            int offset = (int) (bit & 63);
+            packed[longIndex] |= (long) values[i] << offset;
+            if (offset + bits > 64) {
+                packed[longIndex + 1] |= (long) values[i] >>> (64 - offset);
+            }
+        }
+        return packed;
+    }
+
+    /**
+     * Pack the indices like 1.16 and newer, where entries never span longs.
+     */
+    private static long[] packAligned(int[] values, int bits) {
+        int perLong = 64 / bits;
+        long[] packed = new long[(values.length + perLong - 1) / perLong];
+        for (int i = 0; i < values.length; i++) {
+            packed[i / perLong] |= (long) values[i] << ((i % perLong) * bits);
+        }
+        return packed;
+    }
+
+    private static CompoundTag createChunkTag(int bits, boolean aligned) {
+        int paletteSize = paletteSize(bits);
+        List<CompoundTag> palette = new ArrayList<>(paletteSize);
+        for (int i = 0; i < paletteSize; i++) {
+            palette.add(CompoundTagBuilder.create().putString("Name", typeId(i % TYPE_COUNT)).build());
+        }
+        int[] values = new int[4096];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = paletteIndexAt(i, paletteSize);
+        }
+        CompoundTag section = CompoundTagBuilder.create()
+            .putByte("Y", (byte) SECTION_Y)
+            .put("Palette", new ListTag(CompoundTag.class, palette))
+            .putLongArray("BlockStates", aligned ? packAligned(values, bits) : packSpanning(values, bits))
+            .build();
+        CompoundTag tileEntity = CompoundTagBuilder.create()
+            .putString("id", "minecraft:chest")
+            .putInt("x", TILE_ENTITY.getX())
+            .putInt("y", TILE_ENTITY.getY())
+            .putInt("z", TILE_ENTITY.getZ())
+            .build();
+        return CompoundTagBuilder.create()
+            .putInt("xPos", CHUNK_X)
+            .putInt("zPos", CHUNK_Z)
+            .put("Sections", new ListTag(CompoundTag.class, ImmutableList.of(section)))
+            .put("TileEntities", new ListTag(CompoundTag.class, ImmutableList.of(tileEntity)))
+            .build();
+    }
+
+    private static String expectedType(int x, int y, int z, int bits) {
+        int index = ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+        return typeId(paletteIndexAt(index, paletteSize(bits)) % TYPE_COUNT);
+    }
+
+    private static void assertReadsSection(AnvilChunk13 chunk, int bits) throws Exception {
+        for (int y = SECTION_Y * 16; y < SECTION_Y * 16 + 16; y++) {
+            for (int z = CHUNK_Z * 16; z < CHUNK_Z * 16 + 16; z++) {
+                for (int x = CHUNK_X * 16; x < CHUNK_X * 16 + 16; x++) {
+                    BaseBlock block = chunk.getBlock(BlockVector3.at(x, y, z));
+                    assertEquals(expectedType(x, y, z, bits), block.getBlockType().getId());
+                    assertEquals(TILE_ENTITY.equals(BlockVector3.at(x, y, z)), block.hasNbtData());
+                }
+            }
+        }
+    }
+
+    private static void assertCopiesSection(AnvilChunk13 chunk, int bits) throws Exception {
+        OutputExtent extent = mock(OutputExtent.class);
+        BlockBatch[] copied = new BlockBatch[1];
+        when(extent.setBlocks(any())).thenAnswer(invocation -> {
+            copied[0] = invocation.getArgument(0);
+            return copied[0].size();
+        });
+        assertEquals(4096, chunk.copySection(SECTION_Y, extent));
+        for (int y = SECTION_Y * 16; y < SECTION_Y * 16 + 16; y++) {
+            for (int z = CHUNK_Z * 16; z < CHUNK_Z * 16 + 16; z++) {
+                for (int x = CHUNK_X * 16; x < CHUNK_X * 16 + 16; x++) {
+                    BaseBlock block = copied[0].get(x, y, z);
+                    assertEquals(expectedType(x, y, z, bits), block.getBlockType().getId());
+                }
+            }
+        }
+        assertTrue(copied[0].get(TILE_ENTITY).hasNbtData());
+        assertFalse(copied[0].get(TILE_ENTITY.add(1, 0, 0)).hasNbtData());
+    }
+
+    @ParameterizedTest(name = "{0} bits per entry")
+    @ValueSource(ints = { 4, 5, 13 })
+    @DisplayName("in the 1.13 format reads entries that span longs")
+    void readsSpanningEntries(int bits) throws Exception {
+        assertReadsSection(new AnvilChunk13(createChunkTag(bits, false)), bits);
+        assertCopiesSection(new AnvilChunk13(createChunkTag(bits, false)), bits);
+    }
+
+    @ParameterizedTest(name = "{0} bits per entry")
+    @ValueSource(ints = { 4, 5, 13 })
+    @DisplayName("in the 1.16 format reads entries aligned to longs")
+    void readsAlignedEntries(int bits) throws Exception {
+        assertReadsSection(new AnvilChunk16(createChunkTag(bits, true)), bits);
+        assertCopiesSection(new AnvilChunk16(createChunkTag(bits, true)), bits);
+    }
+
+}
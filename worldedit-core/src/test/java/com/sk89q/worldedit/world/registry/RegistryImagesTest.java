@@ -0,0 +1,132 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.registry;
+
+import com.google.common.io.Resources;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@DisplayName("The precompiled registry images")
+class RegistryImagesTest {
+
+    private static final Gson GSON = new Gson();
+
+    private static URL resource(String name) {
+        URL url = RegistryImagesTest.class.getResource(name);
+        assertNotNull(url, "Missing resource " + name);
+        return url;
+    }
+
+    private static <T> T readJson(String name, TypeToken<T> type) throws IOException {
+        String data = Resources.toString(resource(name), StandardCharsets.UTF_8);
+        return GSON.fromJson(data, type.getType());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "blocks.json", "blocks.114.json", "blocks.115.json", "blocks.116.json" })
+    @DisplayName("match the JSON block data")
+    void matchBlocks(String name) throws IOException {
+        List<BundledBlockData.BlockEntry> expected = readJson(name, new TypeToken<List<BundledBlockData.BlockEntry>>() {});
+        List<BundledBlockData.BlockEntry> actual = RegistryImages.readBlocks(resource(RegistryImages.imageName(name)));
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            BundledBlockData.BlockEntry expectedEntry = expected.get(i);
+            BundledBlockData.BlockEntry actualEntry = actual.get(i);
+            assertEquals(expectedEntry.id, actualEntry.id);
+            assertEquals(expectedEntry.localizedName, actualEntry.localizedName);
+            BlockMaterial expectedMaterial = expectedEntry.material;
+            BlockMaterial actualMaterial = actualEntry.material;
+            String id = expectedEntry.id;
+            assertEquals(expectedMaterial.isFullCube(), actualMaterial.isFullCube(), id);
+            assertEquals(expectedMaterial.isOpaque(), actualMaterial.isOpaque(), id);
+            assertEquals(expectedMaterial.isPowerSource(), actualMaterial.isPowerSource(), id);
+            assertEquals(expectedMaterial.isLiquid(), actualMaterial.isLiquid(), id);
+            assertEquals(expectedMaterial.isSolid(), actualMaterial.isSolid(), id);
+            assertEquals(expectedMaterial.isFragileWhenPushed(), actualMaterial.isFragileWhenPushed(), id);
+            assertEquals(expectedMaterial.isUnpushable(), actualMaterial.isUnpushable(), id);
+            assertEquals(expectedMaterial.isTicksRandomly(), actualMaterial.isTicksRandomly(), id);
+            assertEquals(expectedMaterial.isMovementBlocker(), actualMaterial.isMovementBlocker(), id);
+            assertEquals(expectedMaterial.isBurnable(), actualMaterial.isBurnable(), id);
+            assertEquals(expectedMaterial.isToolRequired(), actualMaterial.isToolRequired(), id);
+            assertEquals(expectedMaterial.isReplacedDuringPlacement(), actualMaterial.isReplacedDuringPlacement(), id);
+            assertEquals(expectedMaterial.isTranslucent(), actualMaterial.isTranslucent(), id);
+            assertEquals(expectedMaterial.hasContainer(), actualMaterial.hasContainer(), id);
+            assertEquals(expectedMaterial.getHardness(), actualMaterial.getHardness(), id);
+            assertEquals(expectedMaterial.getResistance(), actualMaterial.getResistance(), id);
+            assertEquals(expectedMaterial.getSlipperiness(), actualMaterial.getSlipperiness(), id);
+            assertEquals(expectedMaterial.getLightValue(), actualMaterial.getLightValue(), id);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "items.json", "items.114.json", "items.115.json", "items.116.json" })
+    @DisplayName("match the JSON item data")
+    void matchItems(String name) throws IOException {
+        List<BundledItemData.ItemEntry> expected = readJson(name, new TypeToken<List<BundledItemData.ItemEntry>>() {});
+        List<BundledItemData.ItemEntry> actual = RegistryImages.readItems(resource(RegistryImages.imageName(name)));
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            BundledItemData.ItemEntry expectedEntry = expected.get(i);
+            BundledItemData.ItemEntry actualEntry = actual.get(i);
+            assertEquals(expectedEntry.id, actualEntry.id);
+            assertEquals(expectedEntry.unlocalizedName, actualEntry.unlocalizedName);
+            assertEquals(expectedEntry.localizedName, actualEntry.localizedName);
+            assertEquals(expectedEntry.maxDamage, actualEntry.maxDamage);
+            assertEquals(expectedEntry.maxStackSize, actualEntry.maxStackSize);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "legacy.json" })
+    @DisplayName("match the JSON legacy data")
+    void matchLegacy(String name) throws IOException {
+        Map<String, Map<String, String>> expected = readJson(name, new TypeToken<Map<String, Map<String, String>>>() {});
+        RegistryImages.Legacy actual = RegistryImages.readLegacy(resource(RegistryImages.imageName(name)));
+        assertEquals(expected.get("items"), actual.items);
+        Map<String, String> expectedBlocks = expected.get("blocks");
+        assertEquals(expectedBlocks.keySet(), actual.blocks.keySet());
+        for (Map.Entry<String, RegistryImages.LegacyBlock> entry : actual.blocks.entrySet()) {
+            RegistryImages.LegacyBlock block = entry.getValue();
+            assertEquals(expectedBlocks.get(entry.getKey()), block.value);
+            StringBuilder rebuilt = new StringBuilder(block.id);
+            for (int i = 0; i < block.propertyNames.length; i++) {
+                rebuilt.append(i == 0 ? '[' : ',')
+                    .append(block.propertyNames[i]).append('=').append(block.propertyValues[i]);
+            }
+            if (block.propertyNames.length > 0) {
+                rebuilt.append(']');
+            }
+            assertEquals(block.value, rebuilt.toString());
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.snapshot.experimental;
+
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.chunk.AnvilChunk13;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("A snapshot restore")
+class SnapshotRestoreTest {
+
+    @Test
+    @DisplayName("copies whole sections at once and the rest block by block")
+    void copiesWholeSections() throws Exception {
+        AnvilChunk13 chunk = mock(AnvilChunk13.class);
+        when(chunk.getBlock(any())).thenReturn(mock(BaseBlock.class));
+        Snapshot snapshot = mock(Snapshot.class);
+        when(snapshot.getChunk(any())).thenReturn(chunk);
+        EditSession editSession = mock(EditSession.class);
+        // all of section 0, and five layers of section 1
+        CuboidRegion region = new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(15, 20, 15));
+
+        new SnapshotRestore(snapshot, editSession, region).restore();
+
+        verify(chunk).copySection(0, editSession);
+        verify(chunk, times(1)).copySection(anyInt(), eq(editSession));
+        verify(editSession, times(5 * 16 * 16)).setBlock(any(BlockVector3.class), any(BaseBlock.class));
+    }
+
+}
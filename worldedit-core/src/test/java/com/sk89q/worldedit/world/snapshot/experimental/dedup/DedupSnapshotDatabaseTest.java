@@ -0,0 +1,158 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.snapshot.experimental.dedup;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Resources;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.worldedit.LocalConfiguration;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.io.file.SafeFiles;
+import com.sk89q.worldedit.world.DataException;
+import com.sk89q.worldedit.world.snapshot.experimental.Snapshot;
+import com.sk89q.worldedit.world.snapshot.experimental.SnapshotInfo;
+import com.sk89q.worldedit.world.storage.ChunkStoreHelper;
+import com.sk89q.worldedit.world.storage.McRegionReader;
+import com.sk89q.worldedit.world.storage.MissingChunkException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("A deduplicating snapshot database")
+class DedupSnapshotDatabaseTest {
+
+    private static final String WORLD = "world";
+    private static final ZonedDateTime TIME_ONE = Instant.parse("2018-01-01T12:00:00.00Z").atZone(ZoneOffset.UTC);
+    private static final ZonedDateTime TIME_TWO = TIME_ONE.plusHours(1);
+
+    private Path tempDir;
+    private Path regionFolder;
+    private BlockVector3 chunkPos;
+    private CompoundTag chunkTag;
+
+    @BeforeEach
+    void setUp() throws IOException, DataException {
+        byte[] regionData;
+        try (InputStream in = Resources.getResource("world_region.mca.gzip").openStream();
+             GZIPInputStream gzIn = new GZIPInputStream(in)) {
+            regionData = ByteStreams.toByteArray(gzIn);
+        }
+        McRegionReader reader = new McRegionReader(new ByteArrayInputStream(regionData));
+        BlockVector2 pos = IntStream.range(0, 32).boxed()
+            .flatMap(x -> IntStream.range(0, 32).filter(z -> reader.hasChunk(x, z))
+                .mapToObj(z -> BlockVector2.at(x, z)))
+            .findAny()
+            .orElseThrow(() -> new AssertionError("No chunk in region file."));
+        chunkPos = pos.toBlockVector3();
+        chunkTag = ChunkStoreHelper.readCompoundTag(() -> reader.getChunkInputStream(pos));
+
+        tempDir = Files.createTempDirectory("worldedit-dedup-snap-db");
+        regionFolder = tempDir.resolve("region");
+        Files.createDirectories(regionFolder);
+        Files.write(regionFolder.resolve("r.0.0.mca"), regionData);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        SafeFiles.tryHardToDeleteDir(tempDir);
+    }
+
+    @Test
+    @DisplayName("shares unchanged chunks between snapshots")
+    void sharesChunks() throws IOException, DataException {
+        DedupSnapshotDatabase db = DedupSnapshotDatabase.maybeCreate(tempDir.resolve("db"));
+        DedupSnapshotWriter writer = new DedupSnapshotWriter(db);
+        writer.write(WORLD, TIME_ONE, regionFolder);
+        long written = writer.getWrittenChunks();
+        assertTrue(written > 0);
+        SnapshotInfo second = writer.write(WORLD, TIME_TWO, regionFolder);
+        assertEquals(written, writer.getWrittenChunks());
+        assertEquals(written, writer.getSharedChunks());
+
+        List<Snapshot> snapshots;
+        try (Stream<Snapshot> stream = db.getSnapshotsNewestFirst(WORLD)) {
+            snapshots = stream.collect(Collectors.toList());
+        }
+        assertEquals(2, snapshots.size());
+        assertEquals(second, snapshots.get(0).getInfo());
+        assertEquals(TIME_ONE.toInstant(), snapshots.get(1).getInfo().getDateTime().toInstant());
+        for (Snapshot snapshot : snapshots) {
+            try (Snapshot s = snapshot) {
+                assertEquals(chunkTag.toString(), s.getChunkTag(chunkPos).toString());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("reads single chunks by name")
+    void readsByName() throws IOException, DataException {
+        DedupSnapshotDatabase db = DedupSnapshotDatabase.maybeCreate(tempDir.resolve("db"));
+        SnapshotInfo info = new DedupSnapshotWriter(db).write(WORLD, TIME_ONE, regionFolder);
+        Optional<Snapshot> snapshot = db.getSnapshot(info.getName());
+        assertTrue(snapshot.isPresent());
+        try (Snapshot s = snapshot.get()) {
+            assertEquals(chunkTag.toString(), s.getChunkTag(chunkPos).toString());
+            assertThrows(MissingChunkException.class, () -> s.getChunkTag(BlockVector3.at(-100, 0, -100)));
+        }
+        assertEquals(Optional.empty(), db.getSnapshot(DedupSnapshotDatabase.createUri("../db", "manifests")));
+    }
+
+    @Test
+    @DisplayName("is created by the configuration when deduplication is turned on")
+    void createdByConfiguration() {
+        LocalConfiguration config = new LocalConfiguration() {
+            @Override
+            public void load() {
+            }
+        };
+        Path root = tempDir.resolve("db");
+        assertFalse(DedupSnapshotDatabase.isDatabase(root));
+        config.initializeSnapshotConfiguration(root.toString(), true, true);
+        assertTrue(config.snapshotDatabase instanceof DedupSnapshotDatabase);
+        assertTrue(DedupSnapshotDatabase.isDatabase(root));
+
+        // once created, it's used without the switch too
+        config.initializeSnapshotConfiguration(root.toString(), true, false);
+        assertTrue(config.snapshotDatabase instanceof DedupSnapshotDatabase);
+    }
+
+}
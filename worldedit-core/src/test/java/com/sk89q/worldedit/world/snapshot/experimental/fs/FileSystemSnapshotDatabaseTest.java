@@ -29,6 +29,7 @@
 import com.sk89q.worldedit.util.io.file.TrueVfsArchiveNioSupport;
 import com.sk89q.worldedit.util.io.file.ZipArchiveNioSupport;
 import com.sk89q.worldedit.world.DataException;
+import com.sk89q.worldedit.world.snapshot.experimental.Snapshot;
 import com.sk89q.worldedit.world.storage.ChunkStoreHelper;
 import com.sk89q.worldedit.world.storage.McRegionReader;
 import org.junit.jupiter.api.AfterAll;
@@ -48,11 +49,14 @@
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import java.util.zip.GZIPInputStream;
@@ -157,6 +161,69 @@ void rootIsAbsoluteDir() throws IOException {
         }
     }
 
+    @DisplayName("notices snapshots added after it was listed")
+    @Test
+    void catalogNoticesNewSnapshots() throws IOException, DataException {
+        Path root = newTempDb();
+        try (FileSystemSnapshotDatabase db = new FileSystemSnapshotDatabase(root,
+            ArchiveNioSupports.combined())) {
+            Path worldDir = root.resolve(WORLD_ALPHA);
+            Path timestampedDirA = EntryMaker.TIMESTAMPED_DIR.createEntry(worldDir, TIME_TWO);
+            EntryMaker.WORLD_DIR.createEntry(timestampedDirA, WORLD_ALPHA);
+            Files.setLastModifiedTime(timestampedDirA, FileTime.from(TIME_TWO.toInstant()));
+            List<Snapshot> snapshots = listSnapshots(db);
+            assertEquals(1, snapshots.size());
+            try (Snapshot snapshot = snapshots.get(0)) {
+                assertEquals(CHUNK_TAG.toString(), snapshot.getChunkTag(CHUNK_POS).toString());
+            }
+
+            Path timestampedDirB = EntryMaker.TIMESTAMPED_DIR.createEntry(worldDir, TIME_ONE);
+            EntryMaker.WORLD_DIR.createEntry(timestampedDirB, WORLD_ALPHA);
+            Files.setLastModifiedTime(timestampedDirB, FileTime.from(TIME_ONE.toInstant()));
+            snapshots = listSnapshots(db);
+            assertEquals(2, snapshots.size());
+            assertEquals(TIME_ONE, snapshots.get(0).getInfo().getDateTime());
+            assertEquals(TIME_TWO, snapshots.get(1).getInfo().getDateTime());
+        } finally {
+            deleteTree(root);
+        }
+    }
+
+    @DisplayName("remembers its catalog after a restart")
+    @Test
+    void catalogIsPersisted() throws IOException {
+        Path root = newTempDb();
+        try {
+            Path worldDir = root.resolve(WORLD_ALPHA);
+            Path timestampedDir = EntryMaker.TIMESTAMPED_DIR.createEntry(worldDir, TIME_TWO);
+            Path levelDat = EntryMaker.WORLD_DIR.createEntry(timestampedDir, WORLD_ALPHA)
+                .resolve("level.dat");
+            Files.setLastModifiedTime(timestampedDir, FileTime.from(TIME_TWO.toInstant()));
+            try (FileSystemSnapshotDatabase db = new FileSystemSnapshotDatabase(root,
+                ZipArchiveNioSupport.getInstance())) {
+                assertEquals(1, listSnapshots(db).size());
+            }
+
+            // a fresh scan would no longer find the world, so this only passes from the saved catalog
+            Files.delete(levelDat);
+            Files.setLastModifiedTime(timestampedDir, FileTime.from(TIME_TWO.toInstant()));
+            try (FileSystemSnapshotDatabase db = new FileSystemSnapshotDatabase(root,
+                ZipArchiveNioSupport.getInstance())) {
+                List<Snapshot> snapshots = listSnapshots(db);
+                assertEquals(1, snapshots.size());
+                assertEquals(TIME_TWO, snapshots.get(0).getInfo().getDateTime());
+            }
+        } finally {
+            deleteTree(root);
+        }
+    }
+
+    private static List<Snapshot> listSnapshots(FileSystemSnapshotDatabase db) throws IOException {
+        try (Stream<Snapshot> snapshots = db.getSnapshotsNewestFirst(WORLD_ALPHA)) {
+            return snapshots.collect(Collectors.toList());
+        }
+    }
+
     @DisplayName("with a specific NIO support:")
     @TestFactory
     Stream<DynamicNode> withSpecificNioSupport() {
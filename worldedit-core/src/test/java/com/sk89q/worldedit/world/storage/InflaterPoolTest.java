@@ -0,0 +1,112 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.storage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("The inflater pool")
+class InflaterPoolTest {
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(data);
+        deflater.finish();
+        byte[] out = new byte[data.length + 64];
+        int length = deflater.deflate(out);
+        deflater.end();
+        return Arrays.copyOf(out, length);
+    }
+
+    private static byte[] randomData(long seed, int length) {
+        byte[] data = new byte[length];
+        // mostly zeroes, so it compresses well beyond the initial guess
+        Random random = new Random(seed);
+        for (int i = 0; i < length; i += 1 + random.nextInt(64)) {
+            data[i] = (byte) random.nextInt();
+        }
+        return data;
+    }
+
+    @Test
+    @DisplayName("inflates data at an offset, growing the output as needed")
+    void inflates() throws Exception {
+        byte[] data = randomData(1, 100_000);
+        byte[] compressed = deflate(data);
+        byte[] padded = new byte[compressed.length + 10];
+        System.arraycopy(compressed, 0, padded, 7, compressed.length);
+
+        assertArrayEquals(data, InflaterPool.inflate(padded, 7, compressed.length));
+        assertArrayEquals(new byte[0], InflaterPool.inflate(deflate(new byte[0]), 0, deflate(new byte[0]).length));
+    }
+
+    @Test
+    @DisplayName("rejects invalid data and keeps working afterwards")
+    void rejectsInvalidData() throws Exception {
+        byte[] data = randomData(2, 10_000);
+        byte[] compressed = deflate(data);
+
+        assertThrows(DataFormatException.class,
+            () -> InflaterPool.inflate(compressed, 0, compressed.length / 2));
+        assertThrows(DataFormatException.class,
+            () -> InflaterPool.inflate(new byte[] { 1, 2, 3, 4 }, 0, 4));
+        for (int i = 0; i < 20; i++) {
+            assertArrayEquals(data, InflaterPool.inflate(compressed, 0, compressed.length));
+        }
+    }
+
+    @Test
+    @DisplayName("inflates from many threads at once")
+    void inflatesConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int task = 0; task < 64; task++) {
+                byte[] data = randomData(task, 1000 + task * 500);
+                byte[] compressed = deflate(data);
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        assertArrayEquals(data, InflaterPool.inflate(compressed, 0, compressed.length));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.storage;
+
+import com.google.common.base.Ticker;
+import com.google.common.io.ByteStreams;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.util.io.file.SafeFiles;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("A region file cache")
+class McRegionFileCacheTest {
+
+    private static final BlockVector2 CHUNK = BlockVector2.at(3, 7);
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+    };
+
+    private Path tempDir;
+    private Path regionFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("worldedit-region-cache");
+        regionFile = tempDir.resolve("r.0.0.mca");
+        writeRegion(regionFile, payload("first"));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        SafeFiles.tryHardToDeleteDir(tempDir);
+    }
+
+    private static byte[] payload(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write a region file holding one deflated chunk at {@link #CHUNK}.
+     */
+    private static void writeRegion(Path file, byte[] chunk) throws IOException {
+        Deflater deflater = new Deflater();
+        deflater.setInput(chunk);
+        deflater.finish();
+        byte[] compressed = new byte[chunk.length + 64];
+        int length = deflater.deflate(compressed);
+        deflater.end();
+
+        ByteBuffer data = ByteBuffer.allocate(3 * 4096);
+        data.putInt(((CHUNK.getBlockX() & 31) + (CHUNK.getBlockZ() & 31) * 32) * 4, 2 << 8 | 1);
+        data.position(2 * 4096);
+        data.putInt(length + 1);
+        data.put((byte) 2);
+        data.put(compressed, 0, length);
+        Files.write(file, data.array());
+    }
+
+    private static byte[] readChunk(McRegionFile file) throws Exception {
+        try (InputStream in = file.getChunkInputStream(CHUNK)) {
+            return ByteStreams.toByteArray(in);
+        }
+    }
+
+    @Test
+    @DisplayName("keeps a file while it is used and unchanged")
+    void keepsUnchangedFiles() throws Exception {
+        McRegionFileCache cache = new McRegionFileCache(64 * 1024 * 1024, 1, TimeUnit.MINUTES, ticker);
+        McRegionFile file = cache.get(regionFile);
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(50));
+        assertSame(file, cache.get(regionFile));
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(50));
+        assertSame(file, cache.get(regionFile));
+        assertTrue(file.isBuffered());
+        assertArrayEquals(payload("first"), readChunk(file));
+    }
+
+    @Test
+    @DisplayName("re-opens a file that changed, and releases the old one")
+    void reopensChangedFiles() throws Exception {
+        McRegionFileCache cache = new McRegionFileCache(64 * 1024 * 1024, 1, TimeUnit.MINUTES, ticker);
+        McRegionFile file = cache.get(regionFile);
+        writeRegion(regionFile, payload("second chunk"));
+
+        McRegionFile reopened = cache.get(regionFile);
+        assertNotSame(file, reopened);
+        assertFalse(file.isBuffered());
+        assertArrayEquals(payload("second chunk"), readChunk(reopened));
+    }
+
+    @Test
+    @DisplayName("releases files that were not used for a while")
+    void expiresUnusedFiles() throws Exception {
+        McRegionFileCache cache = new McRegionFileCache(64 * 1024 * 1024, 1, TimeUnit.MINUTES, ticker);
+        McRegionFile file = cache.get(regionFile);
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(2));
+        cache.cleanUp();
+
+        assertFalse(file.isBuffered());
+        // a released file can still be read, straight from disk
+        assertArrayEquals(payload("first"), readChunk(file));
+        McRegionFile reopened = cache.get(regionFile);
+        assertNotSame(file, reopened);
+        assertTrue(reopened.isBuffered());
+    }
+
+    @Test
+    @DisplayName("reads files too large for a buffer from disk")
+    void readsLargeFilesFromDisk() throws Exception {
+        McRegionFile file = McRegionFile.open(regionFile, 4096);
+        assertFalse(file.isBuffered());
+        assertFalse(file.isMapped());
+        assertTrue(file.hasChunk(CHUNK.getBlockX(), CHUNK.getBlockZ()));
+        assertFalse(file.hasChunk(0, 0));
+        assertArrayEquals(payload("first"), readChunk(file));
+    }
+
+}
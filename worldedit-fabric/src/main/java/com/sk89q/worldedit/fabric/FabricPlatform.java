@@ -31,6 +31,7 @@
 import com.sk89q.worldedit.extension.platform.Watchdog;
 import com.sk89q.worldedit.util.SideEffect;
 import com.sk89q.worldedit.world.DataFixer;
+import com.sk89q.worldedit.world.MemoizingDataFixer;
 import com.sk89q.worldedit.world.World;
 import com.sk89q.worldedit.world.registry.Registries;
 import net.minecraft.SharedConstants;
@@ -61,7 +62,7 @@ class FabricPlatform extends AbstractPlatform implements MultiUserPlatform {
 
     private final FabricWorldEdit mod;
     private final MinecraftServer server;
-    private final FabricDataFixer dataFixer;
+    private final DataFixer dataFixer;
     private final @Nullable Watchdog watchdog;
     private boolean hookingEvents = false;
     private CommandDispatcher<ServerCommandSource> nativeDispatcher;
@@ -70,7 +71,7 @@ class FabricPlatform extends AbstractPlatform implements MultiUserPlatform {
         this.mod = mod;
         this.server = server;
         this.nativeDispatcher = server.getCommandManager().getDispatcher();
-        this.dataFixer = new FabricDataFixer(getDataVersion());
+        this.dataFixer = MemoizingDataFixer.wrap(new FabricDataFixer(getDataVersion()));
         this.watchdog = server instanceof MinecraftDedicatedServer
             ? (Watchdog) server : null;
     }
@@ -43,6 +43,7 @@
 import com.sk89q.worldedit.fabric.mixin.AccessorServerChunkManager;
 import com.sk89q.worldedit.internal.Constants;
 import com.sk89q.worldedit.internal.block.BlockStateIdAccess;
+import com.sk89q.worldedit.internal.util.RegenWorkerPool;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.math.Vector3;
@@ -101,6 +102,8 @@
 import net.minecraft.world.level.ServerWorldProperties;
 import net.minecraft.world.level.storage.LevelStorage;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -117,6 +120,7 @@
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -128,6 +132,8 @@
 public class FabricWorld extends AbstractWorld {
 
     private static final Random random = new Random();
+    private static final RegenWorkerPool<RegenWorker> REGEN_WORKERS =
+        new RegenWorkerPool<>(2, 5, TimeUnit.MINUTES, 1024);
 
     private static Identifier getDimensionRegistryKey(World world) {
         return Objects.requireNonNull(world.getServer(), "server cannot be null")
@@ -226,6 +232,13 @@ public BiomeType getBiome(BlockVector3 position) {
         return getBiomeInChunk(position, chunk);
     }
 
+    @Override
+    public BiomeType getBiome(int x, int y, int z) {
+        Chunk chunk = getWorld().getChunk(x >> 4, z >> 4);
+        BiomeArray biomeArray = checkNotNull(chunk.getBiomeArray());
+        return FabricAdapter.adapt(biomeArray.getBiomeForNoiseGen(x >> 2, y >> 2, z >> 2));
+    }
+
     private BiomeType getBiomeInChunk(BlockVector3 position, Chunk chunk) {
         BiomeArray biomeArray = checkNotNull(chunk.getBiomeArray());
         return FabricAdapter.adapt(biomeArray.getBiomeForNoiseGen(position.getX() >> 2, position.getY() >> 2, position.getZ() >> 2));
@@ -312,40 +325,68 @@ public boolean regenerate(Region region, Extent extent, RegenOptions options) {
     }
 
     private void doRegen(Region region, Extent extent, RegenOptions options) throws Exception {
-        Path tempDir = Files.createTempDirectory("WorldEditWorldGen");
-        LevelStorage levelStorage = LevelStorage.create(tempDir);
-        try (LevelStorage.Session session = levelStorage.createSession("WorldEditTempGen")) {
-            ServerWorld originalWorld = (ServerWorld) getWorld();
-            long seed = options.getSeed().orElse(originalWorld.getSeed());
-            AccessorLevelProperties levelProperties = (AccessorLevelProperties)
-                originalWorld.getServer().getSaveProperties();
-            GeneratorOptions originalOpts = levelProperties.getGeneratorOptions();
-
-            RegistryOps<Tag> nbtRegOps = RegistryOps.of(
-                NbtOps.INSTANCE,
-                ((ExtendedMinecraftServer) originalWorld.getServer())
-                    .getServerResourceManager().getResourceManager(),
-                (DynamicRegistryManager.Impl) originalWorld.getServer().getRegistryManager()
-            );
-            GeneratorOptions newOpts = GeneratorOptions.CODEC
-                .encodeStart(nbtRegOps, originalOpts)
-                .flatMap(tag ->
-                    GeneratorOptions.CODEC.parse(
-                        recursivelySetSeed(new Dynamic<>(nbtRegOps, tag), seed, new HashSet<>())
-                    )
+        ServerWorld originalWorld = (ServerWorld) getWorld();
+        long seed = options.getSeed().orElse(originalWorld.getSeed());
+        AccessorLevelProperties levelProperties = (AccessorLevelProperties)
+            originalWorld.getServer().getSaveProperties();
+        GeneratorOptions originalOpts = levelProperties.getGeneratorOptions();
+        RegistryKey<World> worldRegKey = originalWorld.getRegistryKey();
+
+        RegenWorker worker = REGEN_WORKERS.acquire(worldRegKey, seed, originalOpts,
+            () -> createRegenWorker(originalWorld, originalOpts, seed));
+        boolean reusable = false;
+        try {
+            levelProperties.setGeneratorOptions(worker.generatorOptions);
+            try {
+                regenForWorld(region, extent, worker.world, options);
+
+                // drive the server executor until all tasks are popped off
+                while (originalWorld.getServer().runTask()) {
+                    Thread.yield();
+                }
+            } finally {
+                levelProperties.setGeneratorOptions(originalOpts);
+            }
+            reusable = true;
+        } finally {
+            REGEN_WORKERS.release(worker, region.getChunks().size(), reusable);
+        }
+    }
+
+    private RegenWorker createRegenWorker(ServerWorld originalWorld, GeneratorOptions originalOpts,
+                                          long seed) throws IOException {
+        RegistryOps<Tag> nbtRegOps = RegistryOps.of(
+            NbtOps.INSTANCE,
+            ((ExtendedMinecraftServer) originalWorld.getServer())
+                .getServerResourceManager().getResourceManager(),
+            (DynamicRegistryManager.Impl) originalWorld.getServer().getRegistryManager()
+        );
+        GeneratorOptions newOpts = GeneratorOptions.CODEC
+            .encodeStart(nbtRegOps, originalOpts)
+            .flatMap(tag ->
+                GeneratorOptions.CODEC.parse(
+                    recursivelySetSeed(new Dynamic<>(nbtRegOps, tag), seed, new HashSet<>())
                 )
-                .get().map(
-                    l -> l,
-                    error -> {
-                        throw new IllegalStateException("Unable to map GeneratorOptions: " + error.message());
-                    }
-                );
+            )
+            .get().map(
+                l -> l,
+                error -> {
+                    throw new IllegalStateException("Unable to map GeneratorOptions: " + error.message());
+                }
+            );
 
+        RegistryKey<World> worldRegKey = originalWorld.getRegistryKey();
+        DimensionOptions dimGenOpts = newOpts.getDimensions().get(worldRegKey.getValue());
+        checkNotNull(dimGenOpts, "No DimensionOptions for %s", worldRegKey);
+
+        Path tempDir = Files.createTempDirectory("WorldEditWorldGen");
+        LevelStorage.Session session = null;
+        AccessorLevelProperties levelProperties = (AccessorLevelProperties)
+            originalWorld.getServer().getSaveProperties();
+        try {
+            session = LevelStorage.create(tempDir).createSession("WorldEditTempGen");
             levelProperties.setGeneratorOptions(newOpts);
-            RegistryKey<World> worldRegKey = originalWorld.getRegistryKey();
-            DimensionOptions dimGenOpts = newOpts.getDimensions().get(worldRegKey.getValue());
-            checkNotNull(dimGenOpts, "No DimensionOptions for %s", worldRegKey);
-            try (ServerWorld serverWorld = new ServerWorld(
+            ServerWorld serverWorld = new ServerWorld(
                 originalWorld.getServer(), Util.getMainWorkerExecutor(), session,
                 ((ServerWorldProperties) originalWorld.getLevelProperties()),
                 worldRegKey,
@@ -358,19 +399,60 @@ private void doRegen(Region region, Extent extent, RegenOptions options) throws
                 ImmutableList.of(),
                 // This controls ticking, we don't need it so set it to false.
                 false
-            )) {
-                regenForWorld(region, extent, serverWorld, options);
+            );
+            return new RegenWorker(tempDir, session, serverWorld, newOpts);
+        } catch (Throwable t) {
+            if (session != null) {
+                session.close();
+            }
+            SafeFiles.tryHardToDeleteDir(tempDir);
+            throw t;
+        } finally {
+            levelProperties.setGeneratorOptions(originalOpts);
+        }
+    }
 
-                // drive the server executor until all tasks are popped off
-                while (originalWorld.getServer().runTask()) {
-                    Thread.yield();
-                }
+    /**
+     * Close idle regeneration worlds that have not been used in a while.
+     */
+    static void closeExpiredRegenWorkers() {
+        REGEN_WORKERS.closeExpired();
+    }
+
+    /**
+     * Close all idle regeneration worlds.
+     */
+    static void closeRegenWorkers() {
+        REGEN_WORKERS.closeAll();
+    }
+
+    /**
+     * A generator world kept around between regenerations.
+     */
+    private static final class RegenWorker implements Closeable {
+
+        private final Path tempDir;
+        private final LevelStorage.Session session;
+        private final ServerWorld world;
+        private final GeneratorOptions generatorOptions;
+
+        private RegenWorker(Path tempDir, LevelStorage.Session session, ServerWorld world,
+                            GeneratorOptions generatorOptions) {
+            this.tempDir = tempDir;
+            this.session = session;
+            this.world = world;
+            this.generatorOptions = generatorOptions;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (LevelStorage.Session ignored = session) {
+                world.close();
             } finally {
-                levelProperties.setGeneratorOptions(originalOpts);
+                SafeFiles.tryHardToDeleteDir(tempDir);
             }
-        } finally {
-            SafeFiles.tryHardToDeleteDir(tempDir);
         }
+
     }
 
     @SuppressWarnings("unchecked")
@@ -576,9 +658,14 @@ public BlockVector3 getSpawnPosition() {
 
     @Override
     public BlockState getBlock(BlockVector3 position) {
+        return getBlock(position.getBlockX(), position.getBlockY(), position.getBlockZ());
+    }
+
+    @Override
+    public BlockState getBlock(int x, int y, int z) {
         net.minecraft.block.BlockState mcState = getWorld()
-                .getChunk(position.getBlockX() >> 4, position.getBlockZ() >> 4)
-                .getBlockState(FabricAdapter.toBlockPos(position));
+                .getChunk(x >> 4, z >> 4)
+                .getBlockState(new BlockPos(x, y, z));
 
         BlockState matchingBlock = BlockStateIdAccess.getBlockStateById(Block.getRawIdFromState(mcState));
         if (matchingBlock != null) {
@@ -590,16 +677,21 @@ public BlockState getBlock(BlockVector3 position) {
 
     @Override
     public BaseBlock getFullBlock(BlockVector3 position) {
-        BlockPos pos = new BlockPos(position.getBlockX(), position.getBlockY(), position.getBlockZ());
+        return getFullBlock(position.getBlockX(), position.getBlockY(), position.getBlockZ());
+    }
+
+    @Override
+    public BaseBlock getFullBlock(int x, int y, int z) {
+        BlockPos pos = new BlockPos(x, y, z);
         // Avoid creation by using the CHECK mode -- if it's needed, it'll be re-created anyways
         BlockEntity tile = ((WorldChunk) getWorld().getChunk(pos)).getBlockEntity(pos, WorldChunk.CreationType.CHECK);
 
         if (tile != null) {
             net.minecraft.nbt.CompoundTag tag = new net.minecraft.nbt.CompoundTag();
             tile.toTag(tag);
-            return getBlock(position).toBaseBlock(NBTConverter.fromNative(tag));
+            return getBlock(x, y, z).toBaseBlock(NBTConverter.fromNative(tag));
         } else {
-            return getBlock(position).toBaseBlock();
+            return getBlock(x, y, z).toBaseBlock();
         }
     }
 
@@ -113,6 +113,7 @@ public void onInitialize() {
         WECUIPacketHandler.init();
 
         ServerTickEvents.END_SERVER_TICK.register(ThreadSafeCache.getInstance());
+        ServerTickEvents.END_SERVER_TICK.register(server -> FabricWorld.closeExpiredRegenWorkers());
         CommandRegistrationCallback.EVENT.register(this::registerCommands);
         ServerLifecycleEvents.SERVER_STARTED.register(this::onStartServer);
         ServerLifecycleEvents.SERVER_STOPPING.register(this::onStopServer);
@@ -201,6 +202,7 @@ private void onStartServer(MinecraftServer minecraftServer) {
     }
 
     private void onStopServer(MinecraftServer minecraftServer) {
+        FabricWorld.closeRegenWorkers();
         WorldEdit worldEdit = WorldEdit.getInstance();
         worldEdit.getSessionManager().unload();
         worldEdit.getPlatformManager().unregister(platform);
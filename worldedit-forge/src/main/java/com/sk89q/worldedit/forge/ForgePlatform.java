@@ -31,6 +31,7 @@
 import com.sk89q.worldedit.util.SideEffect;
 import com.sk89q.worldedit.util.io.ResourceLoader;
 import com.sk89q.worldedit.world.DataFixer;
+import com.sk89q.worldedit.world.MemoizingDataFixer;
 import com.sk89q.worldedit.world.World;
 import com.sk89q.worldedit.world.registry.Registries;
 import net.minecraft.command.Commands;
@@ -61,7 +62,7 @@ class ForgePlatform extends AbstractPlatform implements MultiUserPlatform {
 
     private final ForgeWorldEdit mod;
     private final MinecraftServer server;
-    private final ForgeDataFixer dataFixer;
+    private final DataFixer dataFixer;
     private final @Nullable ForgeWatchdog watchdog;
     private boolean hookingEvents = false;
     private final ResourceLoader resourceLoader = new ForgeResourceLoader(WorldEdit.getInstance());
@@ -69,7 +70,7 @@ class ForgePlatform extends AbstractPlatform implements MultiUserPlatform {
     ForgePlatform(ForgeWorldEdit mod) {
         this.mod = mod;
         this.server = ServerLifecycleHooks.getCurrentServer();
-        this.dataFixer = new ForgeDataFixer(getDataVersion());
+        this.dataFixer = MemoizingDataFixer.wrap(new ForgeDataFixer(getDataVersion()));
         this.watchdog = server instanceof DedicatedServer
             ? new ForgeWatchdog((DedicatedServer) server) : null;
     }
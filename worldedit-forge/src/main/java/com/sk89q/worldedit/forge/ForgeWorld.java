@@ -43,6 +43,7 @@
 import com.sk89q.worldedit.internal.Constants;
 import com.sk89q.worldedit.internal.block.BlockStateIdAccess;
 import com.sk89q.worldedit.internal.util.BiomeMath;
+import com.sk89q.worldedit.internal.util.RegenWorkerPool;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.math.Vector3;
@@ -102,6 +103,8 @@
 import net.minecraft.world.storage.SaveFormat;
 import net.minecraft.world.storage.ServerWorldInfo;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -118,6 +121,7 @@
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -129,6 +133,8 @@
 public class ForgeWorld extends AbstractWorld {
 
     private static final Random random = new Random();
+    private static final RegenWorkerPool<RegenWorker> REGEN_WORKERS =
+        new RegenWorkerPool<>(2, 5, TimeUnit.MINUTES, 1024);
 
     private static ResourceLocation getDimensionRegistryKey(World world) {
         return Objects.requireNonNull(world.getServer(), "server cannot be null")
@@ -230,6 +236,13 @@ public BiomeType getBiome(BlockVector3 position) {
         return getBiomeInChunk(position, chunk);
     }
 
+    @Override
+    public BiomeType getBiome(int x, int y, int z) {
+        IChunk chunk = getWorld().getChunk(x >> 4, z >> 4);
+        BiomeContainer biomes = checkNotNull(chunk.getBiomes());
+        return ForgeAdapter.adapt(biomes.getNoiseBiome(x >> 2, y >> 2, z >> 2));
+    }
+
     private BiomeType getBiomeInChunk(BlockVector3 position, IChunk chunk) {
         BiomeContainer biomes = checkNotNull(chunk.getBiomes());
         return ForgeAdapter.adapt(biomes.getNoiseBiome(position.getX() >> 2, position.getY() >> 2, position.getZ() >> 2));
@@ -322,41 +335,69 @@ public boolean regenerate(Region region, Extent extent, RegenOptions options) {
     }
 
     private void doRegen(Region region, Extent extent, RegenOptions options) throws Exception {
-        Path tempDir = Files.createTempDirectory("WorldEditWorldGen");
-        SaveFormat levelStorage = SaveFormat.func_237269_a_(tempDir);
-        try (SaveFormat.LevelSave session = levelStorage.func_237274_c_("WorldEditTempGen")) {
-            ServerWorld originalWorld = (ServerWorld) getWorld();
-            long seed = options.getSeed().orElse(originalWorld.getSeed());
-            ServerWorldInfo levelProperties =
-                (ServerWorldInfo) originalWorld.getServer().func_240793_aU_();
-            DimensionGeneratorSettings originalOpts = levelProperties.field_237343_c_;
-
-            WorldSettingsImport<INBT> nbtRegOps = WorldSettingsImport.func_244335_a(
-                NBTDynamicOps.INSTANCE,
-                originalWorld.getServer().getDataPackRegistries().func_240970_h_(),
-                (DynamicRegistries.Impl) originalWorld.getServer().func_244267_aX()
-            );
-            Codec<DimensionGeneratorSettings> dimCodec = DimensionGeneratorSettings.field_236201_a_;
-            DimensionGeneratorSettings newOpts = dimCodec
-                .encodeStart(nbtRegOps, originalOpts)
-                .flatMap(tag ->
-                    dimCodec.parse(
-                        recursivelySetSeed(new Dynamic<>(nbtRegOps, tag), seed, new HashSet<>())
-                    )
+        ServerWorld originalWorld = (ServerWorld) getWorld();
+        long seed = options.getSeed().orElse(originalWorld.getSeed());
+        ServerWorldInfo levelProperties =
+            (ServerWorldInfo) originalWorld.getServer().func_240793_aU_();
+        DimensionGeneratorSettings originalOpts = levelProperties.field_237343_c_;
+        RegistryKey<World> worldRegKey = originalWorld.func_234923_W_();
+
+        RegenWorker worker = REGEN_WORKERS.acquire(worldRegKey, seed, originalOpts,
+            () -> createRegenWorker(originalWorld, originalOpts, seed));
+        boolean reusable = false;
+        try {
+            levelProperties.field_237343_c_ = worker.generatorOptions;
+            try {
+                regenForWorld(region, extent, worker.world, options);
+
+                // drive the server executor until all tasks are popped off
+                while (originalWorld.getServer().driveOne()) {
+                    Thread.yield();
+                }
+            } finally {
+                levelProperties.field_237343_c_ = originalOpts;
+            }
+            reusable = true;
+        } finally {
+            REGEN_WORKERS.release(worker, region.getChunks().size(), reusable);
+        }
+    }
+
+    private RegenWorker createRegenWorker(ServerWorld originalWorld, DimensionGeneratorSettings originalOpts,
+                                          long seed) throws IOException {
+        WorldSettingsImport<INBT> nbtRegOps = WorldSettingsImport.func_244335_a(
+            NBTDynamicOps.INSTANCE,
+            originalWorld.getServer().getDataPackRegistries().func_240970_h_(),
+            (DynamicRegistries.Impl) originalWorld.getServer().func_244267_aX()
+        );
+        Codec<DimensionGeneratorSettings> dimCodec = DimensionGeneratorSettings.field_236201_a_;
+        DimensionGeneratorSettings newOpts = dimCodec
+            .encodeStart(nbtRegOps, originalOpts)
+            .flatMap(tag ->
+                dimCodec.parse(
+                    recursivelySetSeed(new Dynamic<>(nbtRegOps, tag), seed, new HashSet<>())
                 )
-                .get().map(
-                    l -> l,
-                    error -> {
-                        throw new IllegalStateException("Unable to map GeneratorOptions: " + error.message());
-                    }
-                );
+            )
+            .get().map(
+                l -> l,
+                error -> {
+                    throw new IllegalStateException("Unable to map GeneratorOptions: " + error.message());
+                }
+            );
 
+        RegistryKey<World> worldRegKey = originalWorld.func_234923_W_();
+        Dimension dimGenOpts = newOpts.func_236224_e_()
+            .getOrDefault(worldRegKey.func_240901_a_());
+        checkNotNull(dimGenOpts, "No DimensionOptions for %s", worldRegKey);
+
+        Path tempDir = Files.createTempDirectory("WorldEditWorldGen");
+        SaveFormat.LevelSave session = null;
+        ServerWorldInfo levelProperties =
+            (ServerWorldInfo) originalWorld.getServer().func_240793_aU_();
+        try {
+            session = SaveFormat.func_237269_a_(tempDir).func_237274_c_("WorldEditTempGen");
             levelProperties.field_237343_c_ = newOpts;
-            RegistryKey<World> worldRegKey = originalWorld.func_234923_W_();
-            Dimension dimGenOpts = newOpts.func_236224_e_()
-                .getOrDefault(worldRegKey.func_240901_a_());
-            checkNotNull(dimGenOpts, "No DimensionOptions for %s", worldRegKey);
-            try (ServerWorld serverWorld = new ServerWorld(
+            ServerWorld serverWorld = new ServerWorld(
                 originalWorld.getServer(), Util.getServerExecutor(), session,
                 ((IServerWorldInfo) originalWorld.getWorldInfo()),
                 worldRegKey,
@@ -369,19 +410,60 @@ private void doRegen(Region region, Extent extent, RegenOptions options) throws
                 ImmutableList.of(),
                 // This controls ticking, we don't need it so set it to false.
                 false
-            )) {
-                regenForWorld(region, extent, serverWorld, options);
+            );
+            return new RegenWorker(tempDir, session, serverWorld, newOpts);
+        } catch (Throwable t) {
+            if (session != null) {
+                session.close();
+            }
+            SafeFiles.tryHardToDeleteDir(tempDir);
+            throw t;
+        } finally {
+            levelProperties.field_237343_c_ = originalOpts;
+        }
+    }
 
-                // drive the server executor until all tasks are popped off
-                while (originalWorld.getServer().driveOne()) {
-                    Thread.yield();
-                }
+    /**
+     * Close idle regeneration worlds that have not been used in a while.
+     */
+    static void closeExpiredRegenWorkers() {
+        REGEN_WORKERS.closeExpired();
+    }
+
+    /**
+     * Close all idle regeneration worlds.
+     */
+    static void closeRegenWorkers() {
+        REGEN_WORKERS.closeAll();
+    }
+
+    /**
+     * A generator world kept around between regenerations.
+     */
+    private static final class RegenWorker implements Closeable {
+
+        private final Path tempDir;
+        private final SaveFormat.LevelSave session;
+        private final ServerWorld world;
+        private final DimensionGeneratorSettings generatorOptions;
+
+        private RegenWorker(Path tempDir, SaveFormat.LevelSave session, ServerWorld world,
+                            DimensionGeneratorSettings generatorOptions) {
+            this.tempDir = tempDir;
+            this.session = session;
+            this.world = world;
+            this.generatorOptions = generatorOptions;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (SaveFormat.LevelSave ignored = session) {
+                world.close();
             } finally {
-                levelProperties.field_237343_c_ = originalOpts;
+                SafeFiles.tryHardToDeleteDir(tempDir);
             }
-        } finally {
-            SafeFiles.tryHardToDeleteDir(tempDir);
         }
+
     }
 
     @SuppressWarnings("unchecked")
@@ -587,9 +669,14 @@ public BlockVector3 getSpawnPosition() {
 
     @Override
     public BlockState getBlock(BlockVector3 position) {
+        return getBlock(position.getBlockX(), position.getBlockY(), position.getBlockZ());
+    }
+
+    @Override
+    public BlockState getBlock(int x, int y, int z) {
         net.minecraft.block.BlockState mcState = getWorld()
-                .getChunk(position.getBlockX() >> 4, position.getBlockZ() >> 4)
-                .getBlockState(ForgeAdapter.toBlockPos(position));
+                .getChunk(x >> 4, z >> 4)
+                .getBlockState(new BlockPos(x, y, z));
 
         BlockState matchingBlock = BlockStateIdAccess.getBlockStateById(Block.getStateId(mcState));
         if (matchingBlock != null) {
@@ -601,13 +688,18 @@ public BlockState getBlock(BlockVector3 position) {
 
     @Override
     public BaseBlock getFullBlock(BlockVector3 position) {
-        BlockPos pos = new BlockPos(position.getBlockX(), position.getBlockY(), position.getBlockZ());
+        return getFullBlock(position.getBlockX(), position.getBlockY(), position.getBlockZ());
+    }
+
+    @Override
+    public BaseBlock getFullBlock(int x, int y, int z) {
+        BlockPos pos = new BlockPos(x, y, z);
         TileEntity tile = getWorld().getChunk(pos).getTileEntity(pos);
 
         if (tile != null) {
-            return getBlock(position).toBaseBlock(NBTConverter.fromNative(TileEntityUtils.copyNbtData(tile)));
+            return getBlock(x, y, z).toBaseBlock(NBTConverter.fromNative(TileEntityUtils.copyNbtData(tile)));
         } else {
-            return getBlock(position).toBaseBlock();
+            return getBlock(x, y, z).toBaseBlock();
         }
     }
 
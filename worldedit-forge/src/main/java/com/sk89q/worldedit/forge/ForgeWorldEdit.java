@@ -48,6 +48,7 @@
 import net.minecraft.world.World;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.event.CommandEvent;
+import net.minecraftforge.event.TickEvent;
 import net.minecraftforge.event.entity.player.PlayerInteractEvent;
 import net.minecraftforge.event.entity.player.PlayerInteractEvent.LeftClickEmpty;
 import net.minecraftforge.eventbus.api.Event;
@@ -197,11 +198,19 @@ public void serverAboutToStart(FMLServerAboutToStartEvent event) {
 
     @SubscribeEvent
     public void serverStopping(FMLServerStoppingEvent event) {
+        ForgeWorld.closeRegenWorkers();
         WorldEdit worldEdit = WorldEdit.getInstance();
         worldEdit.getSessionManager().unload();
         worldEdit.getPlatformManager().unregister(platform);
     }
 
+    @SubscribeEvent
+    public void serverTick(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.END) {
+            ForgeWorld.closeExpiredRegenWorkers();
+        }
+    }
+
     @SubscribeEvent
     public void serverStarted(FMLServerStartedEvent event) {
         setupPlatform();
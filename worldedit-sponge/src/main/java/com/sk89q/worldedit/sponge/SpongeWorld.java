@@ -211,6 +211,11 @@ public BiomeType getBiome(BlockVector3 position) {
         return SpongeAdapter.adapt(getWorld().getBiome(position.getBlockX(), position.getBlockY(), position.getBlockZ()));
     }
 
+    @Override
+    public BiomeType getBiome(int x, int y, int z) {
+        return SpongeAdapter.adapt(getWorld().getBiome(x, y, z));
+    }
+
     @Override
     public boolean setBiome(BlockVector3 position, BiomeType biome) {
         checkNotNull(position);
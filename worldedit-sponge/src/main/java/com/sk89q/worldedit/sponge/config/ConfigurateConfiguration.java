@@ -23,6 +23,7 @@
 import com.sk89q.worldedit.LocalConfiguration;
 import com.sk89q.worldedit.LocalSession;
 import com.sk89q.worldedit.session.SessionManager;
+import com.sk89q.worldedit.util.metrics.PerformanceMetrics;
 import com.sk89q.worldedit.util.report.Unreported;
 import com.sk89q.worldedit.world.registry.LegacyMapper;
 import ninja.leaping.configurate.ConfigurationOptions;
@@ -119,13 +120,18 @@ public void load() {
         allowSymlinks = node.getNode("files", "allow-symbolic-links").getBoolean(false);
         LocalSession.MAX_HISTORY_SIZE = Math.max(0, node.getNode("history", "size").getInt(15));
         SessionManager.EXPIRATION_GRACE = node.getNode("history", "expiration").getInt(10) * 60 * 1000;
+        SessionManager.setHistoryMemoryLimits(node.getNode("history", "memory-budget").getInt(0),
+            node.getNode("history", "player-soft-limit").getInt(-1));
+        PerformanceMetrics.configure(node.getNode("perf", "enabled").getBoolean(false),
+            node.getNode("perf", "slow-edit-log-threshold").getInt(1000));
 
         showHelpInfo = node.getNode("show-help-on-first-use").getBoolean(true);
         serverSideCUI = node.getNode("server-side-cui").getBoolean(true);
 
         String snapshotsDir = node.getNode("snapshots", "directory").getString("");
         boolean experimentalSnapshots = node.getNode("snapshots", "experimental").getBoolean(false);
-        initializeSnapshotConfiguration(snapshotsDir, experimentalSnapshots);
+        boolean deduplicateSnapshots = node.getNode("snapshots", "deduplicate").getBoolean(false);
+        initializeSnapshotConfiguration(snapshotsDir, experimentalSnapshots, deduplicateSnapshots);
 
         String type = node.getNode("shell-save-type").getString("").trim();
         shellSaveType = type.equals("") ? null : type;